@@ -30,6 +30,8 @@ public class TableManipulation implements Cloneable {
 
    private String identifierQuoteString;
    private String cacheName;
+   private boolean timestampIndexed;
+   private boolean segmented;
    TableManipulationConfiguration config;
 
    /*
@@ -40,6 +42,8 @@ public class TableManipulation implements Cloneable {
    /* Cache the sql for managing data */
    private String insertRowSql;
    private String updateRowSql;
+   private String upsertRowSql;
+   private boolean upsertRowSqlResolved;
    private String selectRowSql;
    private String selectIdRowSql;
    private String deleteRowSql;
@@ -52,6 +56,10 @@ public class TableManipulation implements Cloneable {
    public DatabaseType databaseType;
    private String loadAllKeysBinarySql;
    private String loadAllKeysStringSql;
+   private String selectSegmentsSql;
+   private String loadSegmentRowsSql;
+   private String loadSegmentKeysSql;
+   private String deleteSegmentRowsSql;
 
    private TableName tableName;
 
@@ -96,12 +104,36 @@ public void createTable(Connection conn) throws CacheLoaderException {
       assertMandatoryElementsPresent();
       String createTableDdl = "CREATE TABLE " + getTableName() + "(" + config.idColumnName() + " " + config.idColumnType()
             + " NOT NULL, " + config.dataColumnName() + " " + config.dataColumnType() + ", "
-            + config.timestampColumnName() + " " + config.timestampColumnType() +
-            ", PRIMARY KEY (" + config.idColumnName() + "))";
+            + config.timestampColumnName() + " " + config.timestampColumnType()
+            + (segmented ? ", " + config.segmentColumnName() + " " + config.segmentColumnType() : "")
+            + ", PRIMARY KEY (" + config.idColumnName() + "))";
       if (log.isTraceEnabled()) {
          log.tracef("Creating table with following DDL: '%s'.", createTableDdl);
       }
       executeUpdateSql(conn, createTableDdl);
+      if (timestampIndexed) {
+         String createIndexDdl = "CREATE INDEX " + getTimestampIndexName() + " ON " + getTableName() + " (" + config.timestampColumnName() + ")";
+         if (log.isTraceEnabled()) {
+            log.tracef("Creating index with following DDL: '%s'.", createIndexDdl);
+         }
+         executeUpdateSql(conn, createIndexDdl);
+      }
+      if (segmented) {
+         String createIndexDdl = "CREATE INDEX " + getIndexName(config.segmentColumnName()) + " ON " + getTableName() + " (" + config.segmentColumnName() + ")";
+         if (log.isTraceEnabled()) {
+            log.tracef("Creating index with following DDL: '%s'.", createIndexDdl);
+         }
+         executeUpdateSql(conn, createIndexDdl);
+      }
+   }
+
+   private String getTimestampIndexName() {
+      return getIndexName(config.timestampColumnName());
+   }
+
+   private String getIndexName(String columnName) {
+      String quote = getIdentifierQuoteString();
+      return quote + getTableName().getName() + "_" + columnName + "_IDX" + quote;
    }
 
    private void assertMandatoryElementsPresent() throws CacheLoaderException {
@@ -164,13 +196,26 @@ public void stop() throws CacheLoaderException {
       }
    }
 
+   /**
+    * Returns the statement inserting a row. The parameters are bound in the following order: data, timestamp, id and,
+    * if the table is {@link #isSegmented() segmented}, segment.
+    */
    public String getInsertRowSql() {
       if (insertRowSql == null) {
-         insertRowSql = "INSERT INTO " + getTableName() + " (" + config.dataColumnName() + ", " + config.timestampColumnName() + ", " + config.idColumnName() + ") VALUES(?,?,?)";
+         insertRowSql = "INSERT INTO " + getTableName() + " (" + getInsertColumns() + ") VALUES(" + getInsertParameters() + ")";
       }
       return insertRowSql;
    }
 
+   private String getInsertColumns() {
+      String columns = config.dataColumnName() + ", " + config.timestampColumnName() + ", " + config.idColumnName();
+      return segmented ? columns + ", " + config.segmentColumnName() : columns;
+   }
+
+   private String getInsertParameters() {
+      return segmented ? "?,?,?,?" : "?,?,?";
+   }
+
    public String getUpdateRowSql() {
       if (updateRowSql == null) {
          switch(getDatabaseType()) {
@@ -188,6 +233,64 @@ public String getUpdateRowSql() {
       return updateRowSql;
    }
 
+   /**
+    * Returns a single statement which inserts a row or, if a row with the same id already exists, updates it. The
+    * parameters are bound in the same order as for {@link #getInsertRowSql()}: data, timestamp, id and, if the table is
+    * segmented, segment. The segment of an existing row is never updated, as it only depends on the key. Returns <tt>null</tt> for the databases which do not provide such a statement, in which case the
+    * store falls back to selecting the id first and then inserting or updating the row.
+    */
+   public String getUpsertRowSql() {
+      if (!upsertRowSqlResolved) {
+         String data = config.dataColumnName();
+         String timestamp = config.timestampColumnName();
+         String id = config.idColumnName();
+         String columns = getInsertColumns();
+         String parameters = getInsertParameters();
+         switch (getDatabaseType()) {
+            case MYSQL:
+               upsertRowSql = String.format("INSERT INTO %s (%s) VALUES(%s) ON DUPLICATE KEY UPDATE %s = VALUES(%s), %s = VALUES(%s)",
+                     getTableName(), columns, parameters, data, data, timestamp, timestamp);
+               break;
+            case POSTGRES:
+               upsertRowSql = String.format("INSERT INTO %s (%s) VALUES(%s) ON CONFLICT (%s) DO UPDATE SET %s = EXCLUDED.%s, %s = EXCLUDED.%s",
+                     getTableName(), columns, parameters, id, data, data, timestamp, timestamp);
+               break;
+            case H2:
+               upsertRowSql = String.format("MERGE INTO %s (%s) KEY(%s) VALUES(%s)",
+                     getTableName(), columns, id, parameters);
+               break;
+            case ORACLE: {
+               String selected = "? " + data + ", ? " + timestamp + ", ? " + id + (segmented ? ", ? " + config.segmentColumnName() : "");
+               upsertRowSql = String.format("MERGE INTO %1$s t USING (SELECT %5$s FROM dual) s ON (t.%4$s = s.%4$s) " +
+                     "WHEN MATCHED THEN UPDATE SET t.%2$s = s.%2$s, t.%3$s = s.%3$s " +
+                     "WHEN NOT MATCHED THEN INSERT (%6$s) VALUES (%7$s)",
+                     getTableName(), data, timestamp, id, selected, columns, getSourceColumns());
+               break;
+            }
+            case SQL_SERVER:
+               upsertRowSql = String.format("MERGE %1$s WITH (HOLDLOCK) AS t USING (VALUES (%5$s)) AS s (%6$s) ON (t.%4$s = s.%4$s) " +
+                     "WHEN MATCHED THEN UPDATE SET %2$s = s.%2$s, %3$s = s.%3$s " +
+                     "WHEN NOT MATCHED THEN INSERT (%6$s) VALUES (%7$s);",
+                     getTableName(), data, timestamp, id, parameters, columns, getSourceColumns());
+               break;
+            default:
+               upsertRowSql = null;
+               break;
+         }
+         upsertRowSqlResolved = true;
+      }
+      return upsertRowSql;
+   }
+
+   private String getSourceColumns() {
+      String columns = "s." + config.dataColumnName() + ", s." + config.timestampColumnName() + ", s." + config.idColumnName();
+      return segmented ? columns + ", s." + config.segmentColumnName() : columns;
+   }
+
+   public boolean isUpsertSupported() {
+      return getUpsertRowSql() != null;
+   }
+
    public String getSelectRowSql() {
       if (selectRowSql == null) {
          switch(getDatabaseType()) {
@@ -300,6 +403,59 @@ public void setCacheName(String cacheName) {
       tableName = null;
    }
 
+   /**
+    * Whether an index should be created on the timestamp column along with the table, so that purging the expired
+    * rows through {@link #getDeleteExpiredRowsSql()} is a ranged scan rather than a full table scan.
+    */
+   public void setTimestampIndexed(boolean timestampIndexed) {
+      this.timestampIndexed = timestampIndexed;
+   }
+
+   /**
+    * Whether the segment of the keys should be stored in the configured segment column, so that the rows of a segment
+    * can be selected or deleted through the statements returned by {@link #getLoadSegmentRowsSql()},
+    * {@link #getLoadSegmentKeysSql()} and {@link #getDeleteSegmentRowsSql()}. Has no effect if no segment column is
+    * configured.
+    */
+   public void setSegmented(boolean segmented) {
+      this.segmented = segmented && config.segmentColumnName() != null;
+      insertRowSql = null;
+      upsertRowSql = null;
+      upsertRowSqlResolved = false;
+   }
+
+   public boolean isSegmented() {
+      return segmented;
+   }
+
+   public String getSelectSegmentsSql() {
+      if (selectSegmentsSql == null) {
+         selectSegmentsSql = String.format("SELECT DISTINCT %s FROM %s", config.segmentColumnName(), getTableName());
+      }
+      return selectSegmentsSql;
+   }
+
+   public String getLoadSegmentRowsSql() {
+      if (loadSegmentRowsSql == null) {
+         loadSegmentRowsSql = String.format("SELECT %s, %s FROM %s WHERE %s = ?", config.dataColumnName(), config.idColumnName(), getTableName(), config.segmentColumnName());
+      }
+      return loadSegmentRowsSql;
+   }
+
+   public String getLoadSegmentKeysSql() {
+      if (loadSegmentKeysSql == null) {
+         loadSegmentKeysSql = String.format("SELECT %s FROM %s WHERE %s = ?", config.idColumnName(), getTableName(), config.segmentColumnName());
+      }
+      return loadSegmentKeysSql;
+   }
+
+   public String getDeleteSegmentRowsSql() {
+      if (deleteSegmentRowsSql == null) {
+         deleteSegmentRowsSql = String.format("DELETE FROM %s WHERE %s = ?", getTableName(), config.segmentColumnName());
+      }
+      return deleteSegmentRowsSql;
+   }
+
    public boolean isVariableLimitSupported() {
       DatabaseType type = getDatabaseType();
       return !(type == DatabaseType.DB2_390 || type == DatabaseType.SYBASE);
@@ -358,7 +514,8 @@ public String getLoadAllKeysStringSql() {
 
    /**
     * For DB queries (e.g. {@link org.infinispan.loaders.spi.CacheStore#toStream(java.io.ObjectOutput)} ) the fetch size
-    * will be set on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional parameter, if not specified will be
+    * will be set on {@link java.sql.Statement#setFetchSize(int)} before the query is executed, so that the driver
+    * streams the rows in chunks rather than materializing the whole result set. This is optional parameter, if not specified will be
     * defaulted to {@link #DEFAULT_FETCH_SIZE}.
     */
    public int getFetchSize() {
@@ -26,6 +26,7 @@ public enum Attribute {
    PASSWORD("password"),
    PREFIX("prefix"),
    PRELOAD("true"),
+   STATEMENT_CACHE_SIZE("statementCacheSize"),
    TYPE("type"),
    USERNAME("username")
    ;
@@ -16,6 +16,7 @@ public enum Element {
     STRING_KEYED_JDBC_STORE("stringKeyedJdbcStore"),
     BINARY_KEYED_JDBC_STORE("binaryKeyedJdbcStore"),
     MIXED_KEYED_JDBC_STORE("mixedKeyedJdbcStore"),
+    MARSHALLED_KEY_JDBC_STORE("marshalledKeyJdbcStore"),
 
     CONNECTION_POOL("connectionPool"),
     DATA_SOURCE("dataSource"),
@@ -23,10 +24,12 @@ public enum Element {
 
     BINARY_KEYED_TABLE("binaryKeyedTable"),
     STRING_KEYED_TABLE("stringKeyedTable"),
+    MARSHALLED_KEY_TABLE("marshalledKeyTable"),
 
     DATA_COLUMN("dataColumn"),
     ID_COLUMN("idColumn"),
     TIMESTAMP_COLUMN("timestampColumn"),
+    SEGMENT_COLUMN("segmentColumn"),
     ;
 
     private final String name;
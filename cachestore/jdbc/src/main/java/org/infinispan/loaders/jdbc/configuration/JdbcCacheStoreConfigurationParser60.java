@@ -29,6 +29,8 @@
    @Namespace(root = "binaryKeyedJdbcStore"),
    @Namespace(uri = "urn:infinispan:config:jdbc:6.0", root = "mixedKeyedJdbcStore"),
    @Namespace(root = "mixedKeyedJdbcStore"),
+   @Namespace(uri = "urn:infinispan:config:jdbc:6.0", root = "marshalledKeyJdbcStore"),
+   @Namespace(root = "marshalledKeyJdbcStore"),
 })
 public class JdbcCacheStoreConfigurationParser60 implements ConfigurationParser {
 
@@ -54,6 +56,10 @@ public void readElement(final XMLExtendedStreamReader reader, final Configuratio
          parseMixedKeyedJdbcStore(reader, builder.loaders());
          break;
       }
+      case MARSHALLED_KEY_JDBC_STORE: {
+         parseMarshalledKeyJdbcStore(reader, builder.loaders());
+         break;
+      }
       default: {
          throw ParseUtils.unexpectedElement(reader);
       }
@@ -113,6 +119,27 @@ private void parseBinaryKeyedJdbcStore(XMLExtendedStreamReader reader, LoadersCo
       loadersBuilder.addStore(builder);
    }
 
+   private void parseMarshalledKeyJdbcStore(XMLExtendedStreamReader reader, LoadersConfigurationBuilder loadersBuilder)
+         throws XMLStreamException {
+      JdbcMarshalledKeyCacheStoreConfigurationBuilder builder = new JdbcMarshalledKeyCacheStoreConfigurationBuilder(
+            loadersBuilder);
+      parseCommonJdbcStoreAttributes(reader, builder);
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Element element = Element.forName(reader.getLocalName());
+         switch (element) {
+         case MARSHALLED_KEY_TABLE: {
+            parseTable(reader, builder.table());
+            break;
+         }
+         default: {
+            parseCommonJdbcStoreElements(reader, element, builder);
+            break;
+         }
+         }
+      }
+      loadersBuilder.addStore(builder);
+   }
+
    private void parseCommonJdbcStoreElements(XMLExtendedStreamReader reader, Element element, AbstractJdbcCacheStoreConfigurationBuilder<?, ?> builder) throws XMLStreamException {
       switch (element) {
       case CONNECTION_POOL: {
@@ -166,6 +193,10 @@ private void parseConnectionPoolAttributes(XMLExtendedStreamReader reader,
             builder.password(value);
             break;
          }
+         case STATEMENT_CACHE_SIZE: {
+            builder.statementCacheSize(Integer.parseInt(value));
+            break;
+         }
          case USERNAME: {
             builder.username(value);
             break;
@@ -302,6 +333,12 @@ private void parseTableElements(XMLExtendedStreamReader reader, TableManipulatio
             builder.timestampColumnType(column.type);
             break;
          }
+         case SEGMENT_COLUMN: {
+            Column column = parseTableElementAttributes(reader);
+            builder.segmentColumnName(column.name);
+            builder.segmentColumnType(column.type);
+            break;
+         }
          default: {
             throw ParseUtils.unexpectedElement(reader);
          }
@@ -0,0 +1,74 @@
+package org.infinispan.loaders.jdbc.configuration;
+
+import org.infinispan.configuration.cache.LoadersConfigurationBuilder;
+import org.infinispan.commons.util.TypedProperties;
+
+/**
+ * JdbcMarshalledKeyCacheStoreConfigurationBuilder.
+ *
+ * @since 6.0
+ */
+public class JdbcMarshalledKeyCacheStoreConfigurationBuilder extends
+      AbstractJdbcCacheStoreConfigurationBuilder<JdbcMarshalledKeyCacheStoreConfiguration, JdbcMarshalledKeyCacheStoreConfigurationBuilder> {
+   protected final MarshalledKeyTableManipulationConfigurationBuilder table;
+
+   public JdbcMarshalledKeyCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
+      super(builder);
+      this.table = new MarshalledKeyTableManipulationConfigurationBuilder(this);
+   }
+
+   @Override
+   public JdbcMarshalledKeyCacheStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Allows configuration of table-specific parameters such as column names and types. The id column holds the
+    * marshalled key, so its type must be a binary type which can be used as a primary key (e.g. VARBINARY).
+    */
+   public MarshalledKeyTableManipulationConfigurationBuilder table() {
+      return table;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+   }
+
+   @Override
+   public JdbcMarshalledKeyCacheStoreConfiguration create() {
+      return new JdbcMarshalledKeyCacheStoreConfiguration(table.create(), connectionFactory != null ? connectionFactory.create() : null, manageConnectionFactory, lockAcquistionTimeout, lockConcurrencyLevel, purgeOnStartup, purgeSynchronously,
+            purgerThreads, fetchPersistentState, ignoreModifications, TypedProperties.toTypedProperties(properties), async.create(), singletonStore.create());
+   }
+
+   @Override
+   public JdbcMarshalledKeyCacheStoreConfigurationBuilder read(JdbcMarshalledKeyCacheStoreConfiguration template) {
+      super.readInternal(template);
+      this.table.read(template.table());
+
+      return this;
+   }
+
+   public class MarshalledKeyTableManipulationConfigurationBuilder extends
+         TableManipulationConfigurationBuilder<JdbcMarshalledKeyCacheStoreConfigurationBuilder, MarshalledKeyTableManipulationConfigurationBuilder> {
+
+      MarshalledKeyTableManipulationConfigurationBuilder(AbstractJdbcCacheStoreConfigurationBuilder<?, JdbcMarshalledKeyCacheStoreConfigurationBuilder> builder) {
+         super(builder);
+      }
+
+      @Override
+      public PooledConnectionFactoryConfigurationBuilder<JdbcMarshalledKeyCacheStoreConfigurationBuilder> connectionPool() {
+         return JdbcMarshalledKeyCacheStoreConfigurationBuilder.this.connectionPool();
+      }
+
+      @Override
+      public ManagedConnectionFactoryConfigurationBuilder<JdbcMarshalledKeyCacheStoreConfigurationBuilder> dataSource() {
+         return JdbcMarshalledKeyCacheStoreConfigurationBuilder.this.dataSource();
+      }
+
+      @Override
+      public MarshalledKeyTableManipulationConfigurationBuilder self() {
+         return this;
+      }
+   }
+}
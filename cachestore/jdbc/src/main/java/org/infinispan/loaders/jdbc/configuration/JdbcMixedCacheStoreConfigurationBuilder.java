@@ -49,7 +49,7 @@ public JdbcMixedCacheStoreConfigurationBuilder batchSize(int batchSize) {
 
    /**
     * For DB queries (e.g. {@link org.infinispan.loaders.spi.CacheStore#toStream(java.io.ObjectOutput)}
-    * ) the fetch size will be set on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional
+    * ) the fetch size will be set on {@link java.sql.Statement#setFetchSize(int)}. This is optional
     * parameter, if not specified will be defaulted to {@link TableManipulation#DEFAULT_FETCH_SIZE}.
     */
    public JdbcMixedCacheStoreConfigurationBuilder fetchSize(int fetchSize) {
@@ -10,12 +10,18 @@ public class PooledConnectionFactoryConfiguration implements ConnectionFactoryCo
    private final String driverClass;
    private final String username;
    private final String password;
+   private final int statementCacheSize;
 
    protected PooledConnectionFactoryConfiguration(String connectionUrl, String driverClass, String username, String password) {
+      this(connectionUrl, driverClass, username, password, PooledConnectionFactory.DEFAULT_STATEMENT_CACHE_SIZE);
+   }
+
+   protected PooledConnectionFactoryConfiguration(String connectionUrl, String driverClass, String username, String password, int statementCacheSize) {
       this.connectionUrl = connectionUrl;
       this.driverClass = driverClass;
       this.username = username;
       this.password = password;
+      this.statementCacheSize = statementCacheSize;
    }
 
    public String connectionUrl() {
@@ -34,6 +40,10 @@ public String password() {
       return password;
    }
 
+   public int statementCacheSize() {
+      return statementCacheSize;
+   }
+
    @Override
    public Class<? extends ConnectionFactory> connectionFactoryClass() {
       return PooledConnectionFactory.class;
@@ -41,7 +51,7 @@ public Class<? extends ConnectionFactory> connectionFactoryClass() {
 
    @Override
    public String toString() {
-      return "PooledConnectionFactoryConfiguration [connectionUrl=" + connectionUrl + ", driverClass=" + driverClass + ", username=" + username + ", password=" + password + "]";
+      return "PooledConnectionFactoryConfiguration [connectionUrl=" + connectionUrl + ", driverClass=" + driverClass + ", username=" + username + ", password=" + password + ", statementCacheSize=" + statementCacheSize + "]";
    }
 
 }
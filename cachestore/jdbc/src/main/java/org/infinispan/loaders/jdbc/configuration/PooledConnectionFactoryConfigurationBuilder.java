@@ -3,6 +3,7 @@
 import java.sql.Driver;
 
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.loaders.jdbc.connectionfactory.PooledConnectionFactory;
 
 /**
  * PooledConnectionFactoryConfigurationBuilder.
@@ -21,6 +22,7 @@ protected PooledConnectionFactoryConfigurationBuilder(AbstractJdbcCacheStoreConf
    private String driverClass;
    private String username;
    private String password;
+   private int statementCacheSize = PooledConnectionFactory.DEFAULT_STATEMENT_CACHE_SIZE;
 
    public PooledConnectionFactoryConfigurationBuilder<S> connectionUrl(String connectionUrl) {
       this.connectionUrl = connectionUrl;
@@ -47,16 +49,29 @@ public PooledConnectionFactoryConfigurationBuilder<S> password(String password)
       return this;
    }
 
+   /**
+    * The number of prepared statements which are cached for each pooled connection, so that the statements issued
+    * repeatedly by the store are not prepared again on every operation. Setting it to 0 disables the statement cache.
+    * Defaults to {@link PooledConnectionFactory#DEFAULT_STATEMENT_CACHE_SIZE}.
+    */
+   public PooledConnectionFactoryConfigurationBuilder<S> statementCacheSize(int statementCacheSize) {
+      this.statementCacheSize = statementCacheSize;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (connectionUrl == null) {
          throw new CacheConfigurationException("Missing connectionUrl parameter");
       }
+      if (statementCacheSize < 0) {
+         throw new CacheConfigurationException("statementCacheSize cannot be negative");
+      }
    }
 
    @Override
    public PooledConnectionFactoryConfiguration create() {
-      return new PooledConnectionFactoryConfiguration(connectionUrl, driverClass, username, password);
+      return new PooledConnectionFactoryConfiguration(connectionUrl, driverClass, username, password, statementCacheSize);
    }
 
    @Override
@@ -65,6 +80,7 @@ public PooledConnectionFactoryConfigurationBuilder<S> read(PooledConnectionFacto
       this.driverClass = template.driverClass();
       this.username = template.username();
       this.password = template.password();
+      this.statementCacheSize = template.statementCacheSize();
       return this;
    }
 
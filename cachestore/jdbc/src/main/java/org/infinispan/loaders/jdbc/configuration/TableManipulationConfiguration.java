@@ -11,6 +11,8 @@ public class TableManipulationConfiguration {
    private final String dataColumnType;
    private final String timestampColumnName;
    private final String timestampColumnType;
+   private final String segmentColumnName;
+   private final String segmentColumnType;
    private final int fetchSize;
    private final int batchSize;
    private final boolean createOnStart;
@@ -19,7 +21,7 @@ public class TableManipulationConfiguration {
 
    TableManipulationConfiguration(String idColumnName, String idColumnType, String tableNamePrefix, String cacheName,
          String dataColumnName, String dataColumnType, String timestampColumnName, String timestampColumnType,
-         DatabaseType databaseType, int fetchSize, int batchSize, boolean createOnStart, boolean dropOnExit) {
+         String segmentColumnName, String segmentColumnType, DatabaseType databaseType, int fetchSize, int batchSize, boolean createOnStart, boolean dropOnExit) {
       this.idColumnName = idColumnName;
       this.idColumnType = idColumnType;
       this.tableNamePrefix = tableNamePrefix;
@@ -28,6 +30,8 @@ public class TableManipulationConfiguration {
       this.dataColumnType = dataColumnType;
       this.timestampColumnName = timestampColumnName;
       this.timestampColumnType = timestampColumnType;
+      this.segmentColumnName = segmentColumnName;
+      this.segmentColumnType = segmentColumnType;
       this.databaseType = databaseType;
       this.batchSize = batchSize;
       this.fetchSize = fetchSize;
@@ -79,6 +83,14 @@ public String timestampColumnType() {
       return timestampColumnType;
    }
 
+   public String segmentColumnName() {
+      return segmentColumnName;
+   }
+
+   public String segmentColumnType() {
+      return segmentColumnType;
+   }
+
    public int fetchSize() {
       return fetchSize;
    }
@@ -92,7 +104,8 @@ public String toString() {
       return "TableManipulationConfiguration [idColumnName=" + idColumnName + ", idColumnType=" + idColumnType
             + ", tableNamePrefix=" + tableNamePrefix + ", cacheName=" + cacheName + ", dataColumnName="
             + dataColumnName + ", dataColumnType=" + dataColumnType + ", timestampColumnName=" + timestampColumnName
-            + ", timestampColumnType=" + timestampColumnType + ", fetchSize=" + fetchSize + ", batchSize=" + batchSize
+            + ", timestampColumnType=" + timestampColumnType + ", segmentColumnName=" + segmentColumnName
+            + ", segmentColumnType=" + segmentColumnType + ", fetchSize=" + fetchSize + ", batchSize=" + batchSize
             + "]";
    }
 
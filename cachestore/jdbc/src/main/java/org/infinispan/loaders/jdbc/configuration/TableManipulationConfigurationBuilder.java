@@ -28,6 +28,8 @@
    private String dataColumnType;
    private String timestampColumnName;
    private String timestampColumnType;
+   private String segmentColumnName;
+   private String segmentColumnType;
 
    // Needs package access for validate() in JdbcMixedCacheStoreConfigurationBuilder
    String tableNamePrefix;
@@ -49,7 +51,7 @@ public S batchSize(int batchSize) {
 
    /**
     * For DB queries (e.g. {@link org.infinispan.loaders.spi.CacheStore#toStream(java.io.ObjectOutput)}
-    * ) the fetch size will be set on {@link java.sql.ResultSet#setFetchSize(int)}. This is optional
+    * ) the fetch size will be set on {@link java.sql.Statement#setFetchSize(int)}. This is optional
     * parameter, if not specified will be defaulted to {@link #DEFAULT_FETCH_SIZE}.
     */
    public S fetchSize(int fetchSize) {
@@ -139,6 +141,24 @@ public S timestampColumnType(String timestampColumnType) {
       return self();
    }
 
+   /**
+    * The name of the database column used to store the segment of the keys. The column is optional and only used by
+    * the string-based store in distributed caches, where it allows state transfer to read or remove the entries of a
+    * segment without scanning the whole table.
+    */
+   public S segmentColumnName(String segmentColumnName) {
+      this.segmentColumnName = segmentColumnName;
+      return self();
+   }
+
+   /**
+    * The type of the database column used to store the segment of the keys
+    */
+   public S segmentColumnType(String segmentColumnType) {
+      this.segmentColumnType = segmentColumnType;
+      return self();
+   }
+
    @Override
    public void validate() {
       validateIfSet("idColumnName", idColumnName);
@@ -148,6 +168,10 @@ public void validate() {
       validateIfSet("timestampColumnName", timestampColumnName);
       validateIfSet("timestampColumnType", timestampColumnType);
       validateIfSet("tableNamePrefix", tableNamePrefix);
+      if (segmentColumnName != null || segmentColumnType != null) {
+         validateIfSet("segmentColumnName", segmentColumnName);
+         validateIfSet("segmentColumnType", segmentColumnType);
+      }
    }
 
    private void validateIfSet(String name, String value) {
@@ -159,7 +183,7 @@ private void validateIfSet(String name, String value) {
    @Override
    public TableManipulationConfiguration create() {
       return new TableManipulationConfiguration(idColumnName, idColumnType, tableNamePrefix, cacheName, dataColumnName, dataColumnType, timestampColumnName, timestampColumnType,
-            databaseType, fetchSize, batchSize, createOnStart, dropOnExit);
+            segmentColumnName, segmentColumnType, databaseType, fetchSize, batchSize, createOnStart, dropOnExit);
    }
 
    @Override
@@ -175,6 +199,8 @@ public Builder<?> read(TableManipulationConfiguration template) {
       this.dataColumnType = template.dataColumnType();
       this.timestampColumnName = template.timestampColumnName();
       this.timestampColumnType = template.timestampColumnType();
+      this.segmentColumnName = template.segmentColumnName();
+      this.segmentColumnType = template.segmentColumnType();
       this.cacheName = template.cacheName();
       this.tableNamePrefix = template.tableNamePrefix();
 
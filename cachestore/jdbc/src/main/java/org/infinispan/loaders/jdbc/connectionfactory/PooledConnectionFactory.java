@@ -29,6 +29,9 @@
 public class PooledConnectionFactory extends ConnectionFactory {
 
    private static final Log log = LogFactory.getLog(PooledConnectionFactory.class, Log.class);
+
+   public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
    private ComboPooledDataSource pooledDataSource;
 
    @Override
@@ -58,6 +61,7 @@ public void start(ConnectionFactoryConfiguration config, ClassLoader classLoader
       pooledDataSource.setJdbcUrl(pooledConfiguration.connectionUrl());
       pooledDataSource.setUser(pooledConfiguration.username());
       pooledDataSource.setPassword(pooledConfiguration.password());
+      pooledDataSource.setMaxStatementsPerConnection(pooledConfiguration.statementCacheSize());
       if (log.isTraceEnabled()) {
          log.tracef("Started connection factory with config: %s", config);
       }
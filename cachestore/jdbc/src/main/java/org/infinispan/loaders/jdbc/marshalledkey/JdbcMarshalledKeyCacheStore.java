@@ -0,0 +1,365 @@
+package org.infinispan.loaders.jdbc.marshalledkey;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.CacheLoaderConfiguration;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.jdbc.DataManipulationHelper;
+import org.infinispan.loaders.jdbc.JdbcUtil;
+import org.infinispan.loaders.jdbc.TableManipulation;
+import org.infinispan.loaders.jdbc.configuration.JdbcMarshalledKeyCacheStoreConfiguration;
+import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.loaders.jdbc.connectionfactory.ManagedConnectionFactory;
+import org.infinispan.loaders.jdbc.logging.Log;
+import org.infinispan.loaders.spi.LockSupportCacheStore;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * {@link org.infinispan.loaders.spi.CacheStore} implementation that stores each entry within a row of a database
+ * table, using the marshalled key as the row id. In contrast to the {@link
+ * org.infinispan.loaders.jdbc.binary.JdbcBinaryCacheStore} it does not group the entries into buckets, so a write only
+ * touches the row of the entry being written, and in contrast to the {@link
+ * org.infinispan.loaders.jdbc.stringbased.JdbcStringBasedCacheStore} it can store any key the cache marshaller can
+ * handle, without the need for a {@link org.infinispan.loaders.keymappers.Key2StringMapper}.
+ * <p/>
+ * The id column must be of a binary type which can be used as a primary key by the database (e.g. VARBINARY on H2,
+ * MySQL and SQL Server, BYTEA on PostgreSQL or RAW on Oracle) and it must be wide enough to hold the largest marshalled
+ * key. Keys are looked up by their marshalled form, so the marshaller needs to produce the same bytes for equal keys.
+ * <p/>
+ * The table is created with an index on the timestamp column, so purging the expired entries is a single ranged
+ * <tt>DELETE</tt>.
+ *
+ * @see JdbcMarshalledKeyCacheStoreConfiguration
+ * @since 6.0
+ */
+public class JdbcMarshalledKeyCacheStore extends LockSupportCacheStore<Integer> {
+
+   private static final Log log = LogFactory.getLog(JdbcMarshalledKeyCacheStore.class, Log.class);
+
+   /**
+    * delimits the stream for stream transfer operations
+    */
+   private static final byte MARSHALLED_KEY_STREAM_DELIMITER = 100;
+
+   private JdbcMarshalledKeyCacheStoreConfiguration configuration;
+
+   private ConnectionFactory connectionFactory;
+   private TableManipulation tableManipulation;
+   private DataManipulationHelper dmHelper;
+   private String cacheName;
+
+   @Override
+   public void init(CacheLoaderConfiguration configuration, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+      this.configuration = validateConfigurationClass(configuration, JdbcMarshalledKeyCacheStoreConfiguration.class);
+      super.init(configuration, cache, m);
+      cacheName = cache.getName();
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      super.start();
+      if (configuration.manageConnectionFactory()) {
+         ConnectionFactory factory = ConnectionFactory.getConnectionFactory(configuration.connectionFactory().connectionFactoryClass());
+         factory.start(configuration.connectionFactory(), factory.getClass().getClassLoader());
+         doConnectionFactoryInitialization(factory);
+      }
+      dmHelper = new DataManipulationHelper(connectionFactory, tableManipulation, marshaller, timeService) {
+
+         @Override
+         protected String getLoadAllKeysSql() {
+            return tableManipulation.getLoadAllKeysStringSql();
+         }
+
+         @Override
+         public void loadAllProcess(ResultSet rs, Set<InternalCacheEntry> result) throws SQLException, CacheLoaderException {
+            InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(1));
+            Object key = JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(2));
+            result.add(icv.toInternalCacheEntry(key));
+         }
+
+         @Override
+         public void loadAllProcess(ResultSet rs, Set<InternalCacheEntry> result, int maxEntries) throws SQLException, CacheLoaderException {
+            loadAllProcess(rs, result);
+         }
+
+         @Override
+         public void loadAllKeysProcess(ResultSet rs, Set<Object> keys, Set<Object> keysToExclude) throws SQLException, CacheLoaderException {
+            Object key = JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(1));
+            if (includeKey(key, keysToExclude)) {
+               keys.add(key);
+            }
+         }
+
+         @Override
+         public void toStreamProcess(ResultSet rs, InputStream is, ObjectOutput objectOutput) throws CacheLoaderException, SQLException, IOException {
+            InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), is);
+            Object key = JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(2));
+            marshaller.objectToObjectStream(icv.toInternalCacheEntry(key), objectOutput);
+         }
+
+         @Override
+         public boolean fromStreamProcess(Object objFromStream, PreparedStatement ps, ObjectInput objectInput) throws SQLException, CacheLoaderException, InterruptedException {
+            if (objFromStream instanceof InternalCacheEntry) {
+               InternalCacheEntry se = (InternalCacheEntry) objFromStream;
+               ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), se.toInternalCacheValue());
+               ps.setBinaryStream(1, buffer.getStream(), buffer.getLength());
+               ps.setLong(2, se.getExpiryTime());
+               ps.setBytes(3, marshallKey(se.getKey()));
+               return true;
+            } else {
+               return false;
+            }
+         }
+      };
+   }
+
+   @Override
+   public void stop() throws CacheLoaderException {
+      super.stop();
+
+      Throwable cause = null;
+      try {
+         tableManipulation.stop();
+      } catch (Throwable t) {
+         cause = t.getCause();
+         if (cause == null) cause = t;
+         log.debug("Exception while stopping", t);
+      }
+
+      try {
+         if (configuration.connectionFactory() instanceof ManagedConnectionFactory) {
+            log.tracef("Stopping mananged connection factory: %s", connectionFactory);
+            connectionFactory.stop();
+         }
+      } catch (Throwable t) {
+         if (cause == null) cause = t;
+         log.debug("Exception while stopping", t);
+      }
+      if (cause != null) {
+         throw new CacheLoaderException("Exceptions occurred while stopping store", cause);
+      }
+   }
+
+   @Override
+   protected Integer getLockFromKey(Object key) throws CacheLoaderException {
+      return key.hashCode();
+   }
+
+   @Override
+   public void storeLockSafe(InternalCacheEntry ed, Integer lockingKey) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      ByteBuffer byteBuffer = null;
+      try {
+         byte[] keyBytes = marshallKey(ed.getKey());
+         byteBuffer = JdbcUtil.marshall(getMarshaller(), ed.toInternalCacheValue());
+         connection = connectionFactory.getConnection();
+         String sql = tableManipulation.getUpsertRowSql();
+         if (sql == null) {
+            sql = tableManipulation.getSelectIdRowSql();
+            if (log.isTraceEnabled()) {
+               log.tracef("Running sql '%s' on %s", sql, ed);
+            }
+            ps = connection.prepareStatement(sql);
+            ps.setBytes(1, keyBytes);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+               sql = tableManipulation.getUpdateRowSql();
+            } else {
+               sql = tableManipulation.getInsertRowSql();
+            }
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %s, key size is %d bytes, value size is %d bytes", sql, ed, keyBytes.length, byteBuffer.getLength());
+         }
+         ps = connection.prepareStatement(sql);
+         ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
+         ps.setLong(2, ed.getExpiryTime());
+         ps.setBytes(3, keyBytes);
+         ps.executeUpdate();
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new CacheLoaderException(String.format(
+               "Error while storing entry to database; key: '%s', buffer size of value: %d bytes",
+               ed.getKey(), byteBuffer != null ? byteBuffer.getLength() : 0), ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   @Override
+   public boolean removeLockSafe(Object key, Integer lockingKey) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %s", sql, key);
+         }
+         byte[] keyBytes = marshallKey(key);
+         connection = connectionFactory.getConnection();
+         ps = connection.prepareStatement(sql);
+         ps.setBytes(1, keyBytes);
+         return ps.executeUpdate() == 1;
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new CacheLoaderException("Error while removing key from database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling key");
+         }
+         Thread.currentThread().interrupt();
+         return false;
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   @Override
+   protected InternalCacheEntry loadLockSafe(Object key, Integer lockingKey) throws CacheLoaderException {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         byte[] keyBytes = marshallKey(key);
+         String sql = tableManipulation.getSelectRowSql();
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         ps.setBytes(1, keyBytes);
+         rs = ps.executeQuery();
+         if (rs.next()) {
+            InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(2));
+            InternalCacheEntry storedEntry = icv.toInternalCacheEntry(key);
+            if (storedEntry.isExpired(timeService.wallClockTime())) {
+               if (log.isTraceEnabled()) {
+                  log.tracef("Not returning '%s' as it is expired. It will be removed from DB by purging thread!", storedEntry);
+               }
+               return null;
+            }
+            return storedEntry;
+         }
+         return null;
+      } catch (SQLException e) {
+         log.sqlFailureReadingKey(key, String.valueOf(lockingKey), e);
+         throw new CacheLoaderException(String.format("SQL error while fetching stored entry with key: %s", key), e);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling key");
+         }
+         Thread.currentThread().interrupt();
+         return null;
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   public void fromStreamLockSafe(ObjectInput objectInput) throws CacheLoaderException {
+      dmHelper.fromStreamSupport(objectInput);
+   }
+
+   @Override
+   protected void toStreamLockSafe(ObjectOutput objectOutput) throws CacheLoaderException {
+      dmHelper.toStreamSupport(objectOutput, MARSHALLED_KEY_STREAM_DELIMITER, true);
+   }
+
+   @Override
+   protected void clearLockSafe() throws CacheLoaderException {
+      dmHelper.clear();
+   }
+
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe() throws CacheLoaderException {
+      return dmHelper.loadAllSupport(true);
+   }
+
+   @Override
+   protected Set<InternalCacheEntry> loadLockSafe(int maxEntries) throws CacheLoaderException {
+      return dmHelper.loadSome(maxEntries);
+   }
+
+   @Override
+   protected Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) throws CacheLoaderException {
+      return dmHelper.loadAllKeysSupport(keysToExclude);
+   }
+
+   /**
+    * Removes all the expired rows with a single <tt>DELETE</tt>, ranged on the indexed timestamp column.
+    */
+   @Override
+   public void purgeInternal() throws CacheLoaderException {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteExpiredRowsSql();
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         ps.setLong(1, timeService.wallClockTime());
+         int result = ps.executeUpdate();
+         if (log.isTraceEnabled()) {
+            log.tracef("Successfully purged %d rows.", result);
+         }
+      } catch (SQLException ex) {
+         log.failedClearingJdbcCacheStore(ex);
+         throw new CacheLoaderException("Failed purging marshalled key JDBC store", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   /**
+    * Keeps a reference to the connection factory for further use. Also initializes the {@link
+    * org.infinispan.loaders.jdbc.TableManipulation} that needs connections. This method should be called when you don't
+    * want the store to manage the connection factory, perhaps because it is using an shared connection factory.
+    */
+   public void doConnectionFactoryInitialization(ConnectionFactory connectionFactory) throws CacheLoaderException {
+      this.connectionFactory = connectionFactory;
+      tableManipulation = new TableManipulation(configuration.table());
+      tableManipulation.setCacheName(cacheName);
+      tableManipulation.setTimestampIndexed(true);
+      tableManipulation.start(connectionFactory);
+   }
+
+   public ConnectionFactory getConnectionFactory() {
+      return connectionFactory;
+   }
+
+   public TableManipulation getTableManipulation() {
+      return tableManipulation;
+   }
+
+   private byte[] marshallKey(Object key) throws CacheLoaderException, InterruptedException {
+      ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), key);
+      byte[] bytes = buffer.getBuf();
+      if (buffer.getOffset() == 0 && buffer.getLength() == bytes.length) {
+         return bytes;
+      }
+      return Arrays.copyOfRange(bytes, buffer.getOffset(), buffer.getOffset() + buffer.getLength());
+   }
+}
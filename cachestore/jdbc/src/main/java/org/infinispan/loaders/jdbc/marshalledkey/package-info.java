@@ -0,0 +1,5 @@
+/**
+ * This JDBC CacheStore implementation stores each entry in its own row, keyed by
+ * the marshalled key.
+ */
+package org.infinispan.loaders.jdbc.marshalledkey;
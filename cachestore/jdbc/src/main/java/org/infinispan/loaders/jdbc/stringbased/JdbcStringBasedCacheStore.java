@@ -16,7 +16,12 @@
 import org.infinispan.loaders.keymappers.Key2StringMapper;
 import org.infinispan.loaders.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.loaders.spi.LockSupportCacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.LogFactory;
 
@@ -28,6 +33,10 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -59,13 +68,16 @@
  * <b>Rehashing</b>. When a node leaves/joins, Infinispan moves around persistent state as part of rehashing process.
  * For this it needs access to the underlaying key objects, so if distribution is used, the mapper needs to be an
  * {@link org.infinispan.loaders.keymappers.TwoWayKey2StringMapper} otherwise the cache won't start (same constraint as with preloading).
+ * If a segment column is configured for the table, the segment of each key is stored along with it and the store acts as
+ * a {@link SegmentedCacheStore}, so that the rows of the segments moved or removed by a rehash are selected or deleted
+ * through the segment column index rather than by scanning all the keys of the table.
  *
  * @author Mircea.Markus@jboss.com
  * @see org.infinispan.loaders.keymappers.Key2StringMapper
  * @see org.infinispan.loaders.keymappers.DefaultTwoWayKey2StringMapper
  */
 public class JdbcStringBasedCacheStore extends
-        LockSupportCacheStore <String> {
+        LockSupportCacheStore <String> implements SegmentedCacheStore {
 
    private static final Log log = LogFactory.getLog(JdbcStringBasedCacheStore.class, Log.class);
 
@@ -81,6 +93,7 @@ public class JdbcStringBasedCacheStore extends
    private TableManipulation tableManipulation;
    private DataManipulationHelper dmHelper;
    private String cacheName;
+   private SegmentMapper segmentMapper;
 
    @Override
    public void init(CacheLoaderConfiguration configuration, Cache<?, ?> cache,
@@ -160,6 +173,10 @@ public boolean fromStreamProcess(Object objFromStream, PreparedStatement ps, Obj
                ps.setBinaryStream(1, buffer.getStream(), buffer.getLength());
                ps.setLong(2, se.getExpiryTime());
                ps.setString(3, (String) se.getKey());
+               if (tableManipulation.isSegmented()) {
+                  Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping((String) se.getKey());
+                  ps.setInt(4, segmentMapper.getSegment(key));
+               }
                return true;
             } else {
                return false;
@@ -211,20 +228,23 @@ public void storeLockSafe(InternalCacheEntry ed, String lockingKey) throws Cache
       try {
          byteBuffer = JdbcUtil.marshall(getMarshaller(), ed.toInternalCacheValue());
          connection = connectionFactory.getConnection();
-         String sql = tableManipulation.getSelectIdRowSql();
-         if (log.isTraceEnabled()) {
-            log.tracef("Running sql '%s' on %s. Key string is '%s'", sql, ed, lockingKey);
-         }
-         ps = connection.prepareStatement(sql);
-         ps.setString(1, lockingKey);
-         ResultSet rs = ps.executeQuery();
-         if (rs.next()) {
-            sql = tableManipulation.getUpdateRowSql();
-         } else {
-            sql = tableManipulation.getInsertRowSql();
+         String sql = tableManipulation.getUpsertRowSql();
+         if (sql == null) {
+            sql = tableManipulation.getSelectIdRowSql();
+            if (log.isTraceEnabled()) {
+               log.tracef("Running sql '%s' on %s. Key string is '%s'", sql, ed, lockingKey);
+            }
+            ps = connection.prepareStatement(sql);
+            ps.setString(1, lockingKey);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+               sql = tableManipulation.getUpdateRowSql();
+            } else {
+               sql = tableManipulation.getInsertRowSql();
+            }
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
          }
-         JdbcUtil.safeClose(rs);
-         JdbcUtil.safeClose(ps);
          if (log.isTraceEnabled()) {
              log.tracef("Running sql '%s' on %s. Key string is '%s', value size is %d bytes", sql, ed, lockingKey, byteBuffer.getLength());
          }
@@ -232,6 +252,9 @@ public void storeLockSafe(InternalCacheEntry ed, String lockingKey) throws Cache
          ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
          ps.setLong(2, ed.getExpiryTime());
          ps.setString(3, lockingKey);
+         if (tableManipulation.isSegmented() && !sql.equals(tableManipulation.getUpdateRowSql())) {
+            ps.setInt(4, segmentMapper.getSegment(ed.getKey()));
+         }
          ps.executeUpdate();
       } catch (SQLException ex) {
          log.sqlFailureStoringKey(lockingKey, byteBuffer != null ? byteBuffer.getLength() : 0, ex);
@@ -249,6 +272,115 @@ public void storeLockSafe(InternalCacheEntry ed, String lockingKey) throws Cache
       }
    }
 
+   /**
+    * When the database supports a single-statement upsert, the modifications are written through one connection using
+    * JDBC batches of {@link TableManipulation#getBatchSize()} statements instead of one round trip (or two, for the
+    * select-then-insert/update sequence) per modification. The modifications between two clears are coalesced per key
+    * first, so that the upserts and the deletes can be sent as independent batches.
+    */
+   @Override
+   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      if (!tableManipulation.isUpsertSupported()) {
+         super.applyModifications(mods);
+         return;
+      }
+      Map<String, Modification> pending = new LinkedHashMap<String, Modification>();
+      for (Modification m : mods) {
+         switch (m.getType()) {
+            case STORE:
+               InternalCacheEntry entry = ((Store) m).getStoredEntry();
+               if (entry != null) {
+                  pending.put(getLockFromKey(entry.getKey()), m);
+               }
+               break;
+            case REMOVE:
+               pending.put(getLockFromKey(((Remove) m).getKey()), m);
+               break;
+            case CLEAR:
+               pending.clear();
+               clear();
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + m.getType());
+         }
+      }
+      if (pending.isEmpty()) {
+         return;
+      }
+      // the same locks as store() and remove(), so that the batches don't interleave with them on the same keys
+      List<Object> lockedKeys = lockAllForWriting(pending.keySet());
+      try {
+         executeBatches(pending);
+      } finally {
+         unlockAll(lockedKeys);
+      }
+   }
+
+   private void executeBatches(Map<String, Modification> pending) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement upsert = null;
+      PreparedStatement delete = null;
+      int upserts = 0;
+      int deletes = 0;
+      int batchSize = Math.max(1, tableManipulation.getBatchSize());
+      long now = timeService.wallClockTime();
+      try {
+         connection = connectionFactory.getConnection();
+         for (Map.Entry<String, Modification> e : pending.entrySet()) {
+            String keyStr = e.getKey();
+            Modification m = e.getValue();
+            InternalCacheEntry entry = m.getType() == Modification.Type.STORE ? ((Store) m).getStoredEntry() : null;
+            if (entry != null && !(entry.canExpire() && entry.isExpired(now))) {
+               if (upsert == null) {
+                  upsert = connection.prepareStatement(tableManipulation.getUpsertRowSql());
+               }
+               ByteBuffer byteBuffer = JdbcUtil.marshall(getMarshaller(), entry.toInternalCacheValue());
+               upsert.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
+               upsert.setLong(2, entry.getExpiryTime());
+               upsert.setString(3, keyStr);
+               if (tableManipulation.isSegmented()) {
+                  upsert.setInt(4, segmentMapper.getSegment(entry.getKey()));
+               }
+               upsert.addBatch();
+               if (++upserts % batchSize == 0) {
+                  upsert.executeBatch();
+               }
+            } else {
+               if (delete == null) {
+                  delete = connection.prepareStatement(tableManipulation.getDeleteRowSql());
+               }
+               delete.setString(1, keyStr);
+               delete.addBatch();
+               if (++deletes % batchSize == 0) {
+                  delete.executeBatch();
+               }
+            }
+         }
+         if (upserts % batchSize != 0) {
+            upsert.executeBatch();
+         }
+         if (deletes % batchSize != 0) {
+            delete.executeBatch();
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Applied %d upserts and %d deletes in batches of %d", upserts, deletes, batchSize);
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new CacheLoaderException("SQL error while applying modifications to the database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while applying modifications to the database", e);
+      } finally {
+         JdbcUtil.safeClose(upsert);
+         JdbcUtil.safeClose(delete);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public boolean removeLockSafe(Object key, String keyStr) throws CacheLoaderException {
       Connection connection = null;
@@ -323,6 +455,152 @@ public void purgeInternal() throws CacheLoaderException {
       }
    }
 
+   @Override
+   public boolean isSegmented() {
+      return tableManipulation.isSegmented();
+   }
+
+   @Override
+   public int getNumSegments() {
+      return segmentMapper == null ? 1 : segmentMapper.getNumSegments();
+   }
+
+   @Override
+   public Set<Integer> getSegments() throws CacheLoaderException {
+      assertSegmented();
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         String sql = tableManipulation.getSelectSegmentsSql();
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         rs = ps.executeQuery();
+         Set<Integer> segments = new HashSet<Integer>();
+         while (rs.next()) {
+            segments.add(rs.getInt(1));
+         }
+         return segments;
+      } catch (SQLException e) {
+         log.sqlFailureFetchingAllStoredEntries(e);
+         throw new CacheLoaderException("SQL error while fetching the stored segments", e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Integer> segments) throws CacheLoaderException {
+      assertSegmented();
+      if (!acquireGlobalLock(false)) {
+         throw new CacheLoaderException("Unable to acquire global lock");
+      }
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getLoadSegmentRowsSql());
+         ps.setFetchSize(tableManipulation.getFetchSize());
+         Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+         long now = timeService.wallClockTime();
+         for (Integer segment : segments) {
+            ps.setInt(1, segment);
+            ResultSet rs = ps.executeQuery();
+            try {
+               while (rs.next()) {
+                  InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), rs.getBinaryStream(1));
+                  if (!icv.isExpired(now)) {
+                     Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(rs.getString(2));
+                     result.add(icv.toInternalCacheEntry(key));
+                  }
+               }
+            } finally {
+               JdbcUtil.safeClose(rs);
+            }
+         }
+         return result;
+      } catch (SQLException e) {
+         log.sqlFailureFetchingAllStoredEntries(e);
+         throw new CacheLoaderException("SQL error while fetching the stored entries of segments " + segments, e);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+         releaseGlobalLock(false);
+      }
+   }
+
+   @Override
+   public Set<Object> loadAllKeys(Set<Integer> segments, Set<Object> keysToExclude) throws CacheLoaderException {
+      assertSegmented();
+      if (!acquireGlobalLock(false)) {
+         throw new CacheLoaderException("Unable to acquire global lock");
+      }
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getLoadSegmentKeysSql());
+         ps.setFetchSize(tableManipulation.getFetchSize());
+         Set<Object> result = new HashSet<Object>();
+         for (Integer segment : segments) {
+            ps.setInt(1, segment);
+            ResultSet rs = ps.executeQuery();
+            try {
+               while (rs.next()) {
+                  Object key = ((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(rs.getString(1));
+                  if (keysToExclude == null || !keysToExclude.contains(key)) {
+                     result.add(key);
+                  }
+               }
+            } finally {
+               JdbcUtil.safeClose(rs);
+            }
+         }
+         return result;
+      } catch (SQLException e) {
+         log.sqlFailureFetchingAllStoredEntries(e);
+         throw new CacheLoaderException("SQL error while fetching the stored keys of segments " + segments, e);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+         releaseGlobalLock(false);
+      }
+   }
+
+   @Override
+   public void clear(Set<Integer> segments) throws CacheLoaderException {
+      assertSegmented();
+      if (!acquireGlobalLock(true)) {
+         throw new CacheLoaderException("Unable to acquire global lock");
+      }
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(tableManipulation.getDeleteSegmentRowsSql());
+         for (Integer segment : segments) {
+            ps.setInt(1, segment);
+            ps.addBatch();
+         }
+         ps.executeBatch();
+      } catch (SQLException e) {
+         log.failedClearingJdbcCacheStore(e);
+         throw new CacheLoaderException("Failed clearing segments " + segments + " of string based JDBC store", e);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+         releaseGlobalLock(true);
+      }
+   }
+
+   private void assertSegmented() {
+      if (!isSegmented()) {
+         throw new IllegalStateException("No segment column is configured or the cache is not distributed");
+      }
+   }
+
    @Override
    protected InternalCacheEntry loadLockSafe(Object key, String lockingKey) throws CacheLoaderException {
       InternalCacheEntry storedEntry = readStoredEntry(key, lockingKey);
@@ -349,6 +627,8 @@ public void doConnectionFactoryInitialization(ConnectionFactory connectionFactor
       this.connectionFactory = connectionFactory;
       tableManipulation = new TableManipulation(configuration.table());
       tableManipulation.setCacheName(cacheName);
+      segmentMapper = SegmentMapper.forCache(cache);
+      tableManipulation.setSegmented(segmentMapper != null);
       tableManipulation.start(connectionFactory);
    }
 
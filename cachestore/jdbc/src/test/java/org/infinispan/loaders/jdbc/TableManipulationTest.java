@@ -138,6 +138,51 @@ public void testTableQuoting() throws Exception {
       assert existsTable(connection, tableManipulation.getTableName());
    }
 
+   public void testUpsert() throws Exception {
+      TableManipulation other = tableManipulation.clone();
+      other.setCacheName("upsert");
+      assert other.isUpsertSupported();
+      other.createTable(connection);
+      upsertRow(other, "k", new byte[] {1}, 10);
+      upsertRow(other, "k", new byte[] {2, 3}, 20);
+      upsertRow(other, "other", new byte[] {4}, 30);
+
+      PreparedStatement ps = connection.prepareStatement(other.getSelectRowSql());
+      ResultSet rs = null;
+      try {
+         ps.setString(1, "k");
+         rs = ps.executeQuery();
+         assert rs.next();
+         assert rs.getBytes(2).length == 2;
+         assert !rs.next();
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+      }
+      Statement st = connection.createStatement();
+      try {
+         rs = st.executeQuery("SELECT count(*) FROM " + other.getTableName());
+         rs.next();
+         assert rs.getInt(1) == 2;
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(st);
+      }
+      other.dropTable(connection);
+   }
+
+   private void upsertRow(TableManipulation tm, String id, byte[] data, long timestamp) throws SQLException {
+      PreparedStatement ps = connection.prepareStatement(tm.getUpsertRowSql());
+      try {
+         ps.setBytes(1, data);
+         ps.setLong(2, timestamp);
+         ps.setString(3, id);
+         assert ps.executeUpdate() == 1;
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
    static boolean existsTable(Connection connection, TableName tableName) throws Exception {
       Statement st = connection.createStatement();
       ResultSet rs = null;
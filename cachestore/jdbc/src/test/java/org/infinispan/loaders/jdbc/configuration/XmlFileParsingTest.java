@@ -29,11 +29,12 @@ public void testStringKeyedJdbcStore() throws Exception {
             "   <default>\n" +
             "     <loaders>\n" +
             "       <stringKeyedJdbcStore xmlns=\"urn:infinispan:config:jdbc:6.0\" key2StringMapper=\"org.infinispan.loaders.jdbc.configuration.DummyKey2StringMapper\">\n" +
-            "         <connectionPool connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\"/>\n" +
+            "         <connectionPool connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\" statementCacheSize=\"16\"/>\n" +
             "         <stringKeyedTable prefix=\"entry\" fetchSize=\"34\" batchSize=\"99\" >\n" +
             "           <idColumn name=\"id\" type=\"VARCHAR\" />\n" +
             "           <dataColumn name=\"datum\" type=\"BINARY\" />\n" +
             "           <timestampColumn name=\"version\" type=\"BIGINT\" />\n" +
+            "           <segmentColumn name=\"segment\" type=\"SMALLINT\" />\n" +
             "         </stringKeyedTable>\n" +
             "         <async enabled=\"true\" />\n" +
             "       </stringKeyedJdbcStore>\n" +
@@ -46,6 +47,8 @@ public void testStringKeyedJdbcStore() throws Exception {
       assertEquals(34, store.table().fetchSize());
       assertEquals("BINARY", store.table().dataColumnType());
       assertEquals("version", store.table().timestampColumnName());
+      assertEquals("segment", store.table().segmentColumnName());
+      assertEquals("SMALLINT", store.table().segmentColumnType());
       assertTrue(store.async().enabled());
       assertEquals("org.infinispan.loaders.jdbc.configuration.DummyKey2StringMapper", store.key2StringMapper());
       PooledConnectionFactoryConfiguration connectionFactory = (PooledConnectionFactoryConfiguration) store.connectionFactory();
@@ -53,6 +56,7 @@ public void testStringKeyedJdbcStore() throws Exception {
       assertEquals("org.h2.Driver", connectionFactory.driverClass());
       assertEquals("dbuser", connectionFactory.username());
       assertEquals("dbpass", connectionFactory.password());
+      assertEquals(16, connectionFactory.statementCacheSize());
    }
 
    public void testBinaryKeyedJdbcStore() throws Exception {
@@ -87,6 +91,32 @@ public void testBinaryKeyedJdbcStore() throws Exception {
       assertEquals("dbpass", connectionFactory.password());
    }
 
+   public void testMarshalledKeyJdbcStore() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "   <default>\n" +
+            "     <loaders>\n" +
+            "       <marshalledKeyJdbcStore xmlns=\"urn:infinispan:config:jdbc:6.0\">\n" +
+            "         <simpleConnection connectionUrl=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driverClass=\"org.h2.Driver\"/>\n" +
+            "         <marshalledKeyTable prefix=\"entry\" fetchSize=\"34\" batchSize=\"99\">\n" +
+            "           <idColumn name=\"id\" type=\"VARBINARY(255)\" />\n" +
+            "           <dataColumn name=\"datum\" type=\"BINARY\" />\n" +
+            "           <timestampColumn name=\"version\" type=\"BIGINT\" />\n" +
+            "         </marshalledKeyTable>\n" +
+            "       </marshalledKeyJdbcStore>\n" +
+            "     </loaders>\n" +
+            "   </default>\n" +
+            TestingUtil.INFINISPAN_END_TAG;
+
+      JdbcMarshalledKeyCacheStoreConfiguration store = (JdbcMarshalledKeyCacheStoreConfiguration) buildCacheManagerWithCacheStore(config);
+      assertEquals("entry", store.table().tableNamePrefix());
+      assertEquals("VARBINARY(255)", store.table().idColumnType());
+      assertEquals(99, store.table().batchSize());
+      assertEquals(34, store.table().fetchSize());
+      assertEquals("version", store.table().timestampColumnName());
+      SimpleConnectionFactoryConfiguration connectionFactory = (SimpleConnectionFactoryConfiguration) store.connectionFactory();
+      assertEquals("jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1", connectionFactory.connectionUrl());
+   }
+
    public void testMixedKeyedJdbcStore() throws Exception {
       String config = INFINISPAN_START_TAG +
             "   <default>\n" +
@@ -0,0 +1,26 @@
+package org.infinispan.loaders.jdbc.marshalledkey;
+
+import org.infinispan.configuration.cache.LoadersConfigurationBuilder;
+import org.infinispan.loaders.BaseCacheStoreFunctionalTest;
+import org.infinispan.loaders.jdbc.configuration.JdbcMarshalledKeyCacheStoreConfigurationBuilder;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+/**
+ * JdbcMarshalledKeyCacheStoreFunctionalTest.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "loaders.jdbc.marshalledkey.JdbcMarshalledKeyCacheStoreFunctionalTest")
+public class JdbcMarshalledKeyCacheStoreFunctionalTest extends BaseCacheStoreFunctionalTest {
+
+   @Override
+   protected LoadersConfigurationBuilder createCacheStoreConfig(LoadersConfigurationBuilder loaders) {
+      JdbcMarshalledKeyCacheStoreConfigurationBuilder store = loaders
+         .addStore(JdbcMarshalledKeyCacheStoreConfigurationBuilder.class)
+         .purgeSynchronously(true);
+      UnitTestDatabaseManager.buildMarshalledKeyTableManipulation(store.table());
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(store);
+      return loaders;
+   }
+}
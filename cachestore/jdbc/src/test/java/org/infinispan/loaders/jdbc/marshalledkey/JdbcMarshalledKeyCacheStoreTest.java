@@ -0,0 +1,108 @@
+package org.infinispan.loaders.jdbc.marshalledkey;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.jdbc.JdbcUtil;
+import org.infinispan.loaders.jdbc.TableManipulation;
+import org.infinispan.loaders.jdbc.configuration.JdbcMarshalledKeyCacheStoreConfigurationBuilder;
+import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+/**
+ * Tester class for {@link JdbcMarshalledKeyCacheStore}.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "loaders.jdbc.marshalledkey.JdbcMarshalledKeyCacheStoreTest")
+public class JdbcMarshalledKeyCacheStoreTest extends BaseCacheStoreTest {
+
+   @Override
+   protected CacheStore createCacheStore() throws Exception {
+      JdbcMarshalledKeyCacheStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .loaders()
+               .addLoader(JdbcMarshalledKeyCacheStoreConfigurationBuilder.class)
+                  .purgeSynchronously(true);
+      UnitTestDatabaseManager.buildMarshalledKeyTableManipulation(storeBuilder.table());
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+
+      JdbcMarshalledKeyCacheStore store = new JdbcMarshalledKeyCacheStore();
+      store.init(storeBuilder.create(), getCache(), getMarshaller());
+      store.start();
+      assert store.getConnectionFactory() != null;
+      return store;
+   }
+
+   public void testNonStringKeys() throws Exception {
+      Integer intKey = 42;
+      Pojo pojoKey = new Pojo(7);
+      cs.store(TestInternalCacheEntryFactory.create(intKey, "v1"));
+      cs.store(TestInternalCacheEntryFactory.create(pojoKey, "v2"));
+      assert cs.load(intKey).getValue().equals("v1");
+      assert cs.load(new Pojo(7)).getValue().equals("v2");
+      assert cs.loadAllKeys(null).contains(pojoKey);
+
+      cs.store(TestInternalCacheEntryFactory.create(new Pojo(7), "v3"));
+      assert cs.load(pojoKey).getValue().equals("v3");
+      assert cs.loadAll().size() == 2;
+      assert cs.remove(new Pojo(7));
+      assert !cs.containsKey(pojoKey);
+   }
+
+   public void testPurgeRemovesOnlyExpiredRows() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("expired", "v", 1));
+      cs.store(TestInternalCacheEntryFactory.create("mortal", "v", 60000));
+      cs.store(TestInternalCacheEntryFactory.create("immortal", "v"));
+      TestingUtil.sleepThread(100);
+      cs.purgeExpired();
+
+      JdbcMarshalledKeyCacheStore store = (JdbcMarshalledKeyCacheStore) cs;
+      assert UnitTestDatabaseManager.rowCount(store.getConnectionFactory(), store.getTableManipulation().getTableName()) == 2;
+      assert cs.containsKey("mortal");
+      assert cs.containsKey("immortal");
+   }
+
+   public void testTimestampIndexCreated() throws Exception {
+      JdbcMarshalledKeyCacheStore store = (JdbcMarshalledKeyCacheStore) cs;
+      ConnectionFactory connectionFactory = store.getConnectionFactory();
+      TableManipulation tableManipulation = store.getTableManipulation();
+      Connection connection = connectionFactory.getConnection();
+      ResultSet rs = null;
+      try {
+         rs = connection.getMetaData().getIndexInfo(null, null, tableManipulation.getTableName().getName(), false, false);
+         boolean found = false;
+         while (rs.next()) {
+            found |= "TIMESTAMP_COLUMN".equalsIgnoreCase(rs.getString("COLUMN_NAME"));
+         }
+         assert found : "No index on the timestamp column";
+      } finally {
+         JdbcUtil.safeClose(rs);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   public static class Pojo implements java.io.Serializable {
+      final int id;
+
+      public Pojo(int id) {
+         this.id = id;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof Pojo && ((Pojo) o).id == id;
+      }
+
+      @Override
+      public int hashCode() {
+         return id;
+      }
+   }
+}
@@ -3,14 +3,27 @@
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.jdbc.TableManipulation;
 import org.infinispan.loaders.jdbc.configuration.JdbcStringBasedCacheStoreConfigurationBuilder;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.loaders.modifications.Clear;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.loaders.spi.CacheStore;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
 import org.testng.annotations.Test;
 
@@ -68,6 +81,70 @@ public void testNotCreateConnectionFactory() throws Exception {
       stringBasedCacheStore.stop();
    }
 
+   public void testBatchedModificationsAppliedInOrder() throws CacheLoaderException {
+      List<Modification> mods = new ArrayList<Modification>();
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v1")));
+      mods.add(new Remove("k1"));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v2")));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k2", "v1")));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k2", "v2")));
+      mods.add(new Remove("k2"));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k3", "v1")));
+      cs.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+
+      assert cs.load("k1").getValue().equals("v2");
+      assert !cs.containsKey("k2");
+      assert cs.load("k3").getValue().equals("v1");
+
+      mods = new ArrayList<Modification>();
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k4", "v1")));
+      mods.add(new Clear());
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k5", "v1")));
+      cs.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+
+      assert !cs.containsKey("k1");
+      assert !cs.containsKey("k4");
+      assert cs.load("k5").getValue().equals("v1");
+   }
+
+   public void testConcurrentBatchesOnOverlappingKeys() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(3);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>();
+         for (int t = 0; t < 3; t++) {
+            final int thread = t;
+            futures.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  for (int round = 0; round < 20; round++) {
+                     List<Modification> mods = new ArrayList<Modification>();
+                     for (int i = 0; i < 20; i++) {
+                        // every thread goes through the keys in a different order
+                        int k = thread == 1 ? 19 - i : i;
+                        mods.add(new Store(TestInternalCacheEntryFactory.create("k" + k, "v" + thread)));
+                     }
+                     if (thread == 2) {
+                        cs.store(TestInternalCacheEntryFactory.create("k" + round, "v" + thread));
+                     } else {
+                        cs.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+                     }
+                  }
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      assert ((JdbcStringBasedCacheStore) cs).getTotalLockCount() == 0;
+      for (int i = 0; i < 20; i++) {
+         assert cs.containsKey("k" + i);
+      }
+   }
+
    @Override
    @Test(expectedExceptions = UnsupportedKeyTypeException.class)
    public void testLoadAndStoreMarshalledValues() throws CacheLoaderException {
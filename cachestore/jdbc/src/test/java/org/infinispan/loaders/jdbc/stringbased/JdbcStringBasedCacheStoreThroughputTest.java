@@ -0,0 +1,93 @@
+package org.infinispan.loaders.jdbc.stringbased;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.infinispan.loaders.AbstractCacheStoreTest;
+import org.infinispan.loaders.jdbc.DatabaseType;
+import org.infinispan.loaders.jdbc.configuration.JdbcStringBasedCacheStoreConfigurationBuilder;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Store;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Compares the write throughput of the {@link JdbcStringBasedCacheStore} on an in-memory H2 database when using the
+ * single-statement upsert (and batched modifications) with the select-then-insert/update sequence used for the
+ * databases without upsert support. The latter is obtained by declaring a database type which shares H2's SQL
+ * dialect for the plain statements but has no upsert statement. Both check that the last round was fully persisted.
+ *
+ * @since 6.0
+ */
+@Test(groups = "profiling", testName = "loaders.jdbc.stringbased.JdbcStringBasedCacheStoreThroughputTest")
+public class JdbcStringBasedCacheStoreThroughputTest extends AbstractInfinispanTest {
+
+   private static final int KEYS = 2000;
+   private static final int ROUNDS = 5;
+   private static final int BATCH = 100;
+
+   public void testStoreThroughput() throws Exception {
+      long legacy = run(DatabaseType.DERBY, false);
+      long upsert = run(DatabaseType.H2, false);
+      log.infof("Individual stores: select+insert/update %d ms, upsert %d ms", legacy, upsert);
+   }
+
+   public void testBatchedStoreThroughput() throws Exception {
+      long legacy = run(DatabaseType.DERBY, true);
+      long upsert = run(DatabaseType.H2, true);
+      log.infof("Batched stores of %d: select+insert/update %d ms, upsert %d ms", BATCH, legacy, upsert);
+   }
+
+   private long run(DatabaseType databaseType, boolean batched) throws Exception {
+      JdbcStringBasedCacheStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .loaders()
+               .addStore(JdbcStringBasedCacheStoreConfigurationBuilder.class)
+                  .purgeSynchronously(true);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), false);
+      storeBuilder.table().databaseType(databaseType).batchSize(BATCH);
+      JdbcStringBasedCacheStore store = new JdbcStringBasedCacheStore();
+      store.init(storeBuilder.create(), AbstractCacheStoreTest.mockCache("throughput-" + databaseType), new TestObjectStreamMarshaller(false));
+      store.start();
+      TransactionFactory gtf = new TransactionFactory();
+      gtf.init(false, false, true, false);
+      try {
+         // the first round only warms up, and every following round overwrites the existing rows
+         long start = 0;
+         for (int round = 0; round <= ROUNDS; round++) {
+            if (round == 1) {
+               start = System.nanoTime();
+            }
+            List<Modification> mods = new ArrayList<Modification>(BATCH);
+            for (int i = 0; i < KEYS; i++) {
+               Store s = new Store(TestInternalCacheEntryFactory.create("key" + i, "value" + round + "-" + i));
+               if (batched) {
+                  mods.add(s);
+                  if (mods.size() == BATCH) {
+                     store.prepare(mods, gtf.newGlobalTransaction(null, true), true);
+                     mods = new ArrayList<Modification>(BATCH);
+                  }
+               } else {
+                  store.store(s.getStoredEntry());
+               }
+            }
+         }
+         long elapsed = (System.nanoTime() - start) / 1000000;
+         for (int i = 0; i < KEYS; i++) {
+            assertEquals(store.load("key" + i).getValue(), "value" + ROUNDS + "-" + i);
+         }
+         return elapsed;
+      } finally {
+         store.clear();
+         store.stop();
+      }
+   }
+}
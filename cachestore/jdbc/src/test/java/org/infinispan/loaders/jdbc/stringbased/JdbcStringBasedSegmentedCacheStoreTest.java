@@ -0,0 +1,43 @@
+package org.infinispan.loaders.jdbc.stringbased;
+
+import org.infinispan.Cache;
+import org.infinispan.loaders.AbstractCacheStoreTest;
+import org.infinispan.loaders.jdbc.configuration.JdbcStringBasedCacheStoreConfigurationBuilder;
+import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the {@link JdbcStringBasedCacheStore} tests in a distributed cache, with a segment column in the table.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "loaders.jdbc.stringbased.JdbcStringBasedSegmentedCacheStoreTest")
+public class JdbcStringBasedSegmentedCacheStoreTest extends JdbcStringBasedCacheStoreTest {
+
+   @Override
+   protected CacheStore createCacheStore() throws Exception {
+      JdbcStringBasedCacheStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .loaders()
+               .addLoader(JdbcStringBasedCacheStoreConfigurationBuilder.class)
+                  .purgeSynchronously(true);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), false);
+      storeBuilder.table().segmentColumnName("SEGMENT_COLUMN").segmentColumnType("INT");
+      JdbcStringBasedCacheStore stringBasedCacheStore = new JdbcStringBasedCacheStore();
+      stringBasedCacheStore.init(storeBuilder.create(), getCache(), getMarshaller());
+      stringBasedCacheStore.start();
+      return stringBasedCacheStore;
+   }
+
+   @Override
+   protected Cache getCache() {
+      return AbstractCacheStoreTest.mockDistributedCache("mockCache-" + getClass().getName(), 16);
+   }
+
+   public void testSegmentOperations() throws Exception {
+      checkSegmentOperations();
+   }
+}
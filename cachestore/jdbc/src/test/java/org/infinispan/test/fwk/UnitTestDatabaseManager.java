@@ -113,6 +113,18 @@ public static void buildTableManipulation(TableManipulationConfigurationBuilder<
          .timestampColumnType("BIGINT");
    }
 
+   public static void buildMarshalledKeyTableManipulation(TableManipulationConfigurationBuilder<?, ?> table) {
+      table
+         .databaseType(dt)
+         .tableNamePrefix("ISPN_MARSHALLED_KEY")
+         .idColumnName("ID_COLUMN")
+         .idColumnType("VARBINARY(1024)")
+         .dataColumnName("DATA_COLUMN")
+         .dataColumnType("BLOB")
+         .timestampColumnName("TIMESTAMP_COLUMN")
+         .timestampColumnType("BIGINT");
+   }
+
    /**
     * Counts the number of rows in the given table.
     */
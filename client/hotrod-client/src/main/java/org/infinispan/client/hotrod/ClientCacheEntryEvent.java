@@ -0,0 +1,29 @@
+package org.infinispan.client.hotrod;
+
+/**
+ * An event of a remote cache entry, delivered to a {@link ClientCacheListener}.
+ *
+ * @since 6.0
+ */
+public interface ClientCacheEntryEvent<K, V> {
+
+   enum Type {
+      CREATED, MODIFIED, REMOVED
+   }
+
+   Type getType();
+
+   K getKey();
+
+   /**
+    * @return the version of the entry, as returned by {@link RemoteCache#getVersioned(Object)}. The version of a removed
+    *         entry is the version it had before being removed.
+    */
+   long getVersion();
+
+   /**
+    * @return the new value of the entry, possibly converted on the server, or null if the entry was removed or if the
+    *         listener was added without asking for the values
+    */
+   V getValue();
+}
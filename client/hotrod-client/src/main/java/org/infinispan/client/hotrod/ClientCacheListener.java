@@ -0,0 +1,23 @@
+package org.infinispan.client.hotrod;
+
+/**
+ * Receives the events of the entries of a remote cache, see
+ * {@link RemoteCache#addClientListener(ClientCacheListener, String, String, boolean)}.
+ * <p/>
+ * The events are delivered by the I/O thread of the connection they are received on, so the listener should not block.
+ * Each server sends the events of the keys it is the primary owner of, so an event may be repeated or missed while the
+ * owners change.
+ *
+ * @since 6.0
+ */
+public interface ClientCacheListener<K, V> {
+
+   void entryEvent(ClientCacheEntryEvent<K, V> event);
+
+   /**
+    * Invoked when a server could not keep the events of the listener, e.g. because the client did not resume the
+    * listener soon enough after losing its connection, or because it could not keep up with the events. Anything the
+    * client derives from the events should be read from the cache again.
+    */
+   void eventsLost();
+}
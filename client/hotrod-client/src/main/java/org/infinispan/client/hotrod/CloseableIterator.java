@@ -0,0 +1,17 @@
+package org.infinispan.client.hotrod;
+
+import java.util.Iterator;
+
+/**
+ * An iterator holding resources on the servers, which must be closed if it isn't read to the end.
+ *
+ * @since 6.0
+ */
+public interface CloseableIterator<E> extends Iterator<E> {
+
+   /**
+    * Releases the resources held by the iterator. Closing an iterator read to the end, or closing it twice, has no
+    * effect.
+    */
+   void close();
+}
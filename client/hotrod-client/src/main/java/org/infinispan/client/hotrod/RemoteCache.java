@@ -1,6 +1,9 @@
 package org.infinispan.client.hotrod;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -27,7 +30,10 @@
  * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g. all
  * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts. This means that the
  * these operations are not atomic and that they are costly, e.g. as the number of network round-trips is not one, but
- * the size of the added map. All these synthetic operations are documented as such.
+ * the size of the added map. All these synthetic operations are documented as such. With protocol version 1.3 the
+ * {@link #putAll(java.util.Map)} operations, {@link #getAll(java.util.Set)} and {@link #removeAll(java.util.Set)} send
+ * one request per server owning some of the keys instead, and the requests to the different servers are sent in
+ * parallel.
  * <p/>
  * <b>changing default behavior through {@link org.infinispan.client.hotrod.Flag}s</b>: it is possible to change the
  * default cache behaviour by using flags on an per invocation basis. E.g.
@@ -192,6 +198,10 @@
     * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
     * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
     * the parameter map a remote call is performed).
+    * <p/>
+    * With protocol version 1.3 the entries are split by the server owning their keys and a single request is sent to
+    * each of these servers, in parallel. Each server stores its entries with a single command, but the operation is
+    * still not atomic as a whole.
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
@@ -271,6 +281,164 @@
     */
    Map<K, V> getBulk(int size);
 
+   /**
+    * Returns an iterator over the entries of the given segments of the remote cache, which reads the entries in
+    * batches of the given size, so unlike {@link #getBulk()} neither the client nor the servers ever hold all the
+    * entries in memory. The segments are read from their primary owner. Requires protocol version 1.4.
+    * <p/>
+    * If the servers don't send the owners of the segments, e.g. with a replicated cache, every server is iterated and
+    * the entries read more than once are skipped, which requires the client to keep the keys returned in memory.
+    * <p/>
+    * The iteration is weakly consistent: the entries modified while iterating may or may not be returned with their
+    * new value. The iterator must be closed if it isn't read to the end.
+    *
+    * @param filterName the name of a filter registered on the servers selecting the entries to return, or null
+    * @param segments the segments to iterate, or null for all of them. Only used with distributed caches.
+    * @param batchSize the number of entries read with each request
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4
+    * @throws org.infinispan.client.hotrod.exceptions.HotRodClientException if no server with a Hot Rod endpoint is
+    *         known to own some of the segments
+    * @since 6.0
+    */
+   CloseableIterator<Map.Entry<K, V>> retrieveEntries(String filterName, Set<Integer> segments, int batchSize);
+
+   /**
+    * Same as {@link #retrieveEntries(String, Set, int)}, iterating all the segments.
+    *
+    * @since 6.0
+    */
+   CloseableIterator<Map.Entry<K, V>> retrieveEntries(String filterName, int batchSize);
+
+   /**
+    * Adds a listener receiving the events of the entries of this cache, created, modified or removed by any client.
+    * The servers only send the events accepted by the filter, if any, and send the key and the version of the entry,
+    * plus its value if <tt>includeValue</tt> is set. The events are sent in batches when the cache is busy, and the
+    * events raised while the connection to a server is lost are delivered once the client reconnects. Requires
+    * protocol version 1.4 and the {@link org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory}.
+    *
+    * @param filterName the name of a filter registered on the servers, selecting the events to send, or null
+    * @param converterName the name of a converter registered on the servers, converting the values sent, or null
+    * @param includeValue whether the new value of the entry is sent with its event
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4 or the transport isn't multiplexed
+    * @throws org.infinispan.client.hotrod.exceptions.HotRodClientException if a server refused the listener, e.g.
+    *         because it doesn't know the filter
+    * @since 6.0
+    */
+   void addClientListener(ClientCacheListener<K, V> listener, String filterName, String converterName, boolean includeValue);
+
+   /**
+    * Same as {@link #addClientListener(ClientCacheListener, String, String, boolean)}, receiving all the events, without
+    * the values.
+    *
+    * @since 6.0
+    */
+   void addClientListener(ClientCacheListener<K, V> listener);
+
+   /**
+    * Removes a listener added with {@link #addClientListener(ClientCacheListener, String, String, boolean)}.
+    *
+    * @since 6.0
+    */
+   void removeClientListener(ClientCacheListener<K, V> listener);
+
+   /**
+    * Retrieves the values of the given keys. With protocol version 1.3 a single request is sent to each server owning
+    * some of the keys, in parallel, otherwise the keys are read one by one.
+    *
+    * @return the entries of the keys which exist in the remote cache. The returned Map is unmodifiable.
+    * @since 6.0
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
+   /**
+    * Removes the given keys, without returning the previous values. With protocol version 1.3 a single request is sent
+    * to each server owning some of the keys, in parallel, otherwise the keys are removed one by one. The operation is
+    * not atomic.
+    *
+    * @since 6.0
+    */
+   void removeAll(Set<? extends K> keys);
+
+   /**
+    * Returns a stream writing the value of the given key, which is stored when the stream is closed. The value is sent
+    * to the server in chunks of 64KB as it is written, each chunk with its own request, so the client never holds the
+    * whole value in memory and no connection is held for the whole transfer. The server stores the bytes written as
+    * a single entry once the stream is closed, and drops the chunks received if the stream is never closed. Requires
+    * protocol version 1.4.
+    * <p/>
+    * The bytes are stored as they are written, without being marshalled: the value must be read with
+    * {@link #getAsStream(Object)} or through the other endpoints of the server, rather than with {@link #get(Object)}.
+    *
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4
+    * @since 6.0
+    */
+   OutputStream putAsStream(K key);
+
+   /**
+    * Same as {@link #putAsStream(Object)}, the value expiring after the given lifespan and maximum idle time.
+    *
+    * @since 6.0
+    */
+   OutputStream putAsStream(K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit);
+
+   /**
+    * Returns a stream reading the bytes stored under the given key one chunk at a time, as they are consumed, e.g. a
+    * value written with {@link #putAsStream(Object)} or through the other endpoints of the server. Requires protocol
+    * version 1.4.
+    * <p/>
+    * The stream fails with an IOException if the value is overwritten or removed while it is being read.
+    *
+    * @return the stream, or null if the key doesn't exist
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4
+    * @since 6.0
+    */
+   InputStream getAsStream(K key);
+
+   /**
+    * Adds a delta to a counter, creating it if it does not exist. The addition is applied by the server owning the
+    * counter, so concurrent additions from any number of clients are neither lost nor retried. Requires protocol
+    * version 1.4.
+    * <p/>
+    * Counters are stored as the decimal representation of their value, which can also be read through the Memcached
+    * and REST endpoints but not with {@link #get(Object)}: use a delta of 0 to read a counter. As with the other
+    * write operations, an addition may be applied twice if the connection to the server fails after it was sent.
+    *
+    * @param key the key of the counter
+    * @param delta the value to add to the counter, which may be negative
+    * @return the value of the counter after the addition
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4
+    * @throws org.infinispan.client.hotrod.exceptions.HotRodClientException if the value of the key is not a counter
+    * @since 6.0
+    */
+   long addAndGet(K key, long delta);
+
+   /**
+    * Runs a task registered on the servers by name on the primary owner of the key, so that the entry is read and
+    * updated next to the data: only the parameter and the result are sent over the network. Requires protocol version
+    * 1.4. The entry is invalidated in the near cache, since the task may have updated it.
+    * <p/>
+    * As with the other write operations, the task may run twice if the connection to the server fails after the
+    * request was sent.
+    *
+    * @param taskName the name the task is registered with on the servers
+    * @param key the key whose primary owner runs the task
+    * @param parameter the parameter of the task, marshalled like the keys, or null
+    * @return the result of the task, unmarshalled like the keys
+    * @throws UnsupportedOperationException if the protocol version is older than 1.4
+    * @throws org.infinispan.client.hotrod.exceptions.HotRodClientException if the task is unknown or has failed
+    * @since 6.0
+    */
+   <T> T executeOnKey(String taskName, K key, Object parameter);
+
+   /**
+    * Runs a task registered on the servers by name on the primary owners of the keys, each owner running it once with
+    * the keys it owns, or on any server if no key is given. See {@link #executeOnKey(String, Object, Object)}.
+    *
+    * @return the result of each server the task ran on
+    * @since 6.0
+    */
+   <T> List<T> executeOnKeys(String taskName, Set<? extends K> keys, Object parameter);
+
 
    /**
     * Returns the HotRod protocol version supported by this RemoteCache implementation
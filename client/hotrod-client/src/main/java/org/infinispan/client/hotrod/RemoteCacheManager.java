@@ -61,7 +61,11 @@
  * <li><tt>infinispan.client.hotrod.force_return_values</tt>, default = false.  Whether or not to implicitly {@link org.infinispan.client.hotrod.Flag#FORCE_RETURN_VALUE} for all calls.</li>
  * <li><tt>infinispan.client.hotrod.tcp_no_delay</tt>, default = true.  Affects TCP NODELAY on the TCP stack.</li>
  * <li><tt>infinispan.client.hotrod.ping_on_startup</tt>, default = true.  If true, a ping request is sent to a back end server in order to fetch cluster's topology.</li>
- * <li><tt>infinispan.client.hotrod.transport_factory</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory - controls which transport to use.  Currently only the TcpTransport is supported.</li>
+ * <li><tt>infinispan.client.hotrod.transport_factory</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory - controls which transport to use.  The alternative org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory pipelines the requests over a few connections per server and makes the asynchronous operations non-blocking.</li>
+ * <li><tt>infinispan.client.hotrod.multiplexed_connections</tt>, default = 2.  The number of connections opened to each server by the MultiplexedTransportFactory.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.mode</tt>, default = DISABLED.  Keeps the most recently read entries of each cache in the client. INVALIDATED evicts an entry as soon as a server reports that its key has changed, and requires the MultiplexedTransportFactory and protocol version 1.3. LAZY checks an entry against the server once it is older than the revalidation interval.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 10000.  The maximum number of entries in the near cache of each cache, the least recently used ones are evicted first.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.revalidation_interval</tt>, default = 1000.  The age in milliseconds after which an entry of a LAZY near cache is checked against the server.</li>
  * <li><tt>infinispan.client.hotrod.marshaller</tt>, default = org.infinispan.marshall.jboss.GenericJBossMarshaller.  Allows you to specify a custom {@link org.infinispan.marshall.Marshaller} implementation to serialize and deserialize user objects. For portable serialization payloads, you should configure the marshaller to be {@link org.infinispan.client.hotrod.marshall.ApacheAvroMarshaller}</li>
  * <li><tt>infinispan.client.hotrod.async_executor_factory</tt>, default = org.infinispan.client.hotrod.impl.async.DefaultAsyncExecutorFactory.  Allows you to specify a custom asynchroous executor for async calls.</li>
  * <li><tt>infinispan.client.hotrod.default_executor_factory.pool_size</tt>, default = 10.  If the default executor is used, this configures the number of threads to initialize the executor with.</li>
@@ -309,6 +313,13 @@ public Properties getProperties() {
       properties.setProperty(ConfigurationProperties.FORCE_RETURN_VALUES, Boolean.toString(configuration.forceReturnValues()));
       properties.setProperty(ConfigurationProperties.KEY_SIZE_ESTIMATE, Integer.toString(configuration.keySizeEstimate()));
       properties.setProperty(ConfigurationProperties.MARSHALLER, configuration.marshallerClass().getName());
+      properties.setProperty(ConfigurationProperties.MULTIPLEXED_CONNECTIONS, Integer.toString(configuration.multiplexedConnections()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_MODE, configuration.nearCache().mode().name());
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, Integer.toString(configuration.nearCache().maxEntries()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_REVALIDATION_INTERVAL, Long.toString(configuration.nearCache().revalidationInterval()));
+      properties.setProperty(ConfigurationProperties.COMPRESSION_ENABLED, Boolean.toString(configuration.compression().enabled()));
+      properties.setProperty(ConfigurationProperties.COMPRESSION_THRESHOLD, Integer.toString(configuration.compression().threshold()));
+      properties.setProperty(ConfigurationProperties.COMPRESSION_LEVEL, Integer.toString(configuration.compression().level()));
       properties.setProperty(ConfigurationProperties.PING_ON_STARTUP, Boolean.toString(configuration.pingOnStartup()));
       properties.setProperty(ConfigurationProperties.PROTOCOL_VERSION, configuration.protocolVersion());
       properties.setProperty(ConfigurationProperties.SO_TIMEOUT, Integer.toString(configuration.socketTimeout()));
@@ -545,7 +556,7 @@ public void start() {
       // Workaround for JDK6 NPE: http://bugs.sun.com/view_bug.do?bug_id=6427854
       SysPropertyActions.setProperty("sun.nio.ch.bugLevel", "\"\"");
 
-      codec = CodecFactory.getCodec(configuration.protocolVersion());
+      codec = CodecFactory.getCodec(configuration.protocolVersion(), configuration.compression().enabled());
 
       transportFactory = Util.getInstance(configuration.transportFactory());
 
@@ -636,7 +647,8 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
       OperationsFactory operationsFactory = new OperationsFactory(
             transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate());
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate(),
+            configuration.nearCache(), configuration.compression());
    }
 
    public Marshaller getMarshaller() {
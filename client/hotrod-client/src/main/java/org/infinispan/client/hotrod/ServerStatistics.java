@@ -59,6 +59,39 @@ public interface ServerStatistics {
     */
    String REMOVE_MISSES = "removeMisses";
 
+   /**
+    * Number of reads served by the near cache of the client, only reported if the near cache is enabled.
+    */
+   String NEAR_CACHE_HITS = "nearCacheHits";
+
+   /**
+    * Number of reads the near cache of the client had to forward to the server.
+    */
+   String NEAR_CACHE_MISSES = "nearCacheMisses";
+
+   /**
+    * Number of entries removed from the near cache of the client because their key was modified.
+    */
+   String NEAR_CACHE_INVALIDATIONS = "nearCacheInvalidations";
+
+   /**
+    * Moving average of the response times of a server measured by the client, in microseconds, reported for each
+    * server as <code>averageLatencyMicros[host:port]</code>. Only reported with the
+    * {@link org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy}.
+    */
+   String AVERAGE_LATENCY_MICROS = "averageLatencyMicros";
+
+   /**
+    * Number of requests of the client waiting for a response from a server, reported for each server as
+    * <code>outstandingRequests[host:port]</code>.
+    */
+   String OUTSTANDING_REQUESTS = "outstandingRequests";
+
+   /**
+    * Number of reads the client sent to another owner of the key because the primary owner was slow.
+    */
+   String REDIRECTED_READS = "redirectedReads";
+
    Map<String, String> getStatsMap();
 
    String getStatistic(String statsName);
@@ -95,6 +95,21 @@ public ConfigurationBuilder marshaller(Marshaller marshaller) {
       return builder.marshaller(marshaller);
    }
 
+   @Override
+   public ConfigurationBuilder multiplexedConnections(int multiplexedConnections) {
+      return builder.multiplexedConnections(multiplexedConnections);
+   }
+
+   @Override
+   public NearCacheConfigurationBuilder nearCache() {
+      return builder.nearCache();
+   }
+
+   @Override
+   public CompressionConfigurationBuilder compression() {
+      return builder.compression();
+   }
+
    @Override
    public ConfigurationBuilder pingOnStartup(boolean pingOnStartup) {
       return builder.pingOnStartup(pingOnStartup);
@@ -0,0 +1,88 @@
+package org.infinispan.client.hotrod.configuration;
+
+import java.util.Properties;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.TypedProperties;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * CompressionConfigurationBuilder. Configures the compression of the values exchanged with the server: the client
+ * compresses the values it sends and the server decompresses them before storing them, and the other way round for the
+ * values read. The values are only compressed on the wire, so the clients of a remote cache don't need to use the same
+ * setting. Requires Hot Rod protocol version 1.4.
+ *
+ * @since 6.0
+ */
+public class CompressionConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<CompressionConfiguration> {
+   private static final Log log = LogFactory.getLog(CompressionConfigurationBuilder.class, Log.class);
+   private boolean enabled;
+   private int threshold = ConfigurationProperties.DEFAULT_COMPRESSION_THRESHOLD;
+   private int level = ConfigurationProperties.DEFAULT_COMPRESSION_LEVEL;
+
+   CompressionConfigurationBuilder(ConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   /**
+    * Enables the compression of the values. Defaults to false.
+    */
+   public CompressionConfigurationBuilder enabled(boolean enabled) {
+      this.enabled = enabled;
+      return this;
+   }
+
+   /**
+    * Specifies the size in bytes from which the marshalled values are compressed, the smaller ones being sent as they
+    * are. Defaults to 1024.
+    */
+   public CompressionConfigurationBuilder threshold(int threshold) {
+      this.threshold = threshold;
+      return this;
+   }
+
+   /**
+    * Specifies the deflate compression level, from 0 (no compression) to 9 (best compression). Defaults to 1, the
+    * fastest.
+    */
+   public CompressionConfigurationBuilder level(int level) {
+      this.level = level;
+      return this;
+   }
+
+   /**
+    * Configures the compression using the properties specified in {@link ConfigurationProperties}
+    */
+   public CompressionConfigurationBuilder withCompressionProperties(Properties properties) {
+      TypedProperties typed = TypedProperties.toTypedProperties(properties);
+      enabled(typed.getBooleanProperty(ConfigurationProperties.COMPRESSION_ENABLED, enabled));
+      threshold(typed.getIntProperty(ConfigurationProperties.COMPRESSION_THRESHOLD, threshold));
+      level(typed.getIntProperty(ConfigurationProperties.COMPRESSION_LEVEL, level));
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (threshold < 0) {
+         throw log.invalidCompressionThreshold(threshold);
+      }
+      if (level < 0 || level > 9) {
+         throw log.invalidCompressionLevel(level);
+      }
+   }
+
+   @Override
+   public CompressionConfiguration create() {
+      return new CompressionConfiguration(enabled, threshold, level);
+   }
+
+   @Override
+   public CompressionConfigurationBuilder read(CompressionConfiguration template) {
+      this.enabled = template.enabled();
+      this.threshold = template.threshold();
+      this.level = template.level();
+      return this;
+   }
+}
@@ -11,10 +11,14 @@
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV1;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV2;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
 import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
 import org.infinispan.client.hotrod.impl.transport.tcp.RoundRobinBalancingStrategy;
 import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.marshall.Marshaller;
 import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
@@ -28,17 +32,21 @@
  * @since 5.3
  */
 public class ConfigurationBuilder implements ConfigurationChildBuilder, Builder<Configuration> {
+   private static final Log log = LogFactory.getLog(ConfigurationBuilder.class, Log.class);
    private WeakReference<ClassLoader> classLoader;
    private final ExecutorFactoryConfigurationBuilder asyncExecutorFactory;
    private Class<? extends RequestBalancingStrategy> balancingStrategy = RoundRobinBalancingStrategy.class;
    private final ConnectionPoolConfigurationBuilder connectionPool;
    private int connectionTimeout = ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT;
    @SuppressWarnings("unchecked")
-   private Class<? extends ConsistentHash> consistentHashImpl[] = new Class[] { ConsistentHashV1.class, ConsistentHashV2.class };
+   private Class<? extends ConsistentHash> consistentHashImpl[] = new Class[] { ConsistentHashV1.class, ConsistentHashV2.class, SegmentConsistentHash.class };
    private boolean forceReturnValues;
    private int keySizeEstimate = ConfigurationProperties.DEFAULT_KEY_SIZE;
    private Class<? extends Marshaller> marshallerClass = GenericJBossMarshaller.class;
    private Marshaller marshaller;
+   private int multiplexedConnections = ConfigurationProperties.DEFAULT_MULTIPLEXED_CONNECTIONS;
+   private final NearCacheConfigurationBuilder nearCache;
+   private final CompressionConfigurationBuilder compression;
    private boolean pingOnStartup = true;
    private String protocolVersion = ConfigurationProperties.DEFAULT_PROTOCOL_VERSION;
    private List<ServerConfigurationBuilder> servers = new ArrayList<ServerConfigurationBuilder>();
@@ -54,6 +62,8 @@ public ConfigurationBuilder() {
       this.connectionPool = new ConnectionPoolConfigurationBuilder(this);
       this.asyncExecutorFactory = new ExecutorFactoryConfigurationBuilder(this);
       this.ssl = new SslConfigurationBuilder(this);
+      this.nearCache = new NearCacheConfigurationBuilder(this);
+      this.compression = new CompressionConfigurationBuilder(this);
    }
 
    @Override
@@ -156,6 +166,22 @@ public ConfigurationBuilder marshaller(Marshaller marshaller) {
       return this;
    }
 
+   @Override
+   public ConfigurationBuilder multiplexedConnections(int multiplexedConnections) {
+      this.multiplexedConnections = multiplexedConnections;
+      return this;
+   }
+
+   @Override
+   public NearCacheConfigurationBuilder nearCache() {
+      return nearCache;
+   }
+
+   @Override
+   public CompressionConfigurationBuilder compression() {
+      return compression;
+   }
+
    @Override
    public ConfigurationBuilder pingOnStartup(boolean pingOnStartup) {
       this.pingOnStartup = pingOnStartup;
@@ -222,6 +248,9 @@ public ConfigurationBuilder withProperties(Properties properties) {
       if (typed.containsKey(ConfigurationProperties.MARSHALLER)) {
          this.marshaller(typed.getProperty(ConfigurationProperties.MARSHALLER));
       }
+      this.multiplexedConnections(typed.getIntProperty(ConfigurationProperties.MULTIPLEXED_CONNECTIONS, multiplexedConnections));
+      this.nearCache.withNearCacheProperties(typed);
+      this.compression.withCompressionProperties(typed);
       this.pingOnStartup(typed.getBooleanProperty(ConfigurationProperties.PING_ON_STARTUP, pingOnStartup));
       this.protocolVersion(typed.getProperty(ConfigurationProperties.PROTOCOL_VERSION, protocolVersion));
       this.servers.clear();
@@ -240,6 +269,26 @@ public void validate() {
       connectionPool.validate();
       asyncExecutorFactory.validate();
       ssl.validate();
+      if (multiplexedConnections < 1) {
+         throw log.invalidMultiplexedConnections(multiplexedConnections);
+      }
+      nearCache.validate();
+      compression.validate();
+      if (compression.create().enabled() && !ConfigurationProperties.PROTOCOL_VERSION_14.equals(protocolVersion)) {
+         throw log.compressionRequiresProtocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14, protocolVersion);
+      }
+      if (nearCache.create().mode() == NearCacheMode.INVALIDATED) {
+         if (!MultiplexedTransportFactory.class.isAssignableFrom(transportFactory)) {
+            throw log.invalidatedNearCacheRequiresMultiplexedTransport(MultiplexedTransportFactory.class.getName());
+         }
+         if (!ConfigurationProperties.PROTOCOL_VERSION_13.equals(protocolVersion)
+               && !ConfigurationProperties.PROTOCOL_VERSION_14.equals(protocolVersion)) {
+            throw log.invalidatedNearCacheRequiresProtocolVersion(ConfigurationProperties.PROTOCOL_VERSION_13, protocolVersion);
+         }
+      }
+      if (!SegmentConsistentHash.class.isAssignableFrom(consistentHashImpl[2])) {
+         throw log.invalidSegmentConsistentHash(consistentHashImpl[2].getName(), SegmentConsistentHash.class.getName());
+      }
    }
 
    @Override
@@ -253,12 +302,12 @@ public Configuration create() {
          servers.add(new ServerConfiguration("127.0.0.1", ConfigurationProperties.DEFAULT_HOTROD_PORT));
       }
       if (marshaller == null) {
-         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), compression.create(), connectionPool.create(), connectionTimeout,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, multiplexedConnections, nearCache.create(), pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       } else {
-         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+         return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), compression.create(), connectionPool.create(), connectionTimeout,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, multiplexedConnections, nearCache.create(), pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       }
    }
@@ -289,6 +338,9 @@ public ConfigurationBuilder read(Configuration template) {
       this.keySizeEstimate = template.keySizeEstimate();
       this.marshaller = template.marshaller();
       this.marshallerClass = template.marshallerClass();
+      this.multiplexedConnections = template.multiplexedConnections();
+      this.nearCache.read(template.nearCache());
+      this.compression.read(template.compression());
       this.pingOnStartup = template.pingOnStartup();
       this.protocolVersion = template.protocolVersion();
       this.servers.clear();
@@ -5,6 +5,7 @@
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV1;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV2;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
 import org.infinispan.commons.marshall.Marshaller;
@@ -64,13 +65,15 @@ public interface ConfigurationChildBuilder {
 
    /**
     * Defines the {@link ConsistentHash} implementation to use for the specified version. By default,
-    * {@link ConsistentHashV1} is used for version 1 and {@link ConsistentHashV2} is used for version 2.
+    * {@link ConsistentHashV1} is used for version 1, {@link ConsistentHashV2} for version 2 and
+    * {@link SegmentConsistentHash} for version 3, whose implementations must extend it.
     */
    ConfigurationBuilder consistentHashImpl(int version, Class<? extends ConsistentHash> consistentHashClass);
 
    /**
     * Defines the {@link ConsistentHash} implementation to use for the specified version. By default,
-    * {@link ConsistentHashV1} is used for version 1 and {@link ConsistentHashV2} is used for version 2.
+    * {@link ConsistentHashV1} is used for version 1, {@link ConsistentHashV2} for version 2 and
+    * {@link SegmentConsistentHash} for version 3, whose implementations must extend it.
     */
    ConfigurationBuilder consistentHashImpl(int version, String consistentHashClass);
 
@@ -79,11 +82,28 @@ public interface ConfigurationChildBuilder {
     */
    ConfigurationBuilder forceReturnValues(boolean forceReturnValues);
 
+   /**
+    * The number of connections opened to each server by the
+    * {@link org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory}, which all the
+    * concurrent requests to the server share. Defaults to 2. Ignored by the other transport factories.
+    */
+   ConfigurationBuilder multiplexedConnections(int multiplexedConnections);
+
    /**
     * This hint allows sizing of byte buffers when serializing and deserializing keys, to minimize array resizing. It defaults to 64.
     */
    ConfigurationBuilder keySizeEstimate(int keySizeEstimate);
 
+   /**
+    * Configures the near cache, which keeps the most recently read entries of each remote cache in the client
+    */
+   NearCacheConfigurationBuilder nearCache();
+
+   /**
+    * Configures the compression of the values, which are then stored compressed in the remote caches
+    */
+   CompressionConfigurationBuilder compression();
+
    /**
     * Allows you to specify a custom {@link org.infinispan.marshall.Marshaller} implementation to
     * serialize and deserialize user objects. This method is mutually exclusive with {@link #marshaller(Marshaller)}.
@@ -130,7 +150,9 @@ public interface ConfigurationChildBuilder {
    ConfigurationBuilder tcpNoDelay(boolean tcpNoDelay);
 
    /**
-    * Controls which transport to use. Currently only the TcpTransport is supported.
+    * Controls which transport to use. The default TcpTransportFactory uses a pool of blocking connections with one
+    * connection per in-flight request, the MultiplexedTransportFactory pipelines the requests over a few connections
+    * per server and makes the asynchronous operations non-blocking.
     */
    ConfigurationBuilder transportFactory(String transportFactory);
 
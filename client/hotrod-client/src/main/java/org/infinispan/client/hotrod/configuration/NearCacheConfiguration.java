@@ -0,0 +1,35 @@
+package org.infinispan.client.hotrod.configuration;
+
+/**
+ * NearCacheConfiguration.
+ *
+ * @since 6.0
+ */
+public class NearCacheConfiguration {
+   private final NearCacheMode mode;
+   private final int maxEntries;
+   private final long revalidationInterval;
+
+   NearCacheConfiguration(NearCacheMode mode, int maxEntries, long revalidationInterval) {
+      this.mode = mode;
+      this.maxEntries = maxEntries;
+      this.revalidationInterval = revalidationInterval;
+   }
+
+   public NearCacheMode mode() {
+      return mode;
+   }
+
+   public int maxEntries() {
+      return maxEntries;
+   }
+
+   public long revalidationInterval() {
+      return revalidationInterval;
+   }
+
+   @Override
+   public String toString() {
+      return "NearCacheConfiguration [mode=" + mode + ", maxEntries=" + maxEntries + ", revalidationInterval=" + revalidationInterval + "]";
+   }
+}
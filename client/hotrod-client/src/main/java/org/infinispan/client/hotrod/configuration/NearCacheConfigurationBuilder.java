@@ -0,0 +1,83 @@
+package org.infinispan.client.hotrod.configuration;
+
+import java.util.Properties;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.TypedProperties;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * NearCacheConfigurationBuilder. Configures the near cache which keeps the most recently read entries of each remote
+ * cache in the client.
+ *
+ * @since 6.0
+ */
+public class NearCacheConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<NearCacheConfiguration> {
+   private static final Log log = LogFactory.getLog(NearCacheConfigurationBuilder.class, Log.class);
+   private NearCacheMode mode = NearCacheMode.DISABLED;
+   private int maxEntries = ConfigurationProperties.DEFAULT_NEAR_CACHE_MAX_ENTRIES;
+   private long revalidationInterval = ConfigurationProperties.DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL;
+
+   NearCacheConfigurationBuilder(ConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   /**
+    * Specifies how the near cache is kept up to date. Defaults to {@link NearCacheMode#DISABLED}.
+    */
+   public NearCacheConfigurationBuilder mode(NearCacheMode mode) {
+      this.mode = mode;
+      return this;
+   }
+
+   /**
+    * Specifies the maximum number of entries kept in the near cache of each remote cache. The least recently used
+    * entries are evicted first. Defaults to 10000.
+    */
+   public NearCacheConfigurationBuilder maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+   }
+
+   /**
+    * Specifies the number of milliseconds after which an entry of a {@link NearCacheMode#LAZY} near cache is checked
+    * against the server before being returned. Defaults to 1000.
+    */
+   public NearCacheConfigurationBuilder revalidationInterval(long revalidationInterval) {
+      this.revalidationInterval = revalidationInterval;
+      return this;
+   }
+
+   /**
+    * Configures the near cache using the properties specified in {@link ConfigurationProperties}
+    */
+   public NearCacheConfigurationBuilder withNearCacheProperties(Properties properties) {
+      TypedProperties typed = TypedProperties.toTypedProperties(properties);
+      mode(NearCacheMode.valueOf(typed.getProperty(ConfigurationProperties.NEAR_CACHE_MODE, mode.name()).trim().toUpperCase()));
+      maxEntries(typed.getIntProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, maxEntries));
+      revalidationInterval(typed.getLongProperty(ConfigurationProperties.NEAR_CACHE_REVALIDATION_INTERVAL, revalidationInterval));
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (mode.enabled() && maxEntries < 1) {
+         throw log.invalidNearCacheMaxEntries(maxEntries);
+      }
+   }
+
+   @Override
+   public NearCacheConfiguration create() {
+      return new NearCacheConfiguration(mode, maxEntries, revalidationInterval);
+   }
+
+   @Override
+   public NearCacheConfigurationBuilder read(NearCacheConfiguration template) {
+      this.mode = template.mode();
+      this.maxEntries = template.maxEntries();
+      this.revalidationInterval = template.revalidationInterval();
+      return this;
+   }
+}
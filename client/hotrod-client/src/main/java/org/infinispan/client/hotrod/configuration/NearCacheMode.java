@@ -0,0 +1,27 @@
+package org.infinispan.client.hotrod.configuration;
+
+/**
+ * Decides how the entries kept in the near cache of a remote cache are kept up to date.
+ *
+ * @since 6.0
+ */
+public enum NearCacheMode {
+   /**
+    * No near cache: every read goes to the server.
+    */
+   DISABLED,
+   /**
+    * Entries are evicted as soon as the servers report that their keys have been modified or removed. Requires the
+    * multiplexed transport and version 1.3 of the protocol. The entries which expire are not kept in the near cache.
+    */
+   INVALIDATED,
+   /**
+    * Entries are revalidated against the server once they are older than the revalidation interval, so a read may
+    * return a stale value for up to that interval.
+    */
+   LAZY;
+
+   public boolean enabled() {
+      return this != DISABLED;
+   }
+}
@@ -7,6 +7,7 @@
 import java.util.Properties;
 import java.util.Set;
 
+import org.infinispan.client.hotrod.configuration.NearCacheMode;
 import org.infinispan.client.hotrod.impl.async.DefaultAsyncExecutorFactory;
 import org.infinispan.client.hotrod.impl.transport.tcp.RoundRobinBalancingStrategy;
 import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
@@ -35,6 +36,13 @@ public class ConfigurationProperties {
    public static final String SO_TIMEOUT = "infinispan.client.hotrod.socket_timeout";
    public static final String CONNECT_TIMEOUT = "infinispan.client.hotrod.connect_timeout";
    public static final String PROTOCOL_VERSION = "infinispan.client.hotrod.protocol_version";
+   public static final String MULTIPLEXED_CONNECTIONS = "infinispan.client.hotrod.multiplexed_connections";
+   public static final String NEAR_CACHE_MODE = "infinispan.client.hotrod.near_cache.mode";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String NEAR_CACHE_REVALIDATION_INTERVAL = "infinispan.client.hotrod.near_cache.revalidation_interval";
+   public static final String COMPRESSION_ENABLED = "infinispan.client.hotrod.compression.enabled";
+   public static final String COMPRESSION_THRESHOLD = "infinispan.client.hotrod.compression.threshold";
+   public static final String COMPRESSION_LEVEL = "infinispan.client.hotrod.compression.level";
    public static final String USE_SSL = "infinispan.client.hotrod.use_ssl";
    public static final String KEY_STORE_FILE_NAME = "infinispan.client.hotrod.key_store_file_name";
    public static final String KEY_STORE_PASSWORD = "infinispan.client.hotrod.key_store_password";
@@ -48,6 +56,13 @@ public class ConfigurationProperties {
    public static final int DEFAULT_HOTROD_PORT = 11222;
    public static final int DEFAULT_SO_TIMEOUT = 60000;
    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
+   public static final int DEFAULT_MULTIPLEXED_CONNECTIONS = 2;
+   public static final int DEFAULT_NEAR_CACHE_MAX_ENTRIES = 10000;
+   public static final long DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL = 1000;
+   public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+   public static final int DEFAULT_COMPRESSION_LEVEL = 1;
+   public static final String PROTOCOL_VERSION_14 = "1.4";
+   public static final String PROTOCOL_VERSION_13 = "1.3";
    public static final String PROTOCOL_VERSION_12 = "1.2";
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
@@ -141,6 +156,34 @@ public String getProtocolVersion() {
       return props.getProperty(PROTOCOL_VERSION, DEFAULT_PROTOCOL_VERSION);
    }
 
+   public int getMultiplexedConnections() {
+      return props.getIntProperty(MULTIPLEXED_CONNECTIONS, DEFAULT_MULTIPLEXED_CONNECTIONS);
+   }
+
+   public String getNearCacheMode() {
+      return props.getProperty(NEAR_CACHE_MODE, NearCacheMode.DISABLED.name());
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, DEFAULT_NEAR_CACHE_MAX_ENTRIES);
+   }
+
+   public long getNearCacheRevalidationInterval() {
+      return props.getLongProperty(NEAR_CACHE_REVALIDATION_INTERVAL, DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL);
+   }
+
+   public boolean getCompressionEnabled() {
+      return props.getBooleanProperty(COMPRESSION_ENABLED, false);
+   }
+
+   public int getCompressionThreshold() {
+      return props.getIntProperty(COMPRESSION_THRESHOLD, DEFAULT_COMPRESSION_THRESHOLD);
+   }
+
+   public int getCompressionLevel() {
+      return props.getIntProperty(COMPRESSION_LEVEL, DEFAULT_COMPRESSION_LEVEL);
+   }
+
    public int getConnectTimeout() {
       return props.getIntProperty(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
    }
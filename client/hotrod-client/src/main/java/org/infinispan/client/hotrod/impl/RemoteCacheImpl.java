@@ -3,16 +3,27 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.infinispan.client.hotrod.ClientCacheListener;
+import org.infinispan.client.hotrod.CloseableIterator;
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
@@ -20,28 +31,47 @@
 import org.infinispan.client.hotrod.ServerStatistics;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.CompressionConfiguration;
+import org.infinispan.client.hotrod.configuration.NearCacheConfiguration;
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
+import org.infinispan.client.hotrod.impl.compression.ValueCompressor;
+import org.infinispan.client.hotrod.impl.event.ClientListeners;
+import org.infinispan.client.hotrod.impl.nearcache.NearCache;
 import org.infinispan.client.hotrod.impl.operations.BulkGetKeysOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
+import org.infinispan.client.hotrod.impl.operations.CounterAddOperation;
+import org.infinispan.client.hotrod.impl.operations.ExecTaskOperation;
 import org.infinispan.client.hotrod.impl.operations.ContainsKeyOperation;
+import org.infinispan.client.hotrod.impl.operations.GetAllOperation;
 import org.infinispan.client.hotrod.impl.operations.GetOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithMetadataOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithVersionOperation;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.operations.PutAllOperation;
 import org.infinispan.client.hotrod.impl.operations.PutIfAbsentOperation;
 import org.infinispan.client.hotrod.impl.operations.PutOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
+import org.infinispan.client.hotrod.impl.streaming.ChunkStore;
+import org.infinispan.client.hotrod.impl.streaming.ChunkedInputStream;
+import org.infinispan.client.hotrod.impl.streaming.ChunkedOutputStream;
+import org.infinispan.client.hotrod.impl.streaming.ValueChunk;
+import org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy;
+import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.util.SimpleImmutableEntry;
+import org.infinispan.commons.util.concurrent.FutureListener;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 /**
@@ -59,7 +89,10 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
-
+   private NearCache<K, V> nearCache;
+   private ValueCompressor compressor;
+   private ChunkStore chunkStore;
+   private ClientListeners<K, V> clientListeners;
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       if (log.isTraceEnabled()) {
@@ -69,12 +102,21 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       this.remoteCacheManager = rcm;
    }
 
-   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize,
+         NearCacheConfiguration nearCacheConfiguration, CompressionConfiguration compressionConfiguration) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      if (compressionConfiguration.enabled()) {
+         this.compressor = new ValueCompressor(compressionConfiguration);
+      }
+      this.chunkStore = new ChunkStore(operationsFactory, compressor);
+      this.clientListeners = new ClientListeners<K, V>(name, marshaller, compressor, operationsFactory);
+      if (nearCacheConfiguration.mode().enabled()) {
+         this.nearCache = new NearCache<K, V>(name, nearCacheConfiguration, marshaller, operationsFactory);
+      }
    }
 
    @Override
@@ -86,13 +128,21 @@ public RemoteCacheManager getRemoteCacheManager() {
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
       RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(key);
+      }
    }
 
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+         return updatedFuture(invalidateNearCache(key, op.executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -110,13 +160,21 @@ public Boolean call() throws Exception {
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
       ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(key);
+      }
    }
 
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+         return updatedFuture(invalidateNearCache(key, op.executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -133,6 +191,9 @@ public Boolean call() throws Exception {
    @Override
    public VersionedValue<V> getVersioned(K key) {
       assertRemoteCacheManagerIsStarted();
+      if (nearCache != null && !operationsFactory.hasFlags()) {
+         return getVersionedNear(key);
+      }
       GetWithVersionOperation op = operationsFactory.newGetWithVersionOperation(obj2bytes(key, true));
       VersionedValue<byte[]> value = op.execute();
       return binary2VersionedValue(value);
@@ -149,14 +210,42 @@ public MetadataValue<V> getWithMetadata(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isMultiKeySupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      if (map.isEmpty()) {
+         return;
+      }
+      try {
+         executeAll(newPutAllOperations(map, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit));
+      } finally {
+         invalidateNearCacheKeys(map.keySet());
+      }
+   }
+
+   private List<PutAllOperation> newPutAllOperations(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", map.size(), lifespanSecs, maxIdleSecs);
+      }
+      Map<byte[], byte[]> entries = new LinkedHashMap<byte[], byte[]>();
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
       }
+      return operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs);
    }
 
    @Override
    public NotifyingFuture<Void> putAllAsync(final Map<? extends K, ? extends V> data, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return putAllMultiplexed(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+      }
       final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
       Future<Void> future = executorService.submit(new Callable<Void>() {
          @Override
@@ -192,6 +281,23 @@ public ServerStatistics stats() {
       for (Map.Entry<String, String> entry : statsMap.entrySet()) {
          stats.addStats(entry.getKey(), entry.getValue());
       }
+      if (nearCache != null) {
+         stats.addStats(ServerStatistics.NEAR_CACHE_HITS, String.valueOf(nearCache.getHits()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_MISSES, String.valueOf(nearCache.getMisses()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_INVALIDATIONS, String.valueOf(nearCache.getInvalidations()));
+      }
+      RequestBalancingStrategy balancer = operationsFactory.getTransportFactory().getBalancer();
+      if (balancer instanceof LatencyAwareBalancingStrategy) {
+         LatencyAwareBalancingStrategy latencies = (LatencyAwareBalancingStrategy) balancer;
+         for (SocketAddress server : latencies.getServers()) {
+            String suffix = "[" + LatencyAwareBalancingStrategy.toString(server) + "]";
+            stats.addStats(ServerStatistics.AVERAGE_LATENCY_MICROS + suffix,
+                  String.valueOf(latencies.getAverageLatencyMicros(server)));
+            stats.addStats(ServerStatistics.OUTSTANDING_REQUESTS + suffix,
+                  String.valueOf(latencies.getOutstandingRequests(server)));
+         }
+         stats.addStats(ServerStatistics.REDIRECTED_READS, String.valueOf(latencies.getRedirectedReads()));
+      }
       return stats;
    }
 
@@ -199,15 +305,23 @@ public ServerStatistics stats() {
    @SuppressWarnings("unchecked")
    public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      PutOperation op = newPutOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      try {
+         byte[] result = op.execute();
+         return (V) bytes2obj(result, false);
+      } finally {
+         invalidateNearCache(key);
+      }
+   }
+
+   private PutOperation newPutOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] result = op.execute();
-      return (V) bytes2obj(result);
+      return operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
 
@@ -215,29 +329,48 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
    @SuppressWarnings("unchecked")
    public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      PutIfAbsentOperation op = newPutIfAbsentOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      try {
+         byte[] bytes = op.execute();
+         return (V) bytes2obj(bytes, false);
+      } finally {
+         invalidateNearCache(key);
+      }
+   }
+
+   private PutIfAbsentOperation newPutIfAbsentOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
-      return (V) bytes2obj(bytes);
+      return operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
    @Override
    @SuppressWarnings("unchecked")
    public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      ReplaceOperation op = newReplaceOperation(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+      try {
+         byte[] bytes = op.execute();
+         return (V) bytes2obj(bytes, false);
+      } finally {
+         invalidateNearCache(key);
+      }
+   }
+
+   private ReplaceOperation newReplaceOperation(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
-      return (V) bytes2obj(bytes);
+      return operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return valueFuture(invalidateNearCache(key, newPutOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit).executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -254,6 +387,9 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<Void> clearAsync() {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return invalidateNearCache(null, operationsFactory.newClearOperation().executeAsync(executorService));
+      }
       final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
       Future<Void> future = executorService.submit(new Callable<Void>() {
          @Override
@@ -270,6 +406,9 @@ public Void call() throws Exception {
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return valueFuture(invalidateNearCache(key, newPutIfAbsentOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit).executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -286,6 +425,9 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return valueFuture(invalidateNearCache(key, operationsFactory.newRemoveOperation(obj2bytes(key, true)).executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -302,6 +444,9 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isAsyncSupported()) {
+         return valueFuture(invalidateNearCache(key, newReplaceOperation(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit).executeAsync(executorService)));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -315,6 +460,52 @@ public V call() throws Exception {
       return result;
    }
 
+   @Override
+   public long addAndGet(K key, long delta) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isCounterSupported()) {
+         throw new UnsupportedOperationException("Counters require protocol version 1.4 or later");
+      }
+      CounterAddOperation op = operationsFactory.newCounterAddOperation(obj2bytes(key, true), delta);
+      return op.execute();
+   }
+
+   @Override
+   public <T> T executeOnKey(String taskName, K key, Object parameter) {
+      List<T> results = runTask(taskName, Collections.singleton(key), parameter);
+      return results.isEmpty() ? null : results.get(0);
+   }
+
+   @Override
+   public <T> List<T> executeOnKeys(String taskName, Set<? extends K> keys, Object parameter) {
+      return runTask(taskName, keys, parameter);
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> List<T> runTask(String taskName, Set<? extends K> keys, Object parameter) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isTaskExecutionSupported()) {
+         throw new UnsupportedOperationException("Server tasks require protocol version 1.4 or later");
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      // The parameter and the results are read by the tasks, so they are never compressed
+      ExecTaskOperation op = operationsFactory.newExecTaskOperation(taskName, obj2bytes(parameter, true), keyBytes);
+      List<byte[]> resultBytes;
+      try {
+         resultBytes = op.execute();
+      } finally {
+         invalidateNearCacheKeys(keys);
+      }
+      List<T> results = new ArrayList<T>(resultBytes.size());
+      for (byte[] bytes : resultBytes) {
+         results.add((T) bytes2obj(bytes, true));
+      }
+      return results;
+   }
+
    @Override
    public boolean containsKey(Object key) {
       assertRemoteCacheManagerIsStarted();
@@ -326,10 +517,14 @@ public boolean containsKey(Object key) {
    @SuppressWarnings("unchecked")
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
+      if (nearCache != null && !operationsFactory.hasFlags()) {
+         VersionedValue<V> value = getVersionedNear(key);
+         return value == null ? null : value.getValue();
+      }
       byte[] keyBytes = obj2bytes(key, true);
       GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
       byte[] bytes = gco.execute();
-      V result = (V) bytes2obj(bytes);
+      V result = (V) bytes2obj(bytes, false);
       if (log.isTraceEnabled()) {
          log.tracef("For key(%s) returning %s", key, result);
       }
@@ -349,29 +544,207 @@ public Map<K, V> getBulk(int size) {
       Map<byte[], byte[]> result = op.execute();
       Map<K,V> toReturn = new HashMap<K,V>();
       for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
-         V value = (V) bytes2obj(entry.getValue());
-         K key = (K) bytes2obj(entry.getKey());
+         V value = (V) bytes2obj(entry.getValue(), false);
+         K key = (K) bytes2obj(entry.getKey(), true);
          toReturn.put(key, value);
       }
       return Collections.unmodifiableMap(toReturn);
    }
 
+   @Override
+   public CloseableIterator<Map.Entry<K, V>> retrieveEntries(String filterName, int batchSize) {
+      return retrieveEntries(filterName, null, batchSize);
+   }
+
+   @Override
+   public CloseableIterator<Map.Entry<K, V>> retrieveEntries(String filterName, Set<Integer> segments, int batchSize) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isIterationSupported()) {
+         throw new UnsupportedOperationException("Iterating the entries requires protocol version 1.4 or later");
+      }
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("Invalid batch size " + batchSize);
+      }
+      Map<SocketAddress, Set<Integer>> segmentsByServer = operationsFactory.groupSegmentsByOwner(segments);
+      boolean removeDuplicates = false;
+      if (segmentsByServer == null) {
+         // the owners are unknown, any server may hold only part of the entries
+         segmentsByServer = operationsFactory.segmentsOnEveryServer(segments);
+         removeDuplicates = segmentsByServer.size() > 1;
+      }
+      final RemoteEntryIterator entries = new RemoteEntryIterator(operationsFactory, segmentsByServer, filterName,
+            batchSize, removeDuplicates);
+      return new CloseableIterator<Map.Entry<K, V>>() {
+         @Override
+         public boolean hasNext() {
+            return entries.hasNext();
+         }
+
+         @Override
+         @SuppressWarnings("unchecked")
+         public Map.Entry<K, V> next() {
+            Map.Entry<byte[], byte[]> entry = entries.next();
+            return new SimpleImmutableEntry<K, V>((K) bytes2obj(entry.getKey(), true),
+                  (V) bytes2obj(entry.getValue(), false));
+         }
+
+         @Override
+         public void remove() {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public void close() {
+            entries.close();
+         }
+      };
+   }
+
+   @Override
+   public void addClientListener(ClientCacheListener<K, V> listener, String filterName, String converterName,
+         boolean includeValue) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isClientListenerSupported()) {
+         throw new UnsupportedOperationException(
+               "Client listeners require protocol version 1.4 or later and the multiplexed transport");
+      }
+      clientListeners.add(listener, filterName, converterName, includeValue);
+   }
+
+   @Override
+   public void removeClientListener(ClientCacheListener<K, V> listener) {
+      assertRemoteCacheManagerIsStarted();
+      clientListeners.remove(listener);
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      Map<K, V> result = new HashMap<K, V>();
+      if (!operationsFactory.isMultiKeySupported()) {
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+               result.put(key, value);
+            }
+         }
+         return Collections.unmodifiableMap(result);
+      }
+      boolean useNearCache = nearCache != null && !operationsFactory.hasFlags();
+      Map<byte[], K> missing = new LinkedHashMap<byte[], K>();
+      for (K key : keys) {
+         VersionedValue<V> cached = useNearCache ? nearCache.get(key) : null;
+         if (cached != null) {
+            result.put(key, cached.getValue());
+         } else {
+            missing.put(obj2bytes(key, true), key);
+         }
+      }
+      if (!missing.isEmpty()) {
+         List<GetAllOperation> ops = operationsFactory.newGetAllOperations(missing.keySet());
+         List<List<byte[]>> values = executeAll(ops);
+         for (int i = 0; i < ops.size(); i++) {
+            List<byte[]> opKeys = ops.get(i).getKeys();
+            List<byte[]> opValues = values.get(i);
+            for (int j = 0; j < opKeys.size(); j++) {
+               byte[] valueBytes = opValues.get(j);
+               if (valueBytes != null) {
+                  result.put(missing.get(opKeys.get(j)), (V) bytes2obj(valueBytes, false));
+               }
+            }
+         }
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("For %d keys returning %d entries", keys.size(), result.size());
+      }
+      return Collections.unmodifiableMap(result);
+   }
+
+   @Override
+   public void removeAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isMultiKeySupported()) {
+         for (K key : keys) {
+            remove(key);
+         }
+         return;
+      }
+      if (keys.isEmpty()) {
+         return;
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      try {
+         executeAll(operationsFactory.newRemoveAllOperations(keyBytes));
+      } finally {
+         invalidateNearCacheKeys(keys);
+      }
+   }
+
+   @Override
+   public OutputStream putAsStream(K key) {
+      return putAsStream(key, defaultLifespan, MILLISECONDS, defaultMaxIdleTime, MILLISECONDS);
+   }
+
+   @Override
+   public OutputStream putAsStream(final K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+      assertRemoteCacheManagerIsStarted();
+      assertStreamingSupported();
+      return new ChunkedOutputStream(chunkStore, obj2bytes(key, true), toSeconds(lifespan, lifespanUnit),
+            toSeconds(maxIdleTime, maxIdleTimeUnit)) {
+         @Override
+         public void close() throws IOException {
+            try {
+               super.close();
+            } finally {
+               invalidateNearCache(key);
+            }
+         }
+      };
+   }
+
+   @Override
+   public InputStream getAsStream(K key) {
+      assertRemoteCacheManagerIsStarted();
+      assertStreamingSupported();
+      byte[] keyBytes = obj2bytes(key, true);
+      ValueChunk first = chunkStore.getChunk(keyBytes, 0);
+      return first == null ? null : new ChunkedInputStream(chunkStore, keyBytes, first);
+   }
+
+   private void assertStreamingSupported() {
+      if (!operationsFactory.isStreamingSupported()) {
+         throw new UnsupportedOperationException("Streaming the values requires protocol version 1.4 or later");
+      }
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
       RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
-      byte[] existingValue = removeOperation.execute();
-      // TODO: It sucks that you need the prev value to see if it works...
-      // We need to find a better API for RemoteCache...
-      return (V) bytes2obj(existingValue);
+      try {
+         byte[] existingValue = removeOperation.execute();
+         // TODO: It sucks that you need the prev value to see if it works...
+         // We need to find a better API for RemoteCache...
+         return (V) bytes2obj(existingValue, false);
+      } finally {
+         invalidateNearCache(key);
+      }
    }
 
    @Override
    public void clear() {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
-      op.execute();
+      try {
+         op.execute();
+      } finally {
+         invalidateNearCache(null);
+      }
    }
 
    @Override
@@ -412,6 +785,12 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
+      if (nearCache != null && !operationsFactory.hasFlags()) {
+         return getNearAsync(key);
+      }
+      if (operationsFactory.isAsyncSupported()) {
+         return valueFuture(operationsFactory.newGetKeyOperation(obj2bytes(key, true)).executeAsync(executorService));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -429,9 +808,237 @@ public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
 
+   /**
+    * Executes the operations, each on the server owning its keys, in parallel: the requests are all pipelined with the
+    * multiplexed transport, otherwise all the operations but one are handed to the executor.
+    *
+    * @return the results of the operations, in the same order
+    */
+   private <T> List<T> executeAll(List<? extends RetryOnFailureOperation<T>> ops) {
+      List<T> results = new ArrayList<T>(ops.size());
+      if (ops.size() == 1) {
+         results.add(ops.get(0).execute());
+         return results;
+      }
+      List<Future<T>> futures = new ArrayList<Future<T>>(ops.size());
+      if (operationsFactory.isAsyncSupported()) {
+         for (RetryOnFailureOperation<T> op : ops) {
+            futures.add(op.executeAsync(executorService));
+         }
+      } else {
+         List<FutureTask<T>> tasks = new ArrayList<FutureTask<T>>(ops.size());
+         for (final RetryOnFailureOperation<T> op : ops) {
+            tasks.add(new FutureTask<T>(new Callable<T>() {
+               @Override
+               public T call() {
+                  return op.execute();
+               }
+            }));
+         }
+         for (int i = 1; i < tasks.size(); i++) {
+            executorService.execute(tasks.get(i));
+         }
+         // a task not started yet by the executor runs in this thread, so the executor is never waited for
+         for (FutureTask<T> task : tasks) {
+            task.run();
+         }
+         futures.addAll(tasks);
+      }
+      for (Future<T> future : futures) {
+         try {
+            results.add(future.get());
+         } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+               throw (RuntimeException) e.getCause();
+            }
+            throw new HotRodClientException(e.getCause());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HotRodClientException(e);
+         }
+      }
+      return results;
+   }
+
+   private NotifyingFuture<Void> putAllMultiplexed(final Map<? extends K, ? extends V> data, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit) {
+      final ResponseFuture<Void> result = new ResponseFuture<Void>();
+      if (data.isEmpty()) {
+         result.complete(null);
+         return result;
+      }
+      if (operationsFactory.isMultiKeySupported()) {
+         List<PutAllOperation> ops = newPutAllOperations(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+         final AtomicInteger remaining = new AtomicInteger(ops.size());
+         FutureListener<Void> listener = new FutureListener<Void>() {
+            @Override
+            public void futureDone(Future<Void> future) {
+               try {
+                  future.get();
+                  if (remaining.decrementAndGet() == 0) {
+                     invalidateNearCacheKeys(data.keySet());
+                     result.complete(null);
+                  }
+               } catch (ExecutionException e) {
+                  invalidateNearCacheKeys(data.keySet());
+                  result.completeExceptionally(e.getCause());
+               } catch (Exception e) {
+                  invalidateNearCacheKeys(data.keySet());
+                  result.completeExceptionally(e);
+               }
+            }
+         };
+         // all the batches are sent before waiting for any response
+         for (PutAllOperation op : ops) {
+            op.executeAsync(executorService).attachListener(listener);
+         }
+         return result;
+      }
+      final AtomicInteger remaining = new AtomicInteger(data.size());
+      FutureListener<byte[]> listener = new FutureListener<byte[]>() {
+         @Override
+         public void futureDone(Future<byte[]> future) {
+            try {
+               future.get();
+               if (remaining.decrementAndGet() == 0) {
+                  result.complete(null);
+               }
+            } catch (ExecutionException e) {
+               result.completeExceptionally(e.getCause());
+            } catch (Exception e) {
+               result.completeExceptionally(e);
+            }
+         }
+      };
+      // all the puts are sent before waiting for any response
+      for (Entry<? extends K, ? extends V> entry : data.entrySet()) {
+         invalidateNearCache(entry.getKey(), newPutOperation(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdle, maxIdleUnit).executeAsync(executorService))
+               .attachListener(listener);
+      }
+      return result;
+   }
+
+   private VersionedValue<V> getVersionedNear(Object key) {
+      VersionedValue<V> value = nearCache.get(key);
+      return value != null ? value : getVersionedAndCache(key);
+   }
+
+   @SuppressWarnings("unchecked")
+   private VersionedValue<V> getVersionedAndCache(Object key) {
+      // read before sending the request, see NearCache.put
+      long generation = nearCache.generation();
+      byte[] keyBytes = obj2bytes(key, true);
+      // the expiration tells the near cache whether the value can be cached
+      VersionedValue<byte[]> bytes = operationsFactory.isMetadataSupported()
+            ? operationsFactory.newGetWithMetadataOperation(keyBytes).execute()
+            : operationsFactory.newGetWithVersionOperation(keyBytes).execute();
+      VersionedValue<V> value = binary2VersionedValue(bytes);
+      nearCache.put((K) key, value, generation);
+      return value;
+   }
+
+   private NotifyingFuture<V> getNearAsync(final K key) {
+      VersionedValue<V> cached = nearCache.get(key);
+      if (cached != null) {
+         ResponseFuture<V> result = new ResponseFuture<V>();
+         result.complete(cached.getValue());
+         return result;
+      }
+      if (!operationsFactory.isAsyncSupported()) {
+         final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+         Future<V> future = executorService.submit(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+               VersionedValue<V> value = getVersionedAndCache(key);
+               result.notifyFutureCompletion();
+               return value == null ? null : value.getValue();
+            }
+         });
+         result.setExecuting(future);
+         return result;
+      }
+      long generation = nearCache.generation();
+      byte[] keyBytes = obj2bytes(key, true);
+      if (operationsFactory.isMetadataSupported()) {
+         return cacheWhenRead(key, operationsFactory.newGetWithMetadataOperation(keyBytes).executeAsync(executorService), generation);
+      }
+      return cacheWhenRead(key, operationsFactory.newGetWithVersionOperation(keyBytes).executeAsync(executorService), generation);
+   }
+
+   private <T extends VersionedValue<byte[]>> NotifyingFuture<V> cacheWhenRead(final K key, NotifyingFuture<T> read,
+         final long generation) {
+      ResultConverter<T, V> converter = new ResultConverter<T, V>() {
+         @Override
+         V convert(T bytes) {
+            VersionedValue<V> value = binary2VersionedValue(bytes);
+            nearCache.put(key, value, generation);
+            return value == null ? null : value.getValue();
+         }
+      };
+      read.attachListener(converter);
+      return converter.result;
+   }
+
+   /**
+    * Invalidates the key, or the whole near cache if the key is null, once the modification has been applied.
+    */
+   private <T> NotifyingFuture<T> invalidateNearCache(final Object key, NotifyingFuture<T> future) {
+      if (nearCache != null) {
+         // attached first, so that the near cache is invalidated before the caller is notified
+         future.attachListener(new FutureListener<T>() {
+            @Override
+            public void futureDone(Future<T> future) {
+               invalidateNearCache(key);
+            }
+         });
+      }
+      return future;
+   }
+
+   private void invalidateNearCacheKeys(Set<? extends K> keys) {
+      if (nearCache != null) {
+         for (K key : keys) {
+            nearCache.invalidate(key);
+         }
+      }
+   }
+
+   private void invalidateNearCache(Object key) {
+      if (nearCache != null) {
+         if (key == null) {
+            nearCache.clear();
+         } else {
+            nearCache.invalidate(key);
+         }
+      }
+   }
+
+   private NotifyingFuture<V> valueFuture(NotifyingFuture<byte[]> future) {
+      ResultConverter<byte[], V> converter = new ResultConverter<byte[], V>() {
+         @Override
+         @SuppressWarnings("unchecked")
+         V convert(byte[] bytes) {
+            return (V) bytes2obj(bytes, false);
+         }
+      };
+      future.attachListener(converter);
+      return converter.result;
+   }
+
+   private NotifyingFuture<Boolean> updatedFuture(NotifyingFuture<VersionedOperationResponse> future) {
+      ResultConverter<VersionedOperationResponse, Boolean> converter = new ResultConverter<VersionedOperationResponse, Boolean>() {
+         @Override
+         Boolean convert(VersionedOperationResponse response) {
+            return response.getCode().isUpdated();
+         }
+      };
+      future.attachListener(converter);
+      return converter.result;
+   }
+
    private byte[] obj2bytes(Object o, boolean isKey) {
       try {
-         return marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
+         byte[] bytes = marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
+         return isKey || compressor == null ? bytes : compressor.compress(bytes);
       } catch (IOException ioe) {
          throw new HotRodClientException(
                "Unable to marshall object of type [" + o.getClass().getName() + "]", ioe);
@@ -441,8 +1048,11 @@ private byte[] obj2bytes(Object o, boolean isKey) {
       }
    }
 
-   private Object bytes2obj(byte[] bytes) {
+   private Object bytes2obj(byte[] bytes, boolean isKey) {
       if (bytes == null) return null;
+      if (!isKey && compressor != null) {
+         bytes = compressor.decompress(bytes);
+      }
       try {
          return marshaller.objectFromByteBuffer(bytes);
       } catch (Exception e) {
@@ -455,7 +1065,9 @@ private Object bytes2obj(byte[] bytes) {
    private VersionedValue<V> binary2VersionedValue(VersionedValue<byte[]> value) {
       if (value == null)
          return null;
-      V valueObj = (V) bytes2obj(value.getValue());
+      if (value instanceof MetadataValue)
+         return binary2MetadataValue((MetadataValue<byte[]>) value);
+      V valueObj = (V) bytes2obj(value.getValue(), false);
       return new VersionedValueImpl<V>(value.getVersion(), valueObj);
    }
 
@@ -463,7 +1075,7 @@ private VersionedValue<V> binary2VersionedValue(VersionedValue<byte[]> value) {
    private MetadataValue<V> binary2MetadataValue(MetadataValue<byte[]> value) {
       if (value == null)
          return null;
-      V valueObj = (V) bytes2obj(value.getValue());
+      V valueObj = (V) bytes2obj(value.getValue(), false);
       return new MetadataValueImpl<V>(value.getCreated(), value.getLifespan(), value.getLastUsed(), value.getMaxIdle(), value.getVersion(), valueObj);
    }
 
@@ -506,9 +1118,30 @@ public Set<K> keySet() {
 	   Set<byte[]> result = op.execute();
        Set<K> toReturn = new HashSet<K>();
        for (byte[] keyBytes : result) {
-          K key = (K) bytes2obj(keyBytes);
+          K key = (K) bytes2obj(keyBytes, true);
           toReturn.add(key);
        }
        return Collections.unmodifiableSet(toReturn);
    }
+
+   /**
+    * Completes a future with the converted result of the operation it listens to, on the thread completing the
+    * operation.
+    */
+   private abstract static class ResultConverter<S, R> implements FutureListener<S> {
+      final ResponseFuture<R> result = new ResponseFuture<R>();
+
+      @Override
+      public void futureDone(Future<S> future) {
+         try {
+            result.complete(convert(future.get()));
+         } catch (ExecutionException e) {
+            result.completeExceptionally(e.getCause());
+         } catch (Exception e) {
+            result.completeExceptionally(e);
+         }
+      }
+
+      abstract R convert(S value);
+   }
 }
@@ -7,6 +7,7 @@
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.client.hotrod.ClientCacheListener;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
@@ -44,6 +45,11 @@ public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, lon
       return putAllAsync(data, lifespan, unit, defaultMaxIdleTime, MILLISECONDS);
    }
 
+   @Override
+   public void addClientListener(ClientCacheListener<K, V> listener) {
+      addClientListener(listener, null, null, false);
+   }
+
    @Override
    public void putAll(Map<? extends K, ? extends V> map) {
       putAll(map, defaultLifespan, MILLISECONDS, defaultMaxIdleTime, MILLISECONDS);
@@ -0,0 +1,138 @@
+package org.infinispan.client.hotrod.impl;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.CloseableIterator;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.equivalence.ByteArrayEquivalence;
+import org.infinispan.commons.util.CollectionFactory;
+
+/**
+ * Iterates the entries of a remote cache in batches, with one iteration per primary owner of the segments, so that
+ * neither the client nor the servers hold more than a batch of entries in memory. The iterations are run one after
+ * the other, each being started when the previous one is over.
+ * <p/>
+ * When the owners of the segments aren't known, every server is iterated and the keys already returned are kept to
+ * skip the entries read again from another server.
+ *
+ * @since 6.0
+ */
+class RemoteEntryIterator implements CloseableIterator<Map.Entry<byte[], byte[]>> {
+
+   private static final Log log = LogFactory.getLog(RemoteEntryIterator.class, Log.class);
+
+   private final OperationsFactory operationsFactory;
+   private final String filterName;
+   private final int batchSize;
+   private final Iterator<Map.Entry<SocketAddress, Set<Integer>>> servers;
+   private final Set<byte[]> returnedKeys;
+
+   private SocketAddress server;
+   private String iterationId;
+   private Iterator<Map.Entry<byte[], byte[]>> batch;
+   private boolean closed;
+
+   RemoteEntryIterator(OperationsFactory operationsFactory, Map<SocketAddress, Set<Integer>> segmentsByServer,
+         String filterName, int batchSize, boolean removeDuplicates) {
+      this.operationsFactory = operationsFactory;
+      this.filterName = filterName;
+      this.batchSize = batchSize;
+      this.servers = new ArrayList<Map.Entry<SocketAddress, Set<Integer>>>(segmentsByServer.entrySet()).iterator();
+      this.returnedKeys = removeDuplicates ? CollectionFactory.makeSet(ByteArrayEquivalence.INSTANCE) : null;
+   }
+
+   @Override
+   public boolean hasNext() {
+      if (closed) {
+         return false;
+      }
+      while (batch == null || !batch.hasNext()) {
+         if (iterationId == null) {
+            if (!servers.hasNext()) {
+               closed = true;
+               return false;
+            }
+            Map.Entry<SocketAddress, Set<Integer>> next = servers.next();
+            server = next.getKey();
+            iterationId = operationsFactory.newIterationStartOperation(
+                  server, next.getValue(), filterName, batchSize).execute();
+            if (log.isTraceEnabled()) {
+               log.tracef("Started iteration %s on server %s for segments %s", iterationId, server, next.getValue());
+            }
+         }
+         List<Map.Entry<byte[], byte[]>> entries = nextBatch();
+         if (entries.isEmpty()) {
+            // the iteration is over, release it on the server
+            endIteration();
+         } else if (returnedKeys != null) {
+            entries = removeReturned(entries);
+         }
+         batch = entries.iterator();
+      }
+      return true;
+   }
+
+   @Override
+   public Map.Entry<byte[], byte[]> next() {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+      return batch.next();
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void close() {
+      if (!closed) {
+         closed = true;
+         if (iterationId != null) {
+            endIteration();
+         }
+      }
+   }
+
+   private List<Map.Entry<byte[], byte[]>> nextBatch() {
+      try {
+         return operationsFactory.newIterationNextOperation(server, iterationId).execute();
+      } catch (HotRodClientException e) {
+         // the iteration cannot be resumed on another server
+         iterationId = null;
+         closed = true;
+         throw e;
+      }
+   }
+
+   private List<Map.Entry<byte[], byte[]>> removeReturned(List<Map.Entry<byte[], byte[]>> entries) {
+      List<Map.Entry<byte[], byte[]>> notReturned = new ArrayList<Map.Entry<byte[], byte[]>>(entries.size());
+      for (Map.Entry<byte[], byte[]> entry : entries) {
+         if (returnedKeys.add(entry.getKey())) {
+            notReturned.add(entry);
+         }
+      }
+      return notReturned;
+   }
+
+   private void endIteration() {
+      try {
+         operationsFactory.newIterationEndOperation(server, iterationId).execute();
+      } catch (HotRodClientException e) {
+         // the server drops the iteration after a while anyway
+         log.tracef(e, "Unable to end iteration %s on server %s", iterationId, server);
+      } finally {
+         iterationId = null;
+      }
+   }
+}
@@ -0,0 +1,150 @@
+package org.infinispan.client.hotrod.impl.async;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.concurrent.BaseNotifyingFuture;
+
+/**
+ * Notifying future completed explicitly by the thread which receives the response of an operation, e.g. the I/O
+ * thread of a {@link org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory} connection.
+ * Cancelling the future does not stop the request, its response is discarded when it arrives.
+ * <p/>
+ * The listeners are notified by the given executor, if any, so that a slow listener does not hold the completing
+ * thread. They are only notified by the completing thread if the executor rejects the notification.
+ *
+ * @since 6.0
+ */
+public class ResponseFuture<T> extends BaseNotifyingFuture<T> {
+
+   private static final Log log = LogFactory.getLog(ResponseFuture.class, Log.class);
+
+   private final CountDownLatch done = new CountDownLatch(1);
+   private final AtomicBoolean completed = new AtomicBoolean();
+   private volatile T value;
+   private volatile Throwable failure;
+   private volatile boolean cancelled;
+   private final Executor listenerExecutor;
+
+   public ResponseFuture() {
+      this(null);
+   }
+
+   /**
+    * @param listenerExecutor the executor notifying the listeners, or null to notify them in the completing thread
+    */
+   public ResponseFuture(Executor listenerExecutor) {
+      this.listenerExecutor = listenerExecutor;
+   }
+
+   /**
+    * Completes the future with the given value.
+    *
+    * @return false if the future was already completed or cancelled
+    */
+   public boolean complete(T value) {
+      if (!completed.compareAndSet(false, true))
+         return false;
+      this.value = value;
+      finish();
+      return true;
+   }
+
+   /**
+    * Completes the future with the given failure, which is thrown by {@link #get()} wrapped in an
+    * {@link ExecutionException}.
+    *
+    * @return false if the future was already completed or cancelled
+    */
+   public boolean completeExceptionally(Throwable failure) {
+      if (!completed.compareAndSet(false, true))
+         return false;
+      this.failure = failure;
+      finish();
+      return true;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!completed.compareAndSet(false, true))
+         return false;
+      cancelled = true;
+      finish();
+      return true;
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      done.await();
+      return result();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit))
+         throw new TimeoutException();
+      return result();
+   }
+
+   private void finish() {
+      done.countDown();
+      if (listenerExecutor != null) {
+         try {
+            listenerExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  notifyListeners();
+               }
+            });
+            return;
+         } catch (RejectedExecutionException e) {
+            log.tracef(e, "Notifying the listeners of %s in the completing thread", this);
+         }
+      }
+      notifyListeners();
+   }
+
+   private void notifyListeners() {
+      try {
+         notifyDone();
+      } catch (RuntimeException e) {
+         // the completing thread is usually an I/O thread, which must not be broken by a listener
+         log.errorNotifyingFutureListener(e);
+      }
+   }
+
+   private T result() throws ExecutionException {
+      if (cancelled)
+         throw new CancellationException();
+      if (failure != null)
+         throw new ExecutionException(failure);
+      return value;
+   }
+
+   @Override
+   public String toString() {
+      return "ResponseFuture{" +
+            "done=" + isDone() +
+            ", cancelled=" + cancelled +
+            ", failure=" + failure +
+            '}';
+   }
+}
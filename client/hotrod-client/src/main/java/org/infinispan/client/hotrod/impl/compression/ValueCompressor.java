@@ -0,0 +1,119 @@
+package org.infinispan.client.hotrod.impl.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.configuration.CompressionConfiguration;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+
+/**
+ * Compresses the marshalled values with the zlib format of deflate. The first byte of a value tells whether it is compressed, in which
+ * case it is followed by the length of the value once decompressed and by the compressed bytes. This is the wire format of
+ * the values of the requests flagged with {@link org.infinispan.client.hotrod.impl.protocol.HotRodConstants#COMPRESSED_VALUES}:
+ * the server decompresses them before storing them.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class ValueCompressor {
+
+   private static final byte RAW = 0;
+   private static final byte DEFLATED = 1;
+
+   private final int threshold;
+   private final int level;
+
+   public ValueCompressor(CompressionConfiguration configuration) {
+      this.threshold = configuration.threshold();
+      this.level = configuration.level();
+   }
+
+   public byte[] compress(byte[] bytes) {
+      if (bytes.length >= threshold) {
+         byte[] compressed = deflate(bytes);
+         if (compressed != null) {
+            return compressed;
+         }
+      }
+      byte[] raw = new byte[bytes.length + 1];
+      raw[0] = RAW;
+      System.arraycopy(bytes, 0, raw, 1, bytes.length);
+      return raw;
+   }
+
+   public byte[] decompress(byte[] bytes) {
+      if (bytes.length == 0) {
+         throw new HotRodClientException("Empty value, it should start with its format");
+      }
+      switch (bytes[0]) {
+         case RAW:
+            return Arrays.copyOfRange(bytes, 1, bytes.length);
+         case DEFLATED:
+            return inflate(bytes);
+         default:
+            throw new HotRodClientException("Unknown value format " + bytes[0]);
+      }
+   }
+
+   /**
+    * @return the compressed value, or null if it would be bigger than the original
+    */
+   private byte[] deflate(byte[] bytes) {
+      Deflater deflater = new Deflater(level);
+      try {
+         deflater.setInput(bytes);
+         deflater.finish();
+         ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+         out.write(DEFLATED);
+         writeInt(out, bytes.length);
+         byte[] buffer = new byte[Math.min(bytes.length, 8192)];
+         while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+            if (out.size() > bytes.length) {
+               return null;
+            }
+         }
+         return out.toByteArray();
+      } finally {
+         deflater.end();
+      }
+   }
+
+   private byte[] inflate(byte[] bytes) {
+      if (bytes.length < 5) {
+         throw new HotRodClientException("Truncated compressed value");
+      }
+      int length = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+      byte[] result = new byte[length];
+      Inflater inflater = new Inflater();
+      try {
+         inflater.setInput(bytes, 5, bytes.length - 5);
+         int n = 0;
+         while (n < length) {
+            int inflated = inflater.inflate(result, n, length - n);
+            if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+               throw new HotRodClientException("Truncated compressed value");
+            }
+            n += inflated;
+         }
+         return result;
+      } catch (DataFormatException e) {
+         throw new HotRodClientException("Corrupted compressed value", e);
+      } finally {
+         inflater.end();
+      }
+   }
+
+   private static void writeInt(ByteArrayOutputStream out, int i) {
+      out.write(i >>> 24);
+      out.write(i >>> 16);
+      out.write(i >>> 8);
+      out.write(i);
+   }
+}
@@ -16,6 +16,8 @@
  * If no CH function is defined for a certain version, then it will be defaulted to "org.infinispan.client.hotrod.impl.ConsistentHashV[version]".
  * E.g. if the server indicates that in use CH is version 1, and it is not defined within the configuration, it will be defaulted to
  * org.infinispan.client.hotrod.impl.ConsistentHashV1.
+ * <p/>
+ * Version 3, sent from version 1.4 of the protocol, must be implemented by a {@link SegmentConsistentHash}.
  *
  * @author Mircea.Markus@jboss.com
  * @since 4.1
@@ -27,9 +29,10 @@ public void init(Configuration configuration) {
       this.version2ConsistentHash = configuration.consistentHashImpl();
    }
 
-   public ConsistentHash newConsistentHash(int version) {
+   @SuppressWarnings("unchecked")
+   public <T extends ConsistentHash> T newConsistentHash(int version) {
       Class<? extends ConsistentHash> hashFunctionClass = version2ConsistentHash[version-1];
       // TODO: Why create a brand new instance via reflection everytime a new hash topology is received? Caching???
-      return Util.getInstance(hashFunctionClass);
+      return (T) Util.getInstance(hashFunctionClass);
    }
 }
@@ -0,0 +1,102 @@
+package org.infinispan.client.hotrod.impl.consistenthash;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.commons.util.Util;
+
+/**
+ * Version 3 of the ConsistentHash function, sent by the servers from version 1.4 of the protocol. The servers send
+ * the owners of every segment, so the owners of a key are found exactly as on the servers: the key is hashed with
+ * {@link MurmurHash3}, its segment computed from the hash and the primary owner of the segment looked up in an
+ * array.
+ *
+ * @see org.infinispan.distribution.ch.DefaultConsistentHash
+ * @since 6.0
+ */
+public class SegmentConsistentHash implements ConsistentHash {
+
+   private final Hash hash = new MurmurHash3();
+
+   private volatile SocketAddress[] primaryOwners;
+   private volatile SocketAddress[][] segmentOwners;
+   private volatile int segmentSize;
+
+   /**
+    * Initializes the hash from the segments owned by each server: the hash space is the number of segments, and the
+    * hash ids of a server are the segments it owns. Only the first <code>numKeyOwners</code> servers owning a segment
+    * are kept, in the iteration order of the map, the first one being the primary owner.
+    */
+   @Override
+   public void init(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, int hashSpace) {
+      List<List<SocketAddress>> owners = new ArrayList<List<SocketAddress>>(hashSpace);
+      for (int i = 0; i < hashSpace; i++) {
+         owners.add(new ArrayList<SocketAddress>(numKeyOwners));
+      }
+      for (Map.Entry<SocketAddress, Set<Integer>> entry : servers2Hash.entrySet()) {
+         for (Integer segment : entry.getValue()) {
+            if (segment < 0 || segment >= hashSpace) {
+               throw new IllegalArgumentException("Segment " + segment + " of " + entry.getKey()
+                     + " is out of the hash space " + hashSpace);
+            }
+            List<SocketAddress> segmentOwners = owners.get(segment);
+            if (segmentOwners.size() < numKeyOwners) {
+               segmentOwners.add(entry.getKey());
+            }
+         }
+      }
+      SocketAddress[][] segmentOwners = new SocketAddress[hashSpace][];
+      for (int i = 0; i < hashSpace; i++) {
+         segmentOwners[i] = owners.get(i).toArray(new SocketAddress[owners.get(i).size()]);
+      }
+      init(segmentOwners, hashSpace);
+   }
+
+   /**
+    * @param segmentOwners the owners of each segment, the primary owner first
+    */
+   public void init(SocketAddress[][] segmentOwners, int numSegments) {
+      SocketAddress[] primaryOwners = new SocketAddress[numSegments];
+      for (int i = 0; i < numSegments; i++) {
+         // A segment has no owner while its owners haven't registered their endpoint yet
+         primaryOwners[i] = segmentOwners[i].length > 0 ? segmentOwners[i][0] : null;
+      }
+      this.segmentOwners = segmentOwners;
+      this.primaryOwners = primaryOwners;
+      // Same segment size as DefaultConsistentHash
+      this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / numSegments);
+   }
+
+   /**
+    * @return the primary owner of the key, or null if it is unknown
+    */
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      return primaryOwners[getSegment(key)];
+   }
+
+   public int getSegment(byte[] key) {
+      return getNormalizedHash(key) / segmentSize;
+   }
+
+   public int getNumSegments() {
+      return primaryOwners.length;
+   }
+
+   /**
+    * @return the owners of the segment, the primary owner first
+    */
+   public SocketAddress[] getSegmentOwners(int segment) {
+      return segmentOwners[segment];
+   }
+
+   @Override
+   public final int getNormalizedHash(Object object) {
+      return Util.getNormalizedHash(object, hash);
+   }
+}
@@ -0,0 +1,51 @@
+package org.infinispan.client.hotrod.impl.event;
+
+import org.infinispan.client.hotrod.ClientCacheEntryEvent;
+
+/**
+ * @since 6.0
+ */
+public class ClientCacheEntryEventImpl<K, V> implements ClientCacheEntryEvent<K, V> {
+
+   private final Type type;
+   private final K key;
+   private final long version;
+   private final V value;
+
+   public ClientCacheEntryEventImpl(Type type, K key, long version, V value) {
+      this.type = type;
+      this.key = key;
+      this.version = version;
+      this.value = value;
+   }
+
+   @Override
+   public Type getType() {
+      return type;
+   }
+
+   @Override
+   public K getKey() {
+      return key;
+   }
+
+   @Override
+   public long getVersion() {
+      return version;
+   }
+
+   @Override
+   public V getValue() {
+      return value;
+   }
+
+   @Override
+   public String toString() {
+      return "ClientCacheEntryEventImpl{" +
+            "type=" + type +
+            ", key=" + key +
+            ", version=" + version +
+            ", value=" + value +
+            '}';
+   }
+}
@@ -0,0 +1,331 @@
+package org.infinispan.client.hotrod.impl.event;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.ClientCacheEntryEvent;
+import org.infinispan.client.hotrod.ClientCacheListener;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.compression.ValueCompressor;
+import org.infinispan.client.hotrod.impl.operations.AddClientListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.AddClientListenerOperation.RawEvent;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.marshall.Marshaller;
+
+/**
+ * Keeps the client listeners added to a remote cache. Each listener is added on every server, since each server only
+ * sends the events of the keys it is the primary owner of.
+ * <p/>
+ * The listeners are checked every {@link #CHECK_INTERVAL_MILLIS}: a listener is added on the servers which have
+ * joined, and added again on the servers it has been lost on, asking them to resume it, so that the events raised
+ * while the connection was down are delivered. The listener is told when a server could not resume it.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class ClientListeners<K, V> {
+
+   private static final Log log = LogFactory.getLog(ClientListeners.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   static final long CHECK_INTERVAL_MILLIS = 1000;
+
+   private final String cacheName;
+   private final Marshaller marshaller;
+   private final ValueCompressor compressor;
+   private final OperationsFactory operationsFactory;
+   private final ConcurrentMap<ClientCacheListener<K, V>, Registration> registrations =
+         new ConcurrentHashMap<ClientCacheListener<K, V>, Registration>();
+
+   // guarded by this
+   private ScheduledExecutorService checker;
+
+   public ClientListeners(String cacheName, Marshaller marshaller, ValueCompressor compressor,
+         OperationsFactory operationsFactory) {
+      this.cacheName = cacheName;
+      this.marshaller = marshaller;
+      this.compressor = compressor;
+      this.operationsFactory = operationsFactory;
+   }
+
+   /**
+    * Adds the listener on every server, waiting for the servers to accept it.
+    *
+    * @throws HotRodClientException if a server refused the listener, e.g. because it doesn't know the filter
+    */
+   public void add(ClientCacheListener<K, V> listener, String filterName, String converterName, boolean includeValue) {
+      Registration registration = new Registration(listener, filterName, converterName, includeValue);
+      if (registrations.putIfAbsent(listener, registration) != null) {
+         throw new IllegalArgumentException("Listener " + listener + " has already been added");
+      }
+      registration.check();
+      try {
+         registration.awaitAdded(operationsFactory.getTransportFactory().getSoTimeout());
+      } catch (RuntimeException e) {
+         remove(listener);
+         throw e;
+      }
+      startChecker();
+   }
+
+   /**
+    * Removes the listener from the servers.
+    *
+    * @return whether the listener had been added
+    */
+   public boolean remove(ClientCacheListener<K, V> listener) {
+      Registration registration = registrations.remove(listener);
+      if (registration == null) {
+         return false;
+      }
+      registration.remove();
+      synchronized (this) {
+         if (registrations.isEmpty() && checker != null) {
+            checker.shutdown();
+            checker = null;
+         }
+      }
+      return true;
+   }
+
+   public Set<ClientCacheListener<K, V>> getListeners() {
+      return registrations.keySet();
+   }
+
+   private synchronized void startChecker() {
+      if (checker != null) {
+         return;
+      }
+      checker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "HotRod-client-listeners-" + cacheName);
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+      checker.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            for (Registration registration : registrations.values()) {
+               registration.check();
+            }
+         }
+      }, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+   }
+
+   private Object bytes2obj(byte[] bytes, boolean isKey) {
+      if (bytes == null) return null;
+      if (!isKey && compressor != null) {
+         bytes = compressor.decompress(bytes);
+      }
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (Exception e) {
+         throw new HotRodClientException("Unable to unmarshall byte stream", e);
+      }
+   }
+
+   /**
+    * A listener, and the operations adding it on each server.
+    */
+   private class Registration implements AddClientListenerOperation.ClientListenerCallback {
+
+      private final ClientCacheListener<K, V> listener;
+      private final String listenerId = UUID.randomUUID().toString();
+      private final String filterName;
+      private final String converterName;
+      private final boolean includeValue;
+      private final MultiplexedTransportFactory transportFactory;
+      private final ConcurrentMap<SocketAddress, AddClientListenerOperation> operations =
+            new ConcurrentHashMap<SocketAddress, AddClientListenerOperation>();
+      // the servers the listener has been added on, which keep its events for a while if the connection is lost
+      private final Set<SocketAddress> added =
+            Collections.newSetFromMap(new ConcurrentHashMap<SocketAddress, Boolean>());
+
+      // guarded by this
+      private boolean removed;
+      private int pending;
+      private HotRodClientException refusal;
+
+      Registration(ClientCacheListener<K, V> listener, String filterName, String converterName, boolean includeValue) {
+         this.listener = listener;
+         this.filterName = filterName;
+         this.converterName = converterName;
+         this.includeValue = includeValue;
+         this.transportFactory = (MultiplexedTransportFactory) operationsFactory.getTransportFactory();
+      }
+
+      /**
+       * Adds the listener on the servers it is missing on, and drops it from the servers which have left.
+       */
+      synchronized void check() {
+         if (removed || transportFactory.isStopped()) {
+            return;
+         }
+         Collection<SocketAddress> servers = transportFactory.getServers();
+         for (AddClientListenerOperation operation : operations.values()) {
+            if (!servers.contains(operation.getServer())) {
+               operations.remove(operation.getServer(), operation);
+               added.remove(operation.getServer());
+               operation.cancel();
+            }
+         }
+         for (SocketAddress server : servers) {
+            if (!operations.containsKey(server)) {
+               addOn(server);
+            }
+         }
+      }
+
+      private void addOn(SocketAddress server) {
+         boolean resume = added.contains(server);
+         AddClientListenerOperation operation = operationsFactory.newAddClientListenerOperation(
+               server, listenerId, filterName, converterName, includeValue, resume, this);
+         operations.put(server, operation);
+         pending++;
+         try {
+            operation.execute();
+         } catch (TransportException e) {
+            log.tracef(e, "Unable to add client listener %s of cache '%s' on %s", listenerId, cacheName, server);
+            operations.remove(server, operation);
+            pending--;
+         }
+      }
+
+      synchronized void awaitAdded(long timeoutMillis) {
+         long deadline = System.currentTimeMillis() + timeoutMillis;
+         long remaining = timeoutMillis;
+         try {
+            while (pending > 0 && refusal == null && remaining > 0) {
+               wait(remaining);
+               remaining = deadline - System.currentTimeMillis();
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         if (refusal != null) {
+            throw refusal;
+         }
+      }
+
+      void remove() {
+         synchronized (this) {
+            removed = true;
+         }
+         for (AddClientListenerOperation operation : operations.values()) {
+            operation.cancel();
+            try {
+               operationsFactory.newRemoveClientListenerOperation(operation.getServer(), listenerId).execute();
+            } catch (HotRodClientException e) {
+               // the server drops the listener on its own once its connection is closed for long enough
+               log.tracef(e, "Unable to remove client listener %s from %s", listenerId, operation.getServer());
+            }
+         }
+         operations.clear();
+      }
+
+      @Override
+      public void registered(AddClientListenerOperation operation, boolean eventsLost) {
+         synchronized (this) {
+            if (operations.get(operation.getServer()) != operation) {
+               return;
+            }
+            pending--;
+            added.add(operation.getServer());
+            notifyAll();
+         }
+         if (trace) {
+            log.tracef("Client listener %s of cache '%s' added on %s", listenerId, cacheName, operation.getServer());
+         }
+         if (eventsLost) {
+            notifyEventsLost();
+         }
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public void events(AddClientListenerOperation operation, boolean eventsLost, List<RawEvent> events) {
+         if (operations.get(operation.getServer()) != operation) {
+            return;
+         }
+         if (eventsLost) {
+            notifyEventsLost();
+         }
+         for (RawEvent raw : events) {
+            try {
+               K key = (K) bytes2obj(raw.key, true);
+               V value = (V) bytes2obj(raw.value, false);
+               listener.entryEvent(new ClientCacheEntryEventImpl<K, V>(toType(raw.type), key, raw.version, value));
+            } catch (RuntimeException e) {
+               log.unableToDeliverClientEvent(cacheName, listener, e);
+            }
+         }
+      }
+
+      @Override
+      public void failed(AddClientListenerOperation operation, Throwable cause) {
+         boolean wasAdded;
+         synchronized (this) {
+            if (!operations.remove(operation.getServer(), operation)) {
+               return;
+            }
+            wasAdded = added.contains(operation.getServer());
+            if (!wasAdded) {
+               pending--;
+               if (cause instanceof HotRodClientException && !(cause instanceof TransportException)) {
+                  refusal = (HotRodClientException) cause;
+               }
+               notifyAll();
+            }
+            if (removed) {
+               return;
+            }
+         }
+         // the listener is added again, resumed, by the next check
+         if (wasAdded && !transportFactory.isStopped()) {
+            log.clientListenerLost(cacheName, operation.getServer(), cause);
+         } else if (trace) {
+            log.tracef(cause, "Unable to add client listener %s of cache '%s' on %s", listenerId, cacheName,
+                  operation.getServer());
+         }
+      }
+
+      private void notifyEventsLost() {
+         try {
+            listener.eventsLost();
+         } catch (RuntimeException e) {
+            log.unableToDeliverClientEvent(cacheName, listener, e);
+         }
+      }
+
+      private ClientCacheEntryEvent.Type toType(byte type) {
+         switch (type) {
+            case RawEvent.CREATED:
+               return ClientCacheEntryEvent.Type.CREATED;
+            case RawEvent.MODIFIED:
+               return ClientCacheEntryEvent.Type.MODIFIED;
+            case RawEvent.REMOVED:
+               return ClientCacheEntryEvent.Type.REMOVED;
+            default:
+               throw new HotRodClientException("Unknown event type " + type);
+         }
+      }
+   }
+}
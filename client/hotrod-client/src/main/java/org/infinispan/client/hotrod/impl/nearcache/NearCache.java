@@ -0,0 +1,321 @@
+package org.infinispan.client.hotrod.impl.nearcache;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.NearCacheConfiguration;
+import org.infinispan.client.hotrod.configuration.NearCacheMode;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.operations.AddInvalidationListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.marshall.Marshaller;
+
+/**
+ * Keeps the most recently read entries of a remote cache in the client, evicting the least recently used ones once
+ * {@link NearCacheConfiguration#maxEntries()} is reached.
+ * <p/>
+ * In {@link NearCacheMode#INVALIDATED} mode an invalidation listener is registered on every server, and the entries
+ * are only served while all the listeners are registered: the near cache is cleared whenever a listener is lost or
+ * the list of servers changes. In {@link NearCacheMode#LAZY} mode the entries older than
+ * {@link NearCacheConfiguration#revalidationInterval()} are read from the server again.
+ * <p/>
+ * A value read from the server is only cached if no key has been invalidated since the read started, see
+ * {@link #generation()}, so that a read racing with a modification cannot cache the previous value. The values which
+ * expire, i.e. stored with a lifespan or a maximum idle time, are never cached since the servers do not report their
+ * expiration, nor see the reads served by the near cache.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class NearCache<K, V> implements AddInvalidationListenerOperation.InvalidationCallback {
+
+   private static final Log log = LogFactory.getLog(NearCache.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   // how often the registration of the missing listeners is attempted
+   private static final long REGISTRATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   private final String cacheName;
+   private final NearCacheMode mode;
+   private final long revalidationNanos;
+   private final Marshaller marshaller;
+   private final OperationsFactory operationsFactory;
+   private final MultiplexedTransportFactory transportFactory;
+   private final Map<K, CachedValue<V>> entries;
+   private final ConcurrentMap<SocketAddress, AddInvalidationListenerOperation> listeners =
+         new ConcurrentHashMap<SocketAddress, AddInvalidationListenerOperation>();
+   private final ConcurrentMap<SocketAddress, Boolean> registered = new ConcurrentHashMap<SocketAddress, Boolean>();
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong invalidations = new AtomicLong();
+
+   // guarded by entries
+   private long generation;
+   private volatile boolean active;
+   // guarded by this
+   private Collection<SocketAddress> servers;
+   private long lastRegistration;
+
+   public NearCache(String cacheName, NearCacheConfiguration configuration, Marshaller marshaller, OperationsFactory operationsFactory) {
+      this.cacheName = cacheName;
+      this.mode = configuration.mode();
+      this.revalidationNanos = TimeUnit.MILLISECONDS.toNanos(configuration.revalidationInterval());
+      this.marshaller = marshaller;
+      this.operationsFactory = operationsFactory;
+      this.transportFactory = mode == NearCacheMode.INVALIDATED ? (MultiplexedTransportFactory) operationsFactory.getTransportFactory() : null;
+      this.entries = new LruMap<K, CachedValue<V>>(configuration.maxEntries());
+      this.active = mode == NearCacheMode.LAZY;
+      this.lastRegistration = System.nanoTime() - REGISTRATION_INTERVAL_NANOS;
+   }
+
+   /**
+    * @return the cached value of the key, or null if it has to be read from the server
+    */
+   public VersionedValue<V> get(Object key) {
+      if (transportFactory != null) {
+         checkListeners();
+      }
+      CachedValue<V> cached = null;
+      if (active) {
+         synchronized (entries) {
+            cached = entries.get(key);
+            if (cached != null && revalidationNanos > 0 && mode == NearCacheMode.LAZY
+                  && System.nanoTime() - cached.readTime >= revalidationNanos) {
+               entries.remove(key);
+               cached = null;
+            }
+         }
+      }
+      if (cached == null) {
+         misses.incrementAndGet();
+         return null;
+      }
+      hits.incrementAndGet();
+      return cached.value;
+   }
+
+   /**
+    * @return the value to pass to {@link #put(Object, VersionedValue, long)} for a value read from the server, obtained
+    *         before the read is sent
+    */
+   public long generation() {
+      synchronized (entries) {
+         return generation;
+      }
+   }
+
+   /**
+    * Caches a value read from the server, unless a key has been invalidated since the read started or the value
+    * expires. The expiration is only known if the value is a {@link MetadataValue}.
+    */
+   public void put(K key, VersionedValue<V> value, long generation) {
+      if (value == null || expires(value)) {
+         return;
+      }
+      synchronized (entries) {
+         if (active && generation == this.generation) {
+            entries.put(key, new CachedValue<V>(value, System.nanoTime()));
+         }
+      }
+   }
+
+   /**
+    * Removes the key after it has been modified, by this client or by another one.
+    */
+   public void invalidate(Object key) {
+      CachedValue<V> removed;
+      synchronized (entries) {
+         generation++;
+         removed = entries.remove(key);
+      }
+      if (removed != null) {
+         invalidations.incrementAndGet();
+      }
+   }
+
+   public void clear() {
+      synchronized (entries) {
+         generation++;
+         entries.clear();
+      }
+   }
+
+   public int size() {
+      synchronized (entries) {
+         return entries.size();
+      }
+   }
+
+   public long getHits() {
+      return hits.get();
+   }
+
+   public long getMisses() {
+      return misses.get();
+   }
+
+   public long getInvalidations() {
+      return invalidations.get();
+   }
+
+   public boolean isActive() {
+      return active;
+   }
+
+   /**
+    * Registers the missing invalidation listeners, and drops the listeners of the servers which have left.
+    */
+   private void checkListeners() {
+      // the list is replaced, not modified, when the servers change
+      Collection<SocketAddress> currentServers = transportFactory.getServers();
+      if (active && currentServers == servers) {
+         return;
+      }
+      synchronized (this) {
+         if (currentServers != servers) {
+            if (trace) {
+               log.tracef("Servers of cache '%s' changed from %s to %s", cacheName, servers, currentServers);
+            }
+            servers = currentServers;
+            deactivate();
+            for (AddInvalidationListenerOperation listener : listeners.values()) {
+               if (!currentServers.contains(listener.getServer())) {
+                  removeListener(listener);
+                  listener.cancel();
+               }
+            }
+         }
+         long now = System.nanoTime();
+         if (active || transportFactory.isStopped() || now - lastRegistration < REGISTRATION_INTERVAL_NANOS) {
+            return;
+         }
+         lastRegistration = now;
+         for (SocketAddress server : currentServers) {
+            if (!listeners.containsKey(server)) {
+               AddInvalidationListenerOperation listener = operationsFactory.newAddInvalidationListenerOperation(server, this);
+               listeners.put(server, listener);
+               try {
+                  listener.execute();
+               } catch (TransportException e) {
+                  log.tracef(e, "Unable to register the invalidation listener of cache '%s' on %s", cacheName, server);
+                  listeners.remove(server, listener);
+               }
+            }
+         }
+      }
+   }
+
+   @Override
+   public void registered(AddInvalidationListenerOperation listener) {
+      synchronized (this) {
+         if (listeners.get(listener.getServer()) != listener) {
+            return;
+         }
+         registered.put(listener.getServer(), Boolean.TRUE);
+         if (servers != null && registered.keySet().containsAll(servers)) {
+            if (trace) {
+               log.tracef("Invalidation listeners of cache '%s' registered on %s", cacheName, servers);
+            }
+            synchronized (entries) {
+               // values read before all the listeners were registered may have missed their invalidation
+               generation++;
+               active = true;
+            }
+         }
+      }
+   }
+
+   @Override
+   public void keyInvalidated(AddInvalidationListenerOperation listener, byte[] keyBytes) {
+      Object key;
+      try {
+         key = marshaller.objectFromByteBuffer(keyBytes);
+      } catch (Exception e) {
+         log.unableToUnmarshallInvalidatedKey(cacheName, e);
+         clear();
+         return;
+      }
+      if (trace) {
+         log.tracef("Key %s of cache '%s' invalidated by %s", key, cacheName, listener.getServer());
+      }
+      invalidate(key);
+   }
+
+   @Override
+   public void failed(AddInvalidationListenerOperation listener, Throwable cause) {
+      boolean wasRegistered;
+      synchronized (this) {
+         wasRegistered = registered.containsKey(listener.getServer()) && listeners.get(listener.getServer()) == listener;
+         if (!removeListener(listener)) {
+            return;
+         }
+         deactivate();
+      }
+      if (wasRegistered && !transportFactory.isStopped()) {
+         log.nearCacheListenerLost(cacheName, listener.getServer(), cause);
+      } else if (trace) {
+         log.tracef(cause, "Unable to register the invalidation listener of cache '%s' on %s", cacheName, listener.getServer());
+      }
+   }
+
+   private boolean removeListener(AddInvalidationListenerOperation listener) {
+      if (listeners.remove(listener.getServer(), listener)) {
+         registered.remove(listener.getServer());
+         return true;
+      }
+      return false;
+   }
+
+   private static boolean expires(VersionedValue<?> value) {
+      if (!(value instanceof MetadataValue)) {
+         return false;
+      }
+      MetadataValue<?> metadata = (MetadataValue<?>) value;
+      return metadata.getLifespan() >= 0 || metadata.getMaxIdle() >= 0;
+   }
+
+   private void deactivate() {
+      synchronized (entries) {
+         active = false;
+         generation++;
+         entries.clear();
+      }
+   }
+
+   private static class CachedValue<V> {
+      final VersionedValue<V> value;
+      final long readTime;
+
+      CachedValue(VersionedValue<V> value, long readTime) {
+         this.value = value;
+         this.readTime = readTime;
+      }
+   }
+
+   private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+      private final int maxEntries;
+
+      LruMap(int maxEntries) {
+         super(16, 0.75f, true);
+         this.maxEntries = maxEntries;
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+         return size() > maxEntries;
+      }
+   }
+}
@@ -0,0 +1,45 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Base class for the operations of an iteration. An iteration is kept by the server which started it, so its
+ * requests are sent to that server and never retried on another one.
+ *
+ * @since 6.0
+ */
+@Immutable
+public abstract class AbstractIterationOperation<T> extends RetryOnFailureOperation<T> {
+
+   protected final SocketAddress server;
+
+   protected AbstractIterationOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+         byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.server = server;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      return transportFactory.getTransport(server);
+   }
+
+   @Override
+   protected boolean shouldRetry(int retryCount) {
+      return retryCount == 0;
+   }
+
+   @Override
+   protected void logErrorAndThrowExceptionIfNeeded(int i, HotRodClientException e) {
+      throw e;
+   }
+}
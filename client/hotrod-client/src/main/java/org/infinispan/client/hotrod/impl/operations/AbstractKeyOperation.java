@@ -36,20 +36,24 @@ protected AbstractKeyOperation(Codec codec, TransportFactory transportFactory,
    @Override
    protected Transport getTransport(int retryCount) {
       if (retryCount == 0) {
-         return transportFactory.getTransport(key);
+         return isRead() ? transportFactory.getReadTransport(key) : transportFactory.getTransport(key);
       } else {
          return transportFactory.getTransport();
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
+   /**
+    * @return whether the operation only reads the key, and can then be sent to any owner of the key
+    */
+   protected boolean isRead() {
+      return false;
+   }
+
+   //[header][key length][key]
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
       HeaderParams params = writeHeader(transport, opCode);
       transport.writeArray(key);
-      transport.flush();
-
-      // 2) now read the header
-      return readHeaderAndValidate(transport, params);
+      return params;
    }
 
    protected byte[] returnPossiblePrevValue(Transport transport) {
@@ -0,0 +1,37 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Base class for the operations on several keys in a single request. {@link OperationsFactory} only puts keys with the
+ * same owner in a request, so the request is sent to the owner of the first one.
+ *
+ * @since 6.0
+ */
+@Immutable
+public abstract class AbstractMultiKeyOperation<T> extends RetryOnFailureOperation<T> {
+
+   private final byte[] routingKey;
+
+   protected AbstractMultiKeyOperation(Codec codec, TransportFactory transportFactory, byte[] routingKey,
+         byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.routingKey = routingKey;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0) {
+         return transportFactory.getTransport(routingKey);
+      } else {
+         return transportFactory.getTransport();
+      }
+   }
+}
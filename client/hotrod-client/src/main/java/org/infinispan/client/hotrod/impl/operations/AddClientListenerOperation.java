@@ -0,0 +1,181 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransport;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.ResponseHandler;
+
+/**
+ * Adds a client listener on a particular server, which then sends the events of the entries it is the primary owner
+ * of, in batches. The registration and the events are handed to the given {@link ClientListenerCallback} by the I/O
+ * thread of the connection. Requires version 1.4 of the protocol.
+ * <p/>
+ * The server keeps the events of a listener whose connection is lost for a while, so that adding the listener again
+ * with the same id and <tt>resume</tt> set delivers them on the new connection.
+ * <p/>
+ * Request: [header][listener id][filter name][converter name][include value][resume]
+ * <br/>
+ * Response: [header]
+ * <br/>
+ * Events: [header][events lost][count]([type][key][version][has value][value]?)*
+ *
+ * @since 6.0
+ */
+@NotThreadSafe
+public class AddClientListenerOperation extends HotRodOperation implements ResponseHandler {
+
+   private final MultiplexedTransportFactory transportFactory;
+   private final SocketAddress server;
+   private final String listenerId;
+   private final String filterName;
+   private final String converterName;
+   private final boolean includeValue;
+   private final boolean resume;
+   private final ClientListenerCallback callback;
+   private MultiplexedTransport transport;
+   private HeaderParams params;
+   private boolean registered;
+
+   public AddClientListenerOperation(Codec codec, MultiplexedTransportFactory transportFactory, SocketAddress server,
+         byte[] cacheName, AtomicInteger topologyId, String listenerId, String filterName, String converterName,
+         boolean includeValue, boolean resume, ClientListenerCallback callback) {
+      super(codec, null, cacheName, topologyId);
+      this.transportFactory = transportFactory;
+      this.server = server;
+      this.listenerId = listenerId;
+      this.filterName = filterName;
+      this.converterName = converterName;
+      this.includeValue = includeValue;
+      this.resume = resume;
+      this.callback = callback;
+   }
+
+   /**
+    * Sends the registration request without waiting for the response.
+    *
+    * @throws TransportException if the request could not be sent, in which case the callback is not invoked
+    */
+   @Override
+   public Object execute() {
+      transport = transportFactory.getTransport(server);
+      params = writeHeader(transport, ADD_CLIENT_LISTENER_REQUEST);
+      transport.writeString(listenerId);
+      transport.writeString(filterName != null ? filterName : "");
+      transport.writeString(converterName != null ? converterName : "");
+      transport.writeByte((short) (includeValue ? 1 : 0));
+      transport.writeByte((short) (resume ? 1 : 0));
+      transport.listen(this);
+      return null;
+   }
+
+   @Override
+   public void handleResponse(Transport transport) {
+      if (registered) {
+         readHeaderAndValidate(transport, params);
+         boolean eventsLost = transport.readByte() == 1;
+         int count = transport.readVInt();
+         List<RawEvent> events = new ArrayList<RawEvent>(count);
+         for (int i = 0; i < count; i++) {
+            byte type = (byte) transport.readByte();
+            byte[] key = transport.readArray();
+            long version = transport.readLong();
+            byte[] value = transport.readByte() == 1 ? transport.readArray() : null;
+            events.add(new RawEvent(type, key, version, value));
+         }
+         callback.events(this, eventsLost, events);
+         return;
+      }
+      short status;
+      try {
+         status = readHeaderAndValidate(transport, params);
+      } catch (InvalidResponseException e) {
+         // the rest of the response cannot be trusted, the connection has to be closed
+         throw e;
+      } catch (TransportException e) {
+         throw e;
+      } catch (HotRodClientException e) {
+         // the server refused the listener, the error response has been read completely
+         this.transport.removeListener();
+         callback.failed(this, e);
+         return;
+      }
+      registered = true;
+      params.opRespCode(CLIENT_EVENTS);
+      // a listener which could not be resumed has been added again, without the events raised in the meantime
+      callback.registered(this, resume && status == KEY_DOES_NOT_EXIST_STATUS);
+   }
+
+   @Override
+   public void handleFailure(TransportException e) {
+      callback.failed(this, e);
+   }
+
+   /**
+    * Stops receiving the events of the listener on this connection. The listener stays on the server until it is
+    * removed with a {@link RemoveClientListenerOperation}, the events it keeps sending are discarded.
+    */
+   public void cancel() {
+      if (transport != null) {
+         transport.removeListener();
+      }
+   }
+
+   public SocketAddress getServer() {
+      return server;
+   }
+
+   /**
+    * An event as sent by the server, with the key and the value still marshalled.
+    */
+   public static class RawEvent {
+      public static final byte CREATED = 0x01;
+      public static final byte MODIFIED = 0x02;
+      public static final byte REMOVED = 0x03;
+
+      public final byte type;
+      public final byte[] key;
+      public final long version;
+      public final byte[] value;
+
+      RawEvent(byte type, byte[] key, long version, byte[] value) {
+         this.type = type;
+         this.key = key;
+         this.version = version;
+         this.value = value;
+      }
+   }
+
+   /**
+    * Receives the registration and the events of the listener.
+    */
+   public interface ClientListenerCallback {
+
+      /**
+       * @param eventsLost whether the listener was asked to be resumed but the server did not keep its events
+       */
+      void registered(AddClientListenerOperation listener, boolean eventsLost);
+
+      /**
+       * @param eventsLost whether the server dropped some events before these ones
+       */
+      void events(AddClientListenerOperation listener, boolean eventsLost, List<RawEvent> events);
+
+      /**
+       * Invoked when the registration fails or when the listener is lost because the connection has been closed. No
+       * other method is invoked afterwards.
+       */
+      void failed(AddClientListenerOperation listener, Throwable cause);
+   }
+}
@@ -0,0 +1,115 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransport;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.ResponseHandler;
+
+/**
+ * Registers a listener on a particular server, which then sends the keys of the cache entries modified or removed on
+ * it, until the connection the request was sent on is closed. The registration and the events are handed to the
+ * given {@link InvalidationCallback} by the I/O thread of the connection. Requires version 1.3 of the protocol.
+ *
+ * @since 6.0
+ */
+@NotThreadSafe
+public class AddInvalidationListenerOperation extends HotRodOperation implements ResponseHandler {
+
+   private final MultiplexedTransportFactory transportFactory;
+   private final SocketAddress server;
+   private final InvalidationCallback callback;
+   private MultiplexedTransport transport;
+   private HeaderParams params;
+   private boolean registered;
+
+   public AddInvalidationListenerOperation(Codec codec, MultiplexedTransportFactory transportFactory, SocketAddress server,
+         byte[] cacheName, AtomicInteger topologyId, InvalidationCallback callback) {
+      super(codec, null, cacheName, topologyId);
+      this.transportFactory = transportFactory;
+      this.server = server;
+      this.callback = callback;
+   }
+
+   /**
+    * Sends the registration request without waiting for the response.
+    *
+    * @throws TransportException if the request could not be sent, in which case the callback is not invoked
+    */
+   @Override
+   public Object execute() {
+      transport = transportFactory.getTransport(server);
+      params = writeHeader(transport, ADD_INVALIDATION_LISTENER_REQUEST);
+      transport.listen(this);
+      return null;
+   }
+
+   @Override
+   public void handleResponse(Transport transport) {
+      if (registered) {
+         readHeaderAndValidate(transport, params);
+         callback.keyInvalidated(this, transport.readArray());
+         return;
+      }
+      try {
+         readHeaderAndValidate(transport, params);
+      } catch (InvalidResponseException e) {
+         // the rest of the response cannot be trusted, the connection has to be closed
+         throw e;
+      } catch (TransportException e) {
+         throw e;
+      } catch (HotRodClientException e) {
+         // the server refused the listener, the error response has been read completely
+         this.transport.removeListener();
+         callback.failed(this, e);
+         return;
+      }
+      registered = true;
+      params.opRespCode(KEY_INVALIDATION_EVENT);
+      callback.registered(this);
+   }
+
+   @Override
+   public void handleFailure(TransportException e) {
+      callback.failed(this, e);
+   }
+
+   /**
+    * Stops receiving the events of the listener. The listener is only removed from the server when the connection is
+    * closed, the events it keeps sending are discarded.
+    */
+   public void cancel() {
+      if (transport != null) {
+         transport.removeListener();
+      }
+   }
+
+   public SocketAddress getServer() {
+      return server;
+   }
+
+   /**
+    * Receives the registration and the events of the listener.
+    */
+   public interface InvalidationCallback {
+
+      void registered(AddInvalidationListenerOperation listener);
+
+      void keyInvalidated(AddInvalidationListenerOperation listener, byte[] key);
+
+      /**
+       * Invoked when the registration fails or when the listener is lost because the connection has been closed. No
+       * other method is invoked afterwards.
+       */
+      void failed(AddInvalidationListenerOperation listener, Throwable cause);
+   }
+}
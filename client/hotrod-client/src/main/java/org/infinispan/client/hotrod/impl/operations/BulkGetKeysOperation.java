@@ -24,16 +24,25 @@ public BulkGetKeysOperation(Codec codec, TransportFactory transportFactory, byte
       this.scope = scope;
    }
    
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
    @Override
    protected Transport getTransport(int retryCount) {
       return transportFactory.getTransport();
    }
 
    @Override
-   protected Set<byte[]> executeOperation(Transport transport) {
+   protected HeaderParams writeRequest(Transport transport) {
       HeaderParams params = writeHeader(transport, BULK_GET_KEYS_REQUEST);
       transport.writeVInt(scope);
-      transport.flush();
+      return params;
+   }
+
+   @Override
+   protected Set<byte[]> readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       Set<byte[]> result = new HashSet<byte[]>();
       while ( transport.readByte() == 1) { //there's more!
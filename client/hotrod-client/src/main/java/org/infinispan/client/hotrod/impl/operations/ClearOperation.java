@@ -23,16 +23,23 @@ public ClearOperation(Codec codec, TransportFactory transportFactory,
       super(codec, transportFactory, cacheName, topologyId, flags);
    }
 
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
    @Override
    protected Transport getTransport(int retryCount) {
       return transportFactory.getTransport();
    }
 
    @Override
-   protected Void executeOperation(Transport transport) {
-      HeaderParams params = writeHeader(transport, CLEAR_REQUEST);
-      transport.flush();
+   protected HeaderParams writeRequest(Transport transport) {
+      return writeHeader(transport, CLEAR_REQUEST);
+   }
 
+   @Override
+   protected Void readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       return null;
    }
@@ -0,0 +1,50 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Adds a delta to a counter, the addition being applied by the primary owner of the counter. Requires protocol
+ * version 1.4.
+ * <p/>
+ * Request: [header][key length][key][delta]
+ * <p/>
+ * Response: [header][counter], the counter being only sent if the status is successful
+ *
+ * @since 6.0
+ */
+@Immutable
+public class CounterAddOperation extends AbstractKeyOperation<Long> {
+
+   private final long delta;
+
+   public CounterAddOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
+         AtomicInteger topologyId, Flag[] flags, long delta) {
+      super(codec, transportFactory, key, cacheName, topologyId, flags);
+      this.delta = delta;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeKeyRequest(transport, COUNTER_ADD_REQUEST);
+      transport.writeLong(delta);
+      return params;
+   }
+
+   @Override
+   protected Long readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
+      if (status != NO_ERROR_STATUS) {
+         throw new HotRodClientException("The value of the key is not a counter");
+      }
+      return transport.readLong();
+   }
+}
@@ -0,0 +1,80 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Runs a task registered on the servers, on the primary owners of the keys given, shipping only its parameter and
+ * its results. The request is sent to the owner of the first key, which runs the task itself when it owns all the
+ * keys. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][task name][parameter length][parameter][key count][key length][key]...
+ * <br/>
+ * Response: [header][result count][1][result length][result] or [0] for a null result...
+ *
+ * @since 6.0
+ */
+@Immutable
+public class ExecTaskOperation extends RetryOnFailureOperation<List<byte[]>> {
+
+   private final String taskName;
+   private final byte[] parameter;
+   private final List<byte[]> keys;
+
+   public ExecTaskOperation(Codec codec, TransportFactory transportFactory, byte[] cacheName,
+         AtomicInteger topologyId, Flag[] flags, String taskName, byte[] parameter, List<byte[]> keys) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.taskName = taskName;
+      this.parameter = parameter;
+      this.keys = keys;
+   }
+
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0 && !keys.isEmpty()) {
+         return transportFactory.getTransport(keys.get(0));
+      } else {
+         return transportFactory.getTransport();
+      }
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, EXEC_TASK_REQUEST);
+      transport.writeString(taskName);
+      transport.writeArray(parameter);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      return params;
+   }
+
+   /**
+    * @return the result of each server the task ran on
+    */
+   @Override
+   protected List<byte[]> readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      int count = transport.readVInt();
+      List<byte[]> results = new ArrayList<byte[]>(count);
+      for (int i = 0; i < count; i++) {
+         results.add(transport.readByte() == 1 ? transport.readArray() : null);
+      }
+      return results;
+   }
+}
@@ -0,0 +1,62 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Reads the values of several keys in a single request. Requires protocol version 1.3.
+ * <p/>
+ * Request: [header][key count][key length][key]...
+ * <br/>
+ * Response: [header][value count][1][value length][value] or [0] for a missing key...
+ *
+ * @since 6.0
+ */
+@Immutable
+public class GetAllOperation extends AbstractMultiKeyOperation<List<byte[]>> {
+
+   private final List<byte[]> keys;
+
+   public GetAllOperation(Codec codec, TransportFactory transportFactory, List<byte[]> keys,
+         byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, keys.get(0), cacheName, topologyId, flags);
+      this.keys = keys;
+   }
+
+   public List<byte[]> getKeys() {
+      return keys;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, GET_ALL_REQUEST);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      return params;
+   }
+
+   /**
+    * @return the values of the keys, in the order of the request, null for the missing keys
+    */
+   @Override
+   protected List<byte[]> readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      int count = transport.readVInt();
+      List<byte[]> values = new ArrayList<byte[]>(count);
+      for (int i = 0; i < count; i++) {
+         values.add(transport.readByte() == 1 ? transport.readArray() : null);
+      }
+      return values;
+   }
+}
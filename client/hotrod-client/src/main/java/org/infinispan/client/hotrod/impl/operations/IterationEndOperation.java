@@ -0,0 +1,48 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Ends an iteration, releasing it on the server. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][iteration id]
+ * <br/>
+ * Response: [header]
+ *
+ * @since 6.0
+ */
+@Immutable
+public class IterationEndOperation extends AbstractIterationOperation<Boolean> {
+
+   private final String iterationId;
+
+   public IterationEndOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+         String iterationId, byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.iterationId = iterationId;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_END_REQUEST);
+      transport.writeString(iterationId);
+      return params;
+   }
+
+   /**
+    * @return whether the iteration was still known to the server
+    */
+   @Override
+   protected Boolean readResponse(Transport transport, HeaderParams params) {
+      return readHeaderAndValidate(transport, params) == NO_ERROR_STATUS;
+   }
+}
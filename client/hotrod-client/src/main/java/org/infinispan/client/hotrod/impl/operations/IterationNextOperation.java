@@ -0,0 +1,69 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.commons.util.SimpleImmutableEntry;
+
+/**
+ * Reads the next batch of entries of an iteration. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][iteration id]
+ * <br/>
+ * Response: [header][entry count][key length][key][value length][value]..., no entries once the iteration is over
+ *
+ * @since 6.0
+ */
+@Immutable
+public class IterationNextOperation extends AbstractIterationOperation<List<Map.Entry<byte[], byte[]>>> {
+
+   private final String iterationId;
+
+   public IterationNextOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+         String iterationId, byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.iterationId = iterationId;
+   }
+
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_NEXT_REQUEST);
+      transport.writeString(iterationId);
+      return params;
+   }
+
+   /**
+    * @return the entries of the batch, empty once the iteration is over
+    */
+   @Override
+   protected List<Map.Entry<byte[], byte[]>> readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
+      if (status == KEY_DOES_NOT_EXIST_STATUS) {
+         throw new HotRodClientException("Iteration " + iterationId + " is unknown to server " + server
+               + ", it may have expired");
+      }
+      int count = transport.readVInt();
+      List<Map.Entry<byte[], byte[]>> entries = new ArrayList<Map.Entry<byte[], byte[]>>(count);
+      for (int i = 0; i < count; i++) {
+         byte[] key = transport.readArray();
+         entries.add(new SimpleImmutableEntry<byte[], byte[]>(key, transport.readArray()));
+      }
+      return entries;
+   }
+}
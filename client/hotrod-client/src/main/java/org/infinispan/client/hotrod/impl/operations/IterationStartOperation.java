@@ -0,0 +1,63 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Starts an iteration over the entries of some segments on a server, returning the id of the iteration. Requires
+ * protocol version 1.4.
+ * <p/>
+ * Request: [header][0] for all the segments or [1][segment count][segment]...[filter name][batch size]
+ * <br/>
+ * Response: [header][iteration id]
+ *
+ * @since 6.0
+ */
+@Immutable
+public class IterationStartOperation extends AbstractIterationOperation<String> {
+
+   private final Set<Integer> segments;
+   private final String filterName;
+   private final int batchSize;
+
+   public IterationStartOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+         Set<Integer> segments, String filterName, int batchSize, byte[] cacheName, AtomicInteger topologyId,
+         Flag[] flags) {
+      super(codec, transportFactory, server, cacheName, topologyId, flags);
+      this.segments = segments;
+      this.filterName = filterName;
+      this.batchSize = batchSize;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, ITERATION_START_REQUEST);
+      if (segments == null) {
+         transport.writeByte((short) 0);
+      } else {
+         transport.writeByte((short) 1);
+         transport.writeVInt(segments.size());
+         for (int segment : segments) {
+            transport.writeVInt(segment);
+         }
+      }
+      transport.writeString(filterName == null ? "" : filterName);
+      transport.writeVInt(batchSize);
+      return params;
+   }
+
+   @Override
+   protected String readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      return transport.readString();
+   }
+}
@@ -4,13 +4,27 @@
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec12;
+import org.infinispan.client.hotrod.impl.protocol.Codec13;
+import org.infinispan.client.hotrod.impl.protocol.Codec14;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -24,6 +38,11 @@ public class OperationsFactory implements HotRodConstants {
 
    private static final Flag[] FORCE_RETURN_VALUE = {Flag.FORCE_RETURN_VALUE};
 
+   /**
+    * The largest number of keys sent in a single multi-key request, larger groups are split.
+    */
+   public static final int MAX_KEYS_PER_REQUEST = 1000;
+
    private final ThreadLocal<List<Flag>> flagsMap = new ThreadLocal<List<Flag>>();
 
    private final TransportFactory transportFactory;
@@ -146,6 +165,267 @@ public FaultTolerantPingOperation newFaultTolerantPingOperation() {
             codec, transportFactory, cacheNameBytes, topologyId, flags());
    }
 
+   /**
+    * Construct a request registering an invalidation listener on a particular server. Requires the
+    * {@link MultiplexedTransportFactory}.
+    */
+   public AddInvalidationListenerOperation newAddInvalidationListenerOperation(SocketAddress server,
+         AddInvalidationListenerOperation.InvalidationCallback callback) {
+      return new AddInvalidationListenerOperation(
+            codec, (MultiplexedTransportFactory) transportFactory, server, cacheNameBytes, topologyId, callback);
+   }
+
+   /**
+    * Construct a request adding a client listener on a particular server. Requires the
+    * {@link MultiplexedTransportFactory} and protocol version 1.4, see {@link #isClientListenerSupported()}.
+    */
+   public AddClientListenerOperation newAddClientListenerOperation(SocketAddress server, String listenerId,
+         String filterName, String converterName, boolean includeValue, boolean resume,
+         AddClientListenerOperation.ClientListenerCallback callback) {
+      return new AddClientListenerOperation(
+            codec, (MultiplexedTransportFactory) transportFactory, server, cacheNameBytes, topologyId, listenerId,
+            filterName, converterName, includeValue, resume, callback);
+   }
+
+   public RemoveClientListenerOperation newRemoveClientListenerOperation(SocketAddress server, String listenerId) {
+      return new RemoveClientListenerOperation(
+            codec, transportFactory, server, listenerId, cacheNameBytes, topologyId);
+   }
+
+   /**
+    * Constructs the requests reading the given keys, one per owner of the keys. Requires protocol version 1.3, see
+    * {@link #isMultiKeySupported()}.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      List<GetAllOperation> operations = new ArrayList<GetAllOperation>();
+      for (List<byte[]> group : groupByOwner(keys)) {
+         operations.add(new GetAllOperation(
+               codec, transportFactory, group, cacheNameBytes, topologyId, flags));
+      }
+      return operations;
+   }
+
+   /**
+    * Constructs the requests storing the given entries, one per owner of the keys. Requires protocol version 1.3, see
+    * {@link #isMultiKeySupported()}.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries,
+            int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      List<PutAllOperation> operations = new ArrayList<PutAllOperation>();
+      for (List<byte[]> group : groupByOwner(entries.keySet())) {
+         Map<byte[], byte[]> groupEntries = new LinkedHashMap<byte[], byte[]>();
+         for (byte[] key : group) {
+            groupEntries.put(key, entries.get(key));
+         }
+         operations.add(new PutAllOperation(
+               codec, transportFactory, groupEntries, cacheNameBytes, topologyId, flags, lifespanSecs, maxIdleSecs));
+      }
+      return operations;
+   }
+
+   /**
+    * Constructs the requests removing the given keys, one per owner of the keys. Requires protocol version 1.3, see
+    * {@link #isMultiKeySupported()}.
+    */
+   public List<RemoveAllOperation> newRemoveAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      List<RemoveAllOperation> operations = new ArrayList<RemoveAllOperation>();
+      for (List<byte[]> group : groupByOwner(keys)) {
+         operations.add(new RemoveAllOperation(
+               codec, transportFactory, group, cacheNameBytes, topologyId, flags));
+      }
+      return operations;
+   }
+
+   /**
+    * Splits the keys by the server owning them according to the consistent hash, or in arbitrary groups if the servers
+    * do not send their hash distribution, at most {@link #MAX_KEYS_PER_REQUEST} keys per group.
+    */
+   private Collection<List<byte[]>> groupByOwner(Collection<byte[]> keys) {
+      ConsistentHash consistentHash = transportFactory.getConsistentHash();
+      Map<SocketAddress, List<byte[]>> byOwner = new HashMap<SocketAddress, List<byte[]>>();
+      List<List<byte[]>> groups = new ArrayList<List<byte[]>>();
+      for (byte[] key : keys) {
+         SocketAddress owner = consistentHash != null ? consistentHash.getServer(key) : null;
+         List<byte[]> group = byOwner.get(owner);
+         if (group == null || group.size() == MAX_KEYS_PER_REQUEST) {
+            group = new ArrayList<byte[]>();
+            byOwner.put(owner, group);
+            groups.add(group);
+         }
+         group.add(key);
+      }
+      return groups;
+   }
+
+   /**
+    * Splits the segments by their primary owner according to the consistent hash, null meaning all the segments. If
+    * a segment has no owner with a Hot Rod endpoint, the topology is requested again once before giving up.
+    *
+    * @return the segments of each primary owner, or null if the servers do not send the owners of the segments, e.g.
+    *         if the cache isn't distributed
+    * @throws HotRodClientException if no server is known to own some of the segments
+    */
+   public Map<SocketAddress, Set<Integer>> groupSegmentsByOwner(Set<Integer> segments) {
+      if (!(transportFactory.getConsistentHash() instanceof SegmentConsistentHash)) {
+         return null;
+      }
+      Set<Integer> ownerless = new HashSet<Integer>();
+      Map<SocketAddress, Set<Integer>> byOwner = groupSegmentsByOwner(segments, ownerless);
+      if (!ownerless.isEmpty()) {
+         // the owners may have registered their endpoint since the topology was received
+         newFaultTolerantPingOperation().execute();
+         if (!(transportFactory.getConsistentHash() instanceof SegmentConsistentHash)) {
+            return null;
+         }
+         ownerless.clear();
+         byOwner = groupSegmentsByOwner(segments, ownerless);
+         if (!ownerless.isEmpty()) {
+            throw new HotRodClientException("No server is known to own segments " + ownerless);
+         }
+      }
+      return byOwner;
+   }
+
+   private Map<SocketAddress, Set<Integer>> groupSegmentsByOwner(Set<Integer> segments, Set<Integer> ownerless) {
+      SegmentConsistentHash segmentHash = (SegmentConsistentHash) transportFactory.getConsistentHash();
+      if (segments == null) {
+         segments = new HashSet<Integer>();
+         for (int i = 0; i < segmentHash.getNumSegments(); i++) {
+            segments.add(i);
+         }
+      }
+      Map<SocketAddress, Set<Integer>> byOwner = new LinkedHashMap<SocketAddress, Set<Integer>>();
+      for (int segment : segments) {
+         SocketAddress[] owners = segmentHash.getSegmentOwners(segment);
+         if (owners.length == 0) {
+            ownerless.add(segment);
+            continue;
+         }
+         Set<Integer> group = byOwner.get(owners[0]);
+         if (group == null) {
+            group = new HashSet<Integer>();
+            byOwner.put(owners[0], group);
+         }
+         group.add(segment);
+      }
+      return byOwner;
+   }
+
+   /**
+    * Gives the segments to every known server, for the caches whose segment owners aren't known to the client.
+    */
+   public Map<SocketAddress, Set<Integer>> segmentsOnEveryServer(Set<Integer> segments) {
+      Map<SocketAddress, Set<Integer>> byServer = new LinkedHashMap<SocketAddress, Set<Integer>>();
+      for (SocketAddress server : transportFactory.getServers()) {
+         byServer.put(server, segments);
+      }
+      return byServer;
+   }
+
+   public IterationStartOperation newIterationStartOperation(SocketAddress server, Set<Integer> segments,
+            String filterName, int batchSize) {
+      return new IterationStartOperation(
+            codec, transportFactory, server, segments, filterName, batchSize, cacheNameBytes, topologyId, null);
+   }
+
+   public IterationNextOperation newIterationNextOperation(SocketAddress server, String iterationId) {
+      return new IterationNextOperation(
+            codec, transportFactory, server, iterationId, cacheNameBytes, topologyId, null);
+   }
+
+   public IterationEndOperation newIterationEndOperation(SocketAddress server, String iterationId) {
+      return new IterationEndOperation(
+            codec, transportFactory, server, iterationId, cacheNameBytes, topologyId, null);
+   }
+
+   public CounterAddOperation newCounterAddOperation(byte[] key, long delta) {
+      return new CounterAddOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags(), delta);
+   }
+
+   public ExecTaskOperation newExecTaskOperation(String taskName, byte[] parameter, List<byte[]> keys) {
+      return new ExecTaskOperation(
+            codec, transportFactory, cacheNameBytes, topologyId, flags(), taskName, parameter, keys);
+   }
+
+   /**
+    * @param server the server which accepted the first chunk of the stream, null to send the first chunk
+    */
+   public StreamPutOperation newStreamPutOperation(byte[] key, SocketAddress server, int lifespanSecs, int maxIdleSecs,
+            String streamId, long offset, boolean last, byte[] chunk) {
+      return new StreamPutOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags(), server, lifespanSecs, maxIdleSecs,
+            streamId, offset, last, chunk);
+   }
+
+   public StreamGetOperation newStreamGetOperation(byte[] key, long offset, int length) {
+      return new StreamGetOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags(), offset, length);
+   }
+
+   /**
+    * @return whether the iteration operations are supported by the configured protocol version
+    */
+   public boolean isIterationSupported() {
+      return codec instanceof Codec14;
+   }
+
+   /**
+    * @return whether the client listeners are supported by the configured protocol version and transport
+    */
+   public boolean isClientListenerSupported() {
+      return codec instanceof Codec14 && transportFactory instanceof MultiplexedTransportFactory;
+   }
+
+   /**
+    * @return whether the counter operations are supported by the configured protocol version
+    */
+   public boolean isCounterSupported() {
+      return codec instanceof Codec14;
+   }
+
+   /**
+    * @return whether running the tasks registered on the servers is supported by the configured protocol version
+    */
+   public boolean isTaskExecutionSupported() {
+      return codec instanceof Codec14;
+   }
+
+   /**
+    * @return whether streaming the values is supported by the configured protocol version
+    */
+   public boolean isStreamingSupported() {
+      return codec instanceof Codec14;
+   }
+
+   /**
+    * @return whether reading the expiration of the entries is supported by the configured protocol version
+    */
+   public boolean isMetadataSupported() {
+      return codec instanceof Codec12;
+   }
+
+   /**
+    * @return whether the multi-key operations are supported by the configured protocol version
+    */
+   public boolean isMultiKeySupported() {
+      return codec instanceof Codec13;
+   }
+
+   public TransportFactory getTransportFactory() {
+      return transportFactory;
+   }
+
+   /**
+    * @return whether the operations can be executed without blocking, see {@link RetryOnFailureOperation#executeAsync}
+    */
+   public boolean isAsyncSupported() {
+      return transportFactory instanceof MultiplexedTransportFactory;
+   }
+
    private Flag[] flags() {
       List<Flag> flags = this.flagsMap.get();
       this.flagsMap.remove();
@@ -159,6 +439,13 @@ private Flag[] flags() {
       return flags != null ? flags.toArray(new Flag[0]) : null;
    }
 
+   /**
+    * @return whether flags have been set for the next operation created by the calling thread
+    */
+   public boolean hasFlags() {
+      return flagsMap.get() != null;
+   }
+
    public void setFlags(Flag[] flags) {
       List<Flag> list = new ArrayList<Flag>();
       for(Flag flag : flags)
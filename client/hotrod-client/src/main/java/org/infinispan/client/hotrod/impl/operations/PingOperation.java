@@ -37,11 +37,17 @@ public PingOperation(Codec codec, AtomicInteger topologyId, Transport transport,
 
    @Override
    public PingResult execute() {
-      try {
-         HeaderParams params = writeHeader(transport, HotRodConstants.PING_REQUEST);
-         transport.flush();
+      HeaderParams params = writeHeader(transport, HotRodConstants.PING_REQUEST);
+      transport.flush();
+      return readResponse(codec, transport, params);
+   }
 
-         short respStatus = readHeaderAndValidate(transport, params);
+   /**
+    * Reads the response to a ping request, header included.
+    */
+   static PingResult readResponse(Codec codec, Transport transport, HeaderParams params) {
+      try {
+         short respStatus = codec.readHeader(transport, params);
          if (respStatus == HotRodConstants.NO_ERROR_STATUS) {
             if (log.isTraceEnabled())
                log.tracef("Successfully validated transport: %s", transport);
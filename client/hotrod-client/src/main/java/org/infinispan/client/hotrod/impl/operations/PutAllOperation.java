@@ -0,0 +1,57 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Stores several entries, with the same expiration, in a single request. The server writes them with a single
+ * command. Requires protocol version 1.3.
+ * <p/>
+ * Request: [header][lifespan][max idle][entry count][key length][key][value length][value]...
+ *
+ * @since 6.0
+ */
+@Immutable
+public class PutAllOperation extends AbstractMultiKeyOperation<Void> {
+
+   private final Map<byte[], byte[]> entries;
+
+   private final int lifespan;
+
+   private final int maxIdle;
+
+   public PutAllOperation(Codec codec, TransportFactory transportFactory, Map<byte[], byte[]> entries,
+         byte[] cacheName, AtomicInteger topologyId, Flag[] flags, int lifespan, int maxIdle) {
+      super(codec, transportFactory, entries.keySet().iterator().next(), cacheName, topologyId, flags);
+      this.entries = entries;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, PUT_ALL_REQUEST);
+      transport.writeVInt(lifespan);
+      transport.writeVInt(maxIdle);
+      transport.writeVInt(entries.size());
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         transport.writeArray(entry.getKey());
+         transport.writeArray(entry.getValue());
+      }
+      return params;
+   }
+
+   @Override
+   protected Void readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      return null;
+   }
+}
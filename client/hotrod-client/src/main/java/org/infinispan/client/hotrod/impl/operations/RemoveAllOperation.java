@@ -0,0 +1,47 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Removes several keys in a single request, without returning the previous values. Requires protocol version 1.3.
+ * <p/>
+ * Request: [header][key count][key length][key]...
+ *
+ * @since 6.0
+ */
+@Immutable
+public class RemoveAllOperation extends AbstractMultiKeyOperation<Void> {
+
+   private final List<byte[]> keys;
+
+   public RemoveAllOperation(Codec codec, TransportFactory transportFactory, List<byte[]> keys,
+         byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
+      super(codec, transportFactory, keys.get(0), cacheName, topologyId, flags);
+      this.keys = keys;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, REMOVE_ALL_REQUEST);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      return params;
+   }
+
+   @Override
+   protected Void readResponse(Transport transport, HeaderParams params) {
+      readHeaderAndValidate(transport, params);
+      return null;
+   }
+}
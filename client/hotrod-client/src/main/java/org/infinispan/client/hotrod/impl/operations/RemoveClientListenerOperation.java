@@ -0,0 +1,66 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Removes a client listener from a particular server, see {@link AddClientListenerOperation}. The listener is only
+ * kept by the server it was added on, so the request is never retried on another one. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][listener id]
+ * <br/>
+ * Response: [header]
+ *
+ * @since 6.0
+ */
+@Immutable
+public class RemoveClientListenerOperation extends RetryOnFailureOperation<Boolean> {
+
+   private final SocketAddress server;
+   private final String listenerId;
+
+   public RemoveClientListenerOperation(Codec codec, TransportFactory transportFactory, SocketAddress server,
+         String listenerId, byte[] cacheName, AtomicInteger topologyId) {
+      super(codec, transportFactory, cacheName, topologyId, null);
+      this.server = server;
+      this.listenerId = listenerId;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      return transportFactory.getTransport(server);
+   }
+
+   @Override
+   protected boolean shouldRetry(int retryCount) {
+      return retryCount == 0;
+   }
+
+   @Override
+   protected void logErrorAndThrowExceptionIfNeeded(int i, HotRodClientException e) {
+      throw e;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeHeader(transport, REMOVE_CLIENT_LISTENER_REQUEST);
+      transport.writeString(listenerId);
+      return params;
+   }
+
+   /**
+    * @return whether the listener was still known to the server
+    */
+   @Override
+   protected Boolean readResponse(Transport transport, HeaderParams params) {
+      return readHeaderAndValidate(transport, params) == NO_ERROR_STATUS;
+   }
+}
@@ -5,13 +5,20 @@
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspectException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.ResponseFuture;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransport;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.ResponseHandler;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -43,7 +50,7 @@ public T execute() {
          try {
             // Transport retrieval should be retried
             transport = getTransport(retryCount);
-            return executeOperation(transport);
+            return executeMeasured(transport);
          } catch (TransportException te) {
             // Invalidate transport since this exception means that this
             // instance is no longer usable and should be destroyed.
@@ -65,6 +72,73 @@ public T execute() {
       throw new IllegalStateException("We should not reach here!");
    }
 
+   /**
+    * Executes the operation without blocking the calling thread. This requires a
+    * {@link org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory}: the request is
+    * pipelined on one of its connections, and the response is read and the returned future completed by the I/O
+    * thread of that connection. As with {@link #execute()}, the operation is retried on another connection if it fails
+    * because of connection problems.
+    *
+    * @param listenerExecutor the executor notifying the listeners of the returned future, so that they do not run on
+    *                         the I/O thread, which reads the responses of all the requests sent on its connection
+    */
+   public NotifyingFuture<T> executeAsync(Executor listenerExecutor) {
+      ResponseFuture<T> future = new ResponseFuture<T>(listenerExecutor);
+      executeAsync(future, 0);
+      return future;
+   }
+
+   private void executeAsync(final ResponseFuture<T> future, final int retryCount) {
+      Transport transport = null;
+      RequestMeasurement pending = null;
+      try {
+         transport = getTransport(retryCount);
+         final HeaderParams params = writeRequest(transport);
+         final RequestMeasurement measurement = new RequestMeasurement(transport);
+         pending = measurement;
+         ((MultiplexedTransport) transport).send(new ResponseHandler() {
+            @Override
+            public void handleResponse(Transport response) {
+               measurement.completed(false);
+               try {
+                  future.complete(readResponse(response, params));
+               } catch (TransportException te) {
+                  // the connection is no longer usable, it fails all its requests including this one
+                  throw te;
+               } catch (RemoteNodeSuspectException e) {
+                  retryAsync(future, retryCount, e);
+               } catch (RuntimeException e) {
+                  future.completeExceptionally(e);
+               }
+            }
+
+            @Override
+            public void handleFailure(TransportException te) {
+               measurement.completed(true);
+               retryAsync(future, retryCount, te);
+            }
+         });
+      } catch (TransportException te) {
+         if (pending != null) {
+            pending.completed(true);
+         }
+         transportFactory.invalidateTransport(te.getServerAddress(), transport);
+         retryAsync(future, retryCount, te);
+      } catch (RuntimeException e) {
+         future.completeExceptionally(e);
+      }
+   }
+
+   private void retryAsync(ResponseFuture<T> future, int retryCount, HotRodClientException e) {
+      try {
+         logErrorAndThrowExceptionIfNeeded(retryCount, e);
+      } catch (HotRodClientException noRetriesLeft) {
+         future.completeExceptionally(noRetriesLeft);
+         return;
+      }
+      executeAsync(future, retryCount + 1);
+   }
+
    protected boolean shouldRetry(int retryCount) {
       return retryCount < transportFactory.getTransportCount();
    }
@@ -86,5 +160,64 @@ protected void releaseTransport(Transport transport) {
 
    protected abstract Transport getTransport(int retryCount);
 
-   protected abstract T executeOperation(Transport transport);
+   /**
+    * @return whether the response time of the operation tells how fast the server is, which is not the case for the
+    *         operations which take long because of the work they ask for, e.g. the bulk operations
+    */
+   protected boolean isLatencySample() {
+      return true;
+   }
+
+   private T executeMeasured(Transport transport) {
+      RequestMeasurement measurement = new RequestMeasurement(transport);
+      boolean failed = false;
+      try {
+         return executeOperation(transport);
+      } catch (TransportException te) {
+         failed = true;
+         throw te;
+      } finally {
+         measurement.completed(failed);
+      }
+   }
+
+   protected T executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   /**
+    * Writes the request to the transport, without flushing it. The request and its response are handled separately,
+    * so that the response can be read by another thread than the one which sent the request.
+    */
+   protected abstract HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the response to the request written by {@link #writeRequest(Transport)}, header included.
+    */
+   protected abstract T readResponse(Transport transport, HeaderParams params);
+
+   /**
+    * Reports a request to the transport factory, so that the balancing strategy can measure the servers. The
+    * completion is only reported once, although the handler of an asynchronous request may be failed after it has
+    * been given the response.
+    */
+   private final class RequestMeasurement {
+
+      private final Transport transport;
+      private final long startNanos;
+      private final AtomicBoolean completed = new AtomicBoolean();
+
+      RequestMeasurement(Transport transport) {
+         this.transport = transport;
+         this.startNanos = transportFactory.requestStarted(transport);
+      }
+
+      void completed(boolean failed) {
+         if (completed.compareAndSet(false, true)) {
+            transportFactory.requestCompleted(transport, startNanos, failed, isLatencySample());
+         }
+      }
+   }
 }
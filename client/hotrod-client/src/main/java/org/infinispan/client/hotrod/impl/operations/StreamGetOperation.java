@@ -0,0 +1,69 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.streaming.ValueChunk;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Reads a chunk of a value, so that a large value is read with several requests rather than with a single response
+ * holding the connection for the whole transfer. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][key length][key][offset][length]
+ * <p/>
+ * Response: [header][version][value length][chunk length][chunk], the version and the chunk being only sent if the
+ * key exists. The server may send less than the length asked for.
+ *
+ * @since 6.0
+ */
+@Immutable
+public class StreamGetOperation extends AbstractKeyOperation<ValueChunk> {
+
+   private final long offset;
+   private final int length;
+
+   public StreamGetOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
+         AtomicInteger topologyId, Flag[] flags, long offset, int length) {
+      super(codec, transportFactory, key, cacheName, topologyId, flags);
+      this.offset = offset;
+      this.length = length;
+   }
+
+   @Override
+   protected boolean isRead() {
+      return true;
+   }
+
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeKeyRequest(transport, STREAM_GET_REQUEST);
+      transport.writeVLong(offset);
+      transport.writeVInt(length);
+      return params;
+   }
+
+   /**
+    * @return the chunk, or null if the key doesn't exist
+    */
+   @Override
+   protected ValueChunk readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
+      if (status == KEY_DOES_NOT_EXIST_STATUS) {
+         return null;
+      }
+      long version = transport.readLong();
+      long valueLength = transport.readVLong();
+      return new ValueChunk(version, valueLength, transport.readArray());
+   }
+}
@@ -0,0 +1,97 @@
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Sends a chunk of a streamed value. The server keeps the chunks of a stream until its last chunk, and then stores
+ * the whole value as a single entry. Requires protocol version 1.4.
+ * <p/>
+ * Request: [header][key length][key][lifespan][max idle][stream id][offset][last][chunk length][chunk]
+ * <p/>
+ * Response: [header], the status telling whether the chunk was accepted: it isn't if the server doesn't know the
+ * stream, e.g. because the stream was started on another server, or if the chunk doesn't start where the previous one
+ * ended
+ * <p/>
+ * A stream is only known by the server which received its first chunk, whichever server owns the key, so the first
+ * chunk is sent as any other write of the key and the following ones are sent to the server which accepted it, without
+ * being retried on another server.
+ *
+ * @since 6.0
+ */
+@Immutable
+public class StreamPutOperation extends AbstractKeyOperation<SocketAddress> {
+
+   private final SocketAddress server;
+   private final int lifespan;
+   private final int maxIdle;
+   private final String streamId;
+   private final long offset;
+   private final boolean last;
+   private final byte[] chunk;
+
+   public StreamPutOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
+         AtomicInteger topologyId, Flag[] flags, SocketAddress server, int lifespan, int maxIdle, String streamId,
+         long offset, boolean last, byte[] chunk) {
+      super(codec, transportFactory, key, cacheName, topologyId, flags);
+      this.server = server;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+      this.streamId = streamId;
+      this.offset = offset;
+      this.last = last;
+      this.chunk = chunk;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      return server == null ? super.getTransport(retryCount) : transportFactory.getTransport(server);
+   }
+
+   @Override
+   protected boolean shouldRetry(int retryCount) {
+      return server == null ? super.shouldRetry(retryCount) : retryCount == 0;
+   }
+
+   @Override
+   protected void logErrorAndThrowExceptionIfNeeded(int i, HotRodClientException e) {
+      if (server != null) {
+         throw e;
+      }
+      super.logErrorAndThrowExceptionIfNeeded(i, e);
+   }
+
+   @Override
+   protected boolean isLatencySample() {
+      return false;
+   }
+
+   @Override
+   protected HeaderParams writeRequest(Transport transport) {
+      HeaderParams params = writeKeyRequest(transport, STREAM_PUT_REQUEST);
+      transport.writeVInt(lifespan);
+      transport.writeVInt(maxIdle);
+      transport.writeString(streamId);
+      transport.writeVLong(offset);
+      transport.writeByte((short) (last ? 1 : 0));
+      transport.writeArray(chunk);
+      return params;
+   }
+
+   /**
+    * @return the server which accepted the chunk, to send the following chunks to, or null if the chunk wasn't accepted
+    */
+   @Override
+   protected SocketAddress readResponse(Transport transport, HeaderParams params) {
+      return readHeaderAndValidate(transport, params) == NO_ERROR_STATUS ? transport.getServerAddress() : null;
+   }
+}
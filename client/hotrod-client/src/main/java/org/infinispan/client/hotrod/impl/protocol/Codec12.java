@@ -29,12 +29,7 @@ protected HeaderParams writeHeader(Transport transport, HeaderParams params, byt
       transport.writeByte(params.opCode);
       transport.writeArray(params.cacheName);
 
-      int flagInt = 0;
-      if (params.flags != null) {
-         for (Flag flag : params.flags) {
-            flagInt = flag.getFlagInt() | flagInt;
-         }
-      }
+      int flagInt = flags(params);
       transport.writeVInt(flagInt);
       transport.writeByte(params.clientIntel);
       transport.writeVInt(params.topologyId.get());
@@ -44,6 +39,19 @@ protected HeaderParams writeHeader(Transport transport, HeaderParams params, byt
       return params;
    }
 
+   /**
+    * @return the flags of the request header
+    */
+   protected int flags(HeaderParams params) {
+      int flagInt = 0;
+      if (params.flags != null) {
+         for (Flag flag : params.flags) {
+            flagInt = flag.getFlagInt() | flagInt;
+         }
+      }
+      return flagInt;
+   }
+
    @Override
    public Log getLog() {
       return log;
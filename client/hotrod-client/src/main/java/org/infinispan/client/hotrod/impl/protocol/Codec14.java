@@ -0,0 +1,97 @@
+package org.infinispan.client.hotrod.impl.protocol;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * A Hot Rod encoder/decoder for version 1.4 of the protocol, whose hash distribution aware topology updates give the
+ * owners of every segment of the servers' consistent hash rather than positions on a hash wheel.
+ * <p/>
+ * A client with value compression enabled sets the {@link HotRodConstants#COMPRESSED_VALUES} flag in the header of
+ * every request, so that the server decompresses the values it receives before storing them and compresses the values
+ * it sends back.
+ *
+ * @since 6.0
+ */
+public class Codec14 extends Codec13 {
+
+   private static final Log log = LogFactory.getLog(Codec14.class, Log.class);
+
+   private final boolean compressedValues;
+
+   public Codec14() {
+      this(false);
+   }
+
+   /**
+    * @param compressedValues whether the values exchanged with the server are compressed
+    */
+   public Codec14(boolean compressedValues) {
+      this.compressedValues = compressedValues;
+   }
+
+   @Override
+   public HeaderParams writeHeader(Transport transport, HeaderParams params) {
+      return writeHeader(transport, params, HotRodConstants.VERSION_14);
+   }
+
+   @Override
+   protected int flags(HeaderParams params) {
+      int flagInt = super.flags(params);
+      return compressedValues ? flagInt | HotRodConstants.COMPRESSED_VALUES : flagInt;
+   }
+
+   @Override
+   protected void readNewTopologyAndHash(Transport transport, AtomicInteger topologyId) {
+      final Log localLog = getLog();
+      int newTopologyId = transport.readVInt();
+      topologyId.set(newTopologyId);
+      int clusterSize = transport.readVInt();
+      SocketAddress[] addresses = new SocketAddress[clusterSize];
+      for (int i = 0; i < clusterSize; i++) {
+         String host = transport.readString();
+         int port = transport.readUnsignedShort();
+         addresses[i] = new InetSocketAddress(host, port);
+      }
+
+      short hashFunctionVersion = transport.readByte();
+      int numSegments = transport.readVInt();
+      SocketAddress[][] segmentOwners = new SocketAddress[numSegments][];
+      for (int i = 0; i < numSegments; i++) {
+         short numOwners = transport.readByte();
+         segmentOwners[i] = new SocketAddress[numOwners];
+         for (int j = 0; j < numOwners; j++) {
+            segmentOwners[i][j] = addresses[transport.readVInt()];
+         }
+      }
+      if (localLog.isTraceEnabled()) {
+         localLog.tracef("Topology change request: newTopologyId=%d, hashFunctionVersion=%d, numSegments=%d, " +
+               "clusterSize=%d", newTopologyId, hashFunctionVersion, numSegments, clusterSize);
+      }
+
+      Set<SocketAddress> servers = new LinkedHashSet<SocketAddress>(Arrays.asList(addresses));
+      if (localLog.isInfoEnabled()) {
+         localLog.newTopology(transport.getRemoteSocketAddress(), newTopologyId, servers.size(), servers);
+      }
+      transport.getTransportFactory().updateServers(servers);
+      if (hashFunctionVersion == 0) {
+         localLog.trace("Not using a consistent hash function (hash function version == 0).");
+      } else {
+         transport.getTransportFactory().updateHashFunction(segmentOwners, numSegments, hashFunctionVersion);
+      }
+   }
+
+   @Override
+   public Log getLog() {
+      return log;
+   }
+
+}
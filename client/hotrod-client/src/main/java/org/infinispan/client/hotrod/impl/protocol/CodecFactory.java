@@ -17,12 +17,17 @@ public class CodecFactory {
    private static final Codec CODEC_10 = new Codec10();
    private static final Codec CODEC_11 = new Codec11();
    private static final Codec CODEC_12 = new Codec12();
+   private static final Codec CODEC_13 = new Codec13();
+   private static final Codec CODEC_14 = new Codec14();
+   private static final Codec CODEC_14_COMPRESSED = new Codec14(true);
 
    static {
       codecMap = new HashMap<String, Codec>();
       codecMap.put(PROTOCOL_VERSION_10, CODEC_10);
       codecMap.put(PROTOCOL_VERSION_11, CODEC_11);
       codecMap.put(PROTOCOL_VERSION_12, CODEC_12);
+      codecMap.put(PROTOCOL_VERSION_13, CODEC_13);
+      codecMap.put(PROTOCOL_VERSION_14, CODEC_14);
    }
 
    public static Codec getCodec(String version) {
@@ -32,4 +37,16 @@ public static Codec getCodec(String version) {
          throw new IllegalArgumentException("Invalid Hot Rod protocol version");
    }
 
+   /**
+    * @param compressedValues whether the values exchanged with the server are compressed, which requires version 1.4
+    */
+   public static Codec getCodec(String version, boolean compressedValues) {
+      if (!compressedValues)
+         return getCodec(version);
+      else if (PROTOCOL_VERSION_14.equals(version))
+         return CODEC_14_COMPRESSED;
+      else
+         throw new IllegalArgumentException("Value compression requires Hot Rod protocol version " + PROTOCOL_VERSION_14);
+   }
+
 }
@@ -57,6 +57,15 @@ public HeaderParams messageId(long messageId) {
       return this;
    }
 
+   /**
+    * Overrides the operation code expected in the response, e.g. for the events sent by the server after responding
+    * to a listener registration.
+    */
+   public HeaderParams opRespCode(short opRespCode) {
+      this.opRespCode = opRespCode;
+      return this;
+   }
+
    private short toOpRespCode(short opCode) {
       switch (opCode) {
          case HotRodConstants.PUT_REQUEST:
@@ -89,6 +98,32 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.GET_WITH_METADATA_RESPONSE;
          case HotRodConstants.BULK_GET_KEYS_REQUEST:
         	 return HotRodConstants.BULK_GET_KEYS_RESPONSE;
+         case HotRodConstants.ADD_INVALIDATION_LISTENER_REQUEST:
+            return HotRodConstants.ADD_INVALIDATION_LISTENER_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
+         case HotRodConstants.REMOVE_ALL_REQUEST:
+            return HotRodConstants.REMOVE_ALL_RESPONSE;
+         case HotRodConstants.ITERATION_START_REQUEST:
+            return HotRodConstants.ITERATION_START_RESPONSE;
+         case HotRodConstants.ITERATION_NEXT_REQUEST:
+            return HotRodConstants.ITERATION_NEXT_RESPONSE;
+         case HotRodConstants.ITERATION_END_REQUEST:
+            return HotRodConstants.ITERATION_END_RESPONSE;
+         case HotRodConstants.COUNTER_ADD_REQUEST:
+            return HotRodConstants.COUNTER_ADD_RESPONSE;
+         case HotRodConstants.ADD_CLIENT_LISTENER_REQUEST:
+            return HotRodConstants.ADD_CLIENT_LISTENER_RESPONSE;
+         case HotRodConstants.REMOVE_CLIENT_LISTENER_REQUEST:
+            return HotRodConstants.REMOVE_CLIENT_LISTENER_RESPONSE;
+         case HotRodConstants.EXEC_TASK_REQUEST:
+            return HotRodConstants.EXEC_TASK_RESPONSE;
+         case HotRodConstants.STREAM_PUT_REQUEST:
+            return HotRodConstants.STREAM_PUT_RESPONSE;
+         case HotRodConstants.STREAM_GET_REQUEST:
+            return HotRodConstants.STREAM_GET_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
@@ -16,6 +16,8 @@ public interface HotRodConstants {
    static final byte VERSION_10 = 10;
    static final byte VERSION_11 = 11;
    static final byte VERSION_12 = 12;
+   static final byte VERSION_13 = 13;
+   static final byte VERSION_14 = 14;
 
    //requests
    static final byte PUT_REQUEST = 0x01;
@@ -33,6 +35,19 @@ public interface HotRodConstants {
    static final byte BULK_GET_REQUEST = 0x19;
    static final byte GET_WITH_METADATA = 0x1B;
    static final byte BULK_GET_KEYS_REQUEST = 0x1D;
+   static final byte ADD_INVALIDATION_LISTENER_REQUEST = 0x21;
+   static final byte GET_ALL_REQUEST = 0x23;
+   static final byte PUT_ALL_REQUEST = 0x25;
+   static final byte REMOVE_ALL_REQUEST = 0x27;
+   static final byte ITERATION_START_REQUEST = 0x31;
+   static final byte ITERATION_NEXT_REQUEST = 0x33;
+   static final byte ITERATION_END_REQUEST = 0x35;
+   static final byte COUNTER_ADD_REQUEST = 0x37;
+   static final byte ADD_CLIENT_LISTENER_REQUEST = 0x39;
+   static final byte REMOVE_CLIENT_LISTENER_REQUEST = 0x3B;
+   static final byte EXEC_TASK_REQUEST = 0x3D;
+   static final byte STREAM_PUT_REQUEST = 0x3F;
+   static final byte STREAM_GET_REQUEST = 0x41;
 
 
    //responses
@@ -51,6 +66,21 @@ public interface HotRodConstants {
    static final byte BULK_GET_RESPONSE = 0x1A;
    static final byte GET_WITH_METADATA_RESPONSE = 0x1C;
    static final byte BULK_GET_KEYS_RESPONSE = 0x1E;
+   static final byte ADD_INVALIDATION_LISTENER_RESPONSE = 0x22;
+   static final byte GET_ALL_RESPONSE = 0x24;
+   static final byte PUT_ALL_RESPONSE = 0x26;
+   static final byte REMOVE_ALL_RESPONSE = 0x28;
+   static final byte ITERATION_START_RESPONSE = 0x32;
+   static final byte ITERATION_NEXT_RESPONSE = 0x34;
+   static final byte ITERATION_END_RESPONSE = 0x36;
+   static final byte COUNTER_ADD_RESPONSE = 0x38;
+   static final byte ADD_CLIENT_LISTENER_RESPONSE = 0x3A;
+   static final byte REMOVE_CLIENT_LISTENER_RESPONSE = 0x3C;
+   static final byte EXEC_TASK_RESPONSE = 0x3E;
+   static final byte STREAM_PUT_RESPONSE = 0x40;
+   static final byte STREAM_GET_RESPONSE = 0x42;
+   static final byte KEY_INVALIDATION_EVENT = 0x60;
+   static final byte CLIENT_EVENTS = 0x62;
    static final byte ERROR_RESPONSE = 0x50;
 
    //response status
@@ -74,4 +104,9 @@ public interface HotRodConstants {
 
    static final byte INFINITE_LIFESPAN = 0x01;
    static final byte INFINITE_MAXIDLE = 0x02;
+
+   /**
+    * The request header flag telling the server that the values of the request and of its response are compressed
+    */
+   static final int COMPRESSED_VALUES = 0x08;
 }
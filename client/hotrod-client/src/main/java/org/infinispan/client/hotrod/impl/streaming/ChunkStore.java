@@ -0,0 +1,73 @@
+package org.infinispan.client.hotrod.impl.streaming;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.compression.ValueCompressor;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+
+/**
+ * Sends and reads the chunks of the values streamed to and from a remote cache. The server assembles the chunks
+ * written into a single entry once the last one is received, and sends the chunks of an entry on demand, so the
+ * client never holds the whole value in memory and each request only holds a connection for one chunk.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class ChunkStore {
+
+   /**
+    * The size of the chunks, big enough for the cost of a request to be small compared to the cost of transferring the
+    * chunk, small enough not to hold the connection for long.
+    */
+   public static final int CHUNK_SIZE = 64 * 1024;
+
+   private final OperationsFactory operationsFactory;
+   private final ValueCompressor compressor;
+
+   /**
+    * @param compressor compresses the chunks on the wire, null if they aren't compressed
+    */
+   public ChunkStore(OperationsFactory operationsFactory, ValueCompressor compressor) {
+      this.operationsFactory = operationsFactory;
+      this.compressor = compressor;
+   }
+
+   /**
+    * Sends a chunk of a value, the value being stored once its last chunk is sent.
+    *
+    * @param server the server returned for the first chunk of the stream, which is the only one knowing the stream,
+    *               or null for the first chunk
+    * @return the server which accepted the chunk
+    */
+   SocketAddress putChunk(byte[] keyBytes, SocketAddress server, String streamId, long offset, byte[] chunk,
+         boolean last, int lifespanSecs, int maxIdleSecs) throws IOException {
+      if (lifespanSecs == 0) {
+         operationsFactory.addFlags(Flag.DEFAULT_LIFESPAN);
+      }
+      if (maxIdleSecs == 0) {
+         operationsFactory.addFlags(Flag.DEFAULT_MAXIDLE);
+      }
+      SocketAddress accepting = operationsFactory.newStreamPutOperation(keyBytes, server, lifespanSecs, maxIdleSecs,
+            streamId, offset, last, compressor == null ? chunk : compressor.compress(chunk)).execute();
+      if (accepting == null) {
+         throw new IOException("The server lost the stream at offset " + offset
+               + ", it may have dropped the stream after a long pause or because of too many pending streams");
+      }
+      return accepting;
+   }
+
+   /**
+    * @return the chunk of the value starting at the given offset, or null if the key doesn't exist
+    */
+   public ValueChunk getChunk(byte[] keyBytes, long offset) {
+      ValueChunk chunk = operationsFactory.newStreamGetOperation(keyBytes, offset, CHUNK_SIZE).execute();
+      if (chunk == null || compressor == null) {
+         return chunk;
+      }
+      return new ValueChunk(chunk.getVersion(), chunk.getValueLength(), compressor.decompress(chunk.getBytes()));
+   }
+}
@@ -0,0 +1,97 @@
+package org.infinispan.client.hotrod.impl.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Reads a value from the server one chunk at a time, as it is consumed. The stream fails if the value is overwritten
+ * or removed while it is read, rather than returning parts of two values.
+ *
+ * @since 6.0
+ */
+@NotThreadSafe
+public class ChunkedInputStream extends InputStream {
+
+   private final ChunkStore store;
+   private final byte[] keyBytes;
+   private final long version;
+   private final long length;
+   private byte[] chunk;
+   private int pos;
+   private long offset;
+   private boolean closed;
+
+   /**
+    * @param first the first chunk of the value, which tells its version and length
+    */
+   public ChunkedInputStream(ChunkStore store, byte[] keyBytes, ValueChunk first) {
+      this.store = store;
+      this.keyBytes = keyBytes;
+      this.version = first.getVersion();
+      this.length = first.getValueLength();
+      this.chunk = first.getBytes();
+      this.offset = chunk.length;
+   }
+
+   @Override
+   public int read() throws IOException {
+      if (!fill()) {
+         return -1;
+      }
+      return chunk[pos++] & 0xFF;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      if (off < 0 || len < 0 || off + len > b.length) {
+         throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+         return 0;
+      }
+      if (!fill()) {
+         return -1;
+      }
+      int n = Math.min(len, chunk.length - pos);
+      System.arraycopy(chunk, pos, b, off, n);
+      pos += n;
+      return n;
+   }
+
+   @Override
+   public int available() {
+      return chunk == null ? 0 : chunk.length - pos;
+   }
+
+   @Override
+   public void close() {
+      closed = true;
+      chunk = null;
+   }
+
+   /**
+    * @return false at the end of the value
+    */
+   private boolean fill() throws IOException {
+      if (closed) {
+         throw new IOException("Stream closed");
+      }
+      while (pos == chunk.length) {
+         if (offset >= length) {
+            return false;
+         }
+         ValueChunk next = store.getChunk(keyBytes, offset);
+         if (next == null || next.getVersion() != version || next.getValueLength() != length
+               || next.getBytes().length == 0) {
+            throw new IOException("The value has been overwritten, removed or has expired while it was read, at offset "
+                  + offset + " of " + length);
+         }
+         chunk = next.getBytes();
+         pos = 0;
+         offset += chunk.length;
+      }
+      return true;
+   }
+}
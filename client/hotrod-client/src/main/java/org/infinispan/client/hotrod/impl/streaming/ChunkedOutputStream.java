@@ -0,0 +1,98 @@
+package org.infinispan.client.hotrod.impl.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.UUID;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Sends each {@link ChunkStore#CHUNK_SIZE} bytes written to the server as soon as they are written, the server storing
+ * the value once the stream is closed. A stream which isn't closed leaves nothing in the cache: the server drops the
+ * chunks it received after a while.
+ *
+ * @since 6.0
+ */
+@NotThreadSafe
+public class ChunkedOutputStream extends OutputStream {
+
+   private final ChunkStore store;
+   private final byte[] keyBytes;
+   private final int lifespanSecs;
+   private final int maxIdleSecs;
+   private final String id = UUID.randomUUID().toString();
+   private final byte[] buffer = new byte[ChunkStore.CHUNK_SIZE];
+   private SocketAddress server;
+   private int count;
+   private long length;
+   private boolean closed;
+
+   public ChunkedOutputStream(ChunkStore store, byte[] keyBytes, int lifespanSecs, int maxIdleSecs) {
+      this.store = store;
+      this.keyBytes = keyBytes;
+      this.lifespanSecs = lifespanSecs;
+      this.maxIdleSecs = maxIdleSecs;
+   }
+
+   @Override
+   public void write(int b) throws IOException {
+      ensureOpen();
+      buffer[count++] = (byte) b;
+      if (count == buffer.length) {
+         writeChunk(false);
+      }
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      if (off < 0 || len < 0 || off + len > b.length) {
+         throw new IndexOutOfBoundsException();
+      }
+      ensureOpen();
+      while (len > 0) {
+         int n = Math.min(len, buffer.length - count);
+         System.arraycopy(b, off, buffer, count, n);
+         count += n;
+         off += n;
+         len -= n;
+         if (count == buffer.length) {
+            writeChunk(false);
+         }
+      }
+   }
+
+   /**
+    * Stores the value, made of the chunks written so far.
+    */
+   @Override
+   public void close() throws IOException {
+      if (closed) {
+         return;
+      }
+      writeChunk(true);
+      closed = true;
+   }
+
+   private void writeChunk(boolean last) throws IOException {
+      byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+      try {
+         server = store.putChunk(keyBytes, server, id, length, chunk, last, lifespanSecs, maxIdleSecs);
+      } catch (IOException e) {
+         closed = true;
+         throw e;
+      } catch (RuntimeException e) {
+         closed = true;
+         throw e;
+      }
+      length += count;
+      count = 0;
+   }
+
+   private void ensureOpen() throws IOException {
+      if (closed) {
+         throw new IOException("Stream closed");
+      }
+   }
+}
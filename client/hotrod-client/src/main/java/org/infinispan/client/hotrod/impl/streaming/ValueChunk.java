@@ -0,0 +1,32 @@
+package org.infinispan.client.hotrod.impl.streaming;
+
+/**
+ * A chunk of a value read from the server, along with the version and the length of the whole value, which tell
+ * whether the value changed since its previous chunk was read.
+ *
+ * @since 6.0
+ */
+public final class ValueChunk {
+
+   private final long version;
+   private final long valueLength;
+   private final byte[] bytes;
+
+   public ValueChunk(long version, long valueLength, byte[] bytes) {
+      this.version = version;
+      this.valueLength = valueLength;
+      this.bytes = bytes;
+   }
+
+   public long getVersion() {
+      return version;
+   }
+
+   public long getValueLength() {
+      return valueLength;
+   }
+
+   public byte[] getBytes() {
+      return bytes;
+   }
+}
@@ -61,6 +61,12 @@ public interface Transport {
     */
    SocketAddress getRemoteSocketAddress();
 
+   /**
+    * @return the address of the server this transport was obtained for, as given to
+    *         {@link TransportFactory#getTransport(SocketAddress)}
+    */
+   SocketAddress getServerAddress();
+
    /**
     * Invalidates transport instance.
     */
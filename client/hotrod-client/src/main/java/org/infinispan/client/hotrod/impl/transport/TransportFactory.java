@@ -9,8 +9,10 @@
 import javax.net.ssl.SSLContext;
 
 import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
 
 /**
  * Transport factory for building and managing {@link org.infinispan.client.hotrod.impl.transport.Transport} objects.
@@ -28,14 +30,38 @@ public interface TransportFactory {
 
    void updateServers(Collection<SocketAddress> newServers);
 
+   Collection<SocketAddress> getServers();
+
    void destroy();
 
    void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, short hashFunctionVersion, int hashSpace);
 
+   /**
+    * Installs the consistent hash of a version 1.4 topology update, which gives the owners of every segment.
+    */
+   void updateHashFunction(SocketAddress[][] segmentOwners, int numSegments, short hashFunctionVersion);
+
    ConsistentHashFactory getConsistentHashFactory();
 
+   /**
+    * @return the consistent hash of the servers, or null if the servers do not send their hash distribution
+    */
+   ConsistentHash getConsistentHash();
+
    Transport getTransport(byte[] key);
 
+   /**
+    * @return a transport to an owner of the key for a read, which is the primary owner unless the balancing strategy
+    *         measured that another owner answers much faster, see
+    *         {@link org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy}
+    */
+   Transport getReadTransport(byte[] key);
+
+   /**
+    * @return a transport to the given server, for the requests which depend on state kept by that server
+    */
+   Transport getTransport(SocketAddress server);
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
@@ -47,4 +73,22 @@ public interface TransportFactory {
    void invalidateTransport(SocketAddress serverAddress, Transport transport);
 
    SSLContext getSSLContext();
+
+   RequestBalancingStrategy getBalancer();
+
+   /**
+    * Reports that a request is being sent with the transport, for the balancing strategies measuring the servers.
+    *
+    * @return the time the request was sent at, to give to {@link #requestCompleted(Transport, long, boolean)}
+    */
+   long requestStarted(Transport transport);
+
+   /**
+    * Reports that the response to a request sent with the transport has been received, or that the request failed
+    * because of a connection problem.
+    *
+    * @param sampleLatency whether the response time is representative of the server, which it isn't for the
+    *                      requests doing a lot of work on the server
+    */
+   void requestCompleted(Transport transport, long startNanos, boolean failed, boolean sampleLatency);
 }
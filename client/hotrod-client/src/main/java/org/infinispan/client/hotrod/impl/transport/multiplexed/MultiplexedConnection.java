@@ -0,0 +1,290 @@
+package org.infinispan.client.hotrod.impl.transport.multiplexed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.Util;
+
+/**
+ * A connection to a Hot Rod server shared by many concurrent requests. Requests are written as soon as they are sent,
+ * without waiting for the responses to the previous ones, and each response is routed to the {@link ResponseHandler}
+ * registered for its message id by the I/O thread of the connection.
+ * <p/>
+ * A handler can also be registered as a listener, in which case it receives every message sent by the server with the
+ * message id of its request until the connection is closed, e.g. the events of an invalidation listener.
+ * <p/>
+ * Hot Rod responses do not carry their length, so the I/O thread cannot skip a response it has no handler for: such a
+ * response, like any I/O error or a socket timeout while requests are pending, closes the connection and fails all its
+ * pending requests and listeners.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+class MultiplexedConnection implements Runnable {
+
+   private static final Log log = LogFactory.getLog(MultiplexedConnection.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final AtomicInteger ID_COUNTER = new AtomicInteger();
+   // magic byte and the largest encoding of a message id
+   private static final int HEADER_PREFIX_LENGTH = 11;
+
+   private final MultiplexedTransportFactory transportFactory;
+   private final SocketAddress serverAddress;
+   private final Socket socket;
+   private final BufferedInputStream socketInputStream;
+   private final OutputStream socketOutputStream;
+   private final ResponseTransport responseTransport;
+   private final ConcurrentMap<Long, ResponseHandler> pending = new ConcurrentHashMap<Long, ResponseHandler>();
+   private final ConcurrentMap<Long, ResponseHandler> listeners = new ConcurrentHashMap<Long, ResponseHandler>();
+   private final Thread ioThread;
+   private final long timeoutNanos;
+
+   private volatile boolean closed;
+   private volatile boolean invalid;
+   private volatile boolean retired;
+   private volatile boolean handling;
+   private volatile long lastActivity = System.nanoTime();
+
+   MultiplexedConnection(SocketAddress serverAddress, MultiplexedTransportFactory transportFactory) {
+      this.transportFactory = transportFactory;
+      this.serverAddress = serverAddress;
+      this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(transportFactory.getSoTimeout());
+      try {
+         if (transportFactory.getSSLContext() != null) {
+            SSLContext sslContext = transportFactory.getSSLContext();
+            socket = sslContext.getSocketFactory().createSocket();
+         } else {
+            // not the socket of a SocketChannel: its reads and writes share a lock, so they would not be concurrent
+            socket = new Socket();
+         }
+         socket.connect(serverAddress, transportFactory.getConnectTimeout());
+         socket.setTcpNoDelay(transportFactory.isTcpNoDelay());
+         socket.setSoTimeout(transportFactory.getSoTimeout());
+         socketInputStream = new BufferedInputStream(socket.getInputStream(), socket.getReceiveBufferSize());
+         socketOutputStream = new BufferedOutputStream(socket.getOutputStream(), socket.getSendBufferSize());
+      } catch (Exception e) {
+         String message = String.format("Could not connect to server: %s", serverAddress);
+         log.tracef(e, "Could not connect to server: %s", serverAddress);
+         throw new TransportException(message, e, serverAddress);
+      }
+      responseTransport = new ResponseTransport(this, socketInputStream);
+      ioThread = new Thread(this, "HotRod-client-multiplexed-" + serverAddress + "-" + ID_COUNTER.incrementAndGet());
+      ioThread.setDaemon(true);
+      ioThread.start();
+   }
+
+   /**
+    * Writes a request and registers the handler for its response.
+    *
+    * @throws TransportException if the connection is closed or the request could not be written, in which case the
+    *                            handler is not invoked
+    */
+   void send(long messageId, byte[] request, ResponseHandler handler, boolean listener) {
+      if (closed) {
+         throw new TransportException("Connection closed", serverAddress);
+      }
+      // register before writing, the response may be read before the write returns
+      ConcurrentMap<Long, ResponseHandler> handlers = listener ? listeners : pending;
+      handlers.put(messageId, handler);
+      try {
+         synchronized (socketOutputStream) {
+            socketOutputStream.write(request);
+            socketOutputStream.flush();
+         }
+         lastActivity = System.nanoTime();
+         if (trace) {
+            log.tracef("Sent request %d of %d bytes to %s", messageId, request.length, serverAddress);
+         }
+      } catch (IOException e) {
+         close(e);
+      }
+      // the connection may have been closed concurrently, make sure the handler is failed exactly once
+      if (closed && handlers.remove(messageId) != null) {
+         throw new TransportException("Connection closed", serverAddress);
+      }
+   }
+
+   @Override
+   public void run() {
+      try {
+         while (!closed) {
+            long messageId;
+            try {
+               messageId = peekMessageId();
+            } catch (SocketTimeoutException e) {
+               if (!pending.isEmpty() && System.nanoTime() - lastActivity >= timeoutNanos) {
+                  throw e;
+               }
+               continue;
+            }
+            lastActivity = System.nanoTime();
+            // set before removing the handler, see closeIfIdle()
+            handling = true;
+            ResponseHandler handler = pending.remove(messageId);
+            if (handler == null) {
+               handler = listeners.get(messageId);
+            }
+            if (handler == null) {
+               throw new TransportException(String.format(
+                     "Received a response for message id %d, which is not pending", messageId), serverAddress);
+            }
+            try {
+               handler.handleResponse(responseTransport);
+            } catch (RuntimeException e) {
+               TransportException te = e instanceof TransportException ? (TransportException) e
+                     : new TransportException(e, serverAddress);
+               // a listener must not be failed again when the connection is closed
+               listeners.remove(messageId);
+               handler.handleFailure(te);
+               throw te;
+            }
+            handling = false;
+            if (invalid) {
+               throw new TransportException("Connection invalidated", serverAddress);
+            }
+            if (retired && pending.isEmpty()) {
+               close(null);
+            }
+         }
+      } catch (Throwable t) {
+         close(t);
+      }
+   }
+
+   /**
+    * Reads the message id of the next response, leaving the stream positioned at the start of the response.
+    */
+   private long peekMessageId() throws IOException {
+      socketInputStream.mark(HEADER_PREFIX_LENGTH);
+      int magic = socketInputStream.read();
+      if (magic == -1) {
+         throw new TransportException("End of stream reached!", serverAddress);
+      }
+      if (magic != HotRodConstants.RESPONSE_MAGIC) {
+         throw new TransportException(String.format(
+               "Invalid magic number. Expected %#x and received %#x", HotRodConstants.RESPONSE_MAGIC, magic), serverAddress);
+      }
+      long messageId = responseTransport.readVLong();
+      socketInputStream.reset();
+      return messageId;
+   }
+
+   /**
+    * Stops routing the messages with the given id to the listener registered for them. Any such message received
+    * afterwards closes the connection.
+    */
+   void removeListener(long messageId) {
+      listeners.remove(messageId);
+   }
+
+   /**
+    * Closes the connection once the responses to the requests already sent have been received. No new request should
+    * be sent on a retired connection.
+    */
+   void retire() {
+      retired = true;
+      closeIfIdle();
+   }
+
+   /**
+    * Marks the connection as unusable: it is closed as soon as the response being read, if any, has been handled.
+    */
+   void invalidate() {
+      invalid = true;
+      closeIfIdle();
+   }
+
+   private void closeIfIdle() {
+      // pending must be checked first: the I/O thread sets handling before removing the handler of a response
+      if (pending.isEmpty() && !handling) {
+         close(null);
+      }
+   }
+
+   /**
+    * Closes the connection and fails its pending requests.
+    *
+    * @param cause the reason of the failure, or null if the connection is closed normally
+    */
+   void close(Throwable cause) {
+      synchronized (this) {
+         if (closed) {
+            return;
+         }
+         closed = true;
+      }
+      transportFactory.connectionClosed(this);
+      Util.close(socketInputStream, socketOutputStream);
+      Util.close(socket);
+      if (!pending.isEmpty()) {
+         log.closingMultiplexedConnection(serverAddress, pending.size(), cause);
+      } else if (trace) {
+         log.tracef(cause, "Closed connection %s", this);
+      }
+      TransportException te = cause instanceof TransportException ? (TransportException) cause
+            : new TransportException("Connection closed", cause, serverAddress);
+      failAll(pending, te);
+      failAll(listeners, te);
+   }
+
+   private void failAll(ConcurrentMap<Long, ResponseHandler> handlers, TransportException te) {
+      for (Long messageId : handlers.keySet()) {
+         ResponseHandler handler = handlers.remove(messageId);
+         if (handler != null) {
+            handler.handleFailure(te);
+         }
+      }
+   }
+
+   boolean isClosed() {
+      return closed;
+   }
+
+   boolean isUsable() {
+      return !closed && !invalid && !retired;
+   }
+
+   boolean isIOThread() {
+      return Thread.currentThread() == ioThread;
+   }
+
+   int getPendingCount() {
+      return pending.size();
+   }
+
+   SocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   MultiplexedTransportFactory getTransportFactory() {
+      return transportFactory;
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedConnection{" +
+            "serverAddress=" + serverAddress +
+            ", thread=" + ioThread.getName() +
+            ", pending=" + pending.size() +
+            ", closed=" + closed +
+            '}';
+   }
+}
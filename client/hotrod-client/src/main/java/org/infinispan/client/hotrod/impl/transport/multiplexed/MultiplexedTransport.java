@@ -0,0 +1,221 @@
+package org.infinispan.client.hotrod.impl.transport.multiplexed;
+
+import java.io.ByteArrayOutputStream;
+import java.net.SocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.commons.io.UnsignedNumeric;
+
+/**
+ * Transport for a single request sent on a {@link MultiplexedConnection}. The request is buffered until it is sent as
+ * a whole, either by {@link #send(ResponseHandler)}, in which case the response is handed to the given handler by the
+ * I/O thread of the connection, or by {@link #flush()}, in which case the response is read from this transport by the
+ * calling thread. In the latter case the I/O thread waits until the transport is released before reading the next
+ * response from the connection, for at most the socket timeout, after which the connection is closed.
+ *
+ * @since 6.0
+ */
+public class MultiplexedTransport extends AbstractTransport implements ResponseHandler {
+
+   private final MultiplexedConnection connection;
+   private final ByteArrayOutputStream request = new ByteArrayOutputStream(64);
+   private final CountDownLatch responseReceived = new CountDownLatch(1);
+   private final CountDownLatch responseConsumed = new CountDownLatch(1);
+   private volatile Transport response;
+   private volatile TransportException failure;
+   private boolean sent;
+   private long messageId;
+
+   MultiplexedTransport(MultiplexedConnection connection) {
+      super(connection.getTransportFactory());
+      this.connection = connection;
+   }
+
+   /**
+    * Sends the buffered request and returns without waiting for the response, which is handed to the given handler.
+    */
+   public void send(ResponseHandler handler) {
+      send(handler, false);
+   }
+
+   /**
+    * Sends the buffered request and registers the given handler for all the messages the server sends with the message
+    * id of the request, until the connection is closed or {@link #removeListener()} is invoked.
+    */
+   public void listen(ResponseHandler handler) {
+      send(handler, true);
+   }
+
+   public void removeListener() {
+      connection.removeListener(messageId);
+   }
+
+   private void send(ResponseHandler handler, boolean listener) {
+      if (sent) {
+         throw new IllegalStateException("The request has already been sent");
+      }
+      sent = true;
+      byte[] bytes = request.toByteArray();
+      // [magic][message id]...
+      messageId = UnsignedNumeric.readUnsignedLong(bytes, 1);
+      connection.send(messageId, bytes, handler, listener);
+   }
+
+   @Override
+   public void flush() {
+      if (connection.isIOThread()) {
+         // the I/O thread would wait for the response it is supposed to read
+         throw new IllegalStateException("Blocking operations cannot be invoked by the I/O thread of a connection");
+      }
+      send(this);
+   }
+
+   @Override
+   public void handleResponse(Transport transport) {
+      response = transport;
+      responseReceived.countDown();
+      // the caller reads the response from the shared stream, wait until it is done
+      try {
+         int timeout = getTransportFactory().getSoTimeout();
+         if (timeout > 0) {
+            if (!responseConsumed.await(timeout, TimeUnit.MILLISECONDS)) {
+               // the I/O thread cannot read past a response which is only partly read, the connection is closed when
+               // this exception reaches it, which fails all its requests and listeners
+               throw new TransportException(String.format("The response read from %s was not released within %d ms",
+                     connection.getServerAddress(), timeout), connection.getServerAddress());
+            }
+         } else {
+            responseConsumed.await();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new TransportException(e, connection.getServerAddress());
+      }
+   }
+
+   @Override
+   public void handleFailure(TransportException e) {
+      failure = e;
+      responseReceived.countDown();
+   }
+
+   private Transport response() {
+      Transport transport = response;
+      if (transport != null) {
+         return transport;
+      }
+      if (!sent) {
+         throw new IllegalStateException("The request has not been sent");
+      }
+      try {
+         int timeout = getTransportFactory().getSoTimeout();
+         if (timeout > 0) {
+            if (!responseReceived.await(timeout, TimeUnit.MILLISECONDS)) {
+               // the response cannot be skipped once it arrives, so the whole connection has to go
+               TransportException te = new TransportException(
+                     "Timed out waiting for a response from " + connection.getServerAddress(), connection.getServerAddress());
+               connection.close(te);
+               throw te;
+            }
+         } else {
+            responseReceived.await();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new TransportException(e, connection.getServerAddress());
+      }
+      if (failure != null) {
+         throw failure;
+      }
+      return response;
+   }
+
+   /**
+    * Signals that the response has been read, so that the I/O thread can move on to the next response.
+    */
+   @Override
+   public void release() {
+      responseConsumed.countDown();
+   }
+
+   @Override
+   public void invalidate() {
+      connection.invalidate();
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      request.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      request.write(toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vInt) {
+      while ((vInt & ~0x7F) != 0) {
+         request.write((vInt & 0x7F) | 0x80);
+         vInt >>>= 7;
+      }
+      request.write(vInt);
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      while ((l & ~0x7F) != 0) {
+         request.write((byte) ((l & 0x7f) | 0x80));
+         l >>>= 7;
+      }
+      request.write((byte) l);
+   }
+
+   @Override
+   public short readByte() {
+      return response().readByte();
+   }
+
+   @Override
+   public int readVInt() {
+      return response().readVInt();
+   }
+
+   @Override
+   public long readVLong() {
+      return response().readVLong();
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      return response().readByteArray(size);
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      return response().dumpStream();
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return connection.getServerAddress();
+   }
+
+   @Override
+   public SocketAddress getServerAddress() {
+      return connection.getServerAddress();
+   }
+
+   MultiplexedConnection getConnection() {
+      return connection;
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedTransport{connection=" + connection + '}';
+   }
+}
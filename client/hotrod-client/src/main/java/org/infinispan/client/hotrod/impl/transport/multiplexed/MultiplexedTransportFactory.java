@@ -0,0 +1,461 @@
+package org.infinispan.client.hotrod.impl.transport.multiplexed;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.net.ssl.SSLContext;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.configuration.ServerConfiguration;
+import org.infinispan.client.hotrod.configuration.SslConfiguration;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
+import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy;
+import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.commons.util.SslContextFactory;
+import org.infinispan.commons.util.Util;
+
+/**
+ * Transport factory which multiplexes the concurrent requests to a server over a small, fixed number of connections
+ * (see {@link org.infinispan.client.hotrod.configuration.ConfigurationBuilder#multiplexedConnections(int)}) instead of
+ * using a connection per in-flight request as {@link org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory}
+ * does. Requests are pipelined on the connections and their responses matched by message id, so that the
+ * asynchronous operations of the remote caches do not block any thread while waiting for the responses.
+ * <p/>
+ * The responses are read by one I/O thread per connection. The listeners of the futures returned by the asynchronous
+ * operations are notified by these threads, so they must not block, and in particular they must not invoke
+ * synchronous operations.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class MultiplexedTransportFactory implements TransportFactory {
+
+   private static final Log log = LogFactory.getLog(MultiplexedTransportFactory.class, Log.class);
+
+   private final Object lock = new Object();
+   private final ConcurrentMap<SocketAddress, ServerConnections> connections = new ConcurrentHashMap<SocketAddress, ServerConnections>();
+   private RequestBalancingStrategy balancer;
+   // the balancer, if it measures the servers
+   private volatile LatencyAwareBalancingStrategy latencyTracker;
+   private Collection<SocketAddress> servers;
+   private ConsistentHash consistentHash;
+   private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
+
+   private volatile boolean tcpNoDelay;
+   private volatile int soTimeout;
+   private volatile int connectTimeout;
+   private volatile int connectionsPerServer;
+   private volatile int transportCount;
+   private volatile SSLContext sslContext;
+   private volatile boolean stopped;
+
+   @Override
+   public void start(Codec codec, Configuration configuration, AtomicInteger topologyId) {
+      synchronized (lock) {
+         hashFactory.init(configuration);
+         servers = new ArrayList<SocketAddress>();
+         for (ServerConfiguration server : configuration.servers()) {
+            servers.add(new InetSocketAddress(server.host(), server.port()));
+         }
+         servers = Collections.unmodifiableCollection(servers);
+         balancer = Util.getInstance(configuration.balancingStrategy());
+         latencyTracker = balancer instanceof LatencyAwareBalancingStrategy ? (LatencyAwareBalancingStrategy) balancer : null;
+         tcpNoDelay = configuration.tcpNoDelay();
+         soTimeout = configuration.socketTimeout();
+         connectTimeout = configuration.connectionTimeout();
+         connectionsPerServer = configuration.multiplexedConnections();
+
+         if (configuration.ssl().enabled()) {
+            SslConfiguration ssl = configuration.ssl();
+            if (ssl.sslContext() != null) {
+               sslContext = ssl.sslContext();
+            } else {
+               sslContext = SslContextFactory.getContext(ssl.keyStoreFileName(), ssl.keyStorePassword(), ssl.trustStoreFileName(), ssl.trustStorePassword());
+            }
+         }
+
+         if (log.isDebugEnabled()) {
+            log.debugf("Statically configured servers: %s", servers);
+            log.debugf("Load balancer class: %s", balancer.getClass().getName());
+            log.debugf("Tcp no delay = %b; client socket timeout = %d ms; connect timeout = %d ms; connections per server = %d",
+                       tcpNoDelay, soTimeout, connectTimeout, connectionsPerServer);
+         }
+         balancer.setServers(servers);
+         updateTransportCount();
+      }
+
+      if (configuration.pingOnStartup())
+         pingServers(codec, topologyId);
+   }
+
+   private void pingServers(Codec codec, AtomicInteger topologyId) {
+      for (SocketAddress addr : getServers()) {
+         Transport transport = null;
+         try {
+            // Establish the connections to all the statically configured nodes
+            // and retrieve a potentially newer version of the cluster topology
+            transport = getTransport(addr);
+            new PingOperation(codec, topologyId, transport).execute();
+         } catch (Exception e) {
+            if (log.isTraceEnabled())
+               log.tracef(e, "Ignoring exception pinging configured servers %s to establish a connection",
+                     servers);
+         } finally {
+            if (transport != null)
+               releaseTransport(transport);
+         }
+      }
+   }
+
+   @Override
+   public void destroy() {
+      stopped = true;
+      for (ServerConnections serverConnections : connections.values()) {
+         serverConnections.close();
+      }
+      connections.clear();
+   }
+
+   @Override
+   public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, short hashFunctionVersion, int hashSpace) {
+      synchronized (lock) {
+         ConsistentHash hash = hashFactory.newConsistentHash(hashFunctionVersion);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         } else {
+            hash.init(servers2Hash, numKeyOwners, hashSpace);
+         }
+         consistentHash = hash;
+      }
+   }
+
+   @Override
+   public void updateHashFunction(SocketAddress[][] segmentOwners, int numSegments, short hashFunctionVersion) {
+      synchronized (lock) {
+         SegmentConsistentHash hash = hashFactory.newConsistentHash(hashFunctionVersion);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         } else {
+            hash.init(segmentOwners, numSegments);
+         }
+         consistentHash = hash;
+      }
+   }
+
+   @Override
+   public Transport getTransport() {
+      SocketAddress server;
+      synchronized (lock) {
+         server = balancer.nextServer();
+      }
+      return getTransport(server);
+   }
+
+   @Override
+   public Transport getTransport(byte[] key) {
+      return getTransport(locateServer(key, false));
+   }
+
+   @Override
+   public Transport getReadTransport(byte[] key) {
+      return getTransport(locateServer(key, true));
+   }
+
+   private SocketAddress locateServer(byte[] key, boolean read) {
+      SocketAddress server;
+      synchronized (lock) {
+         // the owner is unknown while it hasn't registered its endpoint yet
+         server = consistentHash != null ? consistentHash.getServer(key) : null;
+         if (server != null) {
+            if (read && latencyTracker != null && consistentHash instanceof SegmentConsistentHash) {
+               SegmentConsistentHash hash = (SegmentConsistentHash) consistentHash;
+               server = latencyTracker.selectReadOwner(hash.getSegmentOwners(hash.getSegment(key)));
+            }
+            if (log.isTraceEnabled()) {
+               log.tracef("Using consistent hash for determining the server: " + server);
+            }
+         } else {
+            server = balancer.nextServer();
+            if (log.isTraceEnabled()) {
+               log.tracef("Using the balancer for determining the server: %s", server);
+            }
+         }
+      }
+      return server;
+   }
+
+   @Override
+   public long requestStarted(Transport transport) {
+      LatencyAwareBalancingStrategy tracker = latencyTracker;
+      return tracker == null ? 0 : tracker.requestStarted(transport.getRemoteSocketAddress());
+   }
+
+   @Override
+   public void requestCompleted(Transport transport, long startNanos, boolean failed, boolean sampleLatency) {
+      LatencyAwareBalancingStrategy tracker = latencyTracker;
+      if (tracker != null) {
+         tracker.requestCompleted(transport.getRemoteSocketAddress(), startNanos, failed, sampleLatency);
+      }
+   }
+
+   /**
+    * @return a transport for a request to the given server, e.g. to register a listener on every server
+    */
+   @Override
+   public MultiplexedTransport getTransport(SocketAddress server) {
+      if (stopped) {
+         throw new TransportException("Transport factory stopped", server);
+      }
+      ServerConnections serverConnections = connections.get(server);
+      if (serverConnections == null) {
+         serverConnections = new ServerConnections(server, connectionsPerServer);
+         ServerConnections existing = connections.putIfAbsent(server, serverConnections);
+         if (existing != null) {
+            serverConnections = existing;
+         }
+      }
+      return new MultiplexedTransport(serverConnections.next());
+   }
+
+   @Override
+   public void releaseTransport(Transport transport) {
+      // let the I/O thread read the next response
+      transport.release();
+   }
+
+   @Override
+   public void invalidateTransport(SocketAddress serverAddress, Transport transport) {
+      if (transport != null) {
+         ((MultiplexedTransport) transport).getConnection().invalidate();
+      } else {
+         // Transport could be null, in which case all connections
+         // to the server address will be invalidated
+         ServerConnections serverConnections = connections.get(serverAddress);
+         if (serverConnections != null) {
+            serverConnections.invalidate();
+         }
+      }
+   }
+
+   @Override
+   public void updateServers(Collection<SocketAddress> newServers) {
+      synchronized (lock) {
+         Set<SocketAddress> addedServers = new HashSet<SocketAddress>(newServers);
+         addedServers.removeAll(servers);
+         Set<SocketAddress> failedServers = new HashSet<SocketAddress>(servers);
+         failedServers.removeAll(newServers);
+         if (log.isTraceEnabled()) {
+            log.tracef("Current list: %s", servers);
+            log.tracef("New list: %s", newServers);
+            log.tracef("Added servers: %s", addedServers);
+            log.tracef("Removed servers: %s", failedServers);
+         }
+         if (failedServers.isEmpty() && newServers.isEmpty()) {
+            log.debug("Same list of servers, not changing the connections");
+            return;
+         }
+
+         // The connections to the new servers are established on first use
+         for (SocketAddress server : addedServers) {
+            log.newServerAdded(server);
+         }
+
+         balancer.setServers(newServers);
+
+         // This may be invoked by the I/O thread of a connection to a removed server, so the connections are
+         // only closed once they have received the responses to their pending requests
+         for (SocketAddress server : failedServers) {
+            log.removingServer(server);
+            ServerConnections serverConnections = connections.remove(server);
+            if (serverConnections != null) {
+               serverConnections.retire();
+            }
+         }
+
+         servers = Collections.unmodifiableList(new ArrayList<SocketAddress>(newServers));
+         updateTransportCount();
+      }
+   }
+
+   void connectionClosed(MultiplexedConnection connection) {
+      ServerConnections serverConnections = connections.get(connection.getServerAddress());
+      if (serverConnections != null) {
+         serverConnections.remove(connection);
+      }
+   }
+
+   public boolean isStopped() {
+      return stopped;
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      synchronized (lock) {
+         return servers;
+      }
+   }
+
+   /**
+    * @return the number of requests waiting for a response from the given server
+    */
+   public int getPendingRequests(SocketAddress server) {
+      ServerConnections serverConnections = connections.get(server);
+      return serverConnections == null ? 0 : serverConnections.getPendingCount();
+   }
+
+   /**
+    * Note that the returned <code>ConsistentHash</code> may not be thread-safe.
+    */
+   @Override
+   public ConsistentHash getConsistentHash() {
+      synchronized (lock) {
+         return consistentHash;
+      }
+   }
+
+   @Override
+   public ConsistentHashFactory getConsistentHashFactory() {
+      return hashFactory;
+   }
+
+   @Override
+   public boolean isTcpNoDelay() {
+      return tcpNoDelay;
+   }
+
+   @Override
+   public int getTransportCount() {
+      if (Thread.currentThread().isInterrupted()) {
+         return -1;
+      }
+      return transportCount;
+   }
+
+   @Override
+   public int getSoTimeout() {
+      return soTimeout;
+   }
+
+   @Override
+   public int getConnectTimeout() {
+      return connectTimeout;
+   }
+
+   @Override
+   public RequestBalancingStrategy getBalancer() {
+      synchronized (lock) {
+         return balancer;
+      }
+   }
+
+   @Override
+   public SSLContext getSSLContext() {
+      return sslContext;
+   }
+
+   private void updateTransportCount() {
+      synchronized (lock) {
+         transportCount = Math.max(connectionsPerServer * servers.size(), connectionsPerServer);
+      }
+   }
+
+   /**
+    * The connections to a server, which are used in turn and re-established on demand once closed.
+    */
+   private class ServerConnections {
+      private final SocketAddress server;
+      private final AtomicReferenceArray<MultiplexedConnection> slots;
+      private final AtomicInteger next = new AtomicInteger();
+      private volatile boolean retired;
+
+      ServerConnections(SocketAddress server, int size) {
+         this.server = server;
+         this.slots = new AtomicReferenceArray<MultiplexedConnection>(size);
+      }
+
+      MultiplexedConnection next() {
+         int slot = (next.getAndIncrement() & Integer.MAX_VALUE) % slots.length();
+         MultiplexedConnection connection = slots.get(slot);
+         if (connection != null && connection.isUsable()) {
+            return connection;
+         }
+         synchronized (this) {
+            connection = slots.get(slot);
+            if (connection == null || !connection.isUsable()) {
+               if (retired || stopped) {
+                  throw new TransportException("No longer connected to server " + server, server);
+               }
+               connection = new MultiplexedConnection(server, MultiplexedTransportFactory.this);
+               slots.set(slot, connection);
+            }
+            return connection;
+         }
+      }
+
+      void remove(MultiplexedConnection connection) {
+         for (int i = 0; i < slots.length(); i++) {
+            slots.compareAndSet(i, connection, null);
+         }
+      }
+
+      void invalidate() {
+         for (int i = 0; i < slots.length(); i++) {
+            MultiplexedConnection connection = slots.get(i);
+            if (connection != null) {
+               connection.invalidate();
+            }
+         }
+      }
+
+      void retire() {
+         retired = true;
+         for (int i = 0; i < slots.length(); i++) {
+            MultiplexedConnection connection = slots.get(i);
+            if (connection != null) {
+               connection.retire();
+            }
+         }
+      }
+
+      void close() {
+         for (int i = 0; i < slots.length(); i++) {
+            MultiplexedConnection connection = slots.get(i);
+            if (connection != null) {
+               connection.close(new TransportException("Transport factory stopped", server));
+            }
+         }
+      }
+
+      int getPendingCount() {
+         int count = 0;
+         for (int i = 0; i < slots.length(); i++) {
+            MultiplexedConnection connection = slots.get(i);
+            if (connection != null) {
+               count += connection.getPendingCount();
+            }
+         }
+         return count;
+      }
+   }
+}
@@ -0,0 +1,26 @@
+package org.infinispan.client.hotrod.impl.transport.multiplexed;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * Receives the response to a request sent on a {@link MultiplexedTransport}. Exactly one of the methods is invoked
+ * for each request, by the I/O thread of the connection the request was sent on unless the request could not be sent.
+ *
+ * @since 6.0
+ */
+public interface ResponseHandler {
+
+   /**
+    * Reads the response, header included, from the given transport. The whole response must be read before returning,
+    * as the following responses are read from the same stream. Throwing a {@link TransportException} closes the
+    * connection, in which case {@link #handleFailure(TransportException)} is invoked as well.
+    */
+   void handleResponse(Transport transport);
+
+   /**
+    * Invoked when the connection fails before the response has been read, e.g. because the server is no longer
+    * reachable or did not respond within the socket timeout.
+    */
+   void handleFailure(TransportException e);
+}
@@ -0,0 +1,160 @@
+package org.infinispan.client.hotrod.impl.transport.multiplexed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Read-only transport over the input stream of a {@link MultiplexedConnection}, which the responses are decoded from.
+ *
+ * @since 6.0
+ */
+class ResponseTransport extends AbstractTransport {
+
+   private static final Log log = LogFactory.getLog(ResponseTransport.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final MultiplexedConnection connection;
+   private final InputStream in;
+
+   ResponseTransport(MultiplexedConnection connection, InputStream in) {
+      super(connection.getTransportFactory());
+      this.connection = connection;
+      this.in = in;
+   }
+
+   @Override
+   public short readByte() {
+      int b;
+      try {
+         b = in.read();
+      } catch (IOException e) {
+         throw new TransportException(e, connection.getServerAddress());
+      }
+      if (b == -1) {
+         throw new TransportException("End of stream reached!", connection.getServerAddress());
+      }
+      return (short) b;
+   }
+
+   @Override
+   public int readVInt() {
+      byte b = (byte) readByte();
+      int i = b & 0x7F;
+      for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+         b = (byte) readByte();
+         i |= (b & 0x7F) << shift;
+      }
+      return i;
+   }
+
+   @Override
+   public long readVLong() {
+      byte b = (byte) readByte();
+      long i = b & 0x7F;
+      for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+         b = (byte) readByte();
+         i |= (b & 0x7FL) << shift;
+      }
+      return i;
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      byte[] result = new byte[size];
+      int offset = 0;
+      while (offset < size) {
+         int read;
+         try {
+            read = in.read(result, offset, size - offset);
+         } catch (IOException e) {
+            throw new TransportException(e, connection.getServerAddress());
+         }
+         if (read == -1) {
+            throw new TransportException("End of stream reached!", connection.getServerAddress());
+         }
+         offset += read;
+      }
+      if (trace) {
+         log.tracef("Successfully read array with size: %d", size);
+      }
+      return result;
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      try {
+         // Only read what has already been received, at most 32kb
+         int available = Math.min(in.available(), 32768);
+         for (int i = 0; i < available; i++) {
+            int b = in.read();
+            if (b < 0) {
+               break;
+            }
+            os.write(b);
+         }
+      } catch (IOException e) {
+         // Ignore
+      }
+      // the stream is no longer aligned on a response
+      connection.invalidate();
+      return os.toByteArray();
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return connection.getServerAddress();
+   }
+
+   @Override
+   public SocketAddress getServerAddress() {
+      return connection.getServerAddress();
+   }
+
+   @Override
+   public void invalidate() {
+      connection.invalidate();
+   }
+
+   @Override
+   public void release() {
+      // the connection is shared, it is closed by the transport factory
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void flush() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public String toString() {
+      return "ResponseTransport{connection=" + connection + '}';
+   }
+}
@@ -0,0 +1,300 @@
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * {@link RequestBalancingStrategy} sending the requests to the server expected to answer first, instead of spreading
+ * them blindly as {@link RoundRobinBalancingStrategy} does. The transport factories report every request to it, so
+ * that it keeps, for each server, an exponentially weighted moving average of the response times and the number of
+ * requests waiting for a response. The expected latency of a server is its average response time multiplied by the
+ * number of requests it would have to answer, and a server is avoided for {@link #FAILURE_BACKOFF_MILLIS} after a
+ * request to it failed.
+ * <p/>
+ * The requests on a key still go to the primary owner of the key, except the reads, which go to another owner while
+ * the primary owner is much slower than it, e.g. because it is overloaded or in a long GC pause. This requires the
+ * owners of the keys, so protocol version 1.4. A read is still sent to a slow primary owner every
+ * {@link #PROBE_INTERVAL_MILLIS} it hasn't answered any request in, so that the reads go back to it once it has
+ * recovered.
+ *
+ * @since 6.0
+ */
+@ThreadSafe
+public class LatencyAwareBalancingStrategy implements RequestBalancingStrategy {
+
+   private static final Log log = LogFactory.getLog(LatencyAwareBalancingStrategy.class);
+
+   /**
+    * The weight of the latest response time in the moving average
+    */
+   static final double SMOOTHING_FACTOR = 0.2;
+
+   /**
+    * How long a server is avoided after a request to it failed
+    */
+   static final long FAILURE_BACKOFF_MILLIS = 5000;
+
+   /**
+    * How many times slower than another owner the primary owner of a key must be for the reads to avoid it
+    */
+   static final double SLOW_OWNER_RATIO = 3;
+
+   /**
+    * How much slower than another owner the primary owner of a key must be for the reads to avoid it, so that the
+    * reads don't move because of small variations when the servers answer quickly
+    */
+   static final long SLOW_OWNER_MIN_DIFFERENCE_MILLIS = 1;
+
+   /**
+    * How often a read is sent to a slow primary owner which hasn't answered any other request in the meantime
+    */
+   static final long PROBE_INTERVAL_MILLIS = 1000;
+
+   private static final long FAILURE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(FAILURE_BACKOFF_MILLIS);
+   private static final long SLOW_OWNER_MIN_DIFFERENCE_NANOS =
+         TimeUnit.MILLISECONDS.toNanos(SLOW_OWNER_MIN_DIFFERENCE_MILLIS);
+   private static final long PROBE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MILLIS);
+
+   private final ConcurrentMap<SocketAddress, ServerLatency> latencies =
+         new ConcurrentHashMap<SocketAddress, ServerLatency>();
+   // the server the search for the best server starts from, so that servers expected to be as fast get as many requests
+   private final AtomicInteger offset = new AtomicInteger();
+   private final AtomicLong redirectedReads = new AtomicLong();
+   private volatile SocketAddress[] servers = new SocketAddress[0];
+
+   @Override
+   public void setServers(Collection<SocketAddress> servers) {
+      if (servers.isEmpty()) {
+         // keep sending the requests to the last known servers, they may come back
+         log.debug("Ignoring an empty server list");
+         return;
+      }
+      SocketAddress[] newServers = servers.toArray(new SocketAddress[servers.size()]);
+      for (SocketAddress server : newServers) {
+         if (!latencies.containsKey(server)) {
+            latencies.putIfAbsent(server, new ServerLatency());
+         }
+      }
+      latencies.keySet().retainAll(servers);
+      this.servers = newServers;
+      if (log.isTraceEnabled()) {
+         log.tracef("New server list is: %s", Arrays.toString(newServers));
+      }
+   }
+
+   /**
+    * @return the healthy server with the lowest expected latency
+    */
+   @Override
+   public SocketAddress nextServer() {
+      SocketAddress[] servers = this.servers;
+      if (servers.length == 0) {
+         throw new TransportException("No server to send the request to", null);
+      }
+      long now = System.nanoTime();
+      int start = (offset.getAndIncrement() & Integer.MAX_VALUE) % servers.length;
+      SocketAddress best = null;
+      boolean bestHealthy = false;
+      double bestLatency = 0;
+      for (int i = 0; i < servers.length; i++) {
+         SocketAddress server = servers[(start + i) % servers.length];
+         ServerLatency latency = latencies.get(server);
+         if (latency == null) {
+            // the server list is being updated
+            continue;
+         }
+         boolean healthy = latency.isHealthy(now);
+         double expected = latency.getExpectedNanos();
+         if (best == null || (healthy && !bestHealthy) || (healthy == bestHealthy && expected < bestLatency)) {
+            best = server;
+            bestHealthy = healthy;
+            bestLatency = expected;
+         }
+      }
+      if (best == null) {
+         best = servers[start];
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Returning server: %s", best);
+      }
+      return best;
+   }
+
+   /**
+    * Selects the owner a read is sent to.
+    *
+    * @param owners the owners of the key read, the primary owner first
+    * @return the primary owner of the key, or another owner if the primary owner is much slower or failing
+    */
+   public SocketAddress selectReadOwner(SocketAddress[] owners) {
+      SocketAddress primary = owners[0];
+      ServerLatency primaryLatency = latencies.get(primary);
+      if (owners.length == 1 || primaryLatency == null) {
+         return primary;
+      }
+      long now = System.nanoTime();
+      SocketAddress best = null;
+      double bestLatency = 0;
+      for (int i = 1; i < owners.length; i++) {
+         ServerLatency latency = latencies.get(owners[i]);
+         if (latency != null && latency.isHealthy(now)) {
+            double expected = latency.getExpectedNanos();
+            if (best == null || expected < bestLatency) {
+               best = owners[i];
+               bestLatency = expected;
+            }
+         }
+      }
+      if (best == null) {
+         return primary;
+      }
+      if (primaryLatency.isHealthy(now)) {
+         double primaryExpected = primaryLatency.getExpectedNanos();
+         if (primaryExpected < bestLatency * SLOW_OWNER_RATIO
+               || primaryExpected - bestLatency < SLOW_OWNER_MIN_DIFFERENCE_NANOS
+               || primaryLatency.tryProbe(now)) {
+            return primary;
+         }
+      }
+      redirectedReads.incrementAndGet();
+      if (log.isTraceEnabled()) {
+         log.tracef("Primary owner %s is slow, reading from %s", primary, best);
+      }
+      return best;
+   }
+
+   /**
+    * Called by the transport factories when a request is sent to the server.
+    *
+    * @return the time the request was sent at, to give to {@link #requestCompleted(SocketAddress, long, boolean)}
+    */
+   public long requestStarted(SocketAddress server) {
+      ServerLatency latency = latencies.get(server);
+      if (latency != null) {
+         latency.outstanding.incrementAndGet();
+      }
+      return System.nanoTime();
+   }
+
+   /**
+    * Called by the transport factories when the response to a request is received, or when the request failed
+    * because of a connection problem.
+    *
+    * @param sampleLatency false for the requests which take long because of the work they ask for, e.g. bulk reads,
+    *                      so that their response time doesn't count in the average of the server
+    */
+   public void requestCompleted(SocketAddress server, long startNanos, boolean failed, boolean sampleLatency) {
+      ServerLatency latency = latencies.get(server);
+      if (latency != null) {
+         latency.completed(System.nanoTime(), startNanos, failed, sampleLatency);
+      }
+   }
+
+   public List<SocketAddress> getServers() {
+      return Collections.unmodifiableList(Arrays.asList(servers));
+   }
+
+   /**
+    * @return the moving average of the response times of the server, in microseconds, or -1 if the server is unknown
+    */
+   public long getAverageLatencyMicros(SocketAddress server) {
+      ServerLatency latency = latencies.get(server);
+      return latency == null ? -1 : TimeUnit.NANOSECONDS.toMicros((long) latency.averageNanos);
+   }
+
+   /**
+    * @return the number of requests waiting for a response from the server
+    */
+   public int getOutstandingRequests(SocketAddress server) {
+      ServerLatency latency = latencies.get(server);
+      return latency == null ? 0 : Math.max(0, latency.outstanding.get());
+   }
+
+   /**
+    * @return the number of reads sent to another owner than the primary owner of the key
+    */
+   public long getRedirectedReads() {
+      return redirectedReads.get();
+   }
+
+   /**
+    * @return the server as host:port, for the statistics
+    */
+   public static String toString(SocketAddress server) {
+      if (server instanceof InetSocketAddress) {
+         InetSocketAddress address = (InetSocketAddress) server;
+         String host = address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostName();
+         return host + ":" + address.getPort();
+      }
+      return String.valueOf(server);
+   }
+
+   /**
+    * The measures of a server.
+    */
+   private static class ServerLatency {
+
+      final AtomicInteger outstanding = new AtomicInteger();
+      // the time the server last answered, and the time a read was last sent to it although it was slow
+      private volatile long lastResponseNanos = System.nanoTime();
+      private final AtomicLong lastProbeNanos = new AtomicLong(lastResponseNanos);
+      // written with the lock held
+      volatile double averageNanos;
+      private volatile boolean failing;
+      private volatile long failedAtNanos;
+      private boolean measured;
+
+      /**
+       * @return the time the server would take to answer all its requests and a new one
+       */
+      double getExpectedNanos() {
+         // the servers not measured yet are tried first, unless they are already busy
+         return (averageNanos + 1) * (Math.max(0, outstanding.get()) + 1);
+      }
+
+      boolean isHealthy(long now) {
+         return !failing || now - failedAtNanos > FAILURE_BACKOFF_NANOS;
+      }
+
+      /**
+       * @return whether a read should be sent to the server to measure it again, at most once per interval
+       */
+      boolean tryProbe(long now) {
+         long lastProbe = lastProbeNanos.get();
+         return now - Math.max(lastProbe, lastResponseNanos) > PROBE_INTERVAL_NANOS
+               && lastProbeNanos.compareAndSet(lastProbe, now);
+      }
+
+      synchronized void completed(long now, long startNanos, boolean failed, boolean sampleLatency) {
+         outstanding.decrementAndGet();
+         if (failed) {
+            failedAtNanos = now;
+            failing = true;
+            return;
+         }
+         failing = false;
+         lastResponseNanos = now;
+         if (!sampleLatency) {
+            return;
+         }
+         long elapsed = now - startNanos;
+         averageNanos = measured ? averageNanos + SMOOTHING_FACTOR * (elapsed - averageNanos) : elapsed;
+         measured = true;
+      }
+   }
+}
@@ -220,6 +220,7 @@ public byte[] readByteArray(final int size) {
       return result;
    }
 
+   @Override
    public SocketAddress getServerAddress() {
       return serverAddress;
    }
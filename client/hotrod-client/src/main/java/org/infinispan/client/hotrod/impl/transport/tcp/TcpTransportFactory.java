@@ -22,6 +22,7 @@
 import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
@@ -47,6 +48,8 @@ public class TcpTransportFactory implements TransportFactory {
    // The connection pool implementation is assumed to be thread-safe, so we need to synchronize just the access to this field and not the method calls
    private GenericKeyedObjectPool<SocketAddress, TcpTransport> connectionPool;
    private RequestBalancingStrategy balancer;
+   // the balancer, if it measures the servers
+   private volatile LatencyAwareBalancingStrategy latencyTracker;
    private Collection<SocketAddress> servers;
    private ConsistentHash consistentHash;
    private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
@@ -69,6 +72,7 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
          }
          servers = Collections.unmodifiableCollection(servers);
          balancer = Util.getInstance(configuration.balancingStrategy());
+         latencyTracker = balancer instanceof LatencyAwareBalancingStrategy ? (LatencyAwareBalancingStrategy) balancer : null;
          tcpNoDelay = configuration.tcpNoDelay();
          soTimeout = configuration.socketTimeout();
          connectTimeout = configuration.connectionTimeout();
@@ -156,6 +160,19 @@ public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, in
       }
    }
 
+   @Override
+   public void updateHashFunction(SocketAddress[][] segmentOwners, int numSegments, short hashFunctionVersion) {
+      synchronized (lock) {
+         SegmentConsistentHash hash = hashFactory.newConsistentHash(hashFunctionVersion);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         } else {
+            hash.init(segmentOwners, numSegments);
+         }
+         consistentHash = hash;
+      }
+   }
+
    @Override
    public Transport getTransport() {
       SocketAddress server;
@@ -167,10 +184,24 @@ public Transport getTransport() {
 
    @Override
    public Transport getTransport(byte[] key) {
+      return borrowTransportFromPool(locateServer(key, false));
+   }
+
+   @Override
+   public Transport getReadTransport(byte[] key) {
+      return borrowTransportFromPool(locateServer(key, true));
+   }
+
+   private SocketAddress locateServer(byte[] key, boolean read) {
       SocketAddress server;
       synchronized (lock) {
-         if (consistentHash != null) {
-            server = consistentHash.getServer(key);
+         // the owner is unknown while it hasn't registered its endpoint yet
+         server = consistentHash != null ? consistentHash.getServer(key) : null;
+         if (server != null) {
+            if (read && latencyTracker != null && consistentHash instanceof SegmentConsistentHash) {
+               SegmentConsistentHash hash = (SegmentConsistentHash) consistentHash;
+               server = latencyTracker.selectReadOwner(hash.getSegmentOwners(hash.getSegment(key)));
+            }
             if (log.isTraceEnabled()) {
                log.tracef("Using consistent hash for determining the server: " + server);
             }
@@ -181,7 +212,21 @@ public Transport getTransport(byte[] key) {
             }
          }
       }
-      return borrowTransportFromPool(server);
+      return server;
+   }
+
+   @Override
+   public long requestStarted(Transport transport) {
+      LatencyAwareBalancingStrategy tracker = latencyTracker;
+      return tracker == null ? 0 : tracker.requestStarted(((TcpTransport) transport).getServerAddress());
+   }
+
+   @Override
+   public void requestCompleted(Transport transport, long startNanos, boolean failed, boolean sampleLatency) {
+      LatencyAwareBalancingStrategy tracker = latencyTracker;
+      if (tracker != null) {
+         tracker.requestCompleted(((TcpTransport) transport).getServerAddress(), startNanos, failed, sampleLatency);
+      }
    }
 
    @Override
@@ -266,6 +311,7 @@ public void updateServers(Collection<SocketAddress> newServers) {
       }
    }
 
+   @Override
    public Collection<SocketAddress> getServers() {
       synchronized (lock) {
          return servers;
@@ -280,6 +326,11 @@ private void logConnectionInfo(SocketAddress server) {
       }
    }
 
+   @Override
+   public Transport getTransport(SocketAddress server) {
+      return borrowTransportFromPool(server);
+   }
+
    private Transport borrowTransportFromPool(SocketAddress server) {
       // The borrowObject() call could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool<SocketAddress, TcpTransport> pool = getConnectionPool();
@@ -297,6 +348,7 @@ private Transport borrowTransportFromPool(SocketAddress server) {
    /**
     * Note that the returned <code>ConsistentHash</code> may not be thread-safe.
     */
+   @Override
    public ConsistentHash getConsistentHash() {
       synchronized (lock) {
          return consistentHash;
@@ -339,6 +391,7 @@ public SSLContext getSSLContext() {
    /**
     * Note that the returned <code>RequestBalancingStrategy</code> may not be thread-safe.
     */
+   @Override
    public RequestBalancingStrategy getBalancer() {
       synchronized (lock) {
          return balancer;
@@ -125,4 +125,52 @@ public interface Log extends BasicLogger {
 
    @Message(value = "Cannot configure custom KeyStore and/or TrustStore when specifying a SSLContext", id = 4027)
    CacheConfigurationException xorSSLContext();
+
+   @LogMessage(level = WARN)
+   @Message(value = "Closing the connection to server %s, %d pending requests will be retried", id = 4028)
+   void closingMultiplexedConnection(SocketAddress serverAddress, int pendingRequests, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Exception thrown by a listener of an asynchronous operation", id = 4029)
+   void errorNotifyingFutureListener(@Cause Throwable cause);
+
+   @Message(value = "The number of multiplexed connections per server must be greater than zero, was %d", id = 4030)
+   CacheConfigurationException invalidMultiplexedConnections(int multiplexedConnections);
+
+   @Message(value = "The maximum number of entries of the near cache must be greater than zero, was %d", id = 4031)
+   CacheConfigurationException invalidNearCacheMaxEntries(int maxEntries);
+
+   @Message(value = "An invalidated near cache requires the %s", id = 4032)
+   CacheConfigurationException invalidatedNearCacheRequiresMultiplexedTransport(String transportFactory);
+
+   @Message(value = "An invalidated near cache requires version %s or later of the Hot Rod protocol, was %s", id = 4033)
+   CacheConfigurationException invalidatedNearCacheRequiresProtocolVersion(String requiredVersion, String protocolVersion);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Lost the invalidation listener of cache '%s' on server %s, the near cache has been cleared", id = 4034)
+   void nearCacheListenerLost(String cacheName, SocketAddress serverAddress, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to unmarshall a key invalidated by the server, the near cache of '%s' has been cleared", id = 4035)
+   void unableToUnmarshallInvalidatedKey(String cacheName, @Cause Throwable cause);
+
+   @Message(value = "The compression threshold must not be negative, was %d", id = 4037)
+   CacheConfigurationException invalidCompressionThreshold(int threshold);
+
+   @Message(value = "The compression level must be between 0 and 9, was %d", id = 4038)
+   CacheConfigurationException invalidCompressionLevel(int level);
+
+   @Message(value = "The consistent hash implementation of version 3, %s, must extend %s", id = 4039)
+   CacheConfigurationException invalidSegmentConsistentHash(String consistentHashClass, String segmentConsistentHashClass);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Lost the client listener of cache '%s' on server %s, it will be resumed", id = 4040)
+   void clientListenerLost(String cacheName, SocketAddress serverAddress, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to deliver an event of cache '%s' to client listener %s", id = 4041)
+   void unableToDeliverClientEvent(String cacheName, Object listener, @Cause Throwable cause);
+
+   @Message(value = "The compression of the values requires protocol version %s, was %s", id = 4042)
+   CacheConfigurationException compressionRequiresProtocolVersion(String requiredVersion, String protocolVersion);
 }
@@ -96,6 +96,13 @@ protected void setHotRodProtocolVersion(Properties props) {
       // No-op, use default Hot Rod protocol version
    }
 
+   /**
+    * @return whether the client locates the primary owner of every key, rather than approximating the segment borders
+    */
+   protected boolean locatesExactOwners() {
+      return false;
+   }
+
    @AfterClass
    @Override
    protected void destroy() {
@@ -137,7 +144,7 @@ public void testHashFunctionReturnsSameValues() {
          int keySegment = serverCh.getSegment(key);
          Address serverOwner = serverCh.locatePrimaryOwnerForSegment(keySegment);
          Address serverPreviousOwner = serverCh.locatePrimaryOwnerForSegment((keySegment - 1 + numSegments) % numSegments);
-         assert clusterAddress.equals(serverOwner) || clusterAddress.equals(serverPreviousOwner);
+         assert clusterAddress.equals(serverOwner) || (!locatesExactOwners() && clusterAddress.equals(serverPreviousOwner));
          tcpConnectionFactory.releaseTransport(transport);
       }
    }
@@ -0,0 +1,194 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.ClientEventConverter;
+import org.infinispan.server.hotrod.ClientEventFilter;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the client listeners, receiving the events of the remote cache entries.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.ClientListenerTest")
+public class ClientListenerTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager listeningRcm;
+   private RemoteCacheManager otherRcm;
+   private RemoteCache<String, String> listening;
+   private RemoteCache<String, String> other;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+   }
+
+   @Override
+   protected void setup() throws Exception {
+      super.setup();
+      hotrodServer = TestHelper.startHotRodServer(cacheManager);
+      hotrodServer.addClientEventFilter("no-removals", new ClientEventFilter() {
+         @Override
+         public boolean accept(byte[] key, byte[] value) {
+            return value != null;
+         }
+      });
+      hotrodServer.addClientEventConverter("constant", new ClientEventConverter() {
+         @Override
+         public byte[] convert(byte[] key, byte[] value) {
+            try {
+               return new GenericJBossMarshaller().objectToByteBuffer("converted");
+            } catch (Exception e) {
+               throw new RuntimeException(e);
+            }
+         }
+      });
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .transportFactory(MultiplexedTransportFactory.class)
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      listeningRcm = new RemoteCacheManager(builder.build());
+      listening = listeningRcm.getCache();
+
+      builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort());
+      otherRcm = new RemoteCacheManager(builder.build());
+      other = otherRcm.getCache();
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(listeningRcm);
+      killRemoteCacheManager(otherRcm);
+      killServers(hotrodServer);
+   }
+
+   public void testEventsReceived() {
+      RecordingListener listener = new RecordingListener();
+      listening.addClientListener(listener, null, null, true);
+      try {
+         other.put("k1", "v1");
+         long created = other.getVersioned("k1").getVersion();
+         other.put("k1", "v2");
+         long modified = other.getVersioned("k1").getVersion();
+         other.remove("k1");
+
+         listener.await(3);
+         assertEvent(listener.events.get(0), ClientCacheEntryEvent.Type.CREATED, "k1", created, "v1");
+         assertEvent(listener.events.get(1), ClientCacheEntryEvent.Type.MODIFIED, "k1", modified, "v2");
+         assertEvent(listener.events.get(2), ClientCacheEntryEvent.Type.REMOVED, "k1", modified, null);
+      } finally {
+         listening.removeClientListener(listener);
+      }
+   }
+
+   public void testValuesNotSentByDefault() {
+      RecordingListener listener = new RecordingListener();
+      listening.addClientListener(listener);
+      try {
+         other.put("k2", "v1");
+         listener.await(1);
+         assertEquals("k2", listener.events.get(0).getKey());
+         assertNull(listener.events.get(0).getValue());
+      } finally {
+         listening.removeClientListener(listener);
+      }
+   }
+
+   public void testFilterAndConverter() {
+      RecordingListener listener = new RecordingListener();
+      listening.addClientListener(listener, "no-removals", "constant", true);
+      try {
+         other.put("k3", "v1");
+         other.remove("k3");
+         other.put("k3", "v2");
+         listener.await(2);
+         assertEquals(ClientCacheEntryEvent.Type.CREATED, listener.events.get(0).getType());
+         assertEquals(ClientCacheEntryEvent.Type.CREATED, listener.events.get(1).getType());
+         assertEquals("converted", listener.events.get(1).getValue());
+      } finally {
+         listening.removeClientListener(listener);
+      }
+   }
+
+   public void testRemovedListener() throws Exception {
+      RecordingListener listener = new RecordingListener();
+      listening.addClientListener(listener);
+      assertEquals(1, hotrodServer.getClientListenerRegistry().getListenerCount());
+      listening.removeClientListener(listener);
+      assertEquals(0, hotrodServer.getClientListenerRegistry().getListenerCount());
+      other.put("k4", "v1");
+      Thread.sleep(100);
+      assertTrue(listener.events.isEmpty());
+   }
+
+   @Test(expectedExceptions = HotRodClientException.class)
+   public void testUnknownFilter() {
+      try {
+         listening.addClientListener(new RecordingListener(), "unknown", null, false);
+      } finally {
+         assertEquals(0, hotrodServer.getClientListenerRegistry().getListenerCount());
+      }
+   }
+
+   @Test(expectedExceptions = UnsupportedOperationException.class)
+   public void testRequiresMultiplexedTransport() {
+      other.addClientListener(new RecordingListener());
+   }
+
+   private void assertEvent(ClientCacheEntryEvent<String, String> event, ClientCacheEntryEvent.Type type,
+         String key, long version, String value) {
+      assertEquals(type, event.getType());
+      assertEquals(key, event.getKey());
+      assertEquals(version, event.getVersion());
+      assertEquals(value, event.getValue());
+   }
+
+   private class RecordingListener implements ClientCacheListener<String, String> {
+
+      final List<ClientCacheEntryEvent<String, String>> events =
+            new CopyOnWriteArrayList<ClientCacheEntryEvent<String, String>>();
+
+      @Override
+      public void entryEvent(ClientCacheEntryEvent<String, String> event) {
+         events.add(event);
+      }
+
+      @Override
+      public void eventsLost() {
+      }
+
+      void await(final int count) {
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return events.size() >= count;
+            }
+         });
+         assertEquals(count, events.size());
+      }
+   }
+}
@@ -0,0 +1,135 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the values compressed on the wire between the client and the server.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.CompressionTest")
+public class CompressionTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCacheManager plainRcm;
+   private RemoteCache<String, Object> remoteCache;
+   private RemoteCache<String, Object> plain;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+   }
+
+   @Override
+   protected void setup() throws Exception {
+      super.setup();
+      hotrodServer = TestHelper.startHotRodServer(cacheManager);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14)
+            .compression().enabled(true).threshold(512);
+      remoteCacheManager = new RemoteCacheManager(builder.build());
+      remoteCache = remoteCacheManager.getCache();
+      plainRcm = new RemoteCacheManager("localhost", hotrodServer.getPort());
+      plain = plainRcm.getCache();
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(remoteCacheManager);
+      killRemoteCacheManager(plainRcm);
+      killServers(hotrodServer);
+   }
+
+   public void testLargeValueStoredDecompressed() throws Exception {
+      cache.clear();
+      String value = repeat("compressible", 1000);
+      remoteCache.put("large", value);
+      assertEquals(value, remoteCache.get("large"));
+      assertEquals(value, remoteCache.getVersioned("large").getValue());
+      assertStoredMarshalled(value);
+   }
+
+   public void testSmallValueStoredAsIs() throws Exception {
+      cache.clear();
+      remoteCache.put("small", "v");
+      assertEquals("v", remoteCache.get("small"));
+      assertStoredMarshalled("v");
+   }
+
+   public void testMultiKeyOperations() {
+      Map<String, Object> data = new HashMap<String, Object>();
+      for (int i = 0; i < 10; i++) {
+         data.put("multi-" + i, i % 2 == 0 ? repeat("v" + i, 500) : "v" + i);
+      }
+      remoteCache.putAll(data);
+      assertEquals(data, remoteCache.getAll(data.keySet()));
+      assertEquals(Collections.singleton("multi-1"), remoteCache.getAll(Collections.singleton("multi-1")).keySet());
+   }
+
+   public void testStreamedValue() throws Exception {
+      byte[] data = repeat("streamed", 50000).getBytes("UTF-8");
+      OutputStream out = remoteCache.putAsStream("stream");
+      out.write(data);
+      out.close();
+      InputStream in = remoteCache.getAsStream("stream");
+      ByteArrayOutputStream read = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+         read.write(buffer, 0, n);
+      }
+      in.close();
+      assertTrue(Arrays.equals(data, read.toByteArray()));
+   }
+
+   public void testInteroperabilityWithPlainClients() {
+      String large = repeat("shared", 1000);
+      plain.put("from-plain", large);
+      assertEquals(large, remoteCache.get("from-plain"));
+      remoteCache.put("from-compressing", large);
+      assertEquals(large, plain.get("from-compressing"));
+      assertEquals(large, plain.getVersioned("from-compressing").getValue());
+      plain.put("small-from-plain", "v");
+      assertEquals("v", remoteCache.get("small-from-plain"));
+   }
+
+   private void assertStoredMarshalled(Object value) throws Exception {
+      byte[] stored = (byte[]) cache.values().iterator().next();
+      byte[] marshalled = new GenericJBossMarshaller().objectToByteBuffer(value);
+      assertTrue(Arrays.equals(marshalled, stored));
+   }
+
+   private static String repeat(String s, int times) {
+      StringBuilder sb = new StringBuilder(s.length() * times);
+      for (int i = 0; i < times; i++) {
+         sb.append(s);
+      }
+      return sb.toString();
+   }
+}
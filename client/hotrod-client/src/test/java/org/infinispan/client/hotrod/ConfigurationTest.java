@@ -7,6 +7,9 @@
 import org.infinispan.client.hotrod.configuration.Configuration;
 import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
 import org.infinispan.client.hotrod.configuration.ExhaustedAction;
+import org.infinispan.client.hotrod.configuration.NearCacheMode;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.commons.CacheConfigurationException;
 import org.testng.annotations.Test;
 
 @Test(testName = "client.hotrod.ConfigurationTest", groups = "functional" )
@@ -41,6 +44,16 @@ public void testConfiguration() {
          .consistentHashImpl(1, SomeCustomConsistentHashV1.class)
          .socketTimeout(100)
          .tcpNoDelay(false)
+         .multiplexedConnections(4)
+         .protocolVersion("1.4")
+         .nearCache()
+            .mode(NearCacheMode.LAZY)
+            .maxEntries(500)
+            .revalidationInterval(200)
+         .compression()
+            .enabled(true)
+            .threshold(2048)
+            .level(6)
          .pingOnStartup(false)
          .keySizeEstimate(128)
          .valueSizeEstimate(1024)
@@ -55,6 +68,27 @@ public void testConfiguration() {
       validateConfiguration(newConfiguration);
    }
 
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testInvalidatedNearCacheRequiresMultiplexedTransport() {
+      new ConfigurationBuilder().protocolVersion("1.3").nearCache().mode(NearCacheMode.INVALIDATED).build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testInvalidatedNearCacheRequiresProtocolVersion() {
+      new ConfigurationBuilder().transportFactory(MultiplexedTransportFactory.class)
+            .nearCache().mode(NearCacheMode.INVALIDATED).build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testInvalidCompressionLevel() {
+      new ConfigurationBuilder().protocolVersion("1.4").compression().enabled(true).level(10).build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testCompressionRequiresProtocolVersion() {
+      new ConfigurationBuilder().protocolVersion("1.3").compression().enabled(true).build();
+   }
+
    private void validateConfiguration(Configuration configuration) {
       assertEquals(2, configuration.servers().size());
       assertEquals(SomeAsyncExecutorFactory.class, configuration.asyncExecutorFactory().factoryClass());
@@ -76,6 +110,13 @@ private void validateConfiguration(Configuration configuration) {
       assertEquals(100, configuration.connectionTimeout());
       assertEquals(100, configuration.socketTimeout());
       assertFalse(configuration.tcpNoDelay());
+      assertEquals(4, configuration.multiplexedConnections());
+      assertEquals(NearCacheMode.LAZY, configuration.nearCache().mode());
+      assertEquals(500, configuration.nearCache().maxEntries());
+      assertEquals(200, configuration.nearCache().revalidationInterval());
+      assertTrue(configuration.compression().enabled());
+      assertEquals(2048, configuration.compression().threshold());
+      assertEquals(6, configuration.compression().level());
       assertFalse(configuration.pingOnStartup());
       assertEquals(128, configuration.keySizeEstimate());
       assertEquals(1024, configuration.valueSizeEstimate());
@@ -4,6 +4,8 @@
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashV1;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
+import org.infinispan.commons.CacheConfigurationException;
 import org.testng.annotations.Test;
 import static org.testng.AssertJUnit.*;
 
@@ -34,4 +36,16 @@ public void testNoChDefined() {
       assertNotNull(hash);
       assertEquals(hash.getClass(), ConsistentHashV1.class);
    }
+
+   public void testSegmentChDefault() {
+      ConsistentHashFactory chf = new ConsistentHashFactory();
+      chf.init(new ConfigurationBuilder().build());
+      ConsistentHash hash = chf.newConsistentHash(3);
+      assertEquals(hash.getClass(), SegmentConsistentHash.class);
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testSegmentChMustBeSegmentBased() {
+      new ConfigurationBuilder().consistentHashImpl(3, SomeCustomConsistentHashV1.class).build();
+   }
 }
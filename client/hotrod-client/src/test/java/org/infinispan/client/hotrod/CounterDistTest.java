@@ -0,0 +1,98 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests updating counters of a distributed cache with {@link RemoteCache#addAndGet(Object, long)} from several
+ * clients.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.CounterDistTest")
+public class CounterDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+   private static final int ADDITIONS = 100;
+
+   private final List<RemoteCacheManager> remoteCacheManagers = new ArrayList<RemoteCacheManager>();
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)));
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         ConfigurationBuilder builder = new ConfigurationBuilder();
+         builder.addServer().host("127.0.0.1").port(server(i).getPort())
+               .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+         remoteCacheManagers.add(new RemoteCacheManager(builder.build()));
+      }
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      for (RemoteCacheManager remoteCacheManager : remoteCacheManagers) {
+         killRemoteCacheManager(remoteCacheManager);
+      }
+      super.destroy();
+   }
+
+   public void testAddAndGet() throws Exception {
+      RemoteCache<String, String> cache = remoteCacheManagers.get(0).getCache();
+      assertEquals(0, cache.addAndGet("counter", 0));
+      assertEquals(10, cache.addAndGet("counter", 10));
+      assertEquals(-5, remoteCacheManagers.get(1).<String, String>getCache().addAndGet("counter", -15));
+      // The counter is stored as the decimal representation of its value
+      assertEquals("-5", new String((byte[]) cache(2).get(toBytes("counter"))));
+   }
+
+   @Test(expectedExceptions = HotRodClientException.class)
+   public void testAddToValueWhichIsNotACounter() {
+      RemoteCache<String, String> cache = remoteCacheManagers.get(0).getCache();
+      cache.put("not-a-counter", "value");
+      cache.addAndGet("not-a-counter", 1);
+   }
+
+   public void testConcurrentAdditions() throws Exception {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (RemoteCacheManager remoteCacheManager : remoteCacheManagers) {
+         final RemoteCache<String, String> cache = remoteCacheManager.getCache();
+         for (int i = 0; i < 2; i++) {
+            futures.add(fork(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  for (int j = 0; j < ADDITIONS; j++) {
+                     cache.addAndGet("concurrent", 1);
+                  }
+                  return null;
+               }
+            }));
+         }
+      }
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+      long expected = NUM_SERVERS * 2 * ADDITIONS;
+      for (RemoteCacheManager remoteCacheManager : remoteCacheManagers) {
+         assertEquals(expected, remoteCacheManager.<String, String>getCache().addAndGet("concurrent", 0));
+      }
+   }
+
+   private byte[] toBytes(String key) throws Exception {
+      return remoteCacheManagers.get(0).getMarshaller().objectToByteBuffer(key);
+   }
+}
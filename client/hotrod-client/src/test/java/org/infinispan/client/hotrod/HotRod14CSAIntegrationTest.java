@@ -0,0 +1,26 @@
+package org.infinispan.client.hotrod;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+
+/**
+ * Tests consistent hash algorithm consistency between the client and server
+ * using Hot Rod's 1.4 protocol, with which the client gets the owners of every segment.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.HotRod14CSAIntegrationTest")
+public class HotRod14CSAIntegrationTest extends CSAIntegrationTest {
+
+   @Override
+   protected void setHotRodProtocolVersion(Properties props) {
+      props.setProperty("infinispan.client.hotrod.protocol_version", "1.4");
+   }
+
+   @Override
+   protected boolean locatesExactOwners() {
+      return true;
+   }
+
+}
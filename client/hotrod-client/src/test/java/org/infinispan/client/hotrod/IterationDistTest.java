@@ -0,0 +1,164 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.server.hotrod.IterationFilter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests iterating the entries of a distributed cache with protocol version 1.4, with both transports.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.IterationDistTest")
+public class IterationDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+   private static final int NUM_ENTRIES = 500;
+
+   private RemoteCacheManager tcpRcm;
+   private RemoteCacheManager multiplexedRcm;
+   private RemoteCache<String, String> tcp;
+   private RemoteCache<String, String> multiplexed;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)));
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         server(i).addIterationFilter("even", new EvenValueFilter());
+      }
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      tcpRcm = new RemoteCacheManager(builder.build());
+      tcp = tcpRcm.getCache();
+
+      builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(1).getPort())
+            .transportFactory(MultiplexedTransportFactory.class)
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      multiplexedRcm = new RemoteCacheManager(builder.build());
+      multiplexed = multiplexedRcm.getCache();
+
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         tcp.put("key-" + i, String.valueOf(i));
+      }
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(tcpRcm);
+      killRemoteCacheManager(multiplexedRcm);
+      super.destroy();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void assertIterationsEnded() {
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         assertEquals(0, server(i).getIterationManager().getIterationCount());
+      }
+   }
+
+   public void testRetrieveAllEntries() {
+      for (RemoteCache<String, String> cache : new RemoteCache[]{tcp, multiplexed}) {
+         Map<String, String> entries = readAll(cache.retrieveEntries(null, 7));
+         assertEquals(NUM_ENTRIES, entries.size());
+         for (int i = 0; i < NUM_ENTRIES; i++) {
+            assertEquals(String.valueOf(i), entries.get("key-" + i));
+         }
+      }
+   }
+
+   public void testRetrieveEntriesWithFilter() {
+      Map<String, String> entries = readAll(tcp.retrieveEntries("even", 10));
+      assertEquals(NUM_ENTRIES / 2, entries.size());
+      for (String value : entries.values()) {
+         assertEquals(0, Integer.parseInt(value) % 2);
+      }
+   }
+
+   public void testRetrieveSegments() {
+      ConsistentHash ch = cache(0).getAdvancedCache().getDistributionManager().getReadConsistentHash();
+      Set<Integer> segments = new HashSet<Integer>();
+      for (int i = 0; i < ch.getNumSegments(); i += 2) {
+         segments.add(i);
+      }
+      Map<String, String> entries = readAll(tcp.retrieveEntries(null, segments, 10));
+      assertFalse(entries.isEmpty());
+      GenericJBossMarshaller marshaller = new GenericJBossMarshaller();
+      int expected = 0;
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         String key = "key-" + i;
+         if (segments.contains(ch.getSegment(toBytes(marshaller, key)))) {
+            expected++;
+            assertEquals(String.valueOf(i), entries.get(key));
+         }
+      }
+      assertEquals(expected, entries.size());
+   }
+
+   public void testCloseBeforeTheEnd() {
+      CloseableIterator<Map.Entry<String, String>> it = multiplexed.retrieveEntries(null, 5);
+      for (int i = 0; i < 3; i++) {
+         assertTrue(it.hasNext());
+         it.next();
+      }
+      it.close();
+      assertFalse(it.hasNext());
+   }
+
+   private Map<String, String> readAll(CloseableIterator<Map.Entry<String, String>> it) {
+      Map<String, String> entries = new HashMap<String, String>();
+      try {
+         while (it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            // every entry is returned once
+            assertEquals(null, entries.put(entry.getKey(), entry.getValue()));
+         }
+      } finally {
+         it.close();
+      }
+      return entries;
+   }
+
+   private byte[] toBytes(GenericJBossMarshaller marshaller, String key) {
+      try {
+         return marshaller.objectToByteBuffer(key);
+      } catch (Exception e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   private static class EvenValueFilter implements IterationFilter {
+      private final GenericJBossMarshaller marshaller = new GenericJBossMarshaller();
+
+      @Override
+      public boolean accept(byte[] key, byte[] value) {
+         try {
+            return Integer.parseInt((String) marshaller.objectFromByteBuffer(value)) % 2 == 0;
+         } catch (Exception e) {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+}
@@ -0,0 +1,124 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests iterating the entries of a distributed cache where a member without a Hot Rod endpoint is the only owner of
+ * some segments: these segments cannot be read and must not be silently left out of the iteration.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.IterationMissingOwnerDistTest")
+public class IterationMissingOwnerDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 2;
+   private static final int NUM_ENTRIES = 100;
+
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      org.infinispan.configuration.cache.ConfigurationBuilder builder =
+            hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false));
+      builder.clustering().hash().numOwners(1);
+      createHotRodServers(NUM_SERVERS, builder);
+      // a storage only member, owning segments no Hot Rod server holds a copy of
+      addClusterEnabledCacheManager(builder).getCache();
+      waitForClusterToForm();
+
+      ConfigurationBuilder clientBuilder = new ConfigurationBuilder();
+      clientBuilder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      remoteCacheManager = new RemoteCacheManager(clientBuilder.build());
+      remoteCache = remoteCacheManager.getCache();
+
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         remoteCache.put("key-" + i, String.valueOf(i));
+      }
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      super.destroy();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void assertIterationsEnded() {
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         assertEquals(0, server(i).getIterationManager().getIterationCount());
+      }
+   }
+
+   @Test(expectedExceptions = HotRodClientException.class)
+   public void testRetrieveAllEntries() {
+      remoteCache.retrieveEntries(null, 10).close();
+   }
+
+   public void testRetrieveSegmentsOwnedByServers() {
+      ConsistentHash ch = cache(0).getAdvancedCache().getDistributionManager().getReadConsistentHash();
+      Set<Address> serverAddresses = new HashSet<Address>();
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         serverAddresses.add(manager(i).getAddress());
+      }
+      Set<Integer> segments = new HashSet<Integer>();
+      for (int i = 0; i < ch.getNumSegments(); i++) {
+         if (serverAddresses.contains(ch.locatePrimaryOwnerForSegment(i))) {
+            segments.add(i);
+         }
+      }
+      assertFalse(segments.size() == ch.getNumSegments());
+
+      Map<String, String> entries = new HashMap<String, String>();
+      CloseableIterator<Map.Entry<String, String>> it = remoteCache.retrieveEntries(null, segments, 10);
+      try {
+         while (it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            assertEquals(null, entries.put(entry.getKey(), entry.getValue()));
+         }
+      } finally {
+         it.close();
+      }
+
+      GenericJBossMarshaller marshaller = new GenericJBossMarshaller();
+      int expected = 0;
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         String key = "key-" + i;
+         if (segments.contains(ch.getSegment(toBytes(marshaller, key)))) {
+            expected++;
+            assertEquals(String.valueOf(i), entries.get(key));
+         }
+      }
+      assertEquals(expected, entries.size());
+   }
+
+   private byte[] toBytes(GenericJBossMarshaller marshaller, String key) {
+      try {
+         return marshaller.objectToByteBuffer(key);
+      } catch (Exception e) {
+         throw new AssertionError(e);
+      }
+   }
+}
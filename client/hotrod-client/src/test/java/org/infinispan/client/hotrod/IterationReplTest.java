@@ -0,0 +1,84 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests iterating the entries of a replicated cache, whose segment owners aren't sent to the client: every server is
+ * iterated and each entry must still be returned once.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.IterationReplTest")
+public class IterationReplTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+   private static final int NUM_ENTRIES = 100;
+
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false)));
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      remoteCacheManager = new RemoteCacheManager(builder.build());
+      remoteCache = remoteCacheManager.getCache();
+
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         remoteCache.put("key-" + i, String.valueOf(i));
+      }
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      super.destroy();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void assertIterationsEnded() {
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         assertEquals(0, server(i).getIterationManager().getIterationCount());
+      }
+   }
+
+   public void testRetrieveAllEntries() {
+      TransportFactory transportFactory = (TransportFactory) TestingUtil.extractField(remoteCacheManager, "transportFactory");
+      assertEquals(NUM_SERVERS, transportFactory.getServers().size());
+
+      Map<String, String> entries = new HashMap<String, String>();
+      CloseableIterator<Map.Entry<String, String>> it = remoteCache.retrieveEntries(null, 7);
+      try {
+         while (it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            // every entry is returned once, although every server holds all of them
+            assertEquals(null, entries.put(entry.getKey(), entry.getValue()));
+         }
+      } finally {
+         it.close();
+      }
+      assertEquals(NUM_ENTRIES, entries.size());
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         assertEquals(String.valueOf(i), entries.get("key-" + i));
+      }
+   }
+}
@@ -0,0 +1,67 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.net.SocketAddress;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Tests a client using the {@link LatencyAwareBalancingStrategy} with a distributed cache, and the statistics it
+ * reports.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.LatencyAwareBalancingDistTest")
+public class LatencyAwareBalancingDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+
+   private RemoteCacheManager remoteCacheManager;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)));
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .balancingStrategy(LatencyAwareBalancingStrategy.class)
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      remoteCacheManager = new RemoteCacheManager(builder.build());
+      clients.add(remoteCacheManager);
+   }
+
+   public void testRequestsMeasured() {
+      RemoteCache<String, String> cache = remoteCacheManager.getCache();
+      for (int i = 0; i < 50; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      for (int i = 0; i < 50; i++) {
+         assertEquals("v" + i, cache.get("k" + i));
+         assertTrue(cache.containsKey("k" + i));
+      }
+
+      TransportFactory transportFactory =
+            (TransportFactory) TestingUtil.extractField(remoteCacheManager, "transportFactory");
+      LatencyAwareBalancingStrategy balancer = (LatencyAwareBalancingStrategy) transportFactory.getBalancer();
+      assertEquals(NUM_SERVERS, balancer.getServers().size());
+      ServerStatistics stats = cache.stats();
+      for (SocketAddress server : balancer.getServers()) {
+         assertTrue(balancer.getAverageLatencyMicros(server) > 0);
+         assertEquals(0, balancer.getOutstandingRequests(server));
+         String suffix = "[" + LatencyAwareBalancingStrategy.toString(server) + "]";
+         assertNotNull(stats.getStatistic(ServerStatistics.AVERAGE_LATENCY_MICROS + suffix));
+         assertEquals("0", stats.getStatistic(ServerStatistics.OUTSTANDING_REQUESTS + suffix));
+      }
+      assertNotNull(stats.getStatistic(ServerStatistics.REDIRECTED_READS));
+   }
+}
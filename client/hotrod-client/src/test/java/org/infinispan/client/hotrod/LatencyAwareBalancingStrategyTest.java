@@ -0,0 +1,142 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.impl.transport.tcp.LatencyAwareBalancingStrategy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the choices of the {@link LatencyAwareBalancingStrategy}, the response times being simulated.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "client.hotrod.LatencyAwareBalancingStrategyTest")
+public class LatencyAwareBalancingStrategyTest {
+
+   private final SocketAddress addr1 = new InetSocketAddress("localhost", 1111);
+   private final SocketAddress addr2 = new InetSocketAddress("localhost", 2222);
+   private final SocketAddress addr3 = new InetSocketAddress("localhost", 3333);
+   private LatencyAwareBalancingStrategy strategy;
+
+   @BeforeMethod
+   public void setUp() {
+      strategy = new LatencyAwareBalancingStrategy();
+      strategy.setServers(Arrays.asList(addr1, addr2, addr3));
+   }
+
+   public void testUnmeasuredServersAllUsed() {
+      Set<SocketAddress> used = new HashSet<SocketAddress>();
+      for (int i = 0; i < 3; i++) {
+         used.add(strategy.nextServer());
+      }
+      assertEquals(3, used.size());
+   }
+
+   public void testFastestServerPreferred() {
+      respond(addr1, 20);
+      respond(addr2, 1);
+      respond(addr3, 10);
+      for (int i = 0; i < 10; i++) {
+         assertEquals(addr2, strategy.nextServer());
+      }
+      long average = strategy.getAverageLatencyMicros(addr2);
+      assertTrue("Average is " + average, average >= 1000 && average < 1100);
+   }
+
+   public void testBusyServerAvoided() {
+      respond(addr1, 2);
+      respond(addr2, 1);
+      respond(addr3, 10);
+      // addr2 is twice as fast, but it has 3 requests to answer first
+      for (int i = 0; i < 3; i++) {
+         strategy.requestStarted(addr2);
+      }
+      assertEquals(3, strategy.getOutstandingRequests(addr2));
+      assertEquals(addr1, strategy.nextServer());
+   }
+
+   public void testFailedServerAvoided() {
+      respond(addr1, 1);
+      respond(addr2, 5);
+      respond(addr3, 10);
+      strategy.requestCompleted(addr1, strategy.requestStarted(addr1), true, true);
+      assertEquals(addr2, strategy.nextServer());
+   }
+
+   public void testAverageMoves() {
+      respond(addr1, 10);
+      for (int i = 0; i < 50; i++) {
+         respond(addr1, 1);
+      }
+      long average = strategy.getAverageLatencyMicros(addr1);
+      assertTrue("Average is " + average, average < 1100);
+   }
+
+   public void testReadsAvoidSlowPrimaryOwner() {
+      SocketAddress[] owners = {addr1, addr2};
+      respond(addr1, 1);
+      respond(addr2, 1);
+      assertEquals(addr1, strategy.selectReadOwner(owners));
+
+      // the primary owner stops answering
+      for (int i = 0; i < 5; i++) {
+         strategy.requestStarted(addr1);
+      }
+      respond(addr1, 10);
+      assertEquals(addr2, strategy.selectReadOwner(owners));
+      assertEquals(addr2, strategy.selectReadOwner(owners));
+      assertEquals(2, strategy.getRedirectedReads());
+   }
+
+   public void testReadsAvoidFailedPrimaryOwner() {
+      SocketAddress[] owners = {addr1, addr2};
+      strategy.requestCompleted(addr1, strategy.requestStarted(addr1), true, true);
+      assertEquals(addr2, strategy.selectReadOwner(owners));
+   }
+
+   public void testSmallDifferencesIgnored() {
+      SocketAddress[] owners = {addr1, addr2};
+      strategy.requestCompleted(addr1, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(400), false, true);
+      strategy.requestCompleted(addr2, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(100), false, true);
+      assertEquals(addr1, strategy.selectReadOwner(owners));
+   }
+
+   public void testRemovedServer() {
+      strategy.setServers(Arrays.asList(addr1, addr2));
+      assertEquals(-1, strategy.getAverageLatencyMicros(addr3));
+      for (int i = 0; i < 4; i++) {
+         assertTrue(strategy.nextServer() != addr3);
+      }
+      // the requests sent before the server left are ignored
+      strategy.requestCompleted(addr3, System.nanoTime(), false, true);
+   }
+
+   public void testUnsampledRequestsIgnored() {
+      respond(addr1, 1);
+      long average = strategy.getAverageLatencyMicros(addr1);
+      strategy.requestCompleted(addr1, strategy.requestStarted(addr1) - TimeUnit.SECONDS.toNanos(5), false, false);
+      assertEquals(average, strategy.getAverageLatencyMicros(addr1));
+      assertEquals(0, strategy.getOutstandingRequests(addr1));
+   }
+
+   public void testEmptyServerListIgnored() {
+      strategy.setServers(Collections.<SocketAddress>emptyList());
+      assertEquals(3, strategy.getServers().size());
+      assertTrue(strategy.getServers().contains(strategy.nextServer()));
+   }
+
+   private void respond(SocketAddress server, long millis) {
+      strategy.requestStarted(server);
+      strategy.requestCompleted(server, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis), false, true);
+   }
+}
@@ -0,0 +1,144 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the multi-key operations of protocol version 1.3 against a distributed cluster, with both transports.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.MultiKeyOperationsDistTest")
+public class MultiKeyOperationsDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+
+   private RemoteCacheManager tcpRcm;
+   private RemoteCacheManager multiplexedRcm;
+   private RemoteCache<String, String> tcp;
+   private RemoteCache<String, String> multiplexed;
+   // protocol version 1.2, using the single key operations
+   private RemoteCache<String, String> legacy;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)));
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_13);
+      tcpRcm = new RemoteCacheManager(builder.build());
+      tcp = tcpRcm.getCache();
+
+      builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(1).getPort())
+            .transportFactory(MultiplexedTransportFactory.class)
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_13);
+      multiplexedRcm = new RemoteCacheManager(builder.build());
+      multiplexed = multiplexedRcm.getCache();
+
+      legacy = client(2).getCache();
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(tcpRcm);
+      killRemoteCacheManager(multiplexedRcm);
+      super.destroy();
+   }
+
+   public void testPutAll() {
+      // more entries than a single request holds
+      Map<String, String> data = entries("putAll", OperationsFactory.MAX_KEYS_PER_REQUEST * 2 + 10);
+      tcp.putAll(data);
+      for (Map.Entry<String, String> entry : data.entrySet()) {
+         assertEquals(entry.getValue(), legacy.get(entry.getKey()));
+      }
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         assertTrue(cache(i).size() < data.size());
+      }
+   }
+
+   public void testPutAllAsync() throws Exception {
+      Map<String, String> data = entries("putAllAsync", 100);
+      multiplexed.putAllAsync(data).get(10, TimeUnit.SECONDS);
+      tcp.putAllAsync(entries("putAllAsyncTcp", 100)).get(10, TimeUnit.SECONDS);
+      for (Map.Entry<String, String> entry : data.entrySet()) {
+         assertEquals(entry.getValue(), legacy.get(entry.getKey()));
+      }
+      assertEquals("putAllAsyncTcp-value-7", legacy.get("putAllAsyncTcp-key-7"));
+   }
+
+   public void testGetAll() {
+      Map<String, String> data = entries("getAll", 100);
+      legacy.putAll(data);
+      Set<String> keys = new HashSet<String>(data.keySet());
+      keys.add("getAll-missing");
+      for (RemoteCache<String, String> cache : remoteCaches()) {
+         Map<String, String> result = cache.getAll(keys);
+         assertEquals(data, result);
+         assertFalse(result.containsKey("getAll-missing"));
+      }
+      assertTrue(tcp.getAll(new HashSet<String>()).isEmpty());
+   }
+
+   public void testRemoveAll() {
+      for (RemoteCache<String, String> cache : remoteCaches()) {
+         Map<String, String> data = entries("removeAll", 100);
+         cache.putAll(data);
+         Set<String> removed = new HashSet<String>();
+         for (int i = 0; i < 50; i++) {
+            removed.add("removeAll-key-" + i);
+         }
+         cache.removeAll(removed);
+         for (Map.Entry<String, String> entry : data.entrySet()) {
+            if (removed.contains(entry.getKey())) {
+               assertNull(legacy.get(entry.getKey()));
+            } else {
+               assertEquals(entry.getValue(), legacy.get(entry.getKey()));
+            }
+         }
+      }
+   }
+
+   public void testExpiration() throws Exception {
+      Map<String, String> data = entries("expiration", 10);
+      tcp.putAll(data, 1, TimeUnit.SECONDS);
+      assertEquals(data, tcp.getAll(data.keySet()));
+      Thread.sleep(2000);
+      assertTrue(tcp.getAll(data.keySet()).isEmpty());
+   }
+
+   @SuppressWarnings("unchecked")
+   private RemoteCache<String, String>[] remoteCaches() {
+      return new RemoteCache[]{tcp, multiplexed, legacy};
+   }
+
+   private Map<String, String> entries(String prefix, int count) {
+      Map<String, String> data = new HashMap<String, String>();
+      for (int i = 0; i < count; i++) {
+         data.put(prefix + "-key-" + i, prefix + "-value-" + i);
+      }
+      return data;
+   }
+}
@@ -0,0 +1,121 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
+import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the asynchronous API tests over a {@link MultiplexedTransportFactory}, where many requests share a connection.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.MultiplexedRemoteAsyncAPITest")
+public class MultiplexedRemoteAsyncAPITest extends RemoteAsyncAPITest {
+
+   private static final int NUM_ENTRIES = 1000;
+
+   @Override
+   protected void configure(Properties props) {
+      props.put(ConfigurationProperties.TRANSPORT_FACTORY, MultiplexedTransportFactory.class.getName());
+      props.put(ConfigurationProperties.MULTIPLEXED_CONNECTIONS, "2");
+   }
+
+   public void testManyPendingRequests() throws Exception {
+      List<Future<String>> puts = new ArrayList<Future<String>>(NUM_ENTRIES);
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         puts.add(c.putAsync("key" + i, "value" + i));
+      }
+      for (Future<String> put : puts) {
+         assertNull(put.get());
+      }
+
+      List<Future<String>> gets = new ArrayList<Future<String>>(NUM_ENTRIES);
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         gets.add(c.getAsync("key" + i));
+      }
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         assertEquals("value" + i, gets.get(i).get());
+      }
+   }
+
+   public void testAsyncPutAllManyEntries() throws Exception {
+      Map<String, String> data = new HashMap<String, String>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         data.put("putAll" + i, "value" + i);
+      }
+      c.putAllAsync(data).get();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         assertEquals("value" + i, c.get("putAll" + i));
+      }
+   }
+
+   public void testConcurrentSyncAndAsyncOperations() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<Void>> results = new ArrayList<Future<Void>>();
+         for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            results.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  for (int i = 0; i < 100; i++) {
+                     String key = "thread" + thread + "-" + i;
+                     if (i % 2 == 0) {
+                        c.put(key, key);
+                     } else {
+                        c.putAsync(key, key).get();
+                     }
+                     assertEquals(key, c.getAsync(key).get());
+                     assertEquals(key, c.get(key));
+                  }
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> result : results) {
+            result.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testPing() {
+      assertEquals(PingOperation.PingResult.SUCCESS, ((RemoteCacheImpl<String, String>) c).ping());
+   }
+
+   public void testListenersNotNotifiedByIOThread() throws Exception {
+      final AtomicReference<String> notifyingThread = new AtomicReference<String>();
+      final CountDownLatch notified = new CountDownLatch(1);
+      c.putAsync("listened", "value").attachListener(new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            notifyingThread.set(Thread.currentThread().getName());
+            notified.countDown();
+         }
+      });
+      assertTrue(notified.await(10, TimeUnit.SECONDS));
+      assertFalse(notifyingThread.get(), notifyingThread.get().startsWith("HotRod-client-multiplexed"));
+   }
+}
@@ -0,0 +1,190 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.configuration.NearCacheMode;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.multiplexed.MultiplexedTransportFactory;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the near cache of the remote caches, invalidated by the server events or revalidated lazily.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends SingleCacheManagerTest {
+
+   private static final long REVALIDATION_INTERVAL = 500;
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager invalidatedRcm;
+   private RemoteCacheManager lazyRcm;
+   private RemoteCacheManager otherRcm;
+   private RemoteCache<String, String> invalidated;
+   private RemoteCache<String, String> lazy;
+   private RemoteCache<String, String> other;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+   }
+
+   @Override
+   protected void setup() throws Exception {
+      super.setup();
+      hotrodServer = TestHelper.startHotRodServer(cacheManager);
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .transportFactory(MultiplexedTransportFactory.class)
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_13)
+            .nearCache().mode(NearCacheMode.INVALIDATED).maxEntries(100);
+      invalidatedRcm = new RemoteCacheManager(builder.build());
+      invalidated = invalidatedRcm.getCache();
+
+      builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .nearCache().mode(NearCacheMode.LAZY).revalidationInterval(REVALIDATION_INTERVAL);
+      lazyRcm = new RemoteCacheManager(builder.build());
+      lazy = lazyRcm.getCache();
+
+      builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort());
+      otherRcm = new RemoteCacheManager(builder.build());
+      other = otherRcm.getCache();
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(invalidatedRcm);
+      killRemoteCacheManager(lazyRcm);
+      killRemoteCacheManager(otherRcm);
+      killServers(hotrodServer);
+   }
+
+   public void testReadsServedLocally() throws Exception {
+      invalidated.put("local", "v1");
+      waitUntilCached(invalidated, "local", "v1");
+      long hits = stat(invalidated, ServerStatistics.NEAR_CACHE_HITS);
+      for (int i = 0; i < 10; i++) {
+         assertEquals("v1", invalidated.get("local"));
+      }
+      assertEquals(hits + 10, stat(invalidated, ServerStatistics.NEAR_CACHE_HITS));
+      assertEquals("v1", invalidated.getAsync("local").get());
+      assertEquals("v1", invalidated.getVersioned("local").getValue());
+   }
+
+   public void testLocalWriteInvalidates() throws Exception {
+      invalidated.put("write", "v1");
+      waitUntilCached(invalidated, "write", "v1");
+      invalidated.put("write", "v2");
+      assertEquals("v2", invalidated.get("write"));
+      invalidated.putAsync("write", "v3").get();
+      assertEquals("v3", invalidated.get("write"));
+      invalidated.remove("write");
+      assertNull(invalidated.get("write"));
+   }
+
+   public void testRemoteWriteInvalidates() throws Exception {
+      invalidated.put("remote", "v1");
+      waitUntilCached(invalidated, "remote", "v1");
+      long invalidations = stat(invalidated, ServerStatistics.NEAR_CACHE_INVALIDATIONS);
+      other.put("remote", "v2");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v2".equals(invalidated.get("remote"));
+         }
+      });
+      assertTrue(stat(invalidated, ServerStatistics.NEAR_CACHE_INVALIDATIONS) > invalidations);
+
+      waitUntilCached(invalidated, "remote", "v2");
+      other.remove("remote");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return invalidated.get("remote") == null;
+         }
+      });
+   }
+
+   public void testRemoteClearInvalidates() throws Exception {
+      invalidated.put("clear", "v1");
+      waitUntilCached(invalidated, "clear", "v1");
+      other.clear();
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return invalidated.get("clear") == null;
+         }
+      });
+   }
+
+   public void testExpiringEntriesNotCached() throws Exception {
+      invalidated.put("lifespan", "v1", 1, TimeUnit.SECONDS);
+      invalidated.put("maxIdle", "v1", -1, TimeUnit.SECONDS, 1, TimeUnit.SECONDS);
+      long hits = stat(invalidated, ServerStatistics.NEAR_CACHE_HITS);
+      for (int i = 0; i < 3; i++) {
+         assertEquals("v1", invalidated.get("lifespan"));
+         assertEquals("v1", invalidated.get("maxIdle"));
+         assertEquals("v1", invalidated.getAsync("lifespan").get());
+      }
+      // the servers do not report the expiration, so the near cache must not serve these entries
+      assertEquals(hits, stat(invalidated, ServerStatistics.NEAR_CACHE_HITS));
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return invalidated.get("lifespan") == null;
+         }
+      });
+      Thread.sleep(1100);
+      assertNull(invalidated.get("maxIdle"));
+   }
+
+   public void testLazyRevalidation() throws Exception {
+      lazy.put("lazy", "v1");
+      assertEquals("v1", lazy.get("lazy"));
+      long hits = stat(lazy, ServerStatistics.NEAR_CACHE_HITS);
+      other.put("lazy", "v2");
+      long start = System.currentTimeMillis();
+      String value = lazy.get("lazy");
+      if (System.currentTimeMillis() - start < REVALIDATION_INTERVAL) {
+         // not revalidated yet
+         assertEquals("v1", value);
+         assertEquals(hits + 1, stat(lazy, ServerStatistics.NEAR_CACHE_HITS));
+      }
+      Thread.sleep(REVALIDATION_INTERVAL);
+      assertEquals("v2", lazy.get("lazy"));
+   }
+
+   private void waitUntilCached(final RemoteCache<String, String> cache, final String key, final String value) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            long hits = stat(cache, ServerStatistics.NEAR_CACHE_HITS);
+            assertEquals(value, cache.get(key));
+            return stat(cache, ServerStatistics.NEAR_CACHE_HITS) > hits;
+         }
+      });
+   }
+
+   private long stat(RemoteCache<String, String> cache, String name) {
+      return Long.parseLong(cache.stats().getStatistic(name));
+   }
+}
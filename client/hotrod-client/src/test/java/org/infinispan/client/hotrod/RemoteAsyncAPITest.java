@@ -25,7 +25,7 @@
 public class RemoteAsyncAPITest extends SingleCacheManagerTest {
    private HotRodServer hotrodServer;
    private RemoteCacheManager rcm;
-   private RemoteCache<String, String> c;
+   protected RemoteCache<String, String> c;
 
    @Override
    protected EmbeddedCacheManager createCacheManager() throws Exception {
@@ -41,10 +41,14 @@ protected void setup() throws Exception {
       props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
       props.put("infinispan.client.hotrod.force_return_values","true");
       props.put("testOnBorrow", "false");
+      configure(props);
       rcm = new RemoteCacheManager(props);
       c = rcm.getCache(true);
    }
 
+   protected void configure(Properties props) {
+   }
+
    @AfterClass
    @Override
    protected void destroyAfterClass() {
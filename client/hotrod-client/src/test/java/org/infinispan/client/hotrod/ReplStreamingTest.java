@@ -0,0 +1,95 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.streaming.ChunkStore;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the values streamed to a replicated cluster, where the client has no consistent hash to pick the server of a
+ * key and balances its requests across the servers: the chunks of a stream must all go to the server which started it.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.ReplStreamingTest")
+public class ReplStreamingTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, Object> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createHotRodServers(NUM_SERVERS, hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false)));
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      remoteCacheManager = new RemoteCacheManager(builder.build());
+      remoteCache = remoteCacheManager.getCache();
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      super.destroy();
+   }
+
+   public void testPutAndGet() throws IOException {
+      // learns the topology, the following requests being spread across all the servers
+      remoteCache.put("topology", "learnt");
+      TransportFactory transportFactory = (TransportFactory) TestingUtil.extractField(remoteCacheManager, "transportFactory");
+      assertEquals(NUM_SERVERS, transportFactory.getServers().size());
+
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         byte[] data = randomBytes(ChunkStore.CHUNK_SIZE * 4 + i);
+         OutputStream out = remoteCache.putAsStream("k" + i);
+         out.write(data);
+         out.close();
+
+         assertTrue(Arrays.equals(data, readFully(remoteCache.getAsStream("k" + i))));
+      }
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         // each value is stored as a single entry, replicated to every node
+         assertEquals(NUM_SERVERS + 1, cache(i).size());
+         assertEquals(0, server(i).getStreamManager().getStreamCount());
+         assertEquals(0, server(i).getStreamManager().getBufferedBytes());
+      }
+   }
+
+   private byte[] randomBytes(int length) {
+      byte[] bytes = new byte[length];
+      new Random(length).nextBytes(bytes);
+      return bytes;
+   }
+
+   private byte[] readFully(InputStream in) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1000];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+         bytes.write(buffer, 0, n);
+      }
+      in.close();
+      return bytes.toByteArray();
+   }
+}
@@ -0,0 +1,51 @@
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
+import org.testng.annotations.Test;
+
+/**
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "client.hotrod.SegmentConsistentHashTest")
+public class SegmentConsistentHashTest {
+
+   private final SocketAddress a1 = new InetSocketAddress(1);
+   private final SocketAddress a2 = new InetSocketAddress(2);
+   private final SocketAddress a3 = new InetSocketAddress(3);
+
+   public void testInitFromServerSegments() {
+      Map<SocketAddress, Set<Integer>> servers2Segments = new LinkedHashMap<SocketAddress, Set<Integer>>();
+      servers2Segments.put(a1, new HashSet<Integer>(Arrays.asList(0, 1)));
+      servers2Segments.put(a2, new HashSet<Integer>(Arrays.asList(1, 2)));
+      servers2Segments.put(a3, new HashSet<Integer>(Arrays.asList(0, 1, 2)));
+      SegmentConsistentHash hash = new SegmentConsistentHash();
+      hash.init(servers2Segments, 2, 4);
+
+      assertEquals(4, hash.getNumSegments());
+      assertEquals(Arrays.asList(a1, a3), Arrays.asList(hash.getSegmentOwners(0)));
+      assertEquals(Arrays.asList(a1, a2), Arrays.asList(hash.getSegmentOwners(1)));
+      assertEquals(Arrays.asList(a2, a3), Arrays.asList(hash.getSegmentOwners(2)));
+      assertEquals(0, hash.getSegmentOwners(3).length);
+
+      byte[] key = {1, 2, 3};
+      SocketAddress[] owners = hash.getSegmentOwners(hash.getSegment(key));
+      assertEquals(owners.length == 0 ? null : owners[0], hash.getServer(key));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testSegmentOutOfHashSpace() {
+      Map<SocketAddress, Set<Integer>> servers2Segments = new LinkedHashMap<SocketAddress, Set<Integer>>();
+      servers2Segments.put(a1, new HashSet<Integer>(Arrays.asList(5)));
+      new SegmentConsistentHash().init(servers2Segments, 2, 4);
+   }
+}
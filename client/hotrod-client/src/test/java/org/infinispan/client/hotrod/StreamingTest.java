@@ -0,0 +1,170 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.streaming.ChunkStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the values written and read as streams, in chunks, and stored by the server as single entries.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.StreamingTest")
+public class StreamingTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, Object> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+   }
+
+   @Override
+   protected void setup() throws Exception {
+      super.setup();
+      hotrodServer = TestHelper.startHotRodServer(cacheManager);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(hotrodServer.getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      remoteCacheManager = new RemoteCacheManager(builder.build());
+      remoteCache = remoteCacheManager.getCache();
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(remoteCacheManager);
+      killServers(hotrodServer);
+   }
+
+   public void testPutAndGet() throws IOException {
+      remoteCache.clear();
+      byte[] data = randomBytes(ChunkStore.CHUNK_SIZE * 5 + 123);
+      OutputStream out = remoteCache.putAsStream("k");
+      // both single bytes and arrays, across the chunk boundaries
+      out.write(data, 0, 1000);
+      for (int i = 1000; i < 2000; i++) {
+         out.write(data[i]);
+      }
+      out.write(data, 2000, data.length - 2000);
+      assertNull(remoteCache.getAsStream("k"));
+      out.close();
+
+      assertTrue(Arrays.equals(data, readFully(remoteCache.getAsStream("k"))));
+      // the value is stored as a single entry, as written
+      assertEquals(1, cache.size());
+      assertTrue(Arrays.equals(data, (byte[]) cache.values().iterator().next()));
+      assertEquals(0, hotrodServer.getStreamManager().getStreamCount());
+
+      out = remoteCache.putAsStream("k");
+      out.write(data, 0, 10);
+      out.close();
+      assertTrue(Arrays.equals(Arrays.copyOf(data, 10), readFully(remoteCache.getAsStream("k"))));
+      assertEquals(1, cache.size());
+
+      remoteCache.putAsStream("k").close();
+      assertEquals(-1, remoteCache.getAsStream("k").read());
+      assertEquals(1, cache.size());
+   }
+
+   public void testOverwriteAndRemoveLeaveNothing() throws IOException {
+      remoteCache.clear();
+      OutputStream out = remoteCache.putAsStream("replaced");
+      out.write(randomBytes(ChunkStore.CHUNK_SIZE * 3));
+      out.close();
+      remoteCache.put("replaced", "plain");
+      assertEquals(1, cache.size());
+      assertEquals("plain", remoteCache.get("replaced"));
+
+      out = remoteCache.putAsStream("removed");
+      out.write(randomBytes(ChunkStore.CHUNK_SIZE * 3));
+      out.close();
+      remoteCache.remove("removed");
+      assertNull(remoteCache.getAsStream("removed"));
+      assertEquals(1, cache.size());
+   }
+
+   public void testUnclosedStreamNotStored() throws IOException {
+      OutputStream out = remoteCache.putAsStream("unclosed");
+      out.write(randomBytes(ChunkStore.CHUNK_SIZE * 2));
+      assertNull(remoteCache.getAsStream("unclosed"));
+      assertEquals(1, hotrodServer.getStreamManager().getStreamCount());
+      // the server keeps the chunks until the stream is closed or dropped, never as entries of the cache
+      out.close();
+      assertEquals(0, hotrodServer.getStreamManager().getStreamCount());
+      assertEquals(ChunkStore.CHUNK_SIZE * 2, readFully(remoteCache.getAsStream("unclosed")).length);
+   }
+
+   public void testMissingKey() {
+      assertNull(remoteCache.getAsStream("missing"));
+   }
+
+   @Test(expectedExceptions = UnsupportedOperationException.class)
+   public void testRequiresProtocolVersion() {
+      RemoteCacheManager oldProtocol = new RemoteCacheManager("localhost", hotrodServer.getPort());
+      try {
+         oldProtocol.getCache().putAsStream("k");
+      } finally {
+         killRemoteCacheManager(oldProtocol);
+      }
+   }
+
+   public void testValueOverwrittenWhileRead() throws IOException {
+      OutputStream out = remoteCache.putAsStream("overwritten");
+      out.write(randomBytes(ChunkStore.CHUNK_SIZE * 2));
+      out.close();
+      InputStream in = remoteCache.getAsStream("overwritten");
+      assertEquals(ChunkStore.CHUNK_SIZE, in.read(new byte[ChunkStore.CHUNK_SIZE * 2]));
+
+      out = remoteCache.putAsStream("overwritten");
+      out.write(1);
+      out.close();
+      try {
+         in.read();
+         fail("The stream should fail rather than mixing two values");
+      } catch (IOException e) {
+         // expected
+      }
+   }
+
+   private byte[] randomBytes(int length) {
+      byte[] bytes = new byte[length];
+      new Random(length).nextBytes(bytes);
+      return bytes;
+   }
+
+   private byte[] readFully(InputStream in) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1000];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+         bytes.write(buffer, 0, n);
+      }
+      in.close();
+      return bytes.toByteArray();
+   }
+}
@@ -0,0 +1,149 @@
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.test.MultiHotRodServersTest;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.server.hotrod.ServerTask;
+import org.testng.annotations.Test;
+
+/**
+ * Tests running the tasks registered on the servers of a distributed cache with
+ * {@link RemoteCache#executeOnKey(String, Object, Object)} and {@link RemoteCache#executeOnKeys(String, Set, Object)}.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "client.hotrod.TaskExecutionDistTest")
+public class TaskExecutionDistTest extends MultiHotRodServersTest {
+
+   private static final int NUM_SERVERS = 3;
+   private static final long REPL_TIMEOUT = 2000;
+
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      org.infinispan.configuration.cache.ConfigurationBuilder cacheBuilder =
+            hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false));
+      cacheBuilder.clustering().sync().replTimeout(REPL_TIMEOUT);
+      createHotRodServers(NUM_SERVERS, cacheBuilder);
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         server(i).addTask("append", new AppendTask());
+         server(i).addTask("hang", new HangingTask());
+      }
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.addServer().host("127.0.0.1").port(server(0).getPort())
+            .protocolVersion(ConfigurationProperties.PROTOCOL_VERSION_14);
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(builder.build());
+      clients.add(remoteCacheManager);
+      remoteCache = remoteCacheManager.getCache();
+   }
+
+   public void testExecuteOnKey() {
+      remoteCache.put("k1", "v");
+      Integer updated = remoteCache.executeOnKey("append", "k1", "-suffix");
+      assertEquals(1, (int) updated);
+      assertEquals("v-suffix", remoteCache.get("k1"));
+   }
+
+   public void testExecuteOnKeys() {
+      Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < 20; i++) {
+         keys.add("key" + i);
+         remoteCache.put("key" + i, "v" + i);
+      }
+      keys.add("missing");
+      List<Integer> updated = remoteCache.executeOnKeys("append", keys, "!");
+      int total = 0;
+      for (Integer count : updated) {
+         total += count;
+      }
+      // Each owner has only updated the keys it is the primary owner of
+      assertEquals(20, total);
+      for (int i = 0; i < 20; i++) {
+         assertEquals("v" + i + "!", remoteCache.get("key" + i));
+      }
+      assertNull(remoteCache.get("missing"));
+   }
+
+   @Test(expectedExceptions = HotRodClientException.class)
+   public void testUnknownTask() {
+      remoteCache.executeOnKey("unknown", "k2", null);
+   }
+
+   public void testHungTaskTimesOut() {
+      long start = System.currentTimeMillis();
+      try {
+         remoteCache.executeOnKey("hang", "k3", null);
+         fail("The task should have timed out");
+      } catch (HotRodClientException e) {
+         // the server has given up waiting for the owner and answered with an error
+         assertTrue(System.currentTimeMillis() - start < REPL_TIMEOUT * 5);
+      } finally {
+         HangingTask.release.countDown();
+      }
+   }
+
+   /**
+    * Never returns, unless interrupted or released by the test.
+    */
+   private static class HangingTask implements ServerTask {
+
+      static final CountDownLatch release = new CountDownLatch(1);
+
+      @Override
+      public byte[] execute(AdvancedCache<byte[], byte[]> cache, Set<byte[]> keys, byte[] parameter) {
+         try {
+            release.await(1, TimeUnit.MINUTES);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         return null;
+      }
+   }
+
+   /**
+    * Appends the parameter to the values of the keys owned, returning how many were updated.
+    */
+   private static class AppendTask implements ServerTask {
+
+      private final GenericJBossMarshaller marshaller = new GenericJBossMarshaller();
+
+      @Override
+      public byte[] execute(AdvancedCache<byte[], byte[]> cache, Set<byte[]> keys, byte[] parameter) {
+         try {
+            String suffix = (String) marshaller.objectFromByteBuffer(parameter);
+            int updated = 0;
+            for (byte[] key : keys) {
+               if (!cache.getDistributionManager().getPrimaryLocation(key).equals(cache.getCacheManager().getAddress())) {
+                  throw new IllegalStateException("Task run on a server which is not the primary owner");
+               }
+               byte[] value = cache.get(key);
+               if (value != null) {
+                  String appended = marshaller.objectFromByteBuffer(value) + suffix;
+                  cache.put(key, marshaller.objectToByteBuffer(appended));
+                  updated++;
+               }
+            }
+            return marshaller.objectToByteBuffer(updated);
+         } catch (Exception e) {
+            throw new RuntimeException(e);
+         }
+      }
+   }
+}
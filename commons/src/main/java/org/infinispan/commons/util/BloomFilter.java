@@ -0,0 +1,141 @@
+package org.infinispan.commons.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.commons.hash.MurmurHash3;
+
+/**
+ * A thread safe Bloom filter: a compact set of objects which answers membership queries with no false negatives and a
+ * bounded rate of false positives. Objects cannot be removed from the filter.
+ * <p/>
+ * The positions of an object in the bit set are derived from two {@link MurmurHash3} hashes of the object by double
+ * hashing, so equal objects must have equal hash codes (or be byte arrays or strings with the same contents).
+ *
+ * @since 6.0
+ */
+public final class BloomFilter {
+
+   private static final double LN2 = Math.log(2);
+   private static final int MAX_BITS = Integer.MAX_VALUE - 63;
+
+   private final Hash hash = new MurmurHash3();
+   private final AtomicLongArray words;
+   private final int numBits;
+   private final int numHashes;
+
+   private BloomFilter(int numBits, int numHashes) {
+      this.words = new AtomicLongArray((numBits + 63) >>> 6);
+      this.numBits = words.length() << 6;
+      this.numHashes = numHashes;
+   }
+
+   /**
+    * Creates a filter sized so that its false positive probability is the given one when it holds the expected number
+    * of objects.
+    *
+    * @param expectedInsertions       the number of objects the filter is sized for
+    * @param falsePositiveProbability the false positive probability once the filter holds that many objects
+    */
+   public static BloomFilter create(int expectedInsertions, double falsePositiveProbability) {
+      if (expectedInsertions < 1)
+         throw new IllegalArgumentException("The expected number of insertions must be strictly positive");
+      if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1)
+         throw new IllegalArgumentException("The false positive probability must be between 0 and 1");
+      double bits = Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (LN2 * LN2));
+      int numBits = (int) Math.min(bits, MAX_BITS);
+      int numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * LN2));
+      return new BloomFilter(numBits, numHashes);
+   }
+
+   /**
+    * Adds an object to the filter.
+    */
+   public void add(Object o) {
+      int h1 = hash.hash(o);
+      int h2 = secondHash(h1);
+      for (int i = 0; i < numHashes; i++) {
+         int bit = bitIndex(h1, h2, i);
+         int word = bit >>> 6;
+         long mask = 1L << bit;
+         long current;
+         while (((current = words.get(word)) & mask) == 0) {
+            if (words.compareAndSet(word, current, current | mask))
+               break;
+         }
+      }
+   }
+
+   /**
+    * Checks whether an object might have been added to the filter.
+    *
+    * @return false if the object was definitely never added, true if it may have been
+    */
+   public boolean mightContain(Object o) {
+      int h1 = hash.hash(o);
+      int h2 = secondHash(h1);
+      for (int i = 0; i < numHashes; i++) {
+         int bit = bitIndex(h1, h2, i);
+         if ((words.get(bit >>> 6) & (1L << bit)) == 0)
+            return false;
+      }
+      return true;
+   }
+
+   /**
+    * @return the number of bits set in the filter. This method scans the whole filter.
+    */
+   public long bitCount() {
+      long count = 0;
+      for (int i = 0; i < words.length(); i++) {
+         count += Long.bitCount(words.get(i));
+      }
+      return count;
+   }
+
+   /**
+    * Estimates the current false positive probability from the fraction of bits set, which grows with the number of
+    * distinct objects added. This method scans the whole filter.
+    */
+   public double expectedFalsePositiveProbability() {
+      return Math.pow((double) bitCount() / numBits, numHashes);
+   }
+
+   /**
+    * @return the size of the filter in bits
+    */
+   public int getNumBits() {
+      return numBits;
+   }
+
+   /**
+    * @return the number of bits set for each object
+    */
+   public int getNumHashes() {
+      return numHashes;
+   }
+
+   /**
+    * @return the approximate memory used by the bit set, in bytes
+    */
+   public long getMemorySize() {
+      return (long) words.length() << 3;
+   }
+
+   private int secondHash(int h1) {
+      // a zero step would map all the hash functions to the same bit
+      return hash.hash(h1) | 1;
+   }
+
+   private int bitIndex(int h1, int h2, int i) {
+      return ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+   }
+
+   @Override
+   public String toString() {
+      return "BloomFilter{" +
+            "numBits=" + numBits +
+            ", numHashes=" + numHashes +
+            '}';
+   }
+}
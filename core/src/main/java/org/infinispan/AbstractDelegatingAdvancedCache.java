@@ -1,6 +1,7 @@
 package org.infinispan;
 
 import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.ValueMerge;
 import org.infinispan.batch.BatchContainer;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.CacheEntry;
@@ -21,6 +22,7 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Similar to {@link org.infinispan.AbstractDelegatingCache}, but for {@link AdvancedCache}.
@@ -181,6 +183,21 @@ public CacheEntry getCacheEntry(K key) {
       return cache.getCacheEntry(key);
    }
 
+
+   @Override
+   public Map<K, CacheEntry> getAllCacheEntries(Collection<? extends K> keys) {
+      return cache.getAllCacheEntries(keys);
+   }
+
+   @Override
+   public V merge(K key, ValueMerge<V> merge) {
+      return cache.merge(key, merge);
+   }
+
+   @Override
+   public V merge(K key, ValueMerge<V> merge, Metadata metadata) {
+      return cache.merge(key, merge, metadata);
+   }
    @Override
    public V put(K key, V value, Metadata metadata) {
       return cache.put(key, value, metadata);
@@ -201,6 +218,11 @@ public V putIfAbsent(K key, V value, Metadata metadata) {
       return cache.putIfAbsent(key, value, metadata);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      cache.putAll(map, metadata);
+   }
+
    @Override
    public NotifyingFuture<V> putAsync(K key, V value, Metadata metadata) {
       return cache.putAsync(key, value, metadata);
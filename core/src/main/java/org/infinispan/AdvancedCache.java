@@ -1,6 +1,7 @@
 package org.infinispan;
 
 import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.ValueMerge;
 import org.infinispan.batch.BatchContainer;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.CacheEntry;
@@ -21,6 +22,7 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An advanced interface that exposes additional methods not available on {@link Cache}.
@@ -347,6 +349,19 @@
     */
    V putIfAbsent(K key, V value, Metadata metadata);
 
+   /**
+    * An overloaded form of {@link #putAll(Map)}, which takes in an instance of
+    * {@link Metadata} which is stored alongside each of the values, such as
+    * lifespan, version of value...etc. All the entries are written by a
+    * single command.
+    *
+    * @param map mappings to be stored in this map
+    * @param metadata information to store alongside the values
+    *
+    * @since 6.0
+    */
+   void putAll(Map<? extends K, ? extends V> map, Metadata metadata);
+
    /**
     * Asynchronous version of {@link #put(Object, Object, Metadata)} which stores
     * metadata alongside the value.  This method does not block on remote calls,
@@ -377,4 +392,43 @@
     */
    CacheEntry getCacheEntry(K key);
 
+   /**
+    * Retrieves the CacheEntry of each of the given keys. In a distributed cache the keys owned by other nodes are read
+    * with a single remote call per owner, the calls being made in parallel, rather than with a remote call per key.
+    * Entries read this way are not stored in L1.
+    *
+    * @param keys the keys whose associated cache entries are to be returned
+    * @return a map containing the cache entry of each key mapped in this cache
+    *
+    * @since 6.0
+    */
+   Map<K, CacheEntry> getAllCacheEntries(Collection<? extends K> keys);
+
+   /**
+    * Applies a merge to the value associated with a key, e.g. to increment a counter. The merge is applied by the
+    * primary owner of the key in a distributed cache, and the merges of a key are applied there one after the other,
+    * so that concurrent merges, even if issued from different nodes, are neither lost nor retried. In other cache
+    * modes the merge is applied locally with a conditional write, retried if the value is concurrently modified.
+    * <p/>
+    * A merge is never applied twice: if the primary owner leaves the cluster before replying, it may have applied the
+    * merge and a {@link org.infinispan.remoting.transport.jgroups.SuspectException} is thrown rather than the merge
+    * being sent to the new primary owner. A merge which can't be applied within the replication timeout fails with a
+    * {@link org.infinispan.util.concurrent.TimeoutException}.
+    *
+    * @param key key whose value is merged
+    * @param merge the merge to apply, which is sent to the primary owner if it is a different node
+    * @return the value associated with the key after the merge, or {@code null} if there is none
+    *
+    * @since 6.0
+    */
+   V merge(K key, ValueMerge<V> merge);
+
+   /**
+    * Applies a merge to the value associated with a key, the written value getting the given metadata.
+    *
+    * @see #merge(Object, ValueMerge)
+    * @since 6.0
+    */
+   V merge(K key, ValueMerge<V> merge, Metadata metadata);
+
 }
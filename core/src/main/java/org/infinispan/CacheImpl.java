@@ -1,6 +1,7 @@
 package org.infinispan;
 
 import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.ValueMerge;
 import org.infinispan.batch.BatchContainer;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.VisitableCommand;
@@ -10,6 +11,8 @@
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
+import org.infinispan.commands.remote.MergeCommand;
 import org.infinispan.commands.write.ApplyDeltaCommand;
 import org.infinispan.commands.write.ClearCommand;
 import org.infinispan.commands.write.EvictCommand;
@@ -23,6 +26,7 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
@@ -50,18 +54,26 @@
 import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.remoting.responses.CacheNotFoundResponse;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.stats.Stats;
 import org.infinispan.stats.StatsImpl;
 import org.infinispan.transaction.TransactionCoordinator;
 import org.infinispan.transaction.TransactionTable;
 import org.infinispan.transaction.xa.TransactionXaAdapter;
 import org.infinispan.transaction.xa.recovery.RecoveryManager;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.AbstractInProcessNotifyingFuture;
 import org.infinispan.util.concurrent.LegacyNotifyingFutureAdaptor;
 import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.commons.util.concurrent.NotifyingFutureAdaptor;
 import org.infinispan.util.concurrent.locks.LockManager;
+import org.infinispan.util.concurrent.locks.StripedLock;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -70,9 +82,13 @@
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 import javax.transaction.xa.XAResource;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -123,6 +139,10 @@
    private TransactionCoordinator txCoordinator;
    private GlobalConfiguration globalCfg;
    private boolean isClassLoaderInContext;
+   private static final long MIN_MERGE_RETRY_DELAY = 10;
+   private static final long MAX_MERGE_RETRY_DELAY = 1000;
+   private final StripedLock mergeLocks = new StripedLock();
+   private TimeService timeService;
 
    public CacheImpl(String name) {
       this.name = name;
@@ -145,9 +165,10 @@ public void injectDependencies(EvictionManager evictionManager,
                                   @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor,
                                   TransactionTable txTable, RecoveryManager recoveryManager, TransactionCoordinator txCoordinator,
                                   LockManager lockManager,
-                                  GlobalConfiguration globalCfg) {
+                                  GlobalConfiguration globalCfg, TimeService timeService) {
       this.commandsFactory = commandsFactory;
       this.invoker = interceptorChain;
+      this.timeService = timeService;
       this.config = configuration;
       this.notifier = notifier;
       this.componentRegistry = componentRegistry;
@@ -384,6 +405,245 @@ public final CacheEntry getCacheEntry(K key) {
       return getCacheEntry(key, null, null);
    }
 
+   @Override
+   public final Map<K, CacheEntry> getAllCacheEntries(Collection<? extends K> keys) {
+      return getAllCacheEntries(keys, null, null);
+   }
+
+   final Map<K, CacheEntry> getAllCacheEntries(Collection<? extends K> keys, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      Map<K, CacheEntry> entries = new HashMap<K, CacheEntry>(keys.size());
+      Map<Address, List<K>> remoteKeys = null;
+      List<K> localKeys = null;
+      if (keys.size() > 1 && isBatchedRemoteLookup(explicitFlags)) {
+         // Keys owned by other nodes are read with a single command per primary owner
+         remoteKeys = new HashMap<Address, List<K>>();
+         localKeys = new ArrayList<K>();
+         for (K key : keys) {
+            assertKeyNotNull(key);
+            if (distributionManager.getLocality(key).isLocal()) {
+               localKeys.add(key);
+            } else {
+               Address owner = distributionManager.getPrimaryLocation(key);
+               List<K> ownerKeys = remoteKeys.get(owner);
+               if (ownerKeys == null) {
+                  ownerKeys = new ArrayList<K>();
+                  remoteKeys.put(owner, ownerKeys);
+               }
+               ownerKeys.add(key);
+            }
+         }
+      }
+      if (remoteKeys == null || remoteKeys.isEmpty()) {
+         getCacheEntries(keys, entries, explicitFlags, explicitClassLoader);
+         return entries;
+      }
+
+      // The calling thread reads the local keys and those of one owner while the others are read in parallel
+      Iterator<Map.Entry<Address, List<K>>> owners = remoteKeys.entrySet().iterator();
+      Map.Entry<Address, List<K>> firstOwner = owners.next();
+      List<List<K>> ownerKeys = new ArrayList<List<K>>(remoteKeys.size() - 1);
+      List<Future<List<InternalCacheValue>>> ownerValues = new ArrayList<Future<List<InternalCacheValue>>>(remoteKeys.size() - 1);
+      while (owners.hasNext()) {
+         final Map.Entry<Address, List<K>> owner = owners.next();
+         final EnumSet<Flag> flags = explicitFlags;
+         ownerKeys.add(owner.getValue());
+         ownerValues.add(asyncExecutor.submit(new Callable<List<InternalCacheValue>>() {
+            @Override
+            public List<InternalCacheValue> call() throws Exception {
+               return getAllRemotely(owner.getKey(), owner.getValue(), flags);
+            }
+         }));
+      }
+      getCacheEntries(localKeys, entries, explicitFlags, explicitClassLoader);
+      List<InternalCacheValue> firstOwnerValues;
+      try {
+         firstOwnerValues = getAllRemotely(firstOwner.getKey(), firstOwner.getValue(), explicitFlags);
+      } catch (CacheException e) {
+         if (trace) log.tracef(e, "Could not read keys from %s", firstOwner.getKey());
+         firstOwnerValues = null;
+      }
+      addRemoteEntries(firstOwner.getValue(), firstOwnerValues, entries, explicitFlags, explicitClassLoader);
+      for (int i = 0; i < ownerValues.size(); i++) {
+         List<InternalCacheValue> values;
+         try {
+            values = ownerValues.get(i).get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(e);
+         } catch (ExecutionException e) {
+            if (trace) log.tracef(e.getCause(), "Could not read keys %s remotely", ownerKeys.get(i));
+            values = null;
+         }
+         addRemoteEntries(ownerKeys.get(i), values, entries, explicitFlags, explicitClassLoader);
+      }
+      return entries;
+   }
+
+   private boolean isBatchedRemoteLookup(EnumSet<Flag> flags) {
+      if (!config.clustering().cacheMode().isDistributed()) {
+         // in these cluster modes we won't RPC for a get
+         return false;
+      } else if (flags != null && (flags.contains(Flag.SKIP_REMOTE_LOOKUP) || flags.contains(Flag.CACHE_MODE_LOCAL))) {
+         return false;
+      }
+      // reads within a transaction must go through the transaction's context
+      return getOngoingTransaction() == null;
+   }
+
+   private void getCacheEntries(Collection<? extends K> keys, Map<K, CacheEntry> entries, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      for (K key : keys) {
+         CacheEntry entry = getCacheEntry(key, explicitFlags, explicitClassLoader);
+         if (entry != null)
+            entries.put(key, entry);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private List<InternalCacheValue> getAllRemotely(Address owner, List<K> keys, EnumSet<Flag> explicitFlags) {
+      ClusteredGetAllCommand command = commandsFactory.buildClusteredGetAllCommand(new ArrayList<Object>(keys), explicitFlags);
+      Map<Address, Response> responses = rpcManager.invokeRemotely(Collections.singleton(owner), command,
+            rpcManager.getDefaultRpcOptions(true));
+      Response response = responses.get(owner);
+      if (response instanceof SuccessfulResponse)
+         return (List<InternalCacheValue>) ((SuccessfulResponse) response).getResponseValue();
+      return null;
+   }
+
+   private void addRemoteEntries(List<K> keys, List<InternalCacheValue> values, Map<K, CacheEntry> entries,
+         EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      if (values == null) {
+         // the owner could not answer for all the keys, e.g. during a rehash
+         getCacheEntries(keys, entries, explicitFlags, explicitClassLoader);
+      } else {
+         for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            InternalCacheValue value = values.get(i);
+            CacheEntry entry = getFetchedCacheEntry(key, value == null ? null : value.toInternalCacheEntry(key),
+                                                    explicitFlags, explicitClassLoader);
+            if (entry != null)
+               entries.put(key, entry);
+         }
+      }
+   }
+
+   /**
+    * Reads an entry fetched from its owner through the interceptor chain, without looking it up remotely again, so
+    * that it counts as a hit or a miss and notifies the listeners like any other get.
+    */
+   private CacheEntry getFetchedCacheEntry(K key, InternalCacheEntry fetched, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
+      if (fetched != null)
+         ctx.putLookedUpEntry(key, fetched);
+      EnumSet<Flag> flags = explicitFlags == null ? EnumSet.noneOf(Flag.class) : EnumSet.copyOf(explicitFlags);
+      flags.add(SKIP_REMOTE_LOOKUP);
+      GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, flags, true);
+      return (CacheEntry) invoker.invoke(ctx, command);
+   }
+
+   @Override
+   public final V merge(K key, ValueMerge<V> merge) {
+      return merge(key, merge, defaultMetadata, null, null);
+   }
+
+   @Override
+   public final V merge(K key, ValueMerge<V> merge, Metadata metadata) {
+      return merge(key, merge, metadata, null, null);
+   }
+
+   @SuppressWarnings("unchecked")
+   final V merge(K key, ValueMerge<V> merge, Metadata metadata, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      assertKeyNotNull(key);
+      if (explicitFlags != null && explicitFlags.contains(Flag.IGNORE_RETURN_VALUES)) {
+         // the conditional writes need the previous values
+         explicitFlags = EnumSet.copyOf(explicitFlags);
+         explicitFlags.remove(Flag.IGNORE_RETURN_VALUES);
+      }
+      long timeout = config.clustering().sync().replTimeout();
+      long endTime = timeService.expectedEndTime(timeout, TimeUnit.MILLISECONDS);
+      long retryDelay = MIN_MERGE_RETRY_DELAY;
+      while (true) {
+         if (timeService.isTimeExpired(endTime))
+            throw new TimeoutException("Unable to merge key " + key + " within " + timeout + " milliseconds");
+         Address primary = getMergeOwner(key, explicitFlags);
+         if (primary != null) {
+            Response response = mergeRemotely(primary, key, merge, metadata, explicitFlags);
+            if (response instanceof SuccessfulResponse)
+               return (V) ((SuccessfulResponse) response).getResponseValue();
+            if (!(response instanceof CacheNotFoundResponse))
+               throw new CacheException("Unable to merge key " + key + " on " + primary + ", unexpected response " + response);
+            // the merge wasn't applied, the primary owner isn't running the cache yet or any more
+            if (trace) log.tracef("Could not merge key %s on %s: %s", key, primary, response);
+            retryDelay = awaitMergeRetry(endTime, retryDelay);
+            continue;
+         }
+         // merges of the same key applied by this node don't conflict with each other, only with other writes
+         Integer stripe = config.dataContainer().keyEquivalence().hashCode(key);
+         mergeLocks.acquireLock(stripe, true);
+         try {
+            CacheEntry entry = getCacheEntry(key, explicitFlags, explicitClassLoader);
+            V value = entry == null ? null : (V) entry.getValue();
+            V merged = merge.merge(value);
+            if (merged == value)
+               return value;
+            if (value == null) {
+               if (putIfAbsent(key, merged, metadata, explicitFlags, explicitClassLoader) == null)
+                  return merged;
+            } else if (merged == null) {
+               if (remove(key, value, explicitFlags, explicitClassLoader))
+                  return null;
+            } else if (replace(key, value, merged, metadata, explicitFlags, explicitClassLoader)) {
+               return merged;
+            }
+            if (trace) log.tracef("Key %s was modified concurrently, merging it again", key);
+         } finally {
+            mergeLocks.releaseLock(stripe);
+         }
+      }
+   }
+
+   /**
+    * Returns the node which applies the merges of the given key if it is not this node, or null if this node applies
+    * the merge itself.
+    */
+   private Address getMergeOwner(K key, EnumSet<Flag> flags) {
+      if (!config.clustering().cacheMode().isDistributed()) {
+         return null;
+      } else if (flags != null && flags.contains(Flag.CACHE_MODE_LOCAL)) {
+         return null;
+      } else if (getOngoingTransaction() != null) {
+         // writes within a transaction are applied when the transaction commits
+         return null;
+      }
+      Address primary = distributionManager.getPrimaryLocation(key);
+      return primary.equals(rpcManager.getAddress()) ? null : primary;
+   }
+
+   /**
+    * Sends the merge to the primary owner of the key. A {@link SuspectException} is not retried: the primary owner may
+    * have applied the merge before leaving, and the merge isn't necessarily idempotent.
+    */
+   private Response mergeRemotely(Address primary, K key, ValueMerge<V> merge, Metadata metadata, EnumSet<Flag> explicitFlags) {
+      MergeCommand command = commandsFactory.buildMergeCommand(key, merge, metadata, explicitFlags);
+      Map<Address, Response> responses = rpcManager.invokeRemotely(Collections.singleton(primary), command,
+            rpcManager.getDefaultRpcOptions(true));
+      return responses.get(primary);
+   }
+
+   /**
+    * Waits before sending a merge again, doubling the delay for the next retry.
+    *
+    * @return the delay of the next retry
+    */
+   private long awaitMergeRetry(long endTime, long retryDelay) {
+      try {
+         Thread.sleep(Math.min(retryDelay, timeService.remainingTime(endTime, TimeUnit.MILLISECONDS)));
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while merging", e);
+      }
+      return Math.min(retryDelay * 2, MAX_MERGE_RETRY_DELAY);
+   }
+
    @Override
    public final V remove(Object key) {
       return remove(key, null, null);
@@ -1364,6 +1624,11 @@ public V replace(K key, V value, Metadata metadata) {
       return replace(key, value, metadata, null, null);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      putAll(map, metadata, null, null);
+   }
+
    @Override
    public boolean replace(K key, V oldValue, V value, Metadata metadata) {
       return replace(key, oldValue, value, metadata, null, null);
@@ -13,6 +13,7 @@
 
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.context.Flag;
+import org.infinispan.atomic.ValueMerge;
 import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.ClassLoaderAwareListenable;
@@ -470,6 +471,11 @@ public V put(K key, V value, Metadata metadata) {
       return cacheImplementation.put(key, value, metadata, flags, classLoader.get());
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      cacheImplementation.putAll(map, metadata, flags, classLoader.get());
+   }
+
    @Override
    public NotifyingFuture<V> putAsync(K key, V value, Metadata metadata) {
       return cacheImplementation.putAsync(key, value, metadata, flags, classLoader.get());
@@ -495,4 +501,19 @@ public CacheEntry getCacheEntry(K key) {
       return cacheImplementation.getCacheEntry(key, flags, classLoader.get());
    }
 
+
+   @Override
+   public Map<K, CacheEntry> getAllCacheEntries(Collection<? extends K> keys) {
+      return cacheImplementation.getAllCacheEntries(keys, flags, classLoader.get());
+   }
+
+   @Override
+   public V merge(K key, ValueMerge<V> merge) {
+      return cacheImplementation.merge(key, merge, cacheImplementation.defaultMetadata, flags, classLoader.get());
+   }
+
+   @Override
+   public V merge(K key, ValueMerge<V> merge, Metadata metadata) {
+      return cacheImplementation.merge(key, merge, metadata, flags, classLoader.get());
+   }
 }
@@ -0,0 +1,55 @@
+package org.infinispan.atomic;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+
+/**
+ * A helper that updates counters stored as {@link Long} values in a cache. The updates are applied on the primary
+ * owner of each counter with {@link AdvancedCache#merge(Object, ValueMerge)}, so concurrent updates of a counter,
+ * even from different nodes, are neither lost nor retried.
+ *
+ * @see LongIncrement
+ * @since 6.0
+ */
+public class AtomicCounters {
+
+   /**
+    * Adds a delta to a counter, creating it if it does not exist.
+    *
+    * @param cache underlying cache
+    * @param key   key under which the counter is stored
+    * @param delta the value to add to the counter, which may be negative
+    * @return the value of the counter after the addition
+    */
+   public static <K> long addAndGet(Cache<K, Long> cache, K key, long delta) {
+      AdvancedCache<K, Long> advancedCache = cache.getAdvancedCache();
+      return advancedCache.merge(key, new LongIncrement(delta));
+   }
+
+   /**
+    * Increments a counter, creating it if it does not exist.
+    *
+    * @return the value of the counter after the increment
+    */
+   public static <K> long incrementAndGet(Cache<K, Long> cache, K key) {
+      return addAndGet(cache, key, 1);
+   }
+
+   /**
+    * Decrements a counter, creating it if it does not exist.
+    *
+    * @return the value of the counter after the decrement
+    */
+   public static <K> long decrementAndGet(Cache<K, Long> cache, K key) {
+      return addAndGet(cache, key, -1);
+   }
+
+   /**
+    * Returns the value of a counter, which is zero if it does not exist.
+    */
+   public static <K> long get(Cache<K, Long> cache, K key) {
+      Long value = cache.get(key);
+      return value == null ? 0 : value;
+   }
+
+}
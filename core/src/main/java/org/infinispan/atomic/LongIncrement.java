@@ -0,0 +1,64 @@
+package org.infinispan.atomic;
+
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.marshall.core.Ids;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Adds a delta to a counter stored as a {@link Long}, a missing counter being considered as zero.
+ *
+ * @see AtomicCounters
+ * @since 6.0
+ */
+public class LongIncrement implements ValueMerge<Long> {
+
+   private final long delta;
+
+   public LongIncrement(long delta) {
+      this.delta = delta;
+   }
+
+   public long getDelta() {
+      return delta;
+   }
+
+   @Override
+   public Long merge(Long value) {
+      return value == null ? delta : value + delta;
+   }
+
+   @Override
+   public String toString() {
+      return "LongIncrement{delta=" + delta + "}";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<LongIncrement> {
+
+      @Override
+      public Set<Class<? extends LongIncrement>> getTypeClasses() {
+         return Collections.<Class<? extends LongIncrement>>singleton(LongIncrement.class);
+      }
+
+      @Override
+      public void writeObject(ObjectOutput output, LongIncrement object) throws IOException {
+         output.writeLong(object.delta);
+      }
+
+      @Override
+      public LongIncrement readObject(ObjectInput input) throws IOException {
+         return new LongIncrement(input.readLong());
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.LONG_INCREMENT;
+      }
+
+   }
+
+}
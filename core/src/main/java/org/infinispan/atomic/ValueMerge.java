@@ -0,0 +1,25 @@
+package org.infinispan.atomic;
+
+/**
+ * A modification of the value of an entry computed from its current value, such as the increment of a counter.
+ * <p/>
+ * Merges are applied by {@link org.infinispan.AdvancedCache#merge(Object, ValueMerge, org.infinispan.metadata.Metadata)}
+ * on the primary owner of the entry, where the merges of an entry are applied one after the other. Unlike a read
+ * followed by a conditional replace, concurrent merges of an entry therefore never conflict with each other. Merges
+ * are sent to other nodes, so implementations should be efficiently {@link java.io.Externalizable} or have an
+ * {@link org.infinispan.commons.marshall.AdvancedExternalizer}.
+ *
+ * @since 6.0
+ */
+public interface ValueMerge<V> {
+
+   /**
+    * Computes the new value of an entry.
+    *
+    * @param value the current value of the entry, or null if the entry does not exist
+    * @return the new value of the entry, the given value, which may be null, to leave the entry unchanged, or null to
+    *         remove the entry
+    */
+   V merge(V value);
+
+}
@@ -2,6 +2,7 @@
 
 import org.infinispan.metadata.Metadata;
 import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.ValueMerge;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
@@ -11,7 +12,9 @@
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.MergeCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
@@ -243,6 +246,22 @@ public interface CommandsFactory {
     */
    ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags, boolean acquireRemoteLock, GlobalTransaction gtx);
 
+   /**
+    * Builds a ClusteredGetAllCommand, which is a remote lookup command for several keys
+    * @param keys keys to look up
+    * @return a ClusteredGetAllCommand
+    */
+   ClusteredGetAllCommand buildClusteredGetAllCommand(List<Object> keys, Set<Flag> flags);
+
+   /**
+    * Builds a MergeCommand, which applies a merge on the primary owner of a key
+    * @param key key whose value is merged
+    * @param merge merge to apply
+    * @param metadata metadata of the merged value
+    * @return a MergeCommand
+    */
+   MergeCommand buildMergeCommand(Object key, ValueMerge<?> merge, Metadata metadata, Set<Flag> flags);
+
    /**
     * Builds a LockControlCommand to control explicit remote locking
     *
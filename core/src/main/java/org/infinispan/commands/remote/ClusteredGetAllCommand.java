@@ -0,0 +1,147 @@
+package org.infinispan.commands.remote;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.MVCCEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Issues a remote get call for several keys owned by the same node, so that reading them takes a single round trip.
+ * The values are returned in the order of the keys, a {@code null} value meaning that the key was not found.
+ * <p/>
+ * If any of the keys is affected by a rehash, {@code null} is returned instead of the values, and the caller is
+ * expected to read the keys one by one.
+ *
+ * @since 6.0
+ */
+public class ClusteredGetAllCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 40;
+   private static final Log log = LogFactory.getLog(ClusteredGetAllCommand.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private List<Object> keys;
+   private Set<Flag> flags;
+
+   private InvocationContextContainer icc;
+   private CommandsFactory commandsFactory;
+   private InterceptorChain invoker;
+   private DistributionManager distributionManager;
+   private InternalEntryFactory entryFactory;
+
+   private ClusteredGetAllCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public ClusteredGetAllCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public ClusteredGetAllCommand(List<Object> keys, String cacheName, Set<Flag> flags) {
+      super(cacheName);
+      this.keys = keys;
+      this.flags = flags;
+   }
+
+   public void initialize(InvocationContextContainer icc, CommandsFactory commandsFactory, InternalEntryFactory entryFactory,
+         InterceptorChain interceptorChain, DistributionManager distributionManager) {
+      this.icc = icc;
+      this.commandsFactory = commandsFactory;
+      this.entryFactory = entryFactory;
+      this.invoker = interceptorChain;
+      this.distributionManager = distributionManager;
+   }
+
+   /**
+    * Invokes a logical "get(key)" for each of the keys on a remote cache and returns the results.
+    *
+    * @param context invocation context, ignored.
+    * @return a list with an <code>InternalCacheValue</code> or null for each key, or null if the keys have to be
+    *         read one by one.
+    */
+   @Override
+   public List<InternalCacheValue> perform(InvocationContext context) throws Throwable {
+      if (distributionManager != null) {
+         for (Object key : keys) {
+            if (distributionManager.isAffectedByRehash(key)) {
+               if (trace) log.tracef("Key %s is affected by a rehash, not reading %s keys", key, keys.size());
+               return null;
+            }
+         }
+      }
+      // make sure the get commands don't perform remote calls
+      Set<Flag> commandFlags = EnumSet.of(Flag.SKIP_REMOTE_LOOKUP, Flag.CACHE_MODE_LOCAL);
+      if (this.flags != null) commandFlags.addAll(this.flags);
+      List<InternalCacheValue> values = new ArrayList<InternalCacheValue>(keys.size());
+      for (Object key : keys) {
+         GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, commandFlags, true);
+         InvocationContext invocationContext = icc.createRemoteInvocationContextForCommand(command, getOrigin());
+         CacheEntry cacheEntry = (CacheEntry) invoker.invoke(invocationContext, command);
+         if (cacheEntry == null) {
+            values.add(null);
+         } else if (cacheEntry instanceof MVCCEntry) {
+            //this might happen if the value was fetched from a cache loader
+            values.add(entryFactory.createValue(cacheEntry));
+         } else {
+            values.add(((InternalCacheEntry) cacheEntry).toInternalCacheValue());
+         }
+      }
+      return values;
+   }
+
+   public List<Object> getKeys() {
+      return keys;
+   }
+
+   public Set<Flag> getFlags() {
+      return flags;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{keys, flags};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] args) {
+      keys = (List<Object>) args[0];
+      flags = (Set<Flag>) args[1];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return new StringBuilder()
+         .append("ClusteredGetAllCommand{keys=")
+         .append(keys)
+         .append(", flags=").append(flags)
+         .append("}")
+         .toString();
+   }
+
+}
@@ -0,0 +1,104 @@
+package org.infinispan.commands.remote;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.atomic.ValueMerge;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.metadata.Metadata;
+
+import java.util.Set;
+
+/**
+ * Applies a {@link ValueMerge} on the primary owner of an entry. This is not a
+ * {@link org.infinispan.commands.VisitableCommand}: the merge is applied with the reads and conditional writes of
+ * {@link AdvancedCache#merge(Object, ValueMerge, Metadata)}, on the node which serializes the merges of the entry.
+ *
+ * @since 6.0
+ */
+public class MergeCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 41;
+
+   private Object key;
+   private ValueMerge<Object> merge;
+   private Metadata metadata;
+   private Set<Flag> flags;
+
+   private Cache<Object, Object> cache;
+
+   private MergeCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public MergeCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public MergeCommand(Object key, ValueMerge<Object> merge, Metadata metadata, String cacheName, Set<Flag> flags) {
+      super(cacheName);
+      this.key = key;
+      this.merge = merge;
+      this.metadata = metadata;
+      this.flags = flags;
+   }
+
+   public void init(Cache<Object, Object> cache) {
+      this.cache = cache;
+   }
+
+   /**
+    * Applies the merge.
+    *
+    * @param context invocation context, ignored.
+    * @return the value of the entry once the merge is applied
+    */
+   @Override
+   public Object perform(InvocationContext context) throws Throwable {
+      AdvancedCache<Object, Object> advancedCache = cache.getAdvancedCache();
+      if (flags != null && !flags.isEmpty())
+         advancedCache = advancedCache.withFlags(flags.toArray(new Flag[flags.size()]));
+      return advancedCache.merge(key, merge, metadata);
+   }
+
+   public Object getKey() {
+      return key;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{key, merge, metadata, flags};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] args) {
+      int i = 0;
+      key = args[i++];
+      merge = (ValueMerge<Object>) args[i++];
+      metadata = (Metadata) args[i++];
+      flags = (Set<Flag>) args[i];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return new StringBuilder()
+         .append("MergeCommand{key=")
+         .append(key)
+         .append(", merge=").append(merge)
+         .append(", flags=").append(flags)
+         .append("}")
+         .toString();
+   }
+
+}
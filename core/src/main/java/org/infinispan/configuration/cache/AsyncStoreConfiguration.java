@@ -14,14 +14,20 @@ public class AsyncStoreConfiguration {
    private final int modificationQueueSize;
    private long shutdownTimeout;
    private final int threadPoolSize;
+   private final int maxBatchSize;
+   private final long maxFlushDelay;
+   private final long maxUnflushedBytes;
 
    AsyncStoreConfiguration(boolean enabled, long flushLockTimeout, int modificationQueueSize, long shutdownTimeout,
-         int threadPoolSize) {
+         int threadPoolSize, int maxBatchSize, long maxFlushDelay, long maxUnflushedBytes) {
       this.enabled = enabled;
       this.flushLockTimeout = flushLockTimeout;
       this.modificationQueueSize = modificationQueueSize;
       this.shutdownTimeout = shutdownTimeout;
       this.threadPoolSize = threadPoolSize;
+      this.maxBatchSize = maxBatchSize;
+      this.maxFlushDelay = maxFlushDelay;
+      this.maxUnflushedBytes = maxUnflushedBytes;
    }
 
    /**
@@ -81,6 +87,35 @@ public int threadPoolSize() {
       return threadPoolSize;
    }
 
+   /**
+    * The maximum number of coalesced modifications handed to the underlying store in a single
+    * one-phase {@link org.infinispan.loaders.spi.CacheStore#prepare} call. A value of 0 means that
+    * each worker thread flushes its whole share of the modifications in one call.
+    */
+   public int maxBatchSize() {
+      return maxBatchSize;
+   }
+
+   /**
+    * The maximum time, in milliseconds, that modifications are held back in order to build larger
+    * batches. The delay adapts to load: a flush happens as soon as a full batch is available, so it
+    * only applies when the store is lightly loaded. A value of 0 flushes as soon as any
+    * modification is available.
+    */
+   public long maxFlushDelay() {
+      return maxFlushDelay;
+   }
+
+   /**
+    * The maximum estimated size, in bytes, of the modifications which have not yet been written to
+    * the underlying store. When exceeded, writers block until enough modifications have been
+    * flushed, bounding the amount of data which can be lost on a crash. A value of 0 disables the
+    * limit.
+    */
+   public long maxUnflushedBytes() {
+      return maxUnflushedBytes;
+   }
+
    @Override
    public String toString() {
       return "AsyncLoaderConfiguration{" +
@@ -89,6 +124,9 @@ public String toString() {
             ", modificationQueueSize=" + modificationQueueSize +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
+            ", maxBatchSize=" + maxBatchSize +
+            ", maxFlushDelay=" + maxFlushDelay +
+            ", maxUnflushedBytes=" + maxUnflushedBytes +
             '}';
    }
 
@@ -2,6 +2,7 @@
 
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 
 /**
@@ -18,6 +19,9 @@
    private int modificationQueueSize = 1024;
    private long shutdownTimeout = TimeUnit.SECONDS.toMillis(25);
    private int threadPoolSize = 1;
+   private int maxBatchSize = 0;
+   private long maxFlushDelay = 0;
+   private long maxUnflushedBytes = 0;
 
    AsyncStoreConfigurationBuilder(AbstractStoreConfigurationBuilder<? extends AbstractStoreConfiguration, ?> builder) {
       super(builder);
@@ -96,15 +100,59 @@ public AsyncStoreConfigurationBuilder<S> threadPoolSize(int i) {
       return this;
    }
 
+   /**
+    * The maximum number of coalesced modifications handed to the underlying store in a single
+    * one-phase prepare call. A value of 0 means that each worker thread flushes its whole share of
+    * the modifications in one call.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxBatchSize(int i) {
+      this.maxBatchSize = i;
+      return this;
+   }
+
+   /**
+    * The maximum time, in milliseconds, that modifications are held back in order to build larger
+    * batches. A flush happens as soon as a full batch is available, so the delay only applies when
+    * the store is lightly loaded. A value of 0 flushes as soon as any modification is available.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxFlushDelay(long l) {
+      this.maxFlushDelay = l;
+      return this;
+   }
+
+   /**
+    * Same as {@link #maxFlushDelay(long)}, with the delay in the given unit.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxFlushDelay(long l, TimeUnit unit) {
+      return maxFlushDelay(unit.toMillis(l));
+   }
+
+   /**
+    * The maximum estimated size, in bytes, of the modifications which have not yet been written to
+    * the underlying store. When exceeded, writers block until enough modifications have been
+    * flushed. A value of 0 disables the limit.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxUnflushedBytes(long l) {
+      this.maxUnflushedBytes = l;
+      return this;
+   }
+
    @Override
    public
    void validate() {
+      if (maxBatchSize < 0)
+         throw new CacheConfigurationException("maxBatchSize cannot be negative");
+      if (maxFlushDelay < 0)
+         throw new CacheConfigurationException("maxFlushDelay cannot be negative");
+      if (maxUnflushedBytes < 0)
+         throw new CacheConfigurationException("maxUnflushedBytes cannot be negative");
    }
 
    @Override
    public
    AsyncStoreConfiguration create() {
-      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, shutdownTimeout, threadPoolSize);
+      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, shutdownTimeout, threadPoolSize,
+            maxBatchSize, maxFlushDelay, maxUnflushedBytes);
    }
 
    @Override
@@ -114,6 +162,9 @@ public AsyncStoreConfigurationBuilder<S> read(AsyncStoreConfiguration template)
       this.modificationQueueSize = template.modificationQueueSize();
       this.shutdownTimeout = template.shutdownTimeout();
       this.threadPoolSize = template.threadPoolSize();
+      this.maxBatchSize = template.maxBatchSize();
+      this.maxFlushDelay = template.maxFlushDelay();
+      this.maxUnflushedBytes = template.maxUnflushedBytes();
 
       return this;
    }
@@ -126,6 +177,9 @@ public String toString() {
             ", modificationQueueSize=" + modificationQueueSize +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
+            ", maxBatchSize=" + maxBatchSize +
+            ", maxFlushDelay=" + maxFlushDelay +
+            ", maxUnflushedBytes=" + maxUnflushedBytes +
             '}';
    }
 
@@ -0,0 +1,76 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Configuration of the Bloom filter which can be kept in front of the cache stores to avoid looking up keys which
+ * have never been stored.
+ *
+ * @see BloomFilterConfigurationBuilder
+ * @since 6.0
+ */
+public class BloomFilterConfiguration {
+
+   private final boolean enabled;
+   private final int expectedEntries;
+   private final double falsePositiveProbability;
+
+   BloomFilterConfiguration(boolean enabled, int expectedEntries, double falsePositiveProbability) {
+      this.enabled = enabled;
+      this.expectedEntries = expectedEntries;
+      this.falsePositiveProbability = falsePositiveProbability;
+   }
+
+   /**
+    * If true, lookups for keys which were never written to the cache stores are answered without accessing the stores.
+    */
+   public boolean enabled() {
+      return enabled;
+   }
+
+   /**
+    * The number of entries the filter is initially sized for. The filter is resized when it is rebuilt, if the stores
+    * hold more entries.
+    */
+   public int expectedEntries() {
+      return expectedEntries;
+   }
+
+   /**
+    * The probability for a lookup of a key which is not in the stores to still reach the stores, when the filter holds
+    * the expected number of entries.
+    */
+   public double falsePositiveProbability() {
+      return falsePositiveProbability;
+   }
+
+   @Override
+   public String toString() {
+      return "BloomFilterConfiguration{" +
+            "enabled=" + enabled +
+            ", expectedEntries=" + expectedEntries +
+            ", falsePositiveProbability=" + falsePositiveProbability +
+            '}';
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      BloomFilterConfiguration that = (BloomFilterConfiguration) o;
+
+      if (enabled != that.enabled) return false;
+      if (expectedEntries != that.expectedEntries) return false;
+      if (Double.compare(that.falsePositiveProbability, falsePositiveProbability) != 0) return false;
+
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = (enabled ? 1 : 0);
+      result = 31 * result + expectedEntries;
+      long temp = Double.doubleToLongBits(falsePositiveProbability);
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      return result;
+   }
+}
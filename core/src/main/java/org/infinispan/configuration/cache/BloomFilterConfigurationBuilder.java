@@ -0,0 +1,101 @@
+package org.infinispan.configuration.cache;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.configuration.Builder;
+
+/**
+ * Configures a Bloom filter in front of the cache stores. The filter is built from the keys in the stores when the
+ * cache starts and records every key written to them afterwards, so that the lookups of keys which were never stored
+ * (e.g. the misses of a cache used as a look-aside cache) do not reach the stores.
+ * <p/>
+ * The filter relies on seeing all the writes to the stores, so it cannot be used with shared, read-only or singleton
+ * stores, or with cache loaders which are not stores.
+ *
+ * @since 6.0
+ */
+public class BloomFilterConfigurationBuilder extends AbstractLoadersConfigurationChildBuilder implements Builder<BloomFilterConfiguration> {
+
+   private boolean enabled = false;
+   private int expectedEntries = 100000;
+   private double falsePositiveProbability = 0.01;
+
+   BloomFilterConfigurationBuilder(LoadersConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   /**
+    * Enables the Bloom filter
+    */
+   public BloomFilterConfigurationBuilder enable() {
+      this.enabled = true;
+      return this;
+   }
+
+   /**
+    * Disables the Bloom filter
+    */
+   public BloomFilterConfigurationBuilder disable() {
+      this.enabled = false;
+      return this;
+   }
+
+   /**
+    * Enables or disables the Bloom filter
+    */
+   public BloomFilterConfigurationBuilder enabled(boolean enabled) {
+      this.enabled = enabled;
+      return this;
+   }
+
+   /**
+    * The number of entries the filter is initially sized for. Defaults to 100000. The filter is resized when it is
+    * rebuilt, if the stores hold more entries.
+    */
+   public BloomFilterConfigurationBuilder expectedEntries(int expectedEntries) {
+      this.expectedEntries = expectedEntries;
+      return this;
+   }
+
+   /**
+    * The target probability for a lookup of a key which is not in the stores to still reach the stores. Defaults to
+    * 0.01. Lower values need more memory: about 10 bits per entry for 1%, 14 bits per entry for 0.1%.
+    */
+   public BloomFilterConfigurationBuilder falsePositiveProbability(double falsePositiveProbability) {
+      this.falsePositiveProbability = falsePositiveProbability;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (!enabled)
+         return;
+      if (expectedEntries < 1)
+         throw new CacheConfigurationException("The expected number of entries of the Bloom filter must be strictly positive");
+      if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1)
+         throw new CacheConfigurationException("The false positive probability of the Bloom filter must be between 0 and 1");
+      if (loaders().shared())
+         throw new CacheConfigurationException("A Bloom filter cannot be used with shared cache stores, as it would not see the writes of the other nodes");
+   }
+
+   @Override
+   public BloomFilterConfiguration create() {
+      return new BloomFilterConfiguration(enabled, expectedEntries, falsePositiveProbability);
+   }
+
+   @Override
+   public BloomFilterConfigurationBuilder read(BloomFilterConfiguration template) {
+      this.enabled = template.enabled();
+      this.expectedEntries = template.expectedEntries();
+      this.falsePositiveProbability = template.falsePositiveProbability();
+      return this;
+   }
+
+   @Override
+   public String toString() {
+      return "BloomFilterConfigurationBuilder{" +
+            "enabled=" + enabled +
+            ", expectedEntries=" + expectedEntries +
+            ", falsePositiveProbability=" + falsePositiveProbability +
+            '}';
+   }
+}
@@ -12,12 +12,15 @@ public class LoadersConfiguration {
    private final boolean preload;
    private final boolean shared;
    private final List<CacheLoaderConfiguration> cacheLoaders;
+   private final BloomFilterConfiguration bloomFilter;
 
-   LoadersConfiguration(boolean passivation, boolean preload, boolean shared, List<CacheLoaderConfiguration> cacheLoaders) {
+   LoadersConfiguration(boolean passivation, boolean preload, boolean shared, List<CacheLoaderConfiguration> cacheLoaders,
+         BloomFilterConfiguration bloomFilter) {
       this.passivation = passivation;
       this.preload = preload;
       this.shared = shared;
       this.cacheLoaders = cacheLoaders;
+      this.bloomFilter = bloomFilter;
    }
 
    /**
@@ -63,6 +66,13 @@ public List<CacheLoaderConfiguration> cacheLoaders() {
       return cacheLoaders;
    }
 
+   /**
+    * Configuration of the Bloom filter used to skip the lookups of keys which are not in the cache stores
+    */
+   public BloomFilterConfiguration bloomFilter() {
+      return bloomFilter;
+   }
+
    /**
     * Loops through all individual cache loader configs and checks if fetchPersistentState is set on
     * any of them
@@ -98,6 +108,7 @@ public String toString() {
             ", passivation=" + passivation +
             ", preload=" + preload +
             ", shared=" + shared +
+            ", bloomFilter=" + bloomFilter +
             '}';
    }
 
@@ -113,6 +124,8 @@ public boolean equals(Object o) {
       if (shared != that.shared) return false;
       if (cacheLoaders != null ? !cacheLoaders.equals(that.cacheLoaders) : that.cacheLoaders != null)
          return false;
+      if (bloomFilter != null ? !bloomFilter.equals(that.bloomFilter) : that.bloomFilter != null)
+         return false;
 
       return true;
    }
@@ -123,6 +136,7 @@ public int hashCode() {
       result = 31 * result + (preload ? 1 : 0);
       result = 31 * result + (shared ? 1 : 0);
       result = 31 * result + (cacheLoaders != null ? cacheLoaders.hashCode() : 0);
+      result = 31 * result + (bloomFilter != null ? bloomFilter.hashCode() : 0);
       return result;
    }
 
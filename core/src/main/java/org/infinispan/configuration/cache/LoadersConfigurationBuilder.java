@@ -19,9 +19,11 @@ public class LoadersConfigurationBuilder extends AbstractConfigurationChildBuild
    private boolean preload = false;
    private boolean shared = false;
    private List<CacheLoaderConfigurationBuilder<?,?>> cacheLoaders = new ArrayList<CacheLoaderConfigurationBuilder<?,?>>(2);
+   private final BloomFilterConfigurationBuilder bloomFilter;
 
    protected LoadersConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
+      this.bloomFilter = new BloomFilterConfigurationBuilder(this);
    }
 
    public LoadersConfigurationBuilder passivation(boolean b) {
@@ -78,6 +80,13 @@ boolean shared() {
       return shared;
    }
 
+   /**
+    * Configures the Bloom filter which avoids looking up in the cache stores the keys which were never stored.
+    */
+   public BloomFilterConfigurationBuilder bloomFilter() {
+      return bloomFilter;
+   }
+
    @Deprecated
    public LoaderConfigurationBuilder addCacheLoader() {
       LoaderConfigurationBuilder builder = new LoaderConfigurationBuilder(this);
@@ -215,6 +224,7 @@ public void validate() {
       for (CacheLoaderConfigurationBuilder<?, ?> b : cacheLoaders) {
          b.validate();
       }
+      bloomFilter.validate();
    }
 
    @Override
@@ -222,7 +232,7 @@ public LoadersConfiguration create() {
       List<CacheLoaderConfiguration> loaders = new LinkedList<CacheLoaderConfiguration>();
       for (CacheLoaderConfigurationBuilder<?, ?> loader : cacheLoaders)
          loaders.add(loader.create());
-      return new LoadersConfiguration(passivation, preload, shared, loaders);
+      return new LoadersConfiguration(passivation, preload, shared, loaders, bloomFilter.create());
    }
 
    @SuppressWarnings("unchecked")
@@ -237,6 +247,7 @@ public LoadersConfigurationBuilder read(LoadersConfiguration template) {
       this.passivation = template.passivation();
       this.preload = template.preload();
       this.shared = template.shared();
+      this.bloomFilter.read(template.bloomFilter());
 
       return this;
    }
@@ -248,6 +259,7 @@ public String toString() {
             ", passivation=" + passivation +
             ", preload=" + preload +
             ", shared=" + shared +
+            ", bloomFilter=" + bloomFilter +
             '}';
    }
 
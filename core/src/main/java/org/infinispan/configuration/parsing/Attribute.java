@@ -27,7 +27,9 @@ public enum Attribute {
     DISTRIBUTED_SYNC_TIMEOUT("distributedSyncTimeout"),
     EAGER_LOCK_SINGLE_NODE("eagerLockSingleNode"),
     ENABLED("enabled"),
+    EXPECTED_ENTRIES("expectedEntries"),
     EXTERNALIZER_CLASS("externalizerClass"),
+    FALSE_POSITIVE_PROBABILITY("falsePositiveProbability"),
     FACTORY("factory"),
     FETCH_IN_MEMORY_STATE("fetchInMemoryState"),
     FETCH_PERSISTENT_STATE("fetchPersistentState"),
@@ -54,9 +56,12 @@ public enum Attribute {
     LOG_FLUSH_TIMEOUT("logFlushTimeout"),
     MACHINE_ID("machineId"),
     MARSHALLER_CLASS("marshallerClass"),
+    MAX_BATCH_SIZE("maxBatchSize"),
     MAX_ENTRIES("maxEntries"),
+    MAX_FLUSH_DELAY("maxFlushDelay"),
     MAX_IDLE("maxIdle"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
+    MAX_UNFLUSHED_BYTES("maxUnflushedBytes"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
     MODE("mode"),
     NODE_NAME("nodeName"),
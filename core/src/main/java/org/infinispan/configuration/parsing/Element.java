@@ -18,6 +18,7 @@ public enum Element {
     ASYNC("async"),
     ASYNC_LISTENER_EXECUTOR("asyncListenerExecutor"),
     ASYNC_TRANSPORT_EXECUTOR("asyncTransportExecutor"),
+    BLOOM_FILTER("bloomFilter"),
     REMOTE_COMMNAND_EXECUTOR("remoteCommandsExecutor"),
     CLUSTERING("clustering"),
     CLUSTER_LOADER("clusterLoader"),
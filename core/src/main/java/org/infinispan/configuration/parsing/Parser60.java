@@ -553,6 +553,9 @@ private void parseLoaders(final XMLExtendedStreamReader reader, final Configurat
       while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
          Element element = Element.forName(reader.getLocalName());
          switch (element) {
+            case BLOOM_FILTER:
+               parseBloomFilter(reader, holder);
+               break;
             case CLUSTER_LOADER:
                parseClusterLoader(reader, holder);
                break;
@@ -574,6 +577,30 @@ private void parseLoaders(final XMLExtendedStreamReader reader, final Configurat
       }
    }
 
+   private void parseBloomFilter(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
+      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceProperties(reader.getAttributeValue(i));
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+            case ENABLED:
+               builder.loaders().bloomFilter().enabled(Boolean.parseBoolean(value));
+               break;
+            case EXPECTED_ENTRIES:
+               builder.loaders().bloomFilter().expectedEntries(Integer.parseInt(value));
+               break;
+            case FALSE_POSITIVE_PROBABILITY:
+               builder.loaders().bloomFilter().falsePositiveProbability(Double.parseDouble(value));
+               break;
+            default:
+               throw ParseUtils.unexpectedAttribute(reader, i);
+         }
+      }
+
+      ParseUtils.requireNoContent(reader);
+   }
+
    private void parseSingleFileStore(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
       ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
       SingleFileCacheStoreConfigurationBuilder storeBuilder = builder.loaders().addSingleFileCacheStore();
@@ -945,6 +972,15 @@ public static void parseAsyncStore(final XMLExtendedStreamReader reader, final C
             case THREAD_POOL_SIZE:
                storeBuilder.async().threadPoolSize(Integer.parseInt(value));
                break;
+            case MAX_BATCH_SIZE:
+               storeBuilder.async().maxBatchSize(Integer.parseInt(value));
+               break;
+            case MAX_FLUSH_DELAY:
+               storeBuilder.async().maxFlushDelay(Long.parseLong(value));
+               break;
+            case MAX_UNFLUSHED_BYTES:
+               storeBuilder.async().maxUnflushedBytes(Long.parseLong(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -27,6 +27,13 @@ public GroupingConsistentHash(ConsistentHash ch, GroupManager groupManager) {
       this.groupManager = groupManager;
    }
 
+   /**
+    * @return the consistent hash which maps the groups to segments and owners
+    */
+   public ConsistentHash getConsistentHash() {
+      return ch;
+   }
+
    @Override
    public int getNumSegments() {
       return ch.getNumSegments();
@@ -28,6 +28,9 @@
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.decorators.BloomFilterStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.manager.CacheLoaderManager;
 import org.infinispan.loaders.spi.CacheLoader;
@@ -359,6 +362,79 @@ public long getCacheLoaderMisses() {
    public void resetStatistics() {
       cacheLoads.set(0);
       cacheMisses.set(0);
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      if (bloomFilterStore != null) bloomFilterStore.resetStatistics();
+   }
+
+   @ManagedAttribute(
+         description = "Number of lookups answered by the Bloom filter without accessing the cache store",
+         displayName = "Number of Bloom filter negative lookups",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   @SuppressWarnings("unused")
+   public long getBloomFilterNegativeLookups() {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      return bloomFilterStore == null ? 0 : bloomFilterStore.getNegativeLookups();
+   }
+
+   @ManagedAttribute(
+         description = "Number of lookups of keys missing from the cache store which the Bloom filter did not filter out",
+         displayName = "Number of Bloom filter false positives",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   @SuppressWarnings("unused")
+   public long getBloomFilterFalsePositives() {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      return bloomFilterStore == null ? 0 : bloomFilterStore.getFalsePositives();
+   }
+
+   @ManagedAttribute(
+         description = "Fraction of the lookups of keys missing from the cache store which the Bloom filter did not filter out",
+         displayName = "Bloom filter false positive rate",
+         units = Units.PERCENTAGE,
+         displayType = DisplayType.SUMMARY
+   )
+   @SuppressWarnings("unused")
+   public double getBloomFilterFalsePositiveRate() {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      return bloomFilterStore == null ? 0 : bloomFilterStore.getFalsePositiveRate();
+   }
+
+   @ManagedAttribute(
+         description = "False positive probability of the Bloom filter, estimated from the fraction of its bits which are set",
+         displayName = "Bloom filter expected false positive probability",
+         units = Units.PERCENTAGE,
+         displayType = DisplayType.DETAIL
+   )
+   @SuppressWarnings("unused")
+   public double getBloomFilterExpectedFalsePositiveProbability() {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      return bloomFilterStore == null ? 0 : bloomFilterStore.getExpectedFalsePositiveProbability();
+   }
+
+   @ManagedAttribute(
+         description = "Memory used by the Bloom filter, in bytes",
+         displayName = "Bloom filter memory size",
+         displayType = DisplayType.DETAIL
+   )
+   @SuppressWarnings("unused")
+   public long getBloomFilterMemorySize() {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      return bloomFilterStore == null ? 0 : bloomFilterStore.getMemorySize();
+   }
+
+   @ManagedOperation(
+         description = "Rebuilds the Bloom filter from the keys in the cache store",
+         displayName = "Rebuild the Bloom filter"
+   )
+   @SuppressWarnings("unused")
+   public void rebuildBloomFilter() throws CacheLoaderException {
+      BloomFilterStore bloomFilterStore = getBloomFilterStore();
+      if (bloomFilterStore != null) bloomFilterStore.rebuild();
+   }
+
+   private BloomFilterStore getBloomFilterStore() {
+      return enabled && loader instanceof BloomFilterStore ? (BloomFilterStore) loader : null;
    }
 
    @ManagedAttribute(
@@ -370,6 +446,7 @@ public void resetStatistics() {
     */
    public Collection<String> getCacheLoaders() {
       if (enabled && clm.isEnabled()) {
+         CacheLoader loader = this.loader instanceof BloomFilterStore ? ((BloomFilterStore) this.loader).getDelegate() : this.loader;
          if (loader instanceof ChainingCacheStore) {
             ChainingCacheStore chainingStore = (ChainingCacheStore) loader;
             LinkedHashMap<CacheStore, CacheStoreConfiguration> stores = chainingStore.getStores();
@@ -25,7 +25,9 @@
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.decorators.AsyncStore;
 import org.infinispan.loaders.manager.CacheLoaderManager;
 import org.infinispan.loaders.modifications.Clear;
 import org.infinispan.loaders.modifications.Modification;
@@ -397,6 +399,8 @@ private Object visitSingleStore(InvocationContext ctx, FlagAffectedCommand comma
    )
    public void resetStatistics() {
       cacheStores.set(0);
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores())
+         asyncStore.resetStatistics();
    }
 
    @ManagedAttribute(
@@ -408,6 +412,68 @@ public long getCacheLoaderStores() {
       return cacheStores.get();
    }
 
+   @ManagedAttribute(
+         description = "Number of modifications waiting to be written to the write-behind cache stores",
+         displayName = "Write-behind queue depth"
+   )
+   public int getAsyncStoreQueueDepth() {
+      int depth = 0;
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores())
+         depth += asyncStore.getQueueDepth();
+      return depth;
+   }
+
+   @ManagedAttribute(
+         description = "Estimated size in bytes of the modifications waiting to be written to the write-behind cache stores",
+         displayName = "Write-behind unflushed bytes"
+   )
+   public long getAsyncStoreUnflushedBytes() {
+      long bytes = 0;
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores())
+         bytes += asyncStore.getUnflushedBytes();
+      return bytes;
+   }
+
+   @ManagedAttribute(
+         description = "Age of the oldest modification waiting to be written to the write-behind cache stores",
+         displayName = "Write-behind lag",
+         units = Units.MILLISECONDS
+   )
+   public long getAsyncStoreWriteBehindLag() {
+      long lag = 0;
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores())
+         lag = Math.max(lag, asyncStore.getWriteBehindLag());
+      return lag;
+   }
+
+   @ManagedAttribute(
+         description = "Number of batches written by the write-behind cache stores",
+         displayName = "Write-behind flushes",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getAsyncStoreFlushes() {
+      long flushes = 0;
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores())
+         flushes += asyncStore.getFlushCount();
+      return flushes;
+   }
+
+   @ManagedAttribute(
+         description = "Average time taken by the write-behind cache stores to write a batch",
+         displayName = "Write-behind average flush latency",
+         units = Units.MILLISECONDS
+   )
+   public long getAsyncStoreAverageFlushLatency() {
+      long flushes = 0;
+      long totalLatency = 0;
+      for (AsyncStore asyncStore : loaderManager.getAsyncStores()) {
+         long storeFlushes = asyncStore.getFlushCount();
+         flushes += storeFlushes;
+         totalLatency += storeFlushes * asyncStore.getAverageFlushLatency();
+      }
+      return flushes > 0 ? totalLatency / flushes : 0;
+   }
+
    InternalCacheEntry getStoredEntry(Object key, InvocationContext ctx) {
       CacheEntry entry = ctx.lookupEntry(key);
       if (entry instanceof InternalCacheEntry) {
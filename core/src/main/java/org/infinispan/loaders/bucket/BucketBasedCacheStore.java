@@ -127,7 +127,7 @@ protected static interface BucketHandler {
 
    // ah for closures in Java ...
    protected abstract class CollectionGeneratingBucketHandler<T> implements BucketHandler{
-      Set<T> generated = new HashSet<T>();
+      protected Set<T> generated = new HashSet<T>();
       public abstract boolean consider(Collection<? extends InternalCacheEntry> entries);
       public Set<T> generate() { return generated; }
 
@@ -37,6 +37,7 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 /**
@@ -57,6 +58,13 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * Coalesced modifications are flushed to the underlying store in batches of at most
+ * {@link AsyncStoreConfiguration#maxBatchSize()} modifications, each applied with a single one-phase
+ * {@link CacheStore#prepare(java.util.List, org.infinispan.transaction.xa.GlobalTransaction, boolean)} call. If
+ * {@link AsyncStoreConfiguration#maxFlushDelay()} is set, flushes are held back until a full batch is available or the
+ * delay elapses, and if {@link AsyncStoreConfiguration#maxUnflushedBytes()} is set, writers block once the estimated
+ * size of the modifications not yet written to the underlying store exceeds that limit.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -68,6 +76,7 @@ public class AsyncStore extends AbstractDelegatingStore {
    private static final Log log = LogFactory.getLog(AsyncStore.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final AtomicInteger threadId = new AtomicInteger(0);
+   private static final int DEFAULT_OBJECT_SIZE_ESTIMATE = 64;
 
    private final TransactionFactory txFactory;
    private Map<GlobalTransaction, List<? extends Modification>> transactions;
@@ -78,6 +87,17 @@ public class AsyncStore extends AbstractDelegatingStore {
    private long shutdownTimeout;
    private String cacheName;
    private TimeService timeService;
+   private StreamingMarshaller marshaller;
+   private int maxBatchSize;
+   private long maxFlushDelay;
+   private long maxUnflushedBytes;
+   private int flushThreshold;
+
+   private final AtomicLong unflushedBytes = new AtomicLong();
+   private final Object unflushedBytesMonitor = new Object();
+   private final AtomicLong flushCount = new AtomicLong();
+   private final AtomicLong flushedModifications = new AtomicLong();
+   private final AtomicLong flushTimeNanos = new AtomicLong();
 
    private BufferLock stateLock;
    @GuardedBy("stateLock")
@@ -97,6 +117,10 @@ public void init(CacheLoaderConfiguration configuration, Cache<?, ?> cache, Stre
       super.init(configuration, cache, m);
 
       this.asyncConfiguration = ((CacheStoreConfiguration) configuration).async();
+      this.marshaller = m;
+      maxBatchSize = asyncConfiguration.maxBatchSize();
+      maxFlushDelay = asyncConfiguration.maxFlushDelay();
+      maxUnflushedBytes = asyncConfiguration.maxUnflushedBytes();
 
       Configuration cacheCfg = cache != null ? cache.getCacheConfiguration() : null;
       concurrencyLevel = cacheCfg != null ? cacheCfg.locking().concurrencyLevel() : 16;
@@ -123,17 +147,82 @@ private State newState(boolean clear, State next) {
    }
 
    private void put(Modification mod, int count) {
+      long size = 0;
+      if (maxUnflushedBytes > 0) {
+         size = estimateSize(mod);
+         awaitUnflushedBytes();
+      }
       stateLock.writeLock(count);
       try {
          if (log.isTraceEnabled())
             log.tracef("Queue modification: %s", mod);
 
-         state.put(mod);
+         State s = state;
+         s.put(mod);
+         s.track(size, timeService.wallClockTime());
+         if (size > 0)
+            unflushedBytes.addAndGet(size);
       } finally {
          stateLock.writeUnlock();
       }
    }
 
+   /**
+    * Blocks the caller while the estimated size of the unflushed modifications exceeds
+    * {@link AsyncStoreConfiguration#maxUnflushedBytes()}.
+    */
+   private void awaitUnflushedBytes() {
+      if (unflushedBytes.get() < maxUnflushedBytes)
+         return;
+      synchronized (unflushedBytesMonitor) {
+         while (unflushedBytes.get() >= maxUnflushedBytes && !state.stopped) {
+            try {
+               unflushedBytesMonitor.wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+         }
+      }
+   }
+
+   private void releaseUnflushedBytes(State s) {
+      long size = s.bytes.getAndSet(0);
+      if (size > 0) {
+         unflushedBytes.addAndGet(-size);
+         synchronized (unflushedBytesMonitor) {
+            unflushedBytesMonitor.notifyAll();
+         }
+      }
+   }
+
+   private long estimateSize(Modification mod) {
+      switch (mod.getType()) {
+         case STORE:
+            InternalCacheEntry entry = ((Store) mod).getStoredEntry();
+            return estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+         case REMOVE:
+            return estimateSize(((Remove) mod).getKey());
+         case LIST:
+            long size = 0;
+            for (Modification m : ((ModificationsList) mod).getList())
+               size += estimateSize(m);
+            return size;
+         default:
+            return 0;
+      }
+   }
+
+   private long estimateSize(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof byte[])
+         return ((byte[]) o).length;
+      if (marshaller != null)
+         return marshaller.getBufferSizePredictor(o).nextSize(o);
+      return DEFAULT_OBJECT_SIZE_ESTIMATE;
+   }
+
    @Override
    public InternalCacheEntry load(Object key) throws CacheLoaderException {
       Modification mod = state.get(key);
@@ -222,7 +311,9 @@ public void store(InternalCacheEntry entry) {
    public void clear() {
       stateLock.writeLock(1);
       try {
-         state = newState(true, state.next);
+         State discarded = state;
+         state = newState(true, discarded.next);
+         releaseUnflushedBytes(discarded);
       } finally {
          stateLock.reset(1);
          stateLock.writeUnlock();
@@ -288,7 +379,15 @@ private void enqueueModificationsList(List<? extends Modification> mods) {
    public void start() throws CacheLoaderException {
       log.debugf("Async cache loader starting %s", this);
       state = newState(false, null);
-      stateLock = new BufferLock(asyncConfiguration.modificationQueueSize());
+      int modificationQueueSize = asyncConfiguration.modificationQueueSize();
+      stateLock = new BufferLock(modificationQueueSize);
+
+      // a flush is not held back any longer once all worker threads can be given a full batch,
+      // or once writers would block on a full modification queue
+      int threshold = maxBatchSize > 0 ? maxBatchSize * asyncConfiguration.threadPoolSize() : Integer.MAX_VALUE;
+      if (modificationQueueSize > 0)
+         threshold = Math.min(threshold, modificationQueueSize);
+      flushThreshold = threshold;
 
       super.start();
 
@@ -313,6 +412,9 @@ public void stop() throws CacheLoaderException {
       stateLock.writeLock(1);
       state.stopped = true;
       stateLock.writeUnlock();
+      synchronized (unflushedBytesMonitor) {
+         unflushedBytesMonitor.notifyAll();
+      }
       try {
          coordinator.join(shutdownTimeout);
          if (coordinator.isAlive())
@@ -328,6 +430,69 @@ protected void applyModificationsSync(List<Modification> mods) throws CacheLoade
       getDelegate().prepare(mods, txFactory.newGlobalTransaction(null, false), true);
    }
 
+   /**
+    * @return the number of modifications, after coalescing, which have not yet been written to the underlying store
+    */
+   public int getQueueDepth() {
+      int depth = 0;
+      for (State s = state; s != null; s = s.next)
+         depth += s.modifications.size();
+      return depth;
+   }
+
+   /**
+    * @return the estimated size in bytes of the modifications which have not yet been written to the underlying
+    *         store. Only tracked if {@link AsyncStoreConfiguration#maxUnflushedBytes()} is set.
+    */
+   public long getUnflushedBytes() {
+      return unflushedBytes.get();
+   }
+
+   /**
+    * @return the age in milliseconds of the oldest modification which has not yet been written to the underlying
+    *         store, or 0 if all modifications have been written
+    */
+   public long getWriteBehindLag() {
+      long oldest = Long.MAX_VALUE;
+      for (State s = state; s != null; s = s.next) {
+         long time = s.firstModificationTime.get();
+         if (time > 0 && !s.modifications.isEmpty())
+            oldest = Math.min(oldest, time);
+      }
+      return oldest == Long.MAX_VALUE ? 0 : Math.max(0, timeService.wallClockTime() - oldest);
+   }
+
+   /**
+    * @return the number of batches written to the underlying store
+    */
+   public long getFlushCount() {
+      return flushCount.get();
+   }
+
+   /**
+    * @return the number of modifications written to the underlying store
+    */
+   public long getFlushedModificationCount() {
+      return flushedModifications.get();
+   }
+
+   /**
+    * @return the average time in milliseconds taken to write a batch to the underlying store
+    */
+   public long getAverageFlushLatency() {
+      long flushes = flushCount.get();
+      return flushes > 0 ? TimeUnit.NANOSECONDS.toMillis(flushTimeNanos.get() / flushes) : 0;
+   }
+
+   /**
+    * Resets the flush statistics.
+    */
+   public void resetStatistics() {
+      flushCount.set(0);
+      flushedModifications.set(0);
+      flushTimeNanos.set(0);
+   }
+
    private static class State {
       private static final Clear CLEAR = new Clear();
 
@@ -357,6 +522,16 @@ private static class State {
        */
       private CountDownLatch workerThreads;
 
+      /**
+       * Estimated size of the modifications added to this instance, if unflushed bytes are tracked.
+       */
+      private final AtomicLong bytes = new AtomicLong();
+
+      /**
+       * Wall clock time of the first modification added to this instance, or 0 if empty.
+       */
+      private final AtomicLong firstModificationTime = new AtomicLong();
+
       private State(boolean clear, ConcurrentMap<Object, Modification> modMap, State next) {
          this.clear = clear;
          this.modifications = modMap;
@@ -409,6 +584,21 @@ void put(Modification mod) {
                throw new IllegalArgumentException("Unknown modification type " + mod.getType());
          }
       }
+
+      /**
+       * Accounts for a modification added to the state map.
+       *
+       * @param size
+       *           the estimated size of the modification in bytes
+       * @param time
+       *           the wall clock time of the modification
+       */
+      void track(long size, long time) {
+         if (size > 0)
+            bytes.addAndGet(size);
+         if (firstModificationTime.get() == 0)
+            firstModificationTime.compareAndSet(0, time);
+      }
    }
 
    /**
@@ -436,6 +626,10 @@ private static class Counter extends AbstractQueuedSynchronizer {
             this.size = size;
          }
 
+         int getCount() {
+            return getState();
+         }
+
          int add(int count) {
             for (;;) {
                int state = getState();
@@ -527,6 +721,9 @@ protected boolean tryReleaseShared(int unused) {
       private final Sync sync;
       private final Counter counter;
       private final Available available;
+      private final AtomicLong writes = new AtomicLong();
+      private final Object writeCondition = new Object();
+      private volatile boolean writeAwaited;
 
       /**
        * Create a new BufferLock with the specified buffer size.
@@ -559,6 +756,39 @@ void writeLock(int count) {
       void writeUnlock() {
          sync.releaseShared(1);
          available.releaseShared(1);
+         writes.incrementAndGet();
+         if (writeAwaited) {
+            synchronized (writeCondition) {
+               writeCondition.notifyAll();
+            }
+         }
+      }
+
+      /**
+       * @return the number of write locks released so far, see {@link #awaitWrite(long, long)}
+       */
+      long writeCount() {
+         return writes.get();
+      }
+
+      /**
+       * Blocks until another write lock is released, or until the timeout elapses.
+       *
+       * @param writeCount
+       *           the {@link #writeCount()} read before checking the state of the buffer
+       * @param timeout
+       *           maximum time to wait, in milliseconds
+       */
+      void awaitWrite(long writeCount, long timeout) throws InterruptedException {
+         synchronized (writeCondition) {
+            writeAwaited = true;
+            try {
+               if (writes.get() == writeCount)
+                  writeCondition.wait(timeout);
+            } finally {
+               writeAwaited = false;
+            }
+         }
       }
 
       /**
@@ -577,6 +807,20 @@ void readUnlock() {
          sync.release(1);
       }
 
+      /**
+       * Blocks until data is available, without acquiring the read lock.
+       */
+      void awaitAvailable() {
+         available.acquireShared(1);
+      }
+
+      /**
+       * @return the number of items in the buffer, or 0 if the buffer is unbounded
+       */
+      int count() {
+         return counter != null ? counter.getCount() : 0;
+      }
+
       /**
        * Resets the buffer counter to the specified number.
        *
@@ -615,6 +859,9 @@ public void run() {
                   return;
                }
 
+               if (maxFlushDelay > 0)
+                  awaitBatch();
+
                stateLock.readLock();
                try {
                   s = state;
@@ -642,8 +889,13 @@ public void run() {
                         if (!tail.modifications.containsKey(e.getKey()))
                            mods.add(e.getValue());
                         else {
-                           if (!head.clear && head.modifications.putIfAbsent(e.getKey(), e.getValue()) == null)
+                           if (!head.clear && head.modifications.putIfAbsent(e.getKey(), e.getValue()) == null) {
+                              // the pushed-back modification stays unflushed, move its size along with it
+                              long size = maxUnflushedBytes > 0 ? estimateSize(e.getValue()) : 0;
+                              s.bytes.addAndGet(-size);
+                              head.track(size, s.firstModificationTime.get());
                               stateLock.add(1);
+                           }
                            s.modifications.remove(e.getKey());
                         }
                      }
@@ -665,6 +917,8 @@ public void run() {
                         start = end;
                      }
                      assert start == mods.size() : "Thread distribution is broken!";
+                  } else {
+                     releaseUnflushedBytes(s);
                   }
 
                   // wait until background threads of previous round are done
@@ -709,6 +963,34 @@ private boolean shouldStop(State s) {
          return s.stopped && s.modifications.isEmpty();
       }
 
+      /**
+       * Holds back the next flush until enough modifications for a full batch have been queued, or
+       * until <code>maxFlushDelay</code> has elapsed. Under load the batches fill up quickly and
+       * the flush is not delayed at all, while a lightly loaded store coalesces more modifications
+       * per flush.
+       */
+      private void awaitBatch() {
+         stateLock.awaitAvailable();
+         long endTime = timeService.expectedEndTime(maxFlushDelay, TimeUnit.MILLISECONDS);
+         for (;;) {
+            long writes = stateLock.writeCount();
+            State s = state;
+            if (s.stopped || s.clear || Math.max(s.modifications.size(), stateLock.count()) >= flushThreshold)
+               return;
+            if (maxUnflushedBytes > 0 && unflushedBytes.get() >= maxUnflushedBytes)
+               return;
+            long remaining = timeService.remainingTime(endTime, TimeUnit.MILLISECONDS);
+            if (remaining <= 0)
+               return;
+            try {
+               stateLock.awaitWrite(writes, remaining);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+         }
+      }
+
       private void workerThreadsAwait(CountDownLatch latch) throws InterruptedException {
          boolean await = latch.await(shutdownTimeout, TimeUnit.MILLISECONDS);
          if (!await)
@@ -727,24 +1009,34 @@ private class AsyncStoreProcessor implements Runnable {
 
       @Override
       public void run() {
-         // try 3 times to store the modifications
-         retryWork(3);
+         int size = modifications.size();
+         int batchSize = maxBatchSize > 0 ? maxBatchSize : size;
+         for (int start = 0; start < size; start += batchSize) {
+            // try 3 times to store each batch of modifications
+            retryWork(modifications.subList(start, Math.min(start + batchSize, size)), 3);
+         }
 
          // decrement active worker threads and disconnect myState if this was the last one
          myState.workerThreads.countDown();
-         if (myState.workerThreads.getCount() == 0)
+         if (myState.workerThreads.getCount() == 0) {
+            releaseUnflushedBytes(myState);
             for (State s = state; s != null; s = s.next)
                if (s.next == myState)
                   s.next = null;
+         }
       }
 
-      private void retryWork(int maxRetries) {
+      private void retryWork(List<Modification> batch, int maxRetries) {
+         long start = timeService.time();
          for (int attempt = 0; attempt < maxRetries; attempt++) {
             if (attempt > 0 && log.isDebugEnabled())
                log.debugf("Retrying due to previous failure. %s attempts left.", maxRetries - attempt);
 
             try {
-               AsyncStore.this.applyModificationsSync(modifications);
+               AsyncStore.this.applyModificationsSync(batch);
+               flushTimeNanos.addAndGet(timeService.timeDuration(start, TimeUnit.NANOSECONDS));
+               flushedModifications.addAndGet(batch.size());
+               flushCount.incrementAndGet();
                return;
             } catch (Exception e) {
                if (log.isDebugEnabled())
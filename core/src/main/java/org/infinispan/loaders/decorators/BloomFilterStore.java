@@ -0,0 +1,273 @@
+package org.infinispan.loaders.decorators;
+
+import org.infinispan.commons.util.BloomFilter;
+import org.infinispan.configuration.cache.BloomFilterConfiguration;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.ModificationsList;
+import org.infinispan.loaders.modifications.Store;
+import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.ObjectInput;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A decorator which keeps a {@link BloomFilter} of the keys in the underlying store, and answers the lookups of the
+ * keys which are definitely not in the store without accessing it.
+ * <p/>
+ * The filter is built from the keys in the store by {@link #rebuild()} and every key is added to the filter before
+ * being written to the store, so the filter always holds a superset of the stored keys. Removed keys cannot be taken
+ * out of the filter: they, along with the keys added once the filter holds more keys than it was sized for, increase
+ * the rate of lookups which still reach the store. The filter is rebuilt when the store is purged of its expired entries
+ * if this rate exceeds twice the configured false positive probability.
+ * <p/>
+ * This decorator must see all the writes to the store, so it cannot be used on stores which are shared or modified
+ * by other processes.
+ *
+ * @since 6.0
+ */
+public class BloomFilterStore extends AbstractDelegatingStore {
+
+   private static final Log log = LogFactory.getLog(BloomFilterStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   /**
+    * The number of filtered lookups needed before the observed false positive rate is used to decide on a rebuild
+    */
+   private static final long MIN_LOOKUPS_FOR_REBUILD = 1000;
+
+   private final int expectedEntries;
+   private final double falsePositiveProbability;
+
+   private volatile BloomFilter filter;
+   /**
+    * The filter being rebuilt, which must also see the keys stored while the store is scanned
+    */
+   private volatile BloomFilter pending;
+
+   private final AtomicLong negativeLookups = new AtomicLong();
+   private final AtomicLong falsePositives = new AtomicLong();
+
+   public BloomFilterStore(CacheStore delegate, BloomFilterConfiguration configuration) {
+      super(delegate);
+      this.expectedEntries = configuration.expectedEntries();
+      this.falsePositiveProbability = configuration.falsePositiveProbability();
+      this.filter = BloomFilter.create(expectedEntries, falsePositiveProbability);
+   }
+
+   @Override
+   public InternalCacheEntry load(Object key) throws CacheLoaderException {
+      if (!filter.mightContain(key)) {
+         negativeLookups.incrementAndGet();
+         return null;
+      }
+      InternalCacheEntry entry = super.load(key);
+      if (entry == null) {
+         falsePositives.incrementAndGet();
+      }
+      return entry;
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      if (!filter.mightContain(key)) {
+         negativeLookups.incrementAndGet();
+         return false;
+      }
+      boolean contains = super.containsKey(key);
+      if (!contains) {
+         falsePositives.incrementAndGet();
+      }
+      return contains;
+   }
+
+   @Override
+   public void store(InternalCacheEntry ed) throws CacheLoaderException {
+      Object key = ed.getKey();
+      BloomFilter current = filter;
+      current.add(key);
+      super.store(ed);
+      keyStored(key, current);
+   }
+
+   @Override
+   public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
+      // keys which end up rolled back only cost a false positive
+      BloomFilter current = filter;
+      addStoredKeys(list, current);
+      super.prepare(list, tx, isOnePhase);
+      BloomFilter latest = filter;
+      if (latest != current) {
+         addStoredKeys(list, latest);
+      }
+      BloomFilter rebuilding = pending;
+      if (rebuilding != null) {
+         addStoredKeys(list, rebuilding);
+      }
+   }
+
+   @Override
+   public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
+      super.fromStream(inputStream);
+      rebuild();
+   }
+
+   @Override
+   public void clear() throws CacheLoaderException {
+      synchronized (this) {
+         // replace the filter first, the keys stored concurrently are added to the new one as well
+         filter = BloomFilter.create(expectedEntries, falsePositiveProbability);
+         resetStatistics();
+      }
+      super.clear();
+   }
+
+   @Override
+   public void purgeExpired() throws CacheLoaderException {
+      super.purgeExpired();
+      if (isStale()) {
+         if (trace) log.tracef("Rebuilding the Bloom filter: %s", this);
+         rebuild();
+      }
+   }
+
+   /**
+    * Rebuilds the filter from the keys currently in the store. The new filter is sized for twice the estimated number of
+    * keys in the store, or the configured number of expected entries if greater.
+    */
+   public synchronized void rebuild() throws CacheLoaderException {
+      long start = System.nanoTime();
+      int capacity = capacityFor(estimateEntries());
+      BloomFilter newFilter = BloomFilter.create(capacity, falsePositiveProbability);
+      pending = newFilter;
+      try {
+         Set<Object> keys = super.loadAllKeys(null);
+         if (keys.size() > capacity) {
+            // the estimate was too low, e.g. when the filter is first built: size the filter for the actual keys and
+            // scan the store again for the keys which were only added to the undersized filter in the meantime
+            newFilter = BloomFilter.create(capacityFor(keys.size()), falsePositiveProbability);
+            pending = newFilter;
+            for (Object key : super.loadAllKeys(keys)) {
+               newFilter.add(key);
+            }
+         }
+         for (Object key : keys) {
+            newFilter.add(key);
+         }
+         filter = newFilter;
+         resetStatistics();
+         log.debugf("Built a Bloom filter of %d bytes for the %d keys of store %s in %d ms", newFilter.getMemorySize(),
+                    keys.size(), getDelegate(), (System.nanoTime() - start) / 1000000);
+      } finally {
+         pending = null;
+      }
+   }
+
+   /**
+    * @return the number of lookups answered without accessing the store
+    */
+   public long getNegativeLookups() {
+      return negativeLookups.get();
+   }
+
+   /**
+    * @return the number of lookups of keys which were not in the store but were not filtered out
+    */
+   public long getFalsePositives() {
+      return falsePositives.get();
+   }
+
+   /**
+    * @return the fraction of the lookups of keys which were not in the store that still accessed the store, since the
+    *         filter was last built
+    */
+   public double getFalsePositiveRate() {
+      long fp = falsePositives.get();
+      long total = fp + negativeLookups.get();
+      return total == 0 ? 0 : (double) fp / total;
+   }
+
+   /**
+    * @return the false positive probability estimated from the fraction of bits set in the filter
+    */
+   public double getExpectedFalsePositiveProbability() {
+      return filter.expectedFalsePositiveProbability();
+   }
+
+   /**
+    * @return the memory used by the filter, in bytes
+    */
+   public long getMemorySize() {
+      return filter.getMemorySize();
+   }
+
+   public void resetStatistics() {
+      negativeLookups.set(0);
+      falsePositives.set(0);
+   }
+
+   private void keyStored(Object key, BloomFilter current) {
+      // the filter may have been replaced or be rebuilt while the key was being stored
+      BloomFilter latest = filter;
+      if (latest != current) {
+         latest.add(key);
+      }
+      BloomFilter rebuilding = pending;
+      if (rebuilding != null) {
+         rebuilding.add(key);
+      }
+   }
+
+   private void addStoredKeys(List<? extends Modification> modifications, BloomFilter target) {
+      for (Modification modification : modifications) {
+         switch (modification.getType()) {
+            case STORE:
+               target.add(((Store) modification).getStoredEntry().getKey());
+               break;
+            case LIST:
+               addStoredKeys(((ModificationsList) modification).getList(), target);
+               break;
+            default:
+               // removals and clears leave the filter a superset of the stored keys
+         }
+      }
+   }
+
+   private boolean isStale() {
+      if (filter.expectedFalsePositiveProbability() > 2 * falsePositiveProbability) {
+         return true;
+      }
+      long fp = falsePositives.get();
+      return fp + negativeLookups.get() >= MIN_LOOKUPS_FOR_REBUILD && getFalsePositiveRate() > 2 * falsePositiveProbability;
+   }
+
+   /**
+    * Estimates the number of distinct keys added to the filter from the fraction of bits set.
+    */
+   private long estimateEntries() {
+      BloomFilter current = filter;
+      double numBits = current.getNumBits();
+      double fractionSet = Math.min(current.bitCount() / numBits, 1 - 1 / numBits);
+      return (long) (-numBits / current.getNumHashes() * Math.log(1 - fractionSet));
+   }
+
+   private int capacityFor(long entries) {
+      return (int) Math.max(expectedEntries, Math.min(2 * entries, Integer.MAX_VALUE));
+   }
+
+   @Override
+   public String toString() {
+      return "BloomFilterStore{" +
+            "filter=" + filter +
+            ", negativeLookups=" + negativeLookups +
+            ", falsePositives=" + falsePositives +
+            ", delegate=" + getDelegate() +
+            '}';
+   }
+}
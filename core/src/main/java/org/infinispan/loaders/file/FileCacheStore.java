@@ -6,9 +6,12 @@
 import org.infinispan.configuration.cache.CacheLoaderConfiguration;
 import org.infinispan.configuration.cache.FileCacheStoreConfiguration;
 import org.infinispan.configuration.cache.FileCacheStoreConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.bucket.Bucket;
 import org.infinispan.loaders.bucket.BucketBasedCacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.commons.util.Util;
@@ -16,7 +19,6 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -30,7 +32,12 @@
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -39,6 +46,11 @@
 /**
  * A filesystem-based implementation of a {@link org.infinispan.loaders.bucket.BucketBasedCacheStore}.  This file store
  * stores stuff in the following format: <tt>/{location}/cache name/bucket_number.bucket</tt>
+ * <p/>
+ * In distributed caches with no more than {@link #MAX_SEGMENTS} segments the buckets are grouped in a directory per
+ * segment instead, i.e. <tt>/{location}/cache name/segment/bucket_number</tt>, and the store is a
+ * {@link SegmentedCacheStore}. The segment is encoded in the lower bits of the bucket number, which are otherwise
+ * unused.
  *
  * @author Manik Surtani
  * @author Mircea.Markus@jboss.com
@@ -47,16 +59,25 @@
  * @author Sanne Grinovero
  * @since 4.0
  */
-public class FileCacheStore extends BucketBasedCacheStore {
+public class FileCacheStore extends BucketBasedCacheStore implements SegmentedCacheStore {
 
    static final Log log = LogFactory.getLog(FileCacheStore.class);
    private static final boolean trace = log.isTraceEnabled();
+
+   /**
+    * The highest number of segments for which the buckets are grouped by segment, as the segment has to fit in the bits
+    * masked out of the bucket number by {@link BucketBasedCacheStore#getLockFromKey(Object)}.
+    */
+   public static final int MAX_SEGMENTS = 1024;
+   private static final int SEGMENT_MASK = MAX_SEGMENTS - 1;
+
    private int streamBufferSize;
 
    private FileCacheStoreConfiguration configuration;
 
    File root;
    FileSync fileSync;
+   private SegmentMapper segmentMapper;
 
    /**
     * @return root directory where all files for this {@link org.infinispan.loaders.spi.CacheStore CacheStore} are written.
@@ -74,14 +95,17 @@ public void init(CacheLoaderConfiguration configuration, Cache<?, ?> cache, Stre
 
    @Override
    protected void loopOverBuckets(BucketHandler handler) throws CacheLoaderException {
+      if (root != null) {
+         loopOverBuckets(listBucketFiles(null, false), handler);
+      }
+   }
+
+   private void loopOverBuckets(Collection<File> bucketFiles, BucketHandler handler) throws CacheLoaderException {
       try {
-         File[] listFiles;
-         if (root != null && (listFiles = root.listFiles(NUMERIC_NAMED_FILES_FILTER)) != null) {
-            for (File bucketFile : listFiles) {
-               Bucket bucket = loadBucket(bucketFile);
-               if (handler.handle(bucket)) {
-                  break;
-               }
+         for (File bucketFile : bucketFiles) {
+            Bucket bucket = loadBucket(bucketFile);
+            if (handler.handle(bucket)) {
+               break;
             }
          }
       } catch (InterruptedException ie) {
@@ -96,49 +120,66 @@ protected void loopOverBuckets(BucketHandler handler) throws CacheLoaderExceptio
    protected void fromStreamLockSafe(ObjectInput objectInput) throws CacheLoaderException {
       try {
          int numFiles = objectInput.readInt();
-         byte[] buffer = new byte[streamBufferSize];
-         int bytesRead, totalBytesRead = 0;
          for (int i = 0; i < numFiles; i++) {
             String fName = (String) objectInput.readObject();
             int numBytes = objectInput.readInt();
-            FileOutputStream fos = new FileOutputStream(root.getAbsolutePath() + File.separator + fName);
-            BufferedOutputStream bos = new BufferedOutputStream(fos, streamBufferSize);
-
-            try {
-               while (numBytes > totalBytesRead) {
-                  if (numBytes - totalBytesRead > streamBufferSize) {
-                     bytesRead = objectInput.read(buffer, 0, streamBufferSize);
-                  } else {
-                     bytesRead = objectInput.read(buffer, 0, numBytes - totalBytesRead);
-                  }
-
-                  if (bytesRead == -1) {
-                     break;
-                  }
-                  totalBytesRead += bytesRead;
-                  bos.write(buffer, 0, bytesRead);
-               }
-               bos.flush();
-               fos.flush();
-               totalBytesRead = 0;
-            } finally {
-               safeClose(bos);
-               safeClose(fos);
-            }
+            byte[] bytes = new byte[numBytes];
+            objectInput.readFully(bytes);
+            storeStreamedBucket(Integer.valueOf(fName), bytes);
          }
       } catch (IOException e) {
          throw new CacheLoaderException("I/O error", e);
       } catch (ClassNotFoundException e) {
          throw new CacheLoaderException("Unexpected exception", e);
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while reading the stream", ie);
+      }
+   }
+
+   /**
+    * Stores a bucket file received from another store, which may not have the same layout, i.e. may group its buckets
+    * by segment while this store doesn't (or the other way round) or may have a different number of segments. The file
+    * is copied as is only if its number is the one this store looks its keys up with, otherwise its entries are added
+    * one by one to the buckets they belong to here.
+    */
+   private void storeStreamedBucket(Integer bucketId, byte[] bytes) throws CacheLoaderException, InterruptedException {
+      if (bytes.length == 0) {
+         return;
+      }
+      Bucket bucket;
+      try {
+         bucket = (Bucket) objectFromInputStreamInReentrantMode(new ByteArrayInputStream(bytes));
+      } catch (IOException e) {
+         throw new CacheLoaderException("Error while reading a streamed bucket", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Error while reading a streamed bucket", e);
+      }
+      if (bucket.getEntries().isEmpty()) {
+         return;
+      }
+      File bucketFile = getBucketFile(bucketId);
+      Object firstKey = bucket.getEntries().keySet().iterator().next();
+      if (getLockFromKey(firstKey).equals(bucketId) && !bucketFile.exists()) {
+         createSegmentDirectory(bucketFile);
+         try {
+            fileSync.write(bytes, bucketFile);
+         } catch (IOException e) {
+            throw new CacheLoaderException("I/O error", e);
+         }
+      } else {
+         for (InternalCacheEntry entry : bucket.getStoredEntries()) {
+            storeLockSafe(entry, getLockFromKey(entry.getKey()));
+         }
       }
    }
 
    @Override
    protected void toStreamLockSafe(ObjectOutput objectOutput) throws CacheLoaderException {
       try {
-         File[] files = listFilesStrict(root, NUMERIC_NAMED_FILES_FILTER);
+         List<File> files = listBucketFiles(null, true);
 
-         objectOutput.writeInt(files.length);
+         objectOutput.writeInt(files.size());
          byte[] buffer = new byte[streamBufferSize];
          for (File file : files) {
             int bytesRead, totalBytesRead = 0;
@@ -179,13 +220,32 @@ protected void clearLockSafe() throws CacheLoaderException {
          return;
       }
       for (File f : toDelete) {
-         deleteFile(f);
-         if (f.exists()) {
-            log.problemsRemovingFile(f);
+         if (f.isDirectory()) {
+            deleteSegmentDirectory(f);
+         } else {
+            deleteFile(f);
+            if (f.exists()) {
+               log.problemsRemovingFile(f);
+            }
          }
       }
    }
 
+   private void deleteSegmentDirectory(File segmentDir) {
+      File[] toDelete = segmentDir.listFiles(NUMERIC_NAMED_FILES_FILTER);
+      if (toDelete != null) {
+         for (File f : toDelete) {
+            deleteFile(f);
+            if (f.exists()) {
+               log.problemsRemovingFile(f);
+            }
+         }
+      }
+      if (!segmentDir.delete() && segmentDir.exists()) {
+         log.problemsRemovingFile(segmentDir);
+      }
+   }
+
    @Override
    protected boolean supportsMultiThreadedPurge() {
       return true;
@@ -195,7 +255,7 @@ protected boolean supportsMultiThreadedPurge() {
    protected void purgeInternal() throws CacheLoaderException {
       if (trace) log.trace("purgeInternal()");
 
-      File[] files = listFilesStrict(root, NUMERIC_NAMED_FILES_FILTER);
+      List<File> files = listBucketFiles(null, true);
 
       for (final File bucketFile : files) {
          if (multiThreadedPurge) {
@@ -257,7 +317,7 @@ private boolean doPurge(File bucketFile) {
    @Override
    protected Bucket loadBucket(Integer hash) throws CacheLoaderException {
       try {
-         return loadBucket(new File(root, String.valueOf(hash)));
+         return loadBucket(getBucketFile(hash));
       } catch (InterruptedException ie) {
          if (log.isDebugEnabled()) {
             log.debug("Interrupted, so stop loading bucket and return null.");
@@ -301,7 +361,7 @@ protected Bucket loadBucket(File bucketFile) throws CacheLoaderException, Interr
 
    @Override
    public void updateBucket(Bucket b) throws CacheLoaderException {
-      File f = new File(root, b.getBucketIdAsString());
+      File f = getBucketFile(b.getBucketId());
       if (f.exists()) {
          if (!purgeFile(f)) {
             log.problemsRemovingFile(f);
@@ -313,6 +373,7 @@ public void updateBucket(Bucket b) throws CacheLoaderException {
       if (!b.getEntries().isEmpty()) {
          try {
             byte[] bytes = marshaller.objectToByteBuffer(b);
+            createSegmentDirectory(f);
             fileSync.write(bytes, f);
          } catch (IOException ex) {
             log.errorSavingBucket(b, ex);
@@ -345,6 +406,12 @@ public void start() throws CacheLoaderException {
       }
       streamBufferSize = configuration.streamBufferSize();
 
+      segmentMapper = SegmentMapper.forCache(cache);
+      if (segmentMapper != null && segmentMapper.getNumSegments() > MAX_SEGMENTS) {
+         log.debugf("Not grouping buckets by segment, as the cache has more than %d segments", MAX_SEGMENTS);
+         segmentMapper = null;
+      }
+
       FileCacheStoreConfigurationBuilder.FsyncMode fsyncMode = configuration.fsyncMode();
       switch (fsyncMode) {
          case DEFAULT:
@@ -359,6 +426,88 @@ public void start() throws CacheLoaderException {
       }
 
       log.debugf("Using %s file sync mode", fsyncMode);
+      migrateBuckets();
+   }
+
+   /**
+    * Moves the buckets written with another layout, i.e. grouped by segment while the store no longer is (or the other
+    * way round) or grouped by a different number of segments, so that their entries stay reachable after a change of
+    * the cache mode or of the number of segments.
+    */
+   private void migrateBuckets() throws CacheLoaderException {
+      File[] files = root.listFiles(NUMERIC_NAMED_FILES_FILTER);
+      if (files == null) {
+         return;
+      }
+      List<File> segmentDirs = new ArrayList<File>();
+      List<File> toMigrate = new ArrayList<File>();
+      boolean staleSegmentDirs = segmentMapper == null;
+      for (File f : files) {
+         if (f.isDirectory()) {
+            segmentDirs.add(f);
+            staleSegmentDirs = staleSegmentDirs || !isCurrentSegmentDirectory(f);
+         } else if (segmentMapper != null) {
+            toMigrate.add(f);
+         }
+      }
+      if (staleSegmentDirs) {
+         for (File segmentDir : segmentDirs) {
+            addBucketFiles(segmentDir, false, toMigrate);
+         }
+      }
+      if (toMigrate.isEmpty()) {
+         return;
+      }
+      log.debugf("Moving the entries of %d bucket files to the current layout", toMigrate.size());
+      for (File bucketFile : toMigrate) {
+         migrateBucket(bucketFile);
+      }
+      for (File segmentDir : segmentDirs) {
+         String[] remaining = segmentDir.list();
+         if (remaining != null && remaining.length == 0) {
+            segmentDir.delete();
+         }
+      }
+   }
+
+   /**
+    * Checks that the first entry found in a segment directory belongs to that segment, which is not the case if the
+    * number of segments has changed.
+    */
+   private boolean isCurrentSegmentDirectory(File segmentDir) throws CacheLoaderException {
+      int segment = Integer.parseInt(segmentDir.getName());
+      if (segment < 0 || segment >= segmentMapper.getNumSegments()) {
+         return false;
+      }
+      File[] bucketFiles = segmentDir.listFiles(NUMERIC_NAMED_FILES_FILTER);
+      if (bucketFiles != null) {
+         for (File bucketFile : bucketFiles) {
+            try {
+               Bucket bucket = loadBucket(bucketFile);
+               if (bucket != null && !bucket.getEntries().isEmpty()) {
+                  return segmentMapper.getSegment(bucket.getEntries().keySet().iterator().next()) == segment;
+               }
+            } catch (InterruptedException ie) {
+               Thread.currentThread().interrupt();
+               break;
+            }
+         }
+      }
+      return true;
+   }
+
+   private void migrateBucket(File bucketFile) throws CacheLoaderException {
+      try {
+         Bucket bucket = loadBucket(bucketFile);
+         deleteFile(bucketFile);
+         if (bucket != null) {
+            for (InternalCacheEntry entry : bucket.getStoredEntries()) {
+               store(entry);
+            }
+         }
+      } catch (InterruptedException ie) {
+         Thread.currentThread().interrupt();
+      }
    }
 
    @Override
@@ -371,6 +520,168 @@ public Bucket loadBucketContainingKey(String key) throws CacheLoaderException {
       return loadBucket(getLockFromKey(key));
    }
 
+   /**
+    * When the buckets are grouped by segment, the segment of the key is stored in the lower bits of the bucket number
+    * so that all the keys of a bucket belong to the same segment.
+    */
+   @Override
+   public Integer getLockFromKey(Object key) {
+      Integer bucketId = super.getLockFromKey(key);
+      if (segmentMapper == null) {
+         return bucketId;
+      }
+      return bucketId | segmentMapper.getSegment(key);
+   }
+
+   @Override
+   public boolean isSegmented() {
+      return segmentMapper != null;
+   }
+
+   @Override
+   public int getNumSegments() {
+      return segmentMapper == null ? 1 : segmentMapper.getNumSegments();
+   }
+
+   @Override
+   public Set<Integer> getSegments() throws CacheLoaderException {
+      assertSegmented();
+      Set<Integer> segments = new HashSet<Integer>();
+      for (File segmentDir : listFilesStrict(root, NUMERIC_NAMED_FILES_FILTER)) {
+         String[] bucketFiles;
+         if (segmentDir.isDirectory() && (bucketFiles = segmentDir.list()) != null && bucketFiles.length > 0) {
+            segments.add(Integer.valueOf(segmentDir.getName()));
+         }
+      }
+      return segments;
+   }
+
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Integer> segments) throws CacheLoaderException {
+      CollectionGeneratingBucketHandler<InternalCacheEntry> g = new CollectionGeneratingBucketHandler<InternalCacheEntry>() {
+         @Override
+         public boolean consider(Collection<? extends InternalCacheEntry> entries) {
+            generated.addAll(entries);
+            return false;
+         }
+      };
+      loopOverSegments(segments, g);
+      return g.generate();
+   }
+
+   @Override
+   public Set<Object> loadAllKeys(Set<Integer> segments, final Set<Object> keysToExclude) throws CacheLoaderException {
+      CollectionGeneratingBucketHandler<Object> g = new CollectionGeneratingBucketHandler<Object>() {
+         @Override
+         public boolean consider(Collection<? extends InternalCacheEntry> entries) {
+            for (InternalCacheEntry ice : entries) {
+               if (keysToExclude == null || !keysToExclude.contains(ice.getKey())) {
+                  generated.add(ice.getKey());
+               }
+            }
+            return false;
+         }
+      };
+      loopOverSegments(segments, g);
+      return g.generate();
+   }
+
+   @Override
+   public void clear(Set<Integer> segments) throws CacheLoaderException {
+      assertSegmented();
+      if (!acquireGlobalLock(true)) {
+         throw new CacheLoaderException("Unable to acquire global lock");
+      }
+      try {
+         for (Integer segment : segments) {
+            File segmentDir = new File(root, String.valueOf(segment));
+            if (segmentDir.exists()) {
+               deleteSegmentDirectory(segmentDir);
+            }
+         }
+      } finally {
+         releaseGlobalLock(true);
+      }
+   }
+
+   private void loopOverSegments(Set<Integer> segments, BucketHandler handler) throws CacheLoaderException {
+      assertSegmented();
+      if (!acquireGlobalLock(false)) {
+         throw new CacheLoaderException("Unable to acquire global lock");
+      }
+      try {
+         loopOverBuckets(listBucketFiles(segments, false), handler);
+      } finally {
+         releaseGlobalLock(false);
+      }
+   }
+
+   private void assertSegmented() {
+      if (segmentMapper == null) {
+         throw new IllegalStateException("The buckets of this store are not grouped by segment");
+      }
+   }
+
+   private File getBucketFile(Integer bucketId) {
+      if (segmentMapper == null) {
+         return new File(root, String.valueOf(bucketId));
+      }
+      return new File(new File(root, String.valueOf(bucketId & SEGMENT_MASK)), String.valueOf(bucketId));
+   }
+
+   private void createSegmentDirectory(File bucketFile) {
+      if (segmentMapper != null) {
+         File segmentDir = bucketFile.getParentFile();
+         if (!segmentDir.exists() && !segmentDir.mkdirs()) {
+            log.problemsCreatingDirectory(segmentDir);
+         }
+      }
+   }
+
+   /**
+    * Lists the bucket files of the store, or of the given segments only when the buckets are grouped by segment.
+    *
+    * @param segments the segments to list the buckets of, or null for all the buckets
+    * @param strict whether failing to list the root directory is an error
+    */
+   private List<File> listBucketFiles(Set<Integer> segments, boolean strict) throws CacheLoaderException {
+      List<File> bucketFiles = new ArrayList<File>();
+      if (segmentMapper == null) {
+         addBucketFiles(root, strict, bucketFiles);
+      } else if (segments == null) {
+         for (File segmentDir : listFiles(root, strict)) {
+            if (segmentDir.isDirectory()) {
+               // a segment directory may be removed concurrently by clear(segments)
+               addBucketFiles(segmentDir, false, bucketFiles);
+            }
+         }
+      } else {
+         for (Integer segment : segments) {
+            File segmentDir = new File(root, String.valueOf(segment));
+            if (segmentDir.isDirectory()) {
+               addBucketFiles(segmentDir, false, bucketFiles);
+            }
+         }
+      }
+      return bucketFiles;
+   }
+
+   private void addBucketFiles(File dir, boolean strict, List<File> bucketFiles) throws CacheLoaderException {
+      for (File f : listFiles(dir, strict)) {
+         if (f.isFile()) {
+            bucketFiles.add(f);
+         }
+      }
+   }
+
+   private File[] listFiles(File dir, boolean strict) throws CacheLoaderException {
+      if (strict) {
+         return listFilesStrict(dir, NUMERIC_NAMED_FILES_FILTER);
+      }
+      File[] files = dir.listFiles(NUMERIC_NAMED_FILES_FILTER);
+      return files == null ? new File[0] : files;
+   }
+
    private void deleteFile(File f) {
       if (trace) {
          log.tracef("Really delete file %s", f);
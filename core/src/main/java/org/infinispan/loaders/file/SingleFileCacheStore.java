@@ -26,6 +26,8 @@
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.spi.AbstractCacheStore;
 import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -53,11 +55,14 @@
  * <p/>
  * This class is fully thread safe, yet allows for concurrent load / store
  * of individual cache entries.
+ * <p/>
+ * In distributed caches the store is a {@link SegmentedCacheStore}: as the keys are kept in memory, the entries of a
+ * segment are located without reading the file.
  *
  * @author Karsten Blees
  * @since 6.0
  */
-public class SingleFileCacheStore extends AbstractCacheStore {
+public class SingleFileCacheStore extends AbstractCacheStore implements SegmentedCacheStore {
 
    private static final Log log = LogFactory.getLog(SingleFileCacheStore.class);
 
@@ -72,6 +77,7 @@ public class SingleFileCacheStore extends AbstractCacheStore {
    private Map<Object, FileEntry> entries;
    private SortedSet<FileEntry> freeList;
    private long filePos = MAGIC.length;
+   private SegmentMapper segmentMapper;
 
 
    /** {@inheritDoc} */
@@ -100,6 +106,7 @@ public void start() throws CacheLoaderException {
              }
          }
          file = new RandomAccessFile(f, "rw").getChannel();
+         segmentMapper = SegmentMapper.forCache(cache);
 
          // initialize data structures
          // only use LinkedHashMap (LRU) for entries when cache store is bounded
@@ -420,6 +427,80 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       return result;
    }
 
+   /** {@inheritDoc} */
+   @Override
+   public boolean isSegmented() {
+      return segmentMapper != null;
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public int getNumSegments() {
+      return segmentMapper == null ? 1 : segmentMapper.getNumSegments();
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public Set<Integer> getSegments() throws CacheLoaderException {
+      assertSegmented();
+      Set<Integer> result = new HashSet<Integer>();
+      synchronized (entries) {
+         for (Object key : entries.keySet())
+            result.add(segmentMapper.getSegment(key));
+      }
+      return result;
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Integer> segments) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (Object key : loadAllKeys(segments, null)) {
+         InternalCacheEntry ice = load(key);
+         if (ice != null)
+            result.add(ice);
+      }
+      return result;
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public Set<Object> loadAllKeys(Set<Integer> segments, Set<Object> keysToExclude) throws CacheLoaderException {
+      assertSegmented();
+      Set<Object> result = new HashSet<Object>();
+      synchronized (entries) {
+         for (Object key : entries.keySet()) {
+            if (segments.contains(segmentMapper.getSegment(key)) && (keysToExclude == null || !keysToExclude.contains(key)))
+               result.add(key);
+         }
+      }
+      return result;
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public void clear(Set<Integer> segments) throws CacheLoaderException {
+      assertSegmented();
+      synchronized (entries) {
+         for (Iterator<Map.Entry<Object, FileEntry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Object, FileEntry> entry = it.next();
+            if (segments.contains(segmentMapper.getSegment(entry.getKey()))) {
+               it.remove();
+               try {
+                  free(entry.getValue());
+               } catch (Exception e) {
+                  throw new CacheLoaderException(e);
+               }
+            }
+         }
+      }
+   }
+
+   private void assertSegmented() {
+      if (segmentMapper == null)
+         throw new IllegalStateException("The entries of this store are not mapped to segments");
+   }
+
    /** {@inheritDoc} */
    @Override
    protected void purgeInternal() throws CacheLoaderException {
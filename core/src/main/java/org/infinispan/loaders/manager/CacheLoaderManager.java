@@ -3,6 +3,7 @@
 import java.util.List;
 
 import org.infinispan.lifecycle.Lifecycle;
+import org.infinispan.loaders.decorators.AsyncStore;
 import org.infinispan.loaders.spi.CacheLoader;
 import org.infinispan.loaders.spi.CacheStore;
 
@@ -33,6 +34,11 @@ public interface CacheLoaderManager extends Lifecycle {
    void disableCacheStore(String loaderType);
 
    <T extends CacheLoader> List<T> getCacheLoaders(Class<T> loaderClass);
+
+   /**
+    * @return the {@link AsyncStore} decorators wrapping the configured cache stores, if write-behind is enabled
+    */
+   List<AsyncStore> getAsyncStores();
 }
 
 
@@ -26,7 +26,9 @@
 import org.infinispan.interceptors.CacheLoaderInterceptor;
 import org.infinispan.interceptors.CacheStoreInterceptor;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.decorators.AbstractDelegatingStore;
 import org.infinispan.loaders.decorators.AsyncStore;
+import org.infinispan.loaders.decorators.BloomFilterStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.decorators.ReadOnlyStore;
 import org.infinispan.loaders.decorators.SingletonStore;
@@ -49,6 +51,7 @@ public class CacheLoaderManagerImpl implements CacheLoaderManager {
    AdvancedCache<Object, Object> cache;
    StreamingMarshaller m;
    CacheLoader loader;
+   BloomFilterStore bloomFilterStore;
    InvocationContextContainer icc;
    TransactionManager transactionManager;
    private TimeService timeService;
@@ -69,13 +72,14 @@ public void inject(AdvancedCache<Object, Object> cache,
 
    @Override
    public CacheLoader getCacheLoader() {
-      return loader;
+      return bloomFilterStore != null ? bloomFilterStore : loader;
    }
 
    @Override
    public final CacheStore getCacheStore() {
-      if (loader != null && loader instanceof CacheStore) {
-         return (CacheStore) loader;
+      CacheLoader cl = getCacheLoader();
+      if (cl != null && cl instanceof CacheStore) {
+         return (CacheStore) cl;
       } else {
          return null;
       }
@@ -139,6 +143,11 @@ public void start() {
                }
             }
             purgeLoaders(false);
+            if (loader != null && clmConfig.bloomFilter().enabled()) {
+               assertBloomFilterSupported();
+               bloomFilterStore = new BloomFilterStore((CacheStore) loader, clmConfig.bloomFilter());
+               bloomFilterStore.rebuild();
+            }
          } catch (Exception e) {
             throw new CacheException("Unable to start cache loaders", e);
          }
@@ -181,6 +190,7 @@ public void disableCacheStore(String loaderType) {
             cache.removeInterceptor(cli.getClass());
             cache.removeInterceptor(csi.getClass());
             clmConfig = null;
+            bloomFilterStore = null;
          }
       }
    }
@@ -202,6 +212,26 @@ public <T extends CacheLoader> List<T> getCacheLoaders(Class<T> loaderClass) {
       return loaders;
    }
 
+   @Override
+   public List<AsyncStore> getAsyncStores() {
+      List<AsyncStore> asyncStores = new ArrayList<AsyncStore>();
+      if (loader instanceof ChainingCacheStore) {
+         for (CacheStore store : ((ChainingCacheStore) loader).getStores().keySet())
+            collectAsyncStores(store, asyncStores);
+      } else {
+         collectAsyncStores(loader, asyncStores);
+      }
+      return asyncStores;
+   }
+
+   private void collectAsyncStores(CacheLoader cl, List<AsyncStore> asyncStores) {
+      while (cl instanceof AbstractDelegatingStore) {
+         if (cl instanceof AsyncStore)
+            asyncStores.add((AsyncStore) cl);
+         cl = ((AbstractDelegatingStore) cl).getDelegate();
+      }
+   }
+
    /**
     * Performs a preload on the cache based on the cache loader preload configs used when configuring the cache.
     */
@@ -280,6 +310,7 @@ public void stop() {
             throw new CacheException(e);
          } finally {
             loader = null;
+            bloomFilterStore = null;
          }
       }
    }
@@ -365,6 +396,19 @@ protected AsyncStore createAsyncStore(CacheStore tmpStore) {
       return new AsyncStore(tmpStore);
    }
 
+   /**
+    * The Bloom filter must see every write to the stores, so the stores must not be written to by other nodes.
+    */
+   void assertBloomFilterSupported() {
+      for (CacheLoaderConfiguration cfg : clmConfig.cacheLoaders()) {
+         if (!(cfg instanceof CacheStoreConfiguration))
+            throw new CacheConfigurationException("Invalid cache loader configuration!!  A Bloom filter can only be used with cache stores, not with the cache loader " + cfg);
+         CacheStoreConfiguration scfg = (CacheStoreConfiguration) cfg;
+         if (scfg.ignoreModifications() || scfg.singletonStore().enabled())
+            throw new CacheConfigurationException("Invalid cache loader configuration!!  A Bloom filter cannot be used with read-only or singleton cache stores");
+      }
+   }
+
    void assertNotSingletonAndShared(CacheStoreConfiguration cfg) {
       if (cfg.singletonStore().enabled() && clmConfig.shared())
          throw new CacheConfigurationException("Invalid cache loader configuration!!  If a cache loader is configured as a singleton, the cache loader cannot be shared in a cluster!");
@@ -2,6 +2,8 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.infinispan.Cache;
@@ -78,6 +80,22 @@ protected final void lockForWriting(L key) {
       locks.acquireLock(key, true);
    }
 
+   /**
+    * Acquires write locks on all the given keys, without risking a deadlock with another thread doing the same.
+    *
+    * @return the keys to pass to {@link #unlockAll(List)}
+    */
+   protected final List<Object> lockAllForWriting(Collection<L> keys) {
+      return locks.acquireAllLocksOrdered(keys, true);
+   }
+
+   /**
+    * Releases the locks acquired by {@link #lockAllForWriting(Collection)}.
+    */
+   protected final void unlockAll(List<Object> lockedKeys) {
+      locks.releaseAllLocks(lockedKeys);
+   }
+
    /**
     * Acquires read lock on the given key.
     */
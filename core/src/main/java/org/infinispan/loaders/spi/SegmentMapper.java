@@ -0,0 +1,81 @@
+package org.infinispan.loaders.spi;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.HashConfiguration;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.group.GroupingConsistentHash;
+import org.infinispan.distribution.group.GroupManager;
+
+/**
+ * Maps keys to the {@link org.infinispan.distribution.ch.ConsistentHash} segment they belong to, so that
+ * {@link SegmentedCacheStore}s can partition their data by segment independently of the current cache topology.
+ * <p/>
+ * The mapping is the one used by {@link org.infinispan.distribution.ch.DefaultConsistentHash} (and by
+ * {@link org.infinispan.distribution.group.GroupingConsistentHash} when grouping is enabled): the configured hash
+ * function is applied to the key (or to its group) and the positive hash space is split in
+ * {@link HashConfiguration#numSegments()} equally sized ranges.
+ *
+ * @since 6.0
+ */
+public final class SegmentMapper {
+
+   private final Hash hashFunction;
+   private final int numSegments;
+   private final int segmentSize;
+   private final GroupManager groupManager;
+
+   public SegmentMapper(Hash hashFunction, int numSegments, GroupManager groupManager) {
+      if (numSegments < 1)
+         throw new IllegalArgumentException("The number of segments must be strictly positive");
+      this.hashFunction = hashFunction;
+      this.numSegments = numSegments;
+      this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / numSegments);
+      this.groupManager = groupManager;
+   }
+
+   /**
+    * Creates the mapper matching the configuration of the given cache.
+    *
+    * @return the mapper, or null if the cache is not distributed and hence keys are not mapped to segments
+    */
+   public static SegmentMapper forCache(Cache<?, ?> cache) {
+      Configuration configuration = cache == null ? null : cache.getCacheConfiguration();
+      if (configuration == null || !configuration.clustering().cacheMode().isDistributed())
+         return null;
+      HashConfiguration hash = configuration.clustering().hash();
+      GroupManager groupManager = null;
+      if (hash.groups().enabled() && cache.getAdvancedCache().getComponentRegistry() != null)
+         groupManager = cache.getAdvancedCache().getComponentRegistry().getComponent(GroupManager.class);
+      return new SegmentMapper(hash.hash(), hash.numSegments(), groupManager);
+   }
+
+   /**
+    * Whether the given consistent hash maps the keys to segments like the mappers using the given hash function, i.e.
+    * like {@link DefaultConsistentHash}. The segments of a {@link SegmentedCacheStore} only match the segments of a
+    * consistent hash which does, and which has as many segments as the store.
+    */
+   public static boolean hasSegmentMapping(ConsistentHash ch, Hash hashFunction) {
+      if (ch instanceof GroupingConsistentHash) {
+         ch = ((GroupingConsistentHash) ch).getConsistentHash();
+      }
+      return ch instanceof DefaultConsistentHash && hashFunction.equals(ch.getHashFunction());
+   }
+
+   public int getNumSegments() {
+      return numSegments;
+   }
+
+   public int getSegment(Object key) {
+      Object hashedKey = key;
+      if (groupManager != null) {
+         String group = groupManager.getGroup(key);
+         if (group != null)
+            hashedKey = group;
+      }
+      // same as DefaultConsistentHash.getSegment(): the dividend must be positive
+      return (hashFunction.hash(hashedKey) & Integer.MAX_VALUE) / segmentSize;
+   }
+}
@@ -0,0 +1,70 @@
+package org.infinispan.loaders.spi;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderException;
+
+import java.util.Set;
+
+/**
+ * Optional extension of the {@link CacheStore} SPI for stores that keep their data partitioned by the
+ * {@link org.infinispan.distribution.ch.ConsistentHash} segment of the keys (e.g. a directory, a file or a table
+ * partition per segment). State transfer uses it to read or drop the segments that move between nodes without
+ * scanning the whole store.
+ * <p/>
+ * The segment of a key is computed with a {@link SegmentMapper}, which follows the segment layout of the default
+ * consistent hash implementations.
+ *
+ * @since 6.0
+ */
+public interface SegmentedCacheStore extends CacheStore {
+
+   /**
+    * Whether the data is currently partitioned by segment. A store may support segments only under certain
+    * configurations (e.g. a distributed cache), in which case the other methods of this interface must not be used
+    * when this method returns <tt>false</tt>.
+    *
+    * @return true if the store keeps its data partitioned by segment
+    */
+   boolean isSegmented();
+
+   /**
+    * @return the number of segments the data is partitioned into
+    */
+   int getNumSegments();
+
+   /**
+    * Reports the segments for which the store may hold data. The result may contain segments which no longer hold any
+    * live entry, but never omits a segment which does.
+    *
+    * @return the segments present in the store
+    * @throws CacheLoaderException in the event of problems reading from the store
+    */
+   Set<Integer> getSegments() throws CacheLoaderException;
+
+   /**
+    * Loads the non expired entries belonging to the given segments.
+    *
+    * @param segments the segments to load
+    * @return the entries mapped to any of the given segments
+    * @throws CacheLoaderException in the event of problems reading from the store
+    */
+   Set<InternalCacheEntry> loadAll(Set<Integer> segments) throws CacheLoaderException;
+
+   /**
+    * Loads the keys belonging to the given segments.
+    *
+    * @param segments      the segments to load the keys of
+    * @param keysToExclude a set of keys that should not be returned, may be null
+    * @return the keys mapped to any of the given segments
+    * @throws CacheLoaderException in the event of problems reading from the store
+    */
+   Set<Object> loadAllKeys(Set<Integer> segments, Set<Object> keysToExclude) throws CacheLoaderException;
+
+   /**
+    * Removes all the entries belonging to the given segments.
+    *
+    * @param segments the segments to remove
+    * @throws CacheLoaderException in the event of problems writing to the store
+    */
+   void clear(Set<Integer> segments) throws CacheLoaderException;
+}
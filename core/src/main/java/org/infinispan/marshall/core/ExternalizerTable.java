@@ -7,6 +7,7 @@
 import org.infinispan.atomic.AtomicHashMap;
 import org.infinispan.atomic.AtomicHashMapDelta;
 import org.infinispan.atomic.ClearOperation;
+import org.infinispan.atomic.LongIncrement;
 import org.infinispan.atomic.PutOperation;
 import org.infinispan.atomic.RemoveOperation;
 import org.infinispan.commands.RemoteCommandsFactory;
@@ -294,6 +295,8 @@ private void loadInternalMarshallables() {
 
       addInternalExternalizer(new NumericVersion.Externalizer());
       addInternalExternalizer(new ScopedKey.Externalizer());
+
+      addInternalExternalizer(new LongIncrement.Externalizer());
    }
 
    void addInternalExternalizer(AdvancedExternalizer<?> ext) {
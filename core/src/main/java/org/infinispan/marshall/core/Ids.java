@@ -108,4 +108,6 @@ public interface Ids extends org.infinispan.commons.marshall.Ids {
    int NON_EXISTING_VERSION = 101;
 
    int CACHE_NOT_FOUND_RESPONSE = 102;
+
+   int LONG_INCREMENT = 103;
 }
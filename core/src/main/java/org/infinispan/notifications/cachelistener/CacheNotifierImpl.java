@@ -3,12 +3,14 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commons.util.InfinispanCollections;
+import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.AbstractListenerImpl;
 import org.infinispan.notifications.ClassLoaderAwareListenable;
 import org.infinispan.notifications.cachelistener.annotation.*;
@@ -127,6 +129,7 @@ public void notifyCacheEntryCreated(Object key, Object value, boolean pre,
          e.setValue(value);
          e.setPre(pre);
          e.setKey(key);
+         e.setMetadata(entryMetadata(key, ctx));
          setTx(ctx, e);
          for (ListenerInvocation listener : cacheEntryCreatedListeners) listener.invoke(e);
       }
@@ -151,6 +154,7 @@ public void notifyCacheEntryModified(Object key, Object value,
          // when the entry is updated, and only one event is fired, so you
          // want to fire it when isPre=false.
          e.setCreated(created);
+         e.setMetadata(entryMetadata(key, ctx));
          setTx(ctx, e);
          for (ListenerInvocation listener : cacheEntryModifiedListeners) listener.invoke(e);
       }
@@ -167,11 +171,17 @@ public void notifyCacheEntryRemoved(Object key, Object value, Object oldValue,
          e.setOldValue(oldValue);
          e.setPre(pre);
          e.setKey(key);
+         e.setMetadata(entryMetadata(key, ctx));
          setTx(ctx, e);
          for (ListenerInvocation listener : cacheEntryRemovedListeners) listener.invoke(e);
       }
    }
 
+   private Metadata entryMetadata(Object key, InvocationContext ctx) {
+      CacheEntry entry = ctx.lookupEntry(key);
+      return entry == null ? null : entry.getMetadata();
+   }
+
    @Override
    public void notifyCacheEntryVisited(Object key, Object value, boolean pre, InvocationContext ctx, FlagAffectedCommand command) {
       if (isNotificationAllowed(command, cacheEntryVisitedListeners)) {
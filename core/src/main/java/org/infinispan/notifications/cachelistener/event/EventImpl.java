@@ -6,6 +6,7 @@
 import org.infinispan.commons.util.Util;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.marshall.core.MarshalledValue;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.transaction.xa.GlobalTransaction;
 
@@ -35,6 +36,7 @@
    private int newTopologyId;
    private Map<Object, Object> entries;
    private boolean created;
+   private Metadata metadata;
 
    public EventImpl() {
    }
@@ -148,6 +150,18 @@ public void setCreated(boolean created) {
       this.created = created;
    }
 
+   /**
+    * @return the metadata of the entry of a created, modified or removed event, or null if it is not known. Not part
+    * of the event interfaces, only the internal listeners rely on it.
+    */
+   public Metadata getMetadata() {
+      return metadata;
+   }
+
+   public void setMetadata(Metadata metadata) {
+      this.metadata = metadata;
+   }
+
    public void setOldValue(V oldValue) {
       this.oldValue = oldValue;
    }
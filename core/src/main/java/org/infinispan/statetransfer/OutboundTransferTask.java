@@ -3,12 +3,16 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.commons.util.InfinispanCollections;
+import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.decorators.BloomFilterStore;
 import org.infinispan.loaders.manager.CacheLoaderManager;
 import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.rpc.RpcOptions;
@@ -62,6 +66,8 @@ public class OutboundTransferTask implements Runnable {
 
    private final String cacheName;
 
+   private final Configuration configuration;
+
    private final Map<Integer, List<InternalCacheEntry>> entriesBySegment = CollectionFactory.makeConcurrentMap();
 
    /**
@@ -79,7 +85,7 @@ public class OutboundTransferTask implements Runnable {
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
                                int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
                                CacheLoaderManager cacheLoaderManager, RpcManager rpcManager,
-                               CommandsFactory commandsFactory, long timeout, String cacheName) {
+                               CommandsFactory commandsFactory, long timeout, String cacheName, Configuration configuration) {
       if (segments == null || segments.isEmpty()) {
          throw new IllegalArgumentException("Segments must not be null or empty");
       }
@@ -101,6 +107,7 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       this.commandsFactory = commandsFactory;
       this.timeout = timeout;
       this.cacheName = cacheName;
+      this.configuration = configuration;
       //the rpc options does not change in runtime. re-use the same instance
       this.rpcOptions = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS)
             .timeout(timeout, TimeUnit.MILLISECONDS).build();
@@ -141,7 +148,20 @@ public void run() {
 
          // send cache store entries if needed
          CacheStore cacheStore = getCacheStore();
-         if (cacheStore != null) {
+         SegmentedCacheStore segmentedStore = getSegmentedCacheStore(cacheStore);
+         if (segmentedStore != null) {
+            // only the requested segments are read from the store
+            try {
+               for (InternalCacheEntry ice : segmentedStore.loadAll(segments)) {
+                  int segmentId = readCh.getSegment(ice.getKey());
+                  if (segments.contains(segmentId) && !dataContainer.containsKey(ice.getKey())) {
+                     sendEntry(ice, segmentId);
+                  }
+               }
+            } catch (CacheLoaderException e) {
+               log.failedLoadingKeysFromCacheStore(e);
+            }
+         } else if (cacheStore != null) {
             try {
                //todo [anistor] need to extend CacheStore interface to be able to specify a filter when loading keys (ie. keys should belong to desired segments)
                Set<Object> storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer));
@@ -191,6 +211,24 @@ private CacheStore getCacheStore() {
       return null;
    }
 
+   /**
+    * Returns the given CacheStore if it partitions its data by segment in the same way as the read consistent hash.
+    */
+   private SegmentedCacheStore getSegmentedCacheStore(CacheStore cacheStore) {
+      if (cacheStore instanceof BloomFilterStore) {
+         // bypassing the filter keeps it a superset of the stored keys, as segments are only read or removed
+         cacheStore = ((BloomFilterStore) cacheStore).getDelegate();
+      }
+      if (cacheStore instanceof SegmentedCacheStore) {
+         SegmentedCacheStore segmentedStore = (SegmentedCacheStore) cacheStore;
+         if (segmentedStore.isSegmented() && segmentedStore.getNumSegments() == readCh.getNumSegments()
+               && SegmentMapper.hasSegmentMapping(readCh, configuration.clustering().hash().hash())) {
+            return segmentedStore;
+         }
+      }
+      return null;
+   }
+
    private void sendEntry(InternalCacheEntry ice, int segmentId) {
       // send if we have a full chunk
       if (accumulatedEntries >= stateTransferChunkSize) {
@@ -20,8 +20,11 @@
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.decorators.BloomFilterStore;
 import org.infinispan.loaders.manager.CacheLoaderManager;
 import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.responses.SuccessfulResponse;
@@ -818,8 +821,24 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
 
       // gather all keys from cache store that belong to the segments that are being removed/moved to L1
       CacheStore cacheStore = getCacheStore();
-      if (cacheStore != null) {
-         //todo [anistor] extend CacheStore interface to be able to specify a filter when loading keys (ie. keys should belong to desired segments)
+      SegmentedCacheStore segmentedStore = getSegmentedCacheStore(cacheStore);
+      Set<Integer> segmentsToRemove = null;
+      if (segmentedStore != null) {
+         // only the segments no longer owned are read, instead of all the keys of the store
+         try {
+            segmentsToRemove = segmentedStore.getSegments();
+            segmentsToRemove.removeAll(newSegments);
+            segmentsToRemove.removeAll(segmentsToL1);
+            if (!segmentsToRemove.isEmpty()) {
+               keysToRemove.addAll(segmentedStore.loadAllKeys(segmentsToRemove, new ReadOnlyDataContainerBackedKeySet(dataContainer)));
+            }
+            if (!segmentsToL1.isEmpty()) {
+               keysToL1.addAll(segmentedStore.loadAllKeys(segmentsToL1, new ReadOnlyDataContainerBackedKeySet(dataContainer)));
+            }
+         } catch (CacheLoaderException e) {
+            log.failedLoadingKeysFromCacheStore(e);
+         }
+      } else if (cacheStore != null) {
          try {
             Set<Object> storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer));
             for (Object key : storedKeys) {
@@ -867,6 +886,16 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
             log.failedToInvalidateKeys(e);
          }
       }
+
+      // the keys have been invalidated and their listeners notified, now the segments are dropped from the store
+      if (segmentsToRemove != null && !segmentsToRemove.isEmpty()) {
+         try {
+            log.debugf("Removing segments %s from the cache store of cache %s", segmentsToRemove, cacheName);
+            segmentedStore.clear(segmentsToRemove);
+         } catch (CacheLoaderException e) {
+            log.failedRemovingSegmentsFromCacheStore(segmentsToRemove, e);
+         }
+      }
    }
 
    /**
@@ -920,6 +949,28 @@ private CacheStore getCacheStore() {
       return null;
    }
 
+   /**
+    * Returns the given CacheStore if it partitions its data by segment in the same way as the current consistent hash.
+    * Decorated stores are not used directly, because the decorators may hold modifications that are not yet applied.
+    * The stores compute the segments like the default consistent hash, so they are not used either with a consistent
+    * hash mapping the keys differently, e.g. created by a custom factory.
+    */
+   private SegmentedCacheStore getSegmentedCacheStore(CacheStore cacheStore) {
+      if (cacheStore instanceof BloomFilterStore) {
+         // bypassing the filter keeps it a superset of the stored keys, as segments are only read or removed
+         cacheStore = ((BloomFilterStore) cacheStore).getDelegate();
+      }
+      if (cacheStore instanceof SegmentedCacheStore) {
+         SegmentedCacheStore segmentedStore = (SegmentedCacheStore) cacheStore;
+         ConsistentHash ch = cacheTopology.getReadConsistentHash();
+         if (segmentedStore.isSegmented() && segmentedStore.getNumSegments() == ch.getNumSegments()
+               && SegmentMapper.hasSegmentMapping(ch, configuration.clustering().hash().hash())) {
+            return segmentedStore;
+         }
+      }
+      return null;
+   }
+
    private InboundTransferTask addTransfer(Address source, Set<Integer> segmentsFromSource) {
       synchronized (this) {
          log.tracef("Adding transfer from %s for segments %s", source, segmentsFromSource);
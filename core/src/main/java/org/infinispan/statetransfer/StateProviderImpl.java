@@ -261,7 +261,8 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, Se
 
       // the destination node must already have an InboundTransferTask waiting for these segments
       OutboundTransferTask outboundTransfer = new OutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
-            cacheTopology.getReadConsistentHash(), this, dataContainer, cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName);
+            cacheTopology.getReadConsistentHash(), this, dataContainer, cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName,
+            configuration);
       addTransfer(outboundTransfer);
       outboundTransfer.execute(executorService);
    }
@@ -4,7 +4,11 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -173,6 +177,33 @@ public void acquireAllLocks(List<Object> keys, boolean exclusive) {
     }
    }
 
+   /**
+    * Acquires the locks of all the keys passed in, in the order of the stripes they map to, so that threads locking
+    * overlapping sets of keys cannot deadlock. Each stripe is only locked once, whatever the number of keys mapped to
+    * it.
+    *
+    * @param keys      keys to lock
+    * @param exclusive whether locks are exclusive
+    * @return one key per locked stripe, to be passed to {@link #releaseAllLocks(List)}
+    */
+   public List<Object> acquireAllLocksOrdered(Collection<?> keys, boolean exclusive) {
+      SortedMap<Integer, Object> keysByStripe = new TreeMap<Integer, Object>();
+      for (Object k : keys) {
+         keysByStripe.put(hashToIndex(k), k);
+      }
+      List<Object> locked = new ArrayList<Object>(keysByStripe.size());
+      try {
+         for (Object k : keysByStripe.values()) {
+            acquireLock(k, exclusive);
+            locked.add(k);
+         }
+      } catch (RuntimeException e) {
+         releaseAllLocks(locked);
+         throw e;
+      }
+      return locked;
+   }
+
    /**
     * Returns the total number of locks held by this class.
     */
@@ -42,6 +42,7 @@
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 
@@ -942,5 +943,8 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
 
    @Message(value = "Invalid Cache Loader class: %s", id = 252)
    CacheConfigurationException invalidCacheLoaderClass(String name);
-}
 
+   @LogMessage(level = WARN)
+   @Message(value = "Failed removing segments %s from the cache store", id = 253)
+   void failedRemovingSegmentsFromCacheStore(Set<Integer> segments, @Cause Exception e);
+}
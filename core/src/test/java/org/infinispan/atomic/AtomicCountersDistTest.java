@@ -0,0 +1,108 @@
+package org.infinispan.atomic;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests updating counters with {@link AtomicCounters}, the merges being applied by the primary owner of the counters.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "atomic.AtomicCountersDistTest")
+public class AtomicCountersDistTest extends MultipleCacheManagersTest {
+
+   private static final int THREADS_PER_NODE = 3;
+   private static final int INCREMENTS = 200;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testAddAndGet() {
+      Cache<String, Long> cache = cache(0);
+      assertEquals(0, AtomicCounters.get(cache, "counter"));
+      assertEquals(5, AtomicCounters.addAndGet(cache, "counter", 5));
+      assertEquals(4, AtomicCounters.decrementAndGet(this.<String, Long>cache(1), "counter"));
+      assertEquals(5, AtomicCounters.incrementAndGet(this.<String, Long>cache(2), "counter"));
+      for (Cache<String, Long> c : this.<String, Long>caches())
+         assertEquals(Long.valueOf(5), c.get("counter"));
+   }
+
+   public void testUnchangedValueIsNotWritten() {
+      Cache<String, String> cache = cache(1);
+      assertNull(cache.getAdvancedCache().merge("absent", new IdentityMerge()));
+      assertNull(cache.get("absent"));
+   }
+
+   public void testConcurrentIncrements() throws Exception {
+      final String key = "concurrent";
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < THREADS_PER_NODE; i++) {
+         for (final Cache<String, Long> cache : this.<String, Long>caches()) {
+            futures.add(fork(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  for (int j = 0; j < INCREMENTS; j++)
+                     AtomicCounters.incrementAndGet(cache, key);
+                  return null;
+               }
+            }));
+         }
+      }
+      for (Future<Void> future : futures)
+         future.get();
+      long expected = THREADS_PER_NODE * INCREMENTS * getCacheManagers().size();
+      for (Cache<String, Long> cache : this.<String, Long>caches())
+         assertEquals(Long.valueOf(expected), cache.get(key));
+   }
+
+   public void testFailedMergeNotRetried() {
+      Object key = getKeyForCache(1);
+      FailingMerge.attempts.set(0);
+      try {
+         this.<Object, String>cache(0).getAdvancedCache().merge(key, new FailingMerge());
+         fail("The failure of the merge should have been thrown");
+      } catch (CacheException e) {
+         // expected
+      }
+      assertEquals(1, FailingMerge.attempts.get());
+      assertNull(cache(0).get(key));
+   }
+
+   static class FailingMerge implements ValueMerge<String>, Serializable {
+      static final AtomicInteger attempts = new AtomicInteger();
+
+      @Override
+      public String merge(String value) {
+         attempts.incrementAndGet();
+         throw new IllegalStateException("Merge failed");
+      }
+   }
+
+   static class IdentityMerge implements ValueMerge<String>, Serializable {
+      @Override
+      public String merge(String value) {
+         return value;
+      }
+   }
+
+}
@@ -20,6 +20,7 @@
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.equivalence.ByteArrayEquivalence;
+import org.infinispan.configuration.cache.BloomFilterConfiguration;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.ClusterCacheLoaderConfiguration;
 import org.infinispan.configuration.cache.Configuration;
@@ -88,6 +89,51 @@ public void testShortMode() throws Exception {
       assertCacheMode(config);
    }
 
+   public void testBloomFilter() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "   <default>\n" +
+            "      <loaders>\n" +
+            "         <bloomFilter enabled=\"true\" expectedEntries=\"5000\" falsePositiveProbability=\"0.001\" />\n" +
+            "      </loaders>\n" +
+            "   </default>\n" +
+            TestingUtil.INFINISPAN_END_TAG;
+
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            BloomFilterConfiguration bloomFilter = cm.getDefaultCacheConfiguration().loaders().bloomFilter();
+            assertTrue(bloomFilter.enabled());
+            assertEquals(5000, bloomFilter.expectedEntries());
+            assertEquals(0.001, bloomFilter.falsePositiveProbability());
+         }
+      });
+   }
+
+   public void testAsyncStoreBatching() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "   <default>\n" +
+            "      <loaders>\n" +
+            "         <loader class=\"org.infinispan.loaders.file.FileCacheStore\">\n" +
+            "            <async enabled=\"true\" maxBatchSize=\"50\" maxFlushDelay=\"200\" maxUnflushedBytes=\"1048576\" />\n" +
+            "         </loader>\n" +
+            "      </loaders>\n" +
+            "   </default>\n" +
+            TestingUtil.INFINISPAN_END_TAG;
+
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            FileCacheStoreConfiguration loaderCfg = (FileCacheStoreConfiguration) cm.getDefaultCacheConfiguration().loaders().cacheLoaders().get(0);
+            assertTrue(loaderCfg.async().enabled());
+            assertEquals(50, loaderCfg.async().maxBatchSize());
+            assertEquals(200, loaderCfg.async().maxFlushDelay());
+            assertEquals(1048576, loaderCfg.async().maxUnflushedBytes());
+         }
+      });
+   }
+
    @Test(expectedExceptions=FileNotFoundException.class)
    public void testFailOnUnexpectedConfigurationFile() throws IOException {
       TestCacheManagerFactory.fromXml("does-not-exist.xml");
@@ -0,0 +1,108 @@
+package org.infinispan.distribution;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
+import org.infinispan.notifications.cachelistener.event.CacheEntryVisitedEvent;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests reading several keys at once with {@link AdvancedCache#getAllCacheEntries(java.util.Collection)}, the keys
+ * owned by other nodes being read with one remote call per owner.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "distribution.GetAllCacheEntriesDistTest")
+public class GetAllCacheEntriesDistTest extends MultipleCacheManagersTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1).l1().disable();
+      builder.jmxStatistics().enable();
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testGetAllCacheEntries() {
+      List<String> keys = populate("k", 30);
+      keys.add("missing");
+      Map<String, CacheEntry> entries = this.<String, String>advancedCache(0).getAllCacheEntries(keys);
+      assertEquals(30, entries.size());
+      for (int i = 0; i < 30; i++) {
+         CacheEntry entry = entries.get("k" + i);
+         assertEquals("v" + i, entry.getValue());
+         assertEquals(-1, entry.getLifespan());
+      }
+      assertFalse(entries.containsKey("missing"));
+   }
+
+   public void testGetAllCacheEntriesOnlyLocally() {
+      List<String> keys = populate("local", 30);
+      AdvancedCache<String, String> cache = advancedCache(1);
+      Map<String, CacheEntry> entries = cache.withFlags(Flag.SKIP_REMOTE_LOOKUP).getAllCacheEntries(keys);
+      for (String key : keys) {
+         boolean isLocal = cache.getDistributionManager().getLocality(key).isLocal();
+         assertEquals(isLocal, entries.containsKey(key));
+      }
+      assertTrue(entries.size() < keys.size());
+   }
+
+   public void testRemoteEntriesCountAndNotify() {
+      List<String> keys = populate("stats", 30);
+      keys.add("missing");
+      AdvancedCache<String, String> cache = advancedCache(0);
+      VisitedListener listener = new VisitedListener();
+      cache.addListener(listener);
+      try {
+         long hits = cache.getStats().getHits();
+         long misses = cache.getStats().getMisses();
+         cache.getAllCacheEntries(keys);
+         // the entries read remotely count and notify as the local ones
+         assertEquals(hits + 30, cache.getStats().getHits());
+         assertEquals(misses + 1, cache.getStats().getMisses());
+         assertEquals(30, listener.visited.size());
+         assertFalse(listener.visited.contains("missing"));
+      } finally {
+         cache.removeListener(listener);
+      }
+   }
+
+   private List<String> populate(String prefix, int count) {
+      List<String> keys = new ArrayList<String>();
+      for (int i = 0; i < count; i++) {
+         cache(i % 3).put(prefix + i, "v" + i);
+         keys.add(prefix + i);
+      }
+      return keys;
+   }
+
+   @Listener
+   public static class VisitedListener {
+
+      final Set<Object> visited = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+      @CacheEntryVisited
+      public void entryVisited(CacheEntryVisitedEvent<?, ?> event) {
+         if (!event.isPre())
+            visited.add(event.getKey());
+      }
+   }
+
+}
@@ -8,8 +8,11 @@
 import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
 import org.infinispan.commons.util.ReflectionUtil;
+import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.CacheStoreConfiguration;
 import org.infinispan.configuration.cache.CacheStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.lifecycle.ComponentStatus;
 import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
@@ -80,4 +83,16 @@ public static Cache mockCache(final String name) {
       when(cache.getStatus()).thenReturn(ComponentStatus.RUNNING);
       return cache;
    }
+
+   /**
+    * @return a mock cache whose configuration is distributed, so that the segmented stores partition their data
+    */
+   public static Cache mockDistributedCache(final String name, int numSegments) {
+      Cache cache = mockCache(name);
+      Configuration configuration = new ConfigurationBuilder()
+            .clustering().cacheMode(CacheMode.DIST_SYNC).hash().numSegments(numSegments)
+            .build();
+      when(cache.getCacheConfiguration()).thenReturn(configuration);
+      return cache;
+   }
 }
@@ -34,6 +34,8 @@
 import org.infinispan.loaders.modifications.Store;
 import org.infinispan.loaders.spi.CacheStore;
 import org.infinispan.loaders.spi.LockSupportCacheStore;
+import org.infinispan.loaders.spi.SegmentMapper;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
 import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.marshall.core.MarshalledValue;
 import org.infinispan.commons.marshall.StreamingMarshaller;
@@ -778,4 +780,48 @@ public int hashCode() {
       }
    }
 
+
+   /**
+    * Checks the {@link SegmentedCacheStore} operations, for the stores which partition their data by segment.
+    */
+   protected void checkSegmentOperations() throws CacheLoaderException {
+      SegmentedCacheStore store = (SegmentedCacheStore) cs;
+      assert store.isSegmented();
+      SegmentMapper mapper = SegmentMapper.forCache(getCache());
+      assertEquals(mapper.getNumSegments(), store.getNumSegments());
+
+      Set<Integer> expectedSegments = new HashSet<Integer>();
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         cs.store(TestInternalCacheEntryFactory.create(key, "v" + i));
+         expectedSegments.add(mapper.getSegment(key));
+      }
+      assert expectedSegments.size() > 1;
+      assertEquals(expectedSegments, store.getSegments());
+
+      int moved = mapper.getSegment("k0");
+      Set<Integer> movedSegments = Collections.singleton(moved);
+      Set<Object> expectedKeys = new HashSet<Object>();
+      for (int i = 0; i < 100; i++) {
+         if (mapper.getSegment("k" + i) == moved) {
+            expectedKeys.add("k" + i);
+         }
+      }
+      assertEquals(expectedKeys, store.loadAllKeys(movedSegments, null));
+      assertEquals(emptySet(), store.loadAllKeys(movedSegments, expectedKeys));
+      Set<InternalCacheEntry> entries = store.loadAll(movedSegments);
+      assertEquals(expectedKeys.size(), entries.size());
+      for (InternalCacheEntry entry : entries) {
+         assert expectedKeys.contains(entry.getKey());
+         assertEquals("v" + ((String) entry.getKey()).substring(1), entry.getValue());
+      }
+
+      store.clear(movedSegments);
+      assert !store.getSegments().contains(moved);
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         assertEquals(!expectedKeys.contains(key), cs.containsKey(key));
+      }
+      assertEquals(100 - expectedKeys.size(), cs.loadAllKeys(null).size());
+   }
 }
@@ -0,0 +1,88 @@
+package org.infinispan.loaders;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.interceptors.CacheLoaderInterceptor;
+import org.infinispan.loaders.decorators.BloomFilterStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
+import org.infinispan.loaders.manager.CacheLoaderManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that the Bloom filter in front of the cache stores is built on startup, kept up to date by the cache writes
+ * and skips the store lookups of missing keys.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "loaders.BloomFilterFunctionalTest")
+public class BloomFilterFunctionalTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(false);
+      cfg.jmxStatistics().enable()
+         .loaders()
+            .bloomFilter().enable().expectedEntries(1000)
+         .loaders()
+            .addStore(DummyInMemoryCacheStoreConfigurationBuilder.class)
+               .storeName(getClass().getName());
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   public void testMissingKeysNotLoaded() throws Exception {
+      CacheLoaderManager clm = TestingUtil.extractComponent(cache, CacheLoaderManager.class);
+      assertTrue(clm.getCacheStore() instanceof BloomFilterStore);
+      DummyInMemoryCacheStore store = getUnderlyingStore();
+      CacheLoaderInterceptor interceptor = TestingUtil.findInterceptor(cache, CacheLoaderInterceptor.class);
+
+      for (int i = 0; i < 10; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      cache.evict("k0");
+      // the puts looked up the previous values
+      assertEquals(10, interceptor.getBloomFilterNegativeLookups() + interceptor.getBloomFilterFalsePositives());
+      interceptor.resetStatistics();
+      store.clearStats();
+
+      for (int i = 0; i < 100; i++) {
+         assertNull(cache.get("missing" + i));
+      }
+      assertEquals("v0", cache.get("k0"));
+
+      long falsePositives = interceptor.getBloomFilterFalsePositives();
+      assertEquals(100, interceptor.getBloomFilterNegativeLookups() + falsePositives);
+      assertEquals(falsePositives + 1, (long) store.stats().get("load"));
+      assertEquals((double) falsePositives / 100, interceptor.getBloomFilterFalsePositiveRate());
+      assertTrue(interceptor.getBloomFilterMemorySize() > 0);
+   }
+
+   public void testFilterBuiltOnStart() throws Exception {
+      getUnderlyingStore().store(TestInternalCacheEntryFactory.create("k", "v"));
+      cache.stop();
+      cache.start();
+      assertEquals("v", cache.get("k"));
+   }
+
+   private DummyInMemoryCacheStore getUnderlyingStore() {
+      CacheLoaderManager clm = TestingUtil.extractComponent(cache, CacheLoaderManager.class);
+      return (DummyInMemoryCacheStore) ((BloomFilterStore) clm.getCacheStore()).getDelegate();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testSharedStoresRejected() {
+      ConfigurationBuilder cfg = new ConfigurationBuilder();
+      cfg.loaders().shared(true).bloomFilter().enable()
+         .loaders().addStore(DummyInMemoryCacheStoreConfigurationBuilder.class);
+      cfg.build();
+   }
+}
@@ -608,6 +608,126 @@ public void run() {
       }
    }
 
+   public void testModificationsFlushedInBatches(final Method m) throws Exception {
+      final int maxBatchSize = 10;
+      final AtomicInteger largestBatch = new AtomicInteger();
+      DummyInMemoryCacheStore underlying = new DummyInMemoryCacheStore();
+      store = new AsyncStore(underlying) {
+         @Override
+         protected void applyModificationsSync(List<Modification> mods) throws CacheLoaderException {
+            int size = mods.size();
+            int largest;
+            do {
+               largest = largestBatch.get();
+            } while (size > largest && !largestBatch.compareAndSet(largest, size));
+            super.applyModificationsSync(mods);
+         }
+      };
+      DummyInMemoryCacheStoreConfigurationBuilder dummyCfg = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .loaders()
+               .addStore(DummyInMemoryCacheStoreConfigurationBuilder.class)
+                  .storeName(m.getName());
+      dummyCfg.async().enable().threadPoolSize(2).maxBatchSize(maxBatchSize).maxFlushDelay(50);
+      store.init(dummyCfg.create(), getCache(), null);
+      store.start();
+      try {
+         final int number = 100;
+         for (int i = 0; i < number; i++)
+            store.store(TestInternalCacheEntryFactory.create(k(m, i), v(m, i)));
+
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return store.getQueueDepth() == 0;
+            }
+         });
+         assert store.getFlushedModificationCount() == number : "Flushed " + store.getFlushedModificationCount();
+         assert store.getFlushCount() >= number / maxBatchSize : "Flush count was " + store.getFlushCount();
+         assert largestBatch.get() <= maxBatchSize : "Largest batch was " + largestBatch.get();
+         assert store.getWriteBehindLag() == 0;
+         assert underlying.loadAllKeys(null).size() == number;
+      } finally {
+         store.stop();
+      }
+   }
+
+   public void testFailedFlushesNotCounted(final Method m) throws Exception {
+      final AtomicInteger attempts = new AtomicInteger();
+      DummyInMemoryCacheStore underlying = new DummyInMemoryCacheStore();
+      store = new AsyncStore(underlying) {
+         @Override
+         protected void applyModificationsSync(List<Modification> mods) throws CacheLoaderException {
+            attempts.incrementAndGet();
+            throw new CacheLoaderException("Store unavailable");
+         }
+      };
+      DummyInMemoryCacheStoreConfigurationBuilder dummyCfg = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .loaders()
+               .addStore(DummyInMemoryCacheStoreConfigurationBuilder.class)
+                  .storeName(m.getName());
+      dummyCfg.async().enable().threadPoolSize(1);
+      store.init(dummyCfg.create(), getCache(), null);
+      store.start();
+      try {
+         store.store(TestInternalCacheEntryFactory.create(k(m), v(m)));
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return attempts.get() == 3;
+            }
+         });
+         assert store.getFlushCount() == 0 : "Flush count was " + store.getFlushCount();
+         assert store.getFlushedModificationCount() == 0 : "Flushed " + store.getFlushedModificationCount();
+      } finally {
+         store.stop();
+      }
+   }
+
+   public void testMaxUnflushedBytes(final Method m) throws Exception {
+      LockableCacheStore underlying = new LockableCacheStore();
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+
+      LockableCacheStoreConfigurationBuilder lcscsBuilder = new LockableCacheStoreConfigurationBuilder(builder.loaders());
+      lcscsBuilder.async()
+            .maxUnflushedBytes(1000);
+
+      store = new AsyncStore(underlying);
+      store.init(lcscsBuilder.create(), getCache(), null);
+      store.start();
+      try {
+         final CountDownLatch done = new CountDownLatch(1);
+
+         underlying.lock.lock();
+         try {
+            Thread t = new Thread() {
+               @Override
+               public void run() {
+                  try {
+                     for (int i = 0; i < 100; i++)
+                        store.store(TestInternalCacheEntryFactory.create(k(m, i), new byte[100]));
+                  } catch (Exception e) {
+                     log.error("Error storing entry", e);
+                  }
+                  done.countDown();
+               }
+            };
+            t.start();
+
+            assert !done.await(1, TimeUnit.SECONDS) : "Background thread should have blocked after exceeding the unflushed bytes";
+            assert store.getUnflushedBytes() >= 1000 : "Unflushed bytes were " + store.getUnflushedBytes();
+            assert store.getQueueDepth() > 0;
+            assert store.getWriteBehindLag() >= 500 : "Write-behind lag was " + store.getWriteBehindLag();
+         } finally {
+            underlying.lock.unlock();
+         }
+         assert done.await(10, TimeUnit.SECONDS) : "Background thread should have been released once flushed";
+      } finally {
+         store.stop();
+      }
+   }
+
    private static abstract class OneEntryCacheManagerCallable extends CacheManagerCallable {
       protected final Cache<String, String> cache;
       protected final LockableCacheStore store;
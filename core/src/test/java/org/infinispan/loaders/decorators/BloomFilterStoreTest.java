@@ -0,0 +1,120 @@
+package org.infinispan.loaders.decorators;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.infinispan.configuration.cache.BloomFilterConfiguration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Store;
+import org.infinispan.loaders.spi.CacheStore;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the cache store tests through a {@link BloomFilterStore}, and checks that the lookups of missing keys are
+ * filtered out.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "loaders.decorators.BloomFilterStoreTest")
+public class BloomFilterStoreTest extends BaseCacheStoreTest {
+
+   private DummyInMemoryCacheStore underlying;
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      DummyInMemoryCacheStoreConfigurationBuilder storeBuilder = builder
+            .loaders()
+               .addStore(DummyInMemoryCacheStoreConfigurationBuilder.class)
+                  .storeName(getClass().getName())
+                  .purgeSynchronously(true);
+      BloomFilterConfiguration bloomFilter = builder.loaders().bloomFilter()
+            .enable().expectedEntries(1000).falsePositiveProbability(0.01).create();
+      underlying = new DummyInMemoryCacheStore();
+      underlying.init(storeBuilder.create(), getCache(), getMarshaller());
+      BloomFilterStore store = new BloomFilterStore(underlying, bloomFilter);
+      store.start();
+      store.rebuild();
+      return store;
+   }
+
+   public void testMissingKeysNotLookedUp() throws CacheLoaderException {
+      BloomFilterStore store = (BloomFilterStore) cs;
+      for (int i = 0; i < 100; i++) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      }
+      underlying.clearStats();
+      for (int i = 0; i < 1000; i++) {
+         assertNull(cs.load("missing" + i));
+      }
+      long falsePositives = store.getFalsePositives();
+      assertEquals(1000, store.getNegativeLookups() + falsePositives);
+      assertEquals(falsePositives, (long) underlying.stats().get("load"));
+      assertTrue("Too many false positives: " + falsePositives, falsePositives < 50);
+
+      for (int i = 0; i < 100; i++) {
+         assertEquals("v" + i, cs.load("k" + i).getValue());
+         assertTrue(cs.containsKey("k" + i));
+      }
+   }
+
+   public void testRebuildFindsExistingKeys() throws CacheLoaderException {
+      BloomFilterStore store = (BloomFilterStore) cs;
+      // written behind the filter's back
+      underlying.store(TestInternalCacheEntryFactory.create("k", "v"));
+      store.rebuild();
+      assertEquals("v", cs.load("k").getValue());
+   }
+
+   public void testTransactionalStoresAdded() throws CacheLoaderException {
+      List<Modification> mods = new ArrayList<Modification>();
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v1")));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k2", "v2")));
+      cs.prepare(mods, gtf.newGlobalTransaction(null, false), true);
+      assertEquals("v1", cs.load("k1").getValue());
+      assertEquals("v2", cs.load("k2").getValue());
+   }
+
+   public void testStaleFilterRebuiltOnPurge() throws CacheLoaderException {
+      BloomFilterStore store = (BloomFilterStore) cs;
+      for (int i = 0; i < 100; i++) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      }
+      for (int i = 0; i < 100; i++) {
+         cs.remove("k" + i);
+      }
+      // the removed keys are still in the filter
+      for (int round = 0; round < 10; round++) {
+         for (int i = 0; i < 100; i++) {
+            assertNull(cs.load("k" + i));
+         }
+      }
+      assertEquals(1000, store.getFalsePositives());
+
+      cs.purgeExpired();
+      assertEquals(0, store.getFalsePositives());
+      for (int i = 0; i < 100; i++) {
+         assertNull(cs.load("k" + i));
+      }
+      assertTrue(store.getNegativeLookups() > 90);
+   }
+
+   public void testMemorySize() {
+      BloomFilterStore store = (BloomFilterStore) cs;
+      // about 10 bits per entry for a 1% false positive probability
+      long size = store.getMemorySize();
+      assertTrue("Unexpected size " + size, size >= 1000 * 9 / 8 && size <= 1000 * 11 / 8);
+      assertEquals(0.0, store.getExpectedFalsePositiveProbability());
+   }
+}
@@ -0,0 +1,155 @@
+package org.infinispan.loaders.file;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.FileCacheStoreConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.io.UnclosableObjectInputStream;
+import org.infinispan.io.UnclosableObjectOutputStream;
+import org.infinispan.loaders.AbstractCacheStoreTest;
+import org.infinispan.loaders.bucket.Bucket;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Runs the {@link FileCacheStore} tests in a distributed cache, where the buckets are grouped in a directory per
+ * segment.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "loaders.file.SegmentedFileCacheStoreTest")
+public class SegmentedFileCacheStoreTest extends FileCacheStoreTest {
+
+   @Override
+   protected Cache getCache() {
+      return AbstractCacheStoreTest.mockDistributedCache("mockCache-" + getClass().getName(), 16);
+   }
+
+   @Override
+   public void testBucketRemoval() throws Exception {
+      InternalCacheEntry se = TestInternalCacheEntryFactory.create("test", "value");
+      fcs.store(se);
+      Bucket b = fcs.loadBucketContainingKey("test");
+      assert b != null;
+      assert getBucketFile(b).exists();
+
+      b.removeEntry("test");
+      fcs.updateBucket(b);
+      checkBucketExists(b);
+   }
+
+   @Override
+   protected void checkBucketExists(Bucket b) {
+      File file = getBucketFile(b);
+      assert file.exists();
+      assert file.length() == 0;
+   }
+
+   public void testSegmentOperations() throws Exception {
+      checkSegmentOperations();
+   }
+
+   public void testBucketsGroupedBySegment() throws Exception {
+      fcs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      Bucket b = fcs.loadBucketContainingKey("k1");
+      int segment = b.getBucketId() & (FileCacheStore.MAX_SEGMENTS - 1);
+      assert fcs.getSegments().contains(segment);
+      assert new File(fcs.getRoot(), String.valueOf(segment)).isDirectory();
+   }
+
+   public void testBucketsMigratedOnLayoutChange() throws Exception {
+      FileCacheStore local = new FileCacheStore();
+      local.init(fcs.getConfiguration(), AbstractCacheStoreTest.mockCache("mockCache-" + getClass().getName()), getMarshaller());
+      fcs.stop();
+      local.start();
+      try {
+         for (int i = 0; i < 20; i++) {
+            local.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+         }
+      } finally {
+         local.stop();
+      }
+
+      // the flat bucket files are moved to the segment directories
+      fcs.start();
+      for (int i = 0; i < 20; i++) {
+         assert ("v" + i).equals(fcs.load("k" + i).getValue());
+      }
+      fcs.stop();
+
+      // and back
+      local.start();
+      try {
+         for (int i = 0; i < 20; i++) {
+            assert ("v" + i).equals(local.load("k" + i).getValue());
+         }
+         for (File f : local.getRoot().listFiles()) {
+            assert !f.isDirectory();
+         }
+      } finally {
+         local.stop();
+         fcs.start();
+      }
+   }
+
+   public void testStreamBetweenLayouts() throws Exception {
+      FileCacheStoreConfigurationBuilder flatBuilder = TestCacheManagerFactory.getDefaultCacheConfiguration(false)
+            .loaders().addFileCacheStore();
+      flatBuilder.location(tmpDirectory + File.separator + "flat").purgeSynchronously(true);
+      FileCacheStore flat = new FileCacheStore();
+      flat.init(flatBuilder.create(), AbstractCacheStoreTest.mockCache("mockCache-" + getClass().getName()), getMarshaller());
+      flat.start();
+      try {
+         for (int i = 0; i < 20; i++) {
+            flat.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+         }
+         // the buckets of the flat store are not named after the segments of their keys
+         fcs.store(TestInternalCacheEntryFactory.create("k0", "stale"));
+         stream(flat, fcs);
+         for (int i = 0; i < 20; i++) {
+            assert ("v" + i).equals(fcs.load("k" + i).getValue());
+         }
+
+         flat.clear();
+         stream(fcs, flat);
+         for (int i = 0; i < 20; i++) {
+            assert ("v" + i).equals(flat.load("k" + i).getValue());
+         }
+         for (File f : flat.getRoot().listFiles()) {
+            assert !f.isDirectory();
+         }
+      } finally {
+         flat.stop();
+      }
+   }
+
+   private void stream(FileCacheStore from, FileCacheStore to) throws Exception {
+      StreamingMarshaller marshaller = getMarshaller();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ObjectOutput oo = marshaller.startObjectOutput(out, false, 12);
+      try {
+         from.toStream(new UnclosableObjectOutputStream(oo));
+      } finally {
+         marshaller.finishObjectOutput(oo);
+         out.close();
+      }
+      ObjectInput oi = marshaller.startObjectInput(new ByteArrayInputStream(out.toByteArray()), false);
+      try {
+         to.fromStream(new UnclosableObjectInputStream(oi));
+      } finally {
+         marshaller.finishObjectInput(oi);
+      }
+   }
+
+   private File getBucketFile(Bucket b) {
+      String segment = String.valueOf(b.getBucketId() & (FileCacheStore.MAX_SEGMENTS - 1));
+      return new File(new File(fcs.getRoot(), segment), b.getBucketIdAsString());
+   }
+}
@@ -0,0 +1,23 @@
+package org.infinispan.loaders.file;
+
+import org.infinispan.Cache;
+import org.infinispan.loaders.AbstractCacheStoreTest;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the {@link SingleFileCacheStore} tests in a distributed cache, where the store maps its keys to segments.
+ *
+ * @since 6.0
+ */
+@Test(groups = "unit", testName = "loaders.file.SegmentedSingleFileCacheStoreTest")
+public class SegmentedSingleFileCacheStoreTest extends SingleFileCacheStoreTest {
+
+   @Override
+   protected Cache getCache() {
+      return AbstractCacheStoreTest.mockDistributedCache("mockCache-" + getClass().getName(), 16);
+   }
+
+   public void testSegmentOperations() throws Exception {
+      checkSegmentOperations();
+   }
+}
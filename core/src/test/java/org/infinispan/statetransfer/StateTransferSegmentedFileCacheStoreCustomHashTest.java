@@ -0,0 +1,148 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.configuration.cache.HashConfigurationBuilder;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.ConsistentHashFactory;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks that the entries held only by the segmented file stores are transferred when the consistent hash doesn't map
+ * the keys to segments like the stores do, in which case the segments of the stores can't be used.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "statetransfer.StateTransferSegmentedFileCacheStoreCustomHashTest")
+public class StateTransferSegmentedFileCacheStoreCustomHashTest extends StateTransferSegmentedFileCacheStoreTest {
+
+   @Override
+   protected void configureHash(HashConfigurationBuilder hash) {
+      hash.consistentHashFactory(new ModuloConsistentHashFactory());
+   }
+
+   /**
+    * Creates the same owners as {@link DefaultConsistentHashFactory}, with keys mapped to segments by modulo rather
+    * than by range.
+    */
+   public static class ModuloConsistentHashFactory implements ConsistentHashFactory<ModuloConsistentHash>, Serializable {
+
+      private final DefaultConsistentHashFactory factory = new DefaultConsistentHashFactory();
+
+      @Override
+      public ModuloConsistentHash create(Hash hashFunction, int numOwners, int numSegments, List<Address> members) {
+         return new ModuloConsistentHash(factory.create(hashFunction, numOwners, numSegments, members));
+      }
+
+      @Override
+      public ModuloConsistentHash updateMembers(ModuloConsistentHash baseCH, List<Address> newMembers) {
+         return new ModuloConsistentHash(factory.updateMembers(baseCH.ch, newMembers));
+      }
+
+      @Override
+      public ModuloConsistentHash rebalance(ModuloConsistentHash baseCH) {
+         return new ModuloConsistentHash(factory.rebalance(baseCH.ch));
+      }
+
+      @Override
+      public ModuloConsistentHash union(ModuloConsistentHash ch1, ModuloConsistentHash ch2) {
+         return new ModuloConsistentHash(factory.union(ch1.ch, ch2.ch));
+      }
+   }
+
+   public static class ModuloConsistentHash implements ConsistentHash, Serializable {
+
+      private final DefaultConsistentHash ch;
+
+      ModuloConsistentHash(DefaultConsistentHash ch) {
+         this.ch = ch;
+      }
+
+      @Override
+      public int getNumOwners() {
+         return ch.getNumOwners();
+      }
+
+      @Override
+      public Hash getHashFunction() {
+         return ch.getHashFunction();
+      }
+
+      @Override
+      public int getNumSegments() {
+         return ch.getNumSegments();
+      }
+
+      @Override
+      public List<Address> getMembers() {
+         return ch.getMembers();
+      }
+
+      @Override
+      public Address locatePrimaryOwner(Object key) {
+         return locatePrimaryOwnerForSegment(getSegment(key));
+      }
+
+      @Override
+      public List<Address> locateOwners(Object key) {
+         return locateOwnersForSegment(getSegment(key));
+      }
+
+      @Override
+      public Set<Address> locateAllOwners(Collection<Object> keys) {
+         Set<Address> owners = new HashSet<Address>();
+         for (Object key : keys) {
+            owners.addAll(locateOwners(key));
+         }
+         return owners;
+      }
+
+      @Override
+      public boolean isKeyLocalToNode(Address nodeAddress, Object key) {
+         return locateOwners(key).contains(nodeAddress);
+      }
+
+      @Override
+      public int getSegment(Object key) {
+         return (getHashFunction().hash(key) & Integer.MAX_VALUE) % getNumSegments();
+      }
+
+      @Override
+      public List<Address> locateOwnersForSegment(int segmentId) {
+         return ch.locateOwnersForSegment(segmentId);
+      }
+
+      @Override
+      public Address locatePrimaryOwnerForSegment(int segmentId) {
+         return ch.locatePrimaryOwnerForSegment(segmentId);
+      }
+
+      @Override
+      public Set<Integer> getSegmentsForOwner(Address owner) {
+         return ch.getSegmentsForOwner(owner);
+      }
+
+      @Override
+      public String getRoutingTableAsString() {
+         return ch.getRoutingTableAsString();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof ModuloConsistentHash && ch.equals(((ModuloConsistentHash) o).ch);
+      }
+
+      @Override
+      public int hashCode() {
+         return ch.hashCode();
+      }
+   }
+}
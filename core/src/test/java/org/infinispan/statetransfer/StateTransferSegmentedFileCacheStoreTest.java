@@ -0,0 +1,87 @@
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.HashConfigurationBuilder;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.loaders.manager.CacheLoaderManager;
+import org.infinispan.loaders.spi.SegmentedCacheStore;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Checks that the entries held only by the segmented file stores of a distributed cache are transferred to the new
+ * owners when a node joins.
+ *
+ * @since 6.0
+ */
+@Test(groups = "functional", testName = "statetransfer.StateTransferSegmentedFileCacheStoreTest")
+public class StateTransferSegmentedFileCacheStoreTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 100;
+
+   private final String tmpDirectory = TestingUtil.tmpDirectory(this);
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      addNode();
+      addNode();
+      waitForClusterToForm();
+   }
+
+   private void addNode() {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1).numSegments(20)
+            .stateTransfer().fetchInMemoryState(true);
+      configureHash(builder.clustering().hash());
+      builder.loaders().shared(false).passivation(false)
+            .addFileCacheStore()
+               .location(tmpDirectory + cacheManagers.size())
+               .fetchPersistentState(true)
+               .purgeSynchronously(true);
+      addClusterEnabledCacheManager(builder);
+   }
+
+   protected void configureHash(HashConfigurationBuilder hash) {
+   }
+
+   public void testStoredEntriesTransferredOnJoin() {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache(0).put("k" + i, "v" + i);
+      }
+      // only keep the entries in the stores
+      for (Cache<Object, Object> c : caches()) {
+         assertTrue(TestingUtil.extractComponent(c, CacheLoaderManager.class).getCacheStore() instanceof SegmentedCacheStore);
+         c.getAdvancedCache().getDataContainer().clear();
+      }
+
+      addNode();
+      waitForClusterToForm();
+
+      Cache<Object, Object> joiner = cache(2);
+      DistributionManager dm = joiner.getAdvancedCache().getDistributionManager();
+      int transferred = 0;
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         if (dm.getLocality(key).isLocal()) {
+            assertEquals("v" + i, joiner.getAdvancedCache().getDataContainer().get(key).getValue());
+            transferred++;
+         }
+         assertEquals("v" + i, joiner.get(key));
+      }
+      assertTrue(transferred > 0);
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      for (int i = 0; i < 3; i++) {
+         TestingUtil.recursiveFileRemove(tmpDirectory + i);
+      }
+   }
+}
@@ -25,7 +25,7 @@ import org.infinispan.container.versioning.{NumericVersionGenerator, EntryVersio
  * @since 4.1
  */
 abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
-      extends ReplayingDecoder[DecoderState](DECODE_HEADER, true) with ServerConstants with Log {
+      extends ReplayingDecoder[DecoderState](DECODE_HEADER, true) with RequestDecoder with ServerConstants with Log {
    import AbstractProtocolDecoder._
 
    type SuitableParameters <: RequestParameters
@@ -325,7 +325,33 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
 
    protected def createServerException(e: Exception, b: ChannelBuffer): (Exception, Boolean)
 
-   protected def generateVersion(cache: Cache[K, V]): EntryVersion = {
+   protected def generateVersion(cache: Cache[K, V]): EntryVersion = AbstractProtocolDecoder.generateVersion(cache)
+
+   /**
+    * @see AbstractProtocolDecoder.toMillis
+    */
+   protected def toMillis(lifespan: Int): Long = AbstractProtocolDecoder.toMillis(lifespan)
+
+   override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
+      transport.updateTotalBytesWritten(e)
+      ctx.sendUpstream(e)
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      transport.updateTotalBytesRead(e)
+      super.messageReceived(ctx, e)
+   }
+
+}
+
+object AbstractProtocolDecoder extends Log {
+   private val SecondsInAMonth = 60 * 60 * 24 * 30
+   private val DefaultTimeUnit = TimeUnit.MILLISECONDS
+
+   /**
+    * Generates a new version for an entry of the given cache.
+    */
+   def generateVersion(cache: Cache[_, _]): EntryVersion = {
       val registry = cache.getAdvancedCache.getComponentRegistry
       val cacheVersionGenerator = registry.getComponent(classOf[VersionGenerator])
       if (cacheVersionGenerator == null) {
@@ -353,7 +379,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
     * Otherwise it's just considered number of seconds from
     * now and it's returned in milliseconds unit.
     */
-   protected def toMillis(lifespan: Int): Long = {
+   def toMillis(lifespan: Int): Long = {
       if (lifespan > SecondsInAMonth) {
          val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
          if (unixTimeExpiry < 0) 0 else unixTimeExpiry
@@ -361,22 +387,6 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
          TimeUnit.SECONDS.toMillis(lifespan)
       }
    }
-
-   override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
-      transport.updateTotalBytesWritten(e)
-      ctx.sendUpstream(e)
-   }
-
-   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
-      transport.updateTotalBytesRead(e)
-      super.messageReceived(ctx, e)
-   }
-
-}
-
-object AbstractProtocolDecoder extends Log {
-   private val SecondsInAMonth = 60 * 60 * 24 * 30
-   private val DefaultTimeUnit = TimeUnit.MILLISECONDS
 }
 
 class RequestHeader {
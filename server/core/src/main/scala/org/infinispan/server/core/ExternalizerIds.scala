@@ -16,5 +16,7 @@ object ExternalizerIds {
    val TOPOLOGY_VIEW = 1103
    val SERVER_ADDRESS = 1104
    val MIME_METADATA = 1105
+   val MEMCACHED_COUNTER_MERGE = 1106
+   val HOTROD_COUNTER_MERGE = 1107
 
 }
\ No newline at end of file
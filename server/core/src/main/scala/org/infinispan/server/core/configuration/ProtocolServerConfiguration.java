@@ -16,8 +16,11 @@ public abstract class ProtocolServerConfiguration {
    private final SslConfiguration ssl;
    private final boolean tcpNoDelay;
    private final int workerThreads;
+   private final int executorThreads;
+   private final long executorMaxConnectionMemory;
 
-   protected ProtocolServerConfiguration(String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads) {
+   protected ProtocolServerConfiguration(String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads,
+         int executorThreads, long executorMaxConnectionMemory) {
       this.name = name;
       this.host = host;
       this.port = port;
@@ -27,6 +30,8 @@ protected ProtocolServerConfiguration(String name, String host, int port, int id
       this.ssl = ssl;
       this.tcpNoDelay = tcpNoDelay;
       this.workerThreads = workerThreads;
+      this.executorThreads = executorThreads;
+      this.executorMaxConnectionMemory = executorMaxConnectionMemory;
    }
 
    public String name() {
@@ -65,10 +70,19 @@ public int workerThreads() {
       return workerThreads;
    }
 
+   public int executorThreads() {
+      return executorThreads;
+   }
+
+   public long executorMaxConnectionMemory() {
+      return executorMaxConnectionMemory;
+   }
+
    @Override
    public String toString() {
       return "ProtocolServerConfiguration [name=" + name + ", host=" + host + ", port=" + port + ", idleTimeout=" + idleTimeout + ", recvBufSize=" + recvBufSize + ", sendBufSize="
-            + sendBufSize + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay + ", workerThreads=" + workerThreads + "]";
+            + sendBufSize + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay + ", workerThreads=" + workerThreads
+            + ", executorThreads=" + executorThreads + ", executorMaxConnectionMemory=" + executorMaxConnectionMemory + "]";
    }
 
 }
@@ -16,6 +16,8 @@
    protected final SslConfigurationBuilder ssl;
    protected boolean tcpNoDelay = true;
    protected int workerThreads = 2 * Runtime.getRuntime().availableProcessors();
+   protected int executorThreads = 0;
+   protected long executorMaxConnectionMemory = 1024 * 1024;
 
    protected ProtocolServerConfigurationBuilder(int port) {
       this.port = port;
@@ -75,6 +77,18 @@ public S workerThreads(int workerThreads) {
       return this.self();
    }
 
+   @Override
+   public S executorThreads(int executorThreads) {
+      this.executorThreads = executorThreads;
+      return this.self();
+   }
+
+   @Override
+   public S executorMaxConnectionMemory(long executorMaxConnectionMemory) {
+      this.executorMaxConnectionMemory = executorMaxConnectionMemory;
+      return this.self();
+   }
+
    @Override
    public void validate() {
       ssl.validate();
@@ -90,6 +104,12 @@ public void validate() {
       if (workerThreads < 0) {
          throw log.illegalWorkerThreads(workerThreads);
       }
+      if (executorThreads < 0) {
+         throw log.illegalExecutorThreads(executorThreads);
+      }
+      if (executorMaxConnectionMemory <= 0) {
+         throw log.illegalExecutorMaxConnectionMemory(executorMaxConnectionMemory);
+      }
    }
 
    @Override
@@ -102,6 +122,8 @@ public Builder<?> read(T template) {
       this.sendBufSize = template.sendBufSize();
       this.tcpNoDelay = template.tcpNoDelay();
       this.workerThreads = template.workerThreads();
+      this.executorThreads = template.executorThreads();
+      this.executorMaxConnectionMemory = template.executorMaxConnectionMemory();
       this.ssl.read(template.ssl());
       return this;
    }
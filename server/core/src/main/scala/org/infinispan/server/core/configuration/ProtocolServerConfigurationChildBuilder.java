@@ -54,6 +54,21 @@
     */
    S workerThreads(int workerThreads);
 
+   /**
+    * Sets the number of threads executing the requests, so that the worker threads only deal with the network I/O and
+    * a request blocked in the cache, e.g. waiting for a lock or a remote node, does not delay the other connections
+    * handled by the same worker thread. The requests of a connection are still executed in order. Defaults to 0, which
+    * executes the requests in the worker threads.
+    */
+   S executorThreads(int executorThreads);
+
+   /**
+    * Sets the size in bytes of the requests of a connection which may be waiting for an executor thread. Once reached,
+    * no more requests are read from the connection until some have been executed. Only used if
+    * {@link #executorThreads(int)} is greater than 0. Defaults to 1MB.
+    */
+   S executorMaxConnectionMemory(long executorMaxConnectionMemory);
+
    /**
     * Builds a configuration object
     */
@@ -83,4 +83,10 @@ public interface JavaLog extends org.infinispan.util.logging.Log {
 
    @Message(value = "Cannot configure custom KeyStore and/or TrustStore when specifying a SSLContext", id = 5018)
    CacheConfigurationException xorSSLContext();
+
+   @Message(value = "Illegal number of executorThreads: %d", id = 5019)
+   IllegalArgumentException illegalExecutorThreads(int executorThreads);
+
+   @Message(value = "Executor max connection memory must be greater than 0: %d", id = 5020)
+   IllegalArgumentException illegalExecutorMaxConnectionMemory(long executorMaxConnectionMemory);
 }
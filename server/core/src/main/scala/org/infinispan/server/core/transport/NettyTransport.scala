@@ -21,7 +21,8 @@ import org.infinispan.jmx.JmxUtil
 import javax.management.ObjectName
 import util.concurrent.{TimeUnit, Executors}
 import org.infinispan.server.core.configuration.ProtocolServerConfiguration
-import org.jboss.netty.channel.ChannelPipelineFactory
+import org.jboss.netty.channel.{ChannelPipeline, ChannelPipelineFactory}
+import org.jboss.netty.handler.execution.ExecutionHandler
 
 /**
  * A Netty based transport.
@@ -67,13 +68,23 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
    private val isGlobalStatsEnabled =
       cacheManager.getCacheManagerConfiguration.globalJmxStatistics().enabled()
 
+   private val executor =
+      if (configuration.executorThreads > 0)
+         new RequestExecutor(configuration.executorThreads, configuration.executorMaxConnectionMemory,
+            threadNamePrefix, isGlobalStatsEnabled)
+      else null
+   private val executionHandler = if (executor != null) new ExecutionHandler(executor) else null
+
    override def start() {
       // Make netty use log4j, otherwise it goes to JDK logging.
       if (isLog4jAvailable)
          InternalLoggerFactory.setDefaultFactory(new Log4JLoggerFactory)
 
       val bootstrap = new ServerBootstrap(factory)
-      bootstrap.setPipelineFactory(pipeline)
+      if (executionHandler != null)
+         bootstrap.setPipelineFactory(new ExecutorPipelineFactory)
+      else
+         bootstrap.setPipelineFactory(pipeline)
       bootstrap.setOption("child.tcpNoDelay", configuration.tcpNoDelay) // Sets server side tcpNoDelay
       if (configuration.sendBufSize > 0)
          bootstrap.setOption("child.sendBufferSize", configuration.sendBufSize) // Sets server side send buffer
@@ -117,6 +128,8 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          }
       }
       pipeline.stop
+      if (executionHandler != null)
+         executionHandler.releaseExternalResources()
       if (isDebugEnabled)
          debug("Channel group completely closed, release external resources")
       factory.shutdown()
@@ -133,6 +146,14 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
 
    override def getNumberWorkerThreads = configuration.workerThreads.toString
 
+   override def getNumberExecutorThreads = configuration.executorThreads.toString
+
+   override def getNumberOfPendingRequests: java.lang.Integer =
+      Integer.valueOf(if (executor != null) executor.getPendingCount else 0)
+
+   override def getAverageRequestWaitTime: java.lang.Long =
+      java.lang.Long.valueOf(if (executor != null) executor.getAverageWaitMicros else 0)
+
    override def getIdleTimeout = configuration.idleTimeout.toString
 
    override def getTcpNoDelay = configuration.tcpNoDelay.toString
@@ -151,7 +172,7 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          getNumberOfLocalConnections
    }
 
-   private[core] def updateTotalBytesWritten(e: WriteCompletionEvent) {
+   private[server] def updateTotalBytesWritten(e: WriteCompletionEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesWritten(totalBytesWritten, e)
    }
@@ -161,7 +182,7 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          base.addAndGet(e.getWrittenAmount)
    }
 
-   private[core] def updateTotalBytesRead(e: MessageEvent) {
+   private[server] def updateTotalBytesRead(e: MessageEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesRead(totalBytesRead, e)
    }
@@ -171,6 +192,19 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          base.addAndGet(e.getMessage.asInstanceOf[ChannelBuffer].readableBytes)
    }
 
+   /**
+    * Hands the requests over to the executor right before they are decoded, the decoders executing the cache
+    * operations as soon as a request has been read. The SSL handler, if any, stays on the worker threads.
+    */
+   private class ExecutorPipelineFactory extends ChannelPipelineFactory {
+      override def getPipeline: ChannelPipeline = {
+         val p = pipeline.getPipeline
+         if (p.get("decoder").isInstanceOf[RequestDecoder])
+            p.addBefore("decoder", "executor", executionHandler)
+         p
+      }
+   }
+
    private def needDistributedCalculation(): Boolean = {
       val transport = cacheManager.getTransport
       transport != null && transport.getMembers.size() > 1
@@ -0,0 +1,9 @@
+package org.infinispan.server.core.transport
+
+/**
+ * Marks the channel handlers which decode and execute the requests of a protocol, so that they are preceded by the
+ * executor of the requests when the requests are executed outside of the worker threads.
+ *
+ * @since 6.0
+ */
+trait RequestDecoder
@@ -0,0 +1,86 @@
+package org.infinispan.server.core.transport
+
+import java.util.concurrent.atomic.{AtomicLong, AtomicInteger}
+import java.util.concurrent.{ConcurrentHashMap, ThreadFactory, TimeUnit}
+import org.jboss.netty.handler.execution.{ChannelEventRunnable, OrderedMemoryAwareThreadPoolExecutor}
+
+/**
+ * Executes the requests received by the worker threads, the requests of a connection being executed in the order they
+ * were received. Once the requests of a connection waiting to be executed take more than maxConnectionMemory bytes,
+ * no more requests are read from that connection until some of them have been executed, so a slow cache does not
+ * make the requests pile up in memory. There is no limit on the total memory, as reaching it would block the worker
+ * thread and thus all its connections.
+ *
+ * The number of requests waiting for a thread is always tracked, the time they wait only when recordWaitTimes is
+ * enabled.
+ *
+ * @since 6.0
+ */
+class RequestExecutor(threads: Int, maxConnectionMemory: Long, threadNamePrefix: String, recordWaitTimes: Boolean)
+      extends OrderedMemoryAwareThreadPoolExecutor(threads, maxConnectionMemory, 0, 60, TimeUnit.SECONDS,
+         new RequestExecutorThreadFactory(threadNamePrefix)) {
+
+   private val pending = new AtomicInteger
+   private val submitTimes = new ConcurrentHashMap[Runnable, java.lang.Long]
+   private val executed, totalWaitNanos = new AtomicLong
+
+   override def execute(task: Runnable) {
+      task match {
+         case r: ChannelEventRunnable => {
+            if (recordWaitTimes) submitTimes.put(r, System.nanoTime)
+            pending.incrementAndGet
+            try {
+               super.execute(task)
+            } catch {
+               case t: Throwable => {
+                  pending.decrementAndGet
+                  if (recordWaitTimes) submitTimes.remove(r)
+                  throw t
+               }
+            }
+         }
+         case _ => super.execute(task)
+      }
+   }
+
+   override protected def beforeExecute(t: Thread, task: Runnable) {
+      task match {
+         case r: ChannelEventRunnable => {
+            pending.decrementAndGet
+            if (recordWaitTimes) {
+               val submitTime = submitTimes.remove(r)
+               if (submitTime != null) {
+                  totalWaitNanos.addAndGet(System.nanoTime - submitTime.longValue)
+                  executed.incrementAndGet
+               }
+            }
+         }
+         case _ =>
+      }
+      super.beforeExecute(t, task)
+   }
+
+   /**
+    * Returns the number of requests waiting for a thread
+    */
+   def getPendingCount: Int = pending.get
+
+   /**
+    * Returns the average time in microseconds the requests waited for a thread
+    */
+   def getAverageWaitMicros: Long = {
+      val count = executed.get
+      if (count == 0) 0 else TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get / count)
+   }
+
+}
+
+private class RequestExecutorThreadFactory(threadNamePrefix: String) extends ThreadFactory {
+   private val threadCounter = new AtomicInteger
+
+   override def newThread(r: Runnable): Thread = {
+      val t = new Thread(r, threadNamePrefix + "ServerExecutor-" + threadCounter.incrementAndGet)
+      t.setDaemon(true)
+      t
+   }
+}
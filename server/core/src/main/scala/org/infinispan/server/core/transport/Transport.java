@@ -63,6 +63,30 @@ public interface Transport {
    )
    String getNumberWorkerThreads();
 
+   @ManagedAttribute(
+         description = "Returns the number of threads executing the requests, 0 if they are executed by the worker threads.",
+         displayName = "Number of executor threads",
+         dataType = DataType.TRAIT,
+         displayType = DisplayType.SUMMARY
+   )
+   String getNumberExecutorThreads();
+
+   @ManagedAttribute(
+         description = "Returns the number of requests received and waiting for an executor thread.",
+         displayName = "Number of pending requests",
+         dataType = DataType.MEASUREMENT,
+         displayType = DisplayType.SUMMARY
+   )
+   Integer getNumberOfPendingRequests();
+
+   @ManagedAttribute(
+         description = "Returns the average time in microseconds the requests waited for an executor thread.",
+         displayName = "Average request wait time",
+         dataType = DataType.MEASUREMENT,
+         displayType = DisplayType.SUMMARY
+   )
+   Long getAverageRequestWaitTime();
+
    @ManagedAttribute(
          description = "Returns the idle timeout.",
          displayName = "Idle timeout",
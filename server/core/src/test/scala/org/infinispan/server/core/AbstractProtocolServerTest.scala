@@ -24,6 +24,18 @@ class AbstractProtocolServerTest {
       expectIllegalArgument(b, createServer)
    }
 
+   def testValidateNegativeExecutorThreads() {
+      val b = new MockServerConfigurationBuilder
+      b.executorThreads(-1);
+      expectIllegalArgument(b, createServer)
+   }
+
+   def testValidateZeroExecutorMaxConnectionMemory() {
+      val b = new MockServerConfigurationBuilder
+      b.executorThreads(1).executorMaxConnectionMemory(0);
+      expectIllegalArgument(b, createServer)
+   }
+
    def testValidateNegativeIdleTimeout() {
       val b = new MockServerConfigurationBuilder
       b.idleTimeout(-2);
@@ -1,7 +1,7 @@
 package org.infinispan.server.hotrod
 
 import logging.Log
-import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
 import org.infinispan.Cache
 import org.infinispan.manager.EmbeddedCacheManager
 import org.infinispan.remoting.transport.Address
@@ -22,6 +22,7 @@ import org.infinispan.server.hotrod.util.BulkUtil
 abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants with Log {
 
    import HotRodServer._
+   import AbstractEncoder1x._
 
    override def writeHeader(r: Response, buf: ChannelBuffer,
            addressCache: Cache[Address, ServerAddress], server: HotRodServer) {
@@ -31,29 +32,68 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
       buf.writeByte(r.operation.id.byteValue)
       buf.writeByte(r.status.id.byteValue)
       if (topologyResp != null) {
-         topologyResp match {
-            case t: TopologyAwareResponse => {
-               if (r.clientIntel == INTELLIGENCE_TOPOLOGY_AWARE)
-                  writeTopologyUpdate(t, buf)
-               else
-                  writeLimitedHashTopologyUpdate(t, buf)
-            }
-            case h: AbstractHashDistAwareResponse =>
-               writeHashTopologyUpdate(h, server, r, buf)
-         }
+         writeCachedTopologyUpdate(topologyResp, server, r, buf)
       } else {
          writeNoTopologyUpdate(buf)
       }
    }
 
+   /**
+    * After a topology change every client gets the same update, so it's only encoded once per cache, protocol
+    * version and client intelligence, and the encoded bytes are copied to the buffer of the following responses.
+    * The update is encoded by the first request to need it, the concurrent requests waiting for it rather than
+    * encoding it too.
+    */
+   private def writeCachedTopologyUpdate(t: AbstractTopologyResponse, server: HotRodServer, r: Response,
+           buf: ChannelBuffer) {
+      val key = TopologyPayloadKey(r.cacheName, r.version, r.clientIntel)
+      val payloads = server.getTopologyPayloads
+      val cached = payloads.get(key)
+      val payload =
+         if (cached != null && cached.isFor(t)) {
+            cached
+         } else {
+            val created = new TopologyPayload(t.topologyId, t.serverEndpointsMap,
+               b => encodeTopologyUpdate(t, server, r, b))
+            val replaced =
+               if (cached == null) payloads.putIfAbsent(key, created) == null
+               else payloads.replace(key, cached, created)
+            if (replaced) {
+               created
+            } else {
+               // Another request got there first, use its payload if it's for the same topology
+               val other = payloads.get(key)
+               if (other != null && other.isFor(t)) other else created
+            }
+         }
+      buf.writeBytes(payload.bytes)
+   }
+
+   private def encodeTopologyUpdate(t: AbstractTopologyResponse, server: HotRodServer, r: Response,
+           buf: ChannelBuffer) {
+      t match {
+         case t: TopologyAwareResponse => {
+            if (r.clientIntel == INTELLIGENCE_TOPOLOGY_AWARE)
+               writeTopologyUpdate(t, buf)
+            else
+               writeLimitedHashTopologyUpdate(t, buf)
+         }
+         case h: AbstractHashDistAwareResponse =>
+            writeHashTopologyUpdate(h, server, r, buf)
+      }
+   }
+
    override def writeResponse(r: Response, buf: ChannelBuffer,
-           cacheManager: EmbeddedCacheManager, server: HotRodServer) {
+           cacheManager: EmbeddedCacheManager, server: HotRodServer): ChannelBuffer = {
+      // The value the response ends with, if it's wrapped rather than copied
+      var wrappedValue: Array[Byte] = null
+      def value(v: Array[Byte]): Array[Byte] = if (r.compressedValues) ValueCompression.encode(v) else v
       r match {
          case r: ResponseWithPrevious => {
             if (r.previous == None)
                writeUnsignedInt(0, buf)
             else
-               writeRangedBytes(r.previous.get, buf)
+               wrappedValue = writeValue(value(r.previous.get), buf)
          }
          case s: StatsResponse => {
             writeUnsignedInt(s.stats.size, buf)
@@ -65,7 +105,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
          case g: GetWithVersionResponse => {
             if (g.status == Success) {
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               wrappedValue = writeValue(value(g.data.get), buf)
             }
          }
          case g: GetWithMetadataResponse => {
@@ -81,7 +121,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                   writeUnsignedInt(g.maxIdle, buf)
                }
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               wrappedValue = writeValue(value(g.data.get), buf)
             }
          }
          case g: BulkGetResponse => {
@@ -97,7 +137,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                for (entry <- iterator) {
                   buf.writeByte(1) // Not done
                   writeRangedBytes(entry.getKey, buf)
-                  writeRangedBytes(entry.getValue, buf)
+                  writeRangedBytes(value(entry.getValue), buf)
                }
                buf.writeByte(0) // Done
             }
@@ -118,13 +158,95 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
             }
          }
          case g: GetResponse =>
-            if (g.status == Success) writeRangedBytes(g.data.get, buf)
+            if (g.status == Success) wrappedValue = writeValue(value(g.data.get), buf)
+         case g: GetAllResponse => {
+            // One value per requested key, in the order of the request
+            writeUnsignedInt(g.values.length, buf)
+            for (entry <- g.values) {
+               entry match {
+                  case Some(v) => {
+                     buf.writeByte(1)
+                     writeRangedBytes(value(v), buf)
+                  }
+                  case None => buf.writeByte(0)
+               }
+            }
+         }
+         case i: IterationStartResponse =>
+            writeString(i.iterationId, buf)
+         case i: IterationNextResponse => {
+            if (i.status == Success) {
+               // An empty batch ends the iteration
+               writeUnsignedInt(i.entries.size, buf)
+               for ((k, v) <- i.entries) {
+                  writeRangedBytes(k, buf)
+                  writeRangedBytes(value(v), buf)
+               }
+            }
+         }
+         case t: ExecTaskResponse => {
+            writeUnsignedInt(t.results.size, buf)
+            for (result <- t.results) {
+               if (result == null) {
+                  buf.writeByte(0)
+               } else {
+                  buf.writeByte(1)
+                  writeRangedBytes(result, buf)
+               }
+            }
+         }
+         case c: CounterAddResponse =>
+            if (c.status == Success) buf.writeLong(c.counter)
+         case g: StreamGetResponse => {
+            if (g.status == Success) {
+               buf.writeLong(g.dataVersion)
+               writeUnsignedLong(g.length, buf)
+               writeRangedBytes(value(g.chunk), buf)
+            }
+         }
          case q: QueryResponse =>
             writeRangedBytes(q.result, buf)
+         case e: KeyInvalidationEvent =>
+            writeRangedBytes(e.key, buf)
+         case e: ClientEventsResponse => {
+            buf.writeByte(if (e.eventsLost) 1 else 0)
+            writeUnsignedInt(e.events.size, buf)
+            for (event <- e.events) {
+               buf.writeByte(event.eventType)
+               writeRangedBytes(event.key, buf)
+               buf.writeLong(event.dataVersion)
+               event.value match {
+                  case Some(v) => {
+                     buf.writeByte(1)
+                     writeRangedBytes(value(v), buf)
+                  }
+                  case None => buf.writeByte(0)
+               }
+            }
+         }
          case e: ErrorResponse => writeString(e.msg, buf)
          case _ => if (buf == null)
             throw new IllegalArgumentException("Response received is unknown: " + r)
       }
+      if (wrappedValue == null) buf
+      else ChannelBuffers.wrappedBuffer(true, buf, ChannelBuffers.wrappedBuffer(wrappedValue))
+   }
+
+   /**
+    * Writes the length of a value the response ends with, and the value itself if it's small. A large value isn't
+    * copied into the response buffer, which would also grow the buffer several times, but returned so that the
+    * response is sent as a composite of the buffer and of the value, written to the socket with a gathering write.
+    *
+    * @return the value to append to the response, or null if it was written to the buffer
+    */
+   private def writeValue(value: Array[Byte], buf: ChannelBuffer): Array[Byte] = {
+      writeUnsignedInt(value.length, buf)
+      if (value.length < WrappedValueThreshold) {
+         buf.writeBytes(value)
+         null
+      } else {
+         value
+      }
    }
 
    def getTopologyResponse(r: Response, addressCache: Cache[Address, ServerAddress],
@@ -270,3 +392,38 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
    }
 
 }
+
+object AbstractEncoder1x {
+
+   /**
+    * Size from which a value is appended to the response rather than copied into it. Below it, copying is cheaper
+    * than the composite buffer and the gathering write.
+    */
+   val WrappedValueThreshold = 512
+
+}
+
+/**
+ * Identifies the topology updates which are encoded the same way.
+ */
+private[hotrod] case class TopologyPayloadKey(cacheName: String, version: Byte, clientIntel: Short)
+
+/**
+ * A topology update, encoded on first use.
+ */
+private[hotrod] class TopologyPayload(val topologyId: Int, val serverEndpointsMap: Map[Address, ServerAddress],
+      encode: ChannelBuffer => Unit) {
+
+   lazy val bytes: Array[Byte] = {
+      val buf = ChannelBuffers.dynamicBuffer
+      encode(buf)
+      val bytes = new Array[Byte](buf.readableBytes)
+      buf.readBytes(bytes)
+      bytes
+   }
+
+   // The endpoints of a topology can change, when a node adds its own after joining
+   def isFor(t: AbstractTopologyResponse): Boolean =
+      topologyId == t.topologyId && serverEndpointsMap == t.serverEndpointsMap
+
+}
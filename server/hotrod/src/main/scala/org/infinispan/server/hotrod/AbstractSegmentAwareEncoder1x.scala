@@ -0,0 +1,77 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.jboss.netty.buffer.ChannelBuffer
+import org.infinispan.remoting.transport.Address
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import collection.JavaConversions._
+import org.infinispan.configuration.cache.Configuration
+import org.infinispan.distribution.ch.DefaultConsistentHash
+import org.infinispan.commons.hash.MurmurHash3
+
+/**
+ * Hot Rod encoder for protocol version 1.4, which sends the owners of every segment of the consistent hash rather
+ * than positions on a hash wheel, so that the clients locate the owners of the keys exactly as the servers do.
+ *
+ * The hash distribution aware topology update is made of the list of servers, the hash function version and the
+ * owners of each segment, as indexes in the list of servers. If the consistent hash cannot be reproduced by the
+ * clients, only the list of servers is sent, with hash function version 0.
+ *
+ * @since 6.0
+ */
+abstract class AbstractSegmentAwareEncoder1x extends AbstractTopologyAwareEncoder1x with Constants with Log {
+
+   override protected def createHashDistAwareResp(topologyId: Int,
+                                                  serverEndpointsMap: Map[Address, ServerAddress],
+                                                  cfg: Configuration): AbstractHashDistAwareResponse = {
+      SegmentHashDistAwareResponse(topologyId, serverEndpointsMap, cfg.clustering().hash().numOwners(),
+         SEGMENT_HASH_FUNCTION_VERSION)
+   }
+
+   override def writeHashTopologyUpdate(h: AbstractHashDistAwareResponse, server: HotRodServer, r: Response,
+                                        buf: ChannelBuffer) {
+      trace("Write segment hash distribution change response header %s", h)
+      val cache = server.getCacheInstance(r.cacheName, server.getCacheManager, false)
+      val ch = cache.getAdvancedCache.getDistributionManager.getReadConsistentHash
+      ch match {
+         // The clients compute the segment of a key with MurmurHash3, the same way as DefaultConsistentHash
+         case dch: DefaultConsistentHash if dch.getHashFunction.isInstanceOf[MurmurHash3] => {
+            val servers = h.serverEndpointsMap.toSeq
+            val serverIndexes = servers.map(_._1).zipWithIndex.toMap
+            writeSegmentTopologyHeader(buf, h.topologyId, servers.map(_._2))
+            buf.writeByte(h.hashFunction)
+            val numSegments = dch.getNumSegments
+            writeUnsignedInt(numSegments, buf)
+            for (segmentIdx <- 0 until numSegments) {
+               // The owners without endpoint are left out, the first one written being the primary owner
+               val owners = dch.locateOwnersForSegment(segmentIdx).flatMap(serverIndexes.get(_))
+               buf.writeByte(owners.size)
+               owners.foreach(writeUnsignedInt(_, buf))
+            }
+         }
+         case _ => {
+            log.tracef("Consistent hash %s cannot be reproduced by the clients, sending the servers only", ch)
+            writeLimitedHashTopologyUpdate(h, buf)
+         }
+      }
+   }
+
+   override def writeLimitedHashTopologyUpdate(t: AbstractTopologyResponse, buf: ChannelBuffer) {
+      trace("Return limited segment hash distribution aware header in spite of having a hash aware client %s", t)
+      writeSegmentTopologyHeader(buf, t.topologyId, t.serverEndpointsMap.values.toSeq)
+      buf.writeByte(0) // No hash function
+      writeUnsignedInt(0, buf) // Num segments
+   }
+
+   private def writeSegmentTopologyHeader(buf: ChannelBuffer, topologyId: Int, servers: Seq[ServerAddress]) {
+      buf.writeByte(1) // Topology changed
+      writeUnsignedInt(topologyId, buf)
+      writeUnsignedInt(servers.size, buf)
+      for (address <- servers) {
+         writeString(address.host, buf)
+         writeUnsignedShort(address.port, buf)
+      }
+      trace("Topology will contain %d addresses", servers.size)
+   }
+
+}
@@ -61,6 +61,52 @@ abstract class AbstractVersionedDecoder {
    def customReadKey(header: HotRodHeader, buffer: ChannelBuffer, cache: AdvancedCache[Array[Byte], Array[Byte]],
            queryFacades: Seq[QueryFacade]): AnyRef
 
+   /**
+    * Read the expiration parameters and the entries of a put all request.
+    */
+   def readPutAllRequest(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, java.util.Map[Array[Byte], Array[Byte]])
+
+   /**
+    * Read the segments, the filter name and the batch size of an iteration start request.
+    */
+   def readIterationStartRequest(buffer: ChannelBuffer): (Option[Set[Int]], Option[String], Int)
+
+   /**
+    * Read the id of the iteration a request applies to.
+    */
+   def readIterationId(buffer: ChannelBuffer): String
+
+   /**
+    * Read the id, the filter and converter names and the options of a client listener registration.
+    */
+   def readAddClientListenerRequest(buffer: ChannelBuffer): ClientListenerParams
+
+   /**
+    * Read the id of the client listener a request applies to.
+    */
+   def readClientListenerId(buffer: ChannelBuffer): String
+
+   /**
+    * Read the name, the parameter and the keys of a task execution request.
+    */
+   def readExecTaskRequest(buffer: ChannelBuffer): (String, Array[Byte], Seq[Array[Byte]])
+
+   /**
+    * Read the key of a counter and the delta to add to it.
+    */
+   def readCounterAddRequest(buffer: ChannelBuffer): (Array[Byte], Long)
+
+   /**
+    * Read the key, the expiration parameters, the stream id, the offset, whether it is the last one and the bytes
+    * of a chunk of a streamed value.
+    */
+   def readStreamPutRequest(header: HotRodHeader, buffer: ChannelBuffer): StreamChunk
+
+   /**
+    * Read the key, the offset and the maximum length of the chunk of a value to read.
+    */
+   def readStreamGetRequest(buffer: ChannelBuffer): (Array[Byte], Long, Int)
+
    /**
     * Handle a protocol specific value reading.
     */
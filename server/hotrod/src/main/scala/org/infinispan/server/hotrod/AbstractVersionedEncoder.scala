@@ -22,7 +22,11 @@ abstract class AbstractVersionedEncoder {
 
    /**
     * Write operation response using the given channel buffer
+    *
+    * @return the buffer to send, either the given buffer or a composite buffer made of it and of values appended
+    *         without being copied
     */
-   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer)
+   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager,
+         server: HotRodServer): ChannelBuffer
 
 }
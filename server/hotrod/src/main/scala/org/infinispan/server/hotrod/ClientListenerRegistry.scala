@@ -0,0 +1,357 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import org.infinispan.Cache
+import org.infinispan.container.versioning.NumericVersion
+import org.infinispan.metadata.Metadata
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified, CacheEntryCreated}
+import org.infinispan.notifications.cachelistener.event.{EventImpl, CacheEntryRemovedEvent, CacheEntryModifiedEvent, CacheEntryCreatedEvent}
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
+import collection.JavaConversions._
+import collection.mutable.ArrayBuffer
+import OperationResponse._
+import OperationStatus._
+
+/**
+ * Filters the events sent to a client listener. Filters are registered on the server with
+ * [[org.infinispan.server.hotrod.HotRodServer.addClientEventFilter]] and selected by name when the listener is added.
+ *
+ * @since 6.0
+ */
+trait ClientEventFilter {
+
+   /**
+    * @param value the new value of the entry, or null if the entry was removed
+    */
+   def accept(key: Array[Byte], value: Array[Byte]): Boolean
+
+}
+
+/**
+ * Converts the value sent with the events of a client listener, e.g. to send only the part of it the client needs.
+ * The value returned is read by the client like the values of the cache, so it must be marshalled the same way.
+ * Converters are registered on the server with [[org.infinispan.server.hotrod.HotRodServer.addClientEventConverter]]
+ * and selected by name when the listener is added.
+ *
+ * @since 6.0
+ */
+trait ClientEventConverter {
+
+   def convert(key: Array[Byte], value: Array[Byte]): Array[Byte]
+
+}
+
+/**
+ * An entry event sent to a client listener: the key, the version of the entry and, if the listener asked for it,
+ * the value.
+ *
+ * @since 6.0
+ */
+class ClientEvent(val eventType: Byte, val key: Array[Byte], val dataVersion: Long, val value: Option[Array[Byte]])
+
+/**
+ * The parameters of a client listener registration.
+ *
+ * @since 6.0
+ */
+class ClientListenerParams(val listenerId: String, val filterName: Option[String], val converterName: Option[String],
+        val includeValue: Boolean, val resume: Boolean)
+
+/**
+ * Keeps the listeners the clients added to the caches. Each listener pushes the events of the entries this server is
+ * the primary owner of to the connection of its client, so that a client listening on every server receives each
+ * event once.
+ *
+ * When the connection of a listener is lost, the listener keeps its events for
+ * [[org.infinispan.server.hotrod.ClientListenerRegistry.DetachedTimeoutMillis]], so that the client failing over to
+ * another connection can resume it without losing any. A listener which is not resumed in time, or which falls more
+ * than [[org.infinispan.server.hotrod.ClientListenerRegistry.MaxPendingEvents]] events behind, is dropped.
+ *
+ * @since 6.0
+ */
+class ClientListenerRegistry extends Log {
+
+   import ClientListenerRegistry._
+
+   private val listeners = new ConcurrentHashMap[String, ClientListener]
+   private val filters = new ConcurrentHashMap[String, ClientEventFilter]
+   private val converters = new ConcurrentHashMap[String, ClientEventConverter]
+
+   def addFilter(name: String, filter: ClientEventFilter) {
+      filters.put(name, filter)
+   }
+
+   def removeFilter(name: String) {
+      filters.remove(name)
+   }
+
+   def addConverter(name: String, converter: ClientEventConverter) {
+      converters.put(name, converter)
+   }
+
+   def removeConverter(name: String) {
+      converters.remove(name)
+   }
+
+   /**
+    * Adds a listener to the cache, or resumes it on the channel given if it is asked to and the listener is still
+    * kept. The response is written to the channel before any event. A listener which cannot be resumed is added
+    * again, with a [[org.infinispan.server.hotrod.OperationStatus.KeyDoesNotExist]] status telling the client that
+    * events may have been lost.
+    */
+   def addListener(ch: Channel, h: HotRodHeader, cache: Cache[Array[Byte], Array[Byte]], params: ClientListenerParams) {
+      dropExpiredListeners()
+      if (params.resume) {
+         val listener = listeners.get(params.listenerId)
+         if (listener != null && listener.attach(ch, h, Success)) {
+            if (isTraceEnabled) trace("Resumed client listener %s on %s", params.listenerId, ch)
+            return
+         }
+      }
+      val filter = params.filterName.map(name => {
+         val f = filters.get(name)
+         if (f == null) throw new IllegalArgumentException("Unknown client event filter " + name)
+         f
+      })
+      val converter = params.converterName.map(name => {
+         val c = converters.get(name)
+         if (c == null) throw new IllegalArgumentException("Unknown client event converter " + name)
+         c
+      })
+      val listener = new ClientListener(this, params.listenerId, cache, filter, converter, params.includeValue)
+      val previous = listeners.put(params.listenerId, listener)
+      if (previous != null) previous.unregister()
+      listener.register(ch, h, if (params.resume) KeyDoesNotExist else Success)
+      if (isTraceEnabled) trace("Added client listener %s to cache %s on %s", params.listenerId, cache.getName, ch)
+   }
+
+   /**
+    * @return whether the listener existed
+    */
+   def removeListener(listenerId: String): Boolean = {
+      if (isTraceEnabled) trace("Removing client listener %s", listenerId)
+      val listener = listeners.remove(listenerId)
+      if (listener != null) listener.unregister()
+      listener != null
+   }
+
+   def getListenerCount: Int = listeners.size
+
+   private[hotrod] def drop(listener: ClientListener) {
+      if (listeners.remove(listener.id, listener)) {
+         if (isTraceEnabled) trace("Dropping client listener %s", listener.id)
+         listener.unregister()
+      }
+   }
+
+   private def dropExpiredListeners() {
+      val now = System.currentTimeMillis
+      for (listener <- listeners.values if listener.isExpired(now)) drop(listener)
+   }
+
+}
+
+object ClientListenerRegistry {
+
+   val EventCreated: Byte = 0x01
+   val EventModified: Byte = 0x02
+   val EventRemoved: Byte = 0x03
+
+   /**
+    * How long a listener whose connection is lost keeps its events for its client to resume it
+    */
+   val DetachedTimeoutMillis = TimeUnit.MINUTES.toMillis(1)
+
+   /**
+    * The maximum number of events waiting to be written to the client of a listener
+    */
+   val MaxPendingEvents = 10000
+
+   /**
+    * The maximum number of events written in a single message
+    */
+   val MaxBatchSize = 1000
+
+}
+
+/**
+ * Cache listener pushing the events of a client listener to its channel, with at most one message being written at a
+ * time: the events raised in the meantime are batched into the next message, so that a busy cache sends fewer,
+ * bigger messages. The events are only kept while they are waiting to be written, or while the channel is lost.
+ */
+@Listener(sync = false)
+private class ClientListener(registry: ClientListenerRegistry, val id: String, cache: Cache[Array[Byte], Array[Byte]],
+        filter: Option[ClientEventFilter], converter: Option[ClientEventConverter], includeValue: Boolean)
+        extends ChannelFutureListener with Log {
+
+   import ClientListenerRegistry._
+
+   // Null in local mode
+   private val stateTransferManager = cache.getAdvancedCache.getComponentRegistry.getStateTransferManager
+   private val address = cache.getCacheManager.getAddress
+
+   // Guarded by this
+   private val pending = new java.util.ArrayDeque[ClientEvent]
+   private var ch: Channel = _
+   private var version: Byte = _
+   private var messageId: Long = _
+   private var cacheName: String = _
+   private var compressedValues: Boolean = _
+   private var writing = false
+   private var eventsLost = false
+   private var detachedSince = 0L
+   private var registered = true
+
+   def register(ch: Channel, h: HotRodHeader, status: OperationStatus) {
+      cache.addListener(this)
+      attach(ch, h, status)
+   }
+
+   def unregister() {
+      synchronized {
+         registered = false
+         pending.clear()
+      }
+      cache.removeListener(this)
+   }
+
+   /**
+    * Writes the events of this listener to the channel given, after the response to its registration.
+    *
+    * @return false if the listener has been removed in the meantime
+    */
+   def attach(channel: Channel, h: HotRodHeader, status: OperationStatus): Boolean = synchronized {
+      if (!registered) return false
+      ch = channel
+      version = h.version
+      messageId = h.messageId
+      cacheName = h.cacheName
+      compressedValues = ValueCompression.isRequested(h)
+      writing = true
+      channel.getCloseFuture.addListener(new ChannelFutureListener {
+         def operationComplete(future: ChannelFuture) {
+            detach(channel)
+         }
+      })
+      // Any event raised in the meantime is written once the response is
+      channel.write(new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+            AddClientListenerResponse, status, h.topologyId)).addListener(this)
+      true
+   }
+
+   def isExpired(now: Long): Boolean = synchronized {
+      ch == null && now - detachedSince > DetachedTimeoutMillis
+   }
+
+   private def detach(channel: Channel) {
+      synchronized {
+         if (ch ne channel) return
+         ch = null
+         writing = false
+         detachedSince = System.currentTimeMillis
+      }
+      if (isTraceEnabled) trace("Connection of client listener %s lost, keeping its events", id)
+   }
+
+   @CacheEntryCreated
+   def entryCreated(e: CacheEntryCreatedEvent[AnyRef, AnyRef]) {
+      if (!e.isPre) offer(EventCreated, e.getKey, e.getValue, metadataOf(e))
+   }
+
+   @CacheEntryModified
+   def entryModified(e: CacheEntryModifiedEvent[AnyRef, AnyRef]) {
+      // The creation of an entry is reported by its own event
+      if (!e.isPre && !e.isCreated) offer(EventModified, e.getKey, e.getValue, metadataOf(e))
+   }
+
+   @CacheEntryRemoved
+   def entryRemoved(e: CacheEntryRemovedEvent[AnyRef, AnyRef]) {
+      // Clearing the cache only raises pre events, so it is not reported
+      if (!e.isPre) offer(EventRemoved, e.getKey, null, metadataOf(e))
+   }
+
+   private def metadataOf(e: AnyRef): Metadata = e match {
+      // The notifier raises its own event implementation, which carries the metadata of the entry
+      case impl: EventImpl[_, _] => impl.getMetadata
+      case _ => null
+   }
+
+   private def offer(eventType: Byte, key: AnyRef, value: AnyRef, metadata: Metadata) {
+      key match {
+         case k: Array[Byte] if isPrimaryOwner(k) => {
+            val v = value match {
+               case b: Array[Byte] => b
+               case _ => null
+            }
+            if (filter.forall(_.accept(k, v))) {
+               val sentValue =
+                  if (!includeValue || v == null) None
+                  else Some(converter.map(_.convert(k, v)).getOrElse(v))
+               offer(new ClientEvent(eventType, k, dataVersion(metadata), sentValue))
+            }
+         }
+         case _ => // Owned by another server, or not written by a Hot Rod client, e.g. in compatibility mode
+      }
+   }
+
+   private def offer(event: ClientEvent) {
+      if (isExpired(System.currentTimeMillis)) {
+         // Nobody resumed it in time
+         registry.drop(this)
+         return
+      }
+      synchronized {
+         if (!registered) return
+         if (pending.size >= MaxPendingEvents) {
+            if (isTraceEnabled) trace("Client listener %s is too slow, dropping its pending events", id)
+            pending.clear()
+            eventsLost = true
+         }
+         pending.add(event)
+         if (!writing && ch != null) writeNext()
+      }
+   }
+
+   override def operationComplete(future: ChannelFuture) {
+      synchronized {
+         if (future.getChannel ne ch) return
+         if (!future.isSuccess) {
+            // The channel is being closed, so the events written are lost
+            eventsLost = true
+         } else if (pending.isEmpty && !eventsLost) {
+            writing = false
+         } else {
+            writeNext()
+         }
+      }
+   }
+
+   // Called with the lock held
+   private def writeNext() {
+      writing = true
+      val events = new ArrayBuffer[ClientEvent](math.min(pending.size, MaxBatchSize))
+      while (events.size < MaxBatchSize && !pending.isEmpty) events += pending.poll()
+      val response = new ClientEventsResponse(version, messageId, cacheName, eventsLost, events)
+      response.compressedValues = compressedValues
+      ch.write(response).addListener(this)
+      eventsLost = false
+   }
+
+   private def isPrimaryOwner(key: Array[Byte]): Boolean = {
+      if (stateTransferManager == null) return true
+      val topology = stateTransferManager.getCacheTopology
+      // Replicated caches have a primary owner per key too
+      topology == null || topology.getWriteConsistentHash.locatePrimaryOwner(key) == address
+   }
+
+   private def dataVersion(metadata: Metadata): Long = {
+      if (metadata == null) 0
+      else metadata.version match {
+         case n: NumericVersion => n.getVersion
+         case _ => 0
+      }
+   }
+
+}
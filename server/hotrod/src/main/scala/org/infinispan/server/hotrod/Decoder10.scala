@@ -9,6 +9,7 @@ import org.infinispan.stats.Stats
 import org.infinispan.server.core._
 import collection.mutable
 import collection.immutable
+import collection.JavaConverters._
 import org.infinispan.util.concurrent.TimeoutException
 import java.io.IOException
 import org.infinispan.context.Flag.IGNORE_RETURN_VALUES
@@ -30,6 +31,11 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
    type SuitableHeader = HotRodHeader
    private val isTrace = isTraceEnabled
 
+   /**
+    * The largest collection allocated upfront for the keys or entries of a request, whatever their count
+    */
+   private val MaxInitialCapacity = 1024
+
    override def readHeader(buffer: ChannelBuffer, version: Byte, messageId: Long, header: HotRodHeader): Boolean = {
       val streamOp = buffer.readUnsignedByte
       val (op, endOfOp) = streamOp match {
@@ -49,6 +55,19 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x1B => (GetWithMetadataRequest, false)
          case 0x1D => (BulkGetKeysRequest, false)
          case 0x1F => (QueryRequest, false)
+         case 0x21 if version >= Constants.VERSION_13 => (AddInvalidationListenerRequest, true)
+         case 0x23 if version >= Constants.VERSION_13 => (GetAllRequest, false)
+         case 0x25 if version >= Constants.VERSION_13 => (PutAllRequest, false)
+         case 0x27 if version >= Constants.VERSION_13 => (RemoveAllRequest, false)
+         case 0x31 if version >= Constants.VERSION_14 => (IterationStartRequest, false)
+         case 0x33 if version >= Constants.VERSION_14 => (IterationNextRequest, false)
+         case 0x35 if version >= Constants.VERSION_14 => (IterationEndRequest, false)
+         case 0x37 if version >= Constants.VERSION_14 => (CounterAddRequest, false)
+         case 0x39 if version >= Constants.VERSION_14 => (AddClientListenerRequest, false)
+         case 0x3B if version >= Constants.VERSION_14 => (RemoveClientListenerRequest, false)
+         case 0x3D if version >= Constants.VERSION_14 => (ExecTaskRequest, false)
+         case 0x3F if version >= Constants.VERSION_14 => (StreamPutRequest, false)
+         case 0x41 if version >= Constants.VERSION_14 => (StreamGetRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -103,6 +122,85 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       }
    }
 
+   override def readPutAllRequest(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, java.util.Map[Array[Byte], Array[Byte]]) = {
+      val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+      val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+      val count = readUnsignedInt(buffer)
+      // The count is sent by the client, so the map grows with the entries actually read
+      val entries = new java.util.HashMap[Array[Byte], Array[Byte]](math.min(count, MaxInitialCapacity) * 4 / 3 + 1)
+      val compressed = ValueCompression.isRequested(header)
+      for (i <- 0 until count) {
+         val k = readKey(buffer)
+         val v = readRangedBytes(buffer)
+         entries.put(k, if (compressed) ValueCompression.decode(v) else v)
+      }
+      (new RequestParameters(-1, lifespan, maxIdle, -1), entries)
+   }
+
+   override def readIterationStartRequest(buffer: ChannelBuffer): (Option[Set[Int]], Option[String], Int) = {
+      val segments =
+         if (buffer.readUnsignedByte == 0) {
+            None
+         } else {
+            val count = readUnsignedInt(buffer)
+            Some((for (i <- 0 until count) yield readUnsignedInt(buffer)).toSet)
+         }
+      val filterName = readString(buffer)
+      val batchSize = readUnsignedInt(buffer)
+      (segments, if (filterName.isEmpty) None else Some(filterName), batchSize)
+   }
+
+   override def readIterationId(buffer: ChannelBuffer): String = readString(buffer)
+
+   override def readAddClientListenerRequest(buffer: ChannelBuffer): ClientListenerParams = {
+      val listenerId = readString(buffer)
+      val filterName = readString(buffer)
+      val converterName = readString(buffer)
+      val includeValue = buffer.readUnsignedByte == 1
+      val resume = buffer.readUnsignedByte == 1
+      new ClientListenerParams(listenerId, if (filterName.isEmpty) None else Some(filterName),
+         if (converterName.isEmpty) None else Some(converterName), includeValue, resume)
+   }
+
+   override def readClientListenerId(buffer: ChannelBuffer): String = readString(buffer)
+
+   override def readExecTaskRequest(buffer: ChannelBuffer): (String, Array[Byte], Seq[Array[Byte]]) = {
+      val taskName = readString(buffer)
+      val parameter = readRangedBytes(buffer)
+      (taskName, parameter, readKeys(buffer))
+   }
+
+   override def readCounterAddRequest(buffer: ChannelBuffer): (Array[Byte], Long) = {
+      val k = readKey(buffer)
+      (k, buffer.readLong)
+   }
+
+   override def readStreamPutRequest(header: HotRodHeader, buffer: ChannelBuffer): StreamChunk = {
+      val k = readKey(buffer)
+      val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+      val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+      val streamId = readString(buffer)
+      val offset = readUnsignedLong(buffer)
+      val last = buffer.readUnsignedByte == 1
+      val chunk = readRangedBytes(buffer)
+      new StreamChunk(k, new RequestParameters(-1, lifespan, maxIdle, -1), streamId, offset, last,
+         if (ValueCompression.isRequested(header)) ValueCompression.decode(chunk) else chunk)
+   }
+
+   override def readStreamGetRequest(buffer: ChannelBuffer): (Array[Byte], Long, Int) = {
+      val k = readKey(buffer)
+      val offset = readUnsignedLong(buffer)
+      (k, offset, readUnsignedInt(buffer))
+   }
+
+   private def readKeys(buffer: ChannelBuffer): Seq[Array[Byte]] = {
+      val count = readUnsignedInt(buffer)
+      // The count is sent by the client, so the keys grow with the keys actually read
+      val keys = new mutable.ArrayBuffer[Array[Byte]](math.min(count, MaxInitialCapacity))
+      for (i <- 0 until count) keys += readKey(buffer)
+      keys
+   }
+
    private def hasFlag(h: HotRodHeader, f: ProtocolFlag): Boolean = {
       (h.flag & f.id) == f.id
    }
@@ -217,6 +315,23 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             val k = readKey(buffer)
             getKeyMetadata(h, k, cache)
          }
+         case GetAllRequest => {
+            // Read all the keys before touching the cache, the buffer may not hold the whole request yet
+            val keys = readKeys(buffer)
+            // A single read, which fetches the keys owned by other nodes with one call per owner
+            val entries = cache.getAllCacheEntries(keys.asJava)
+            val values = keys.map(k => Option(entries.get(k)).flatMap(e => Option(e.getValue.asInstanceOf[Array[Byte]]))).toArray
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                  GetAllResponse, Success, h.topologyId, values)
+         }
+         case RemoveAllRequest => {
+            val keys = readKeys(buffer)
+            // There is no multi-key remove command, but the previous values are not needed at least
+            val optCache = cache.withFlags(IGNORE_RETURN_VALUES)
+            keys.foreach(optCache.remove(_))
+            new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+                  RemoveAllResponse, Success, h.topologyId)
+         }
          case QueryRequest => {
             val query = readRangedBytes(buffer)
             val result = queryFacades.head.query(cache, query)
@@ -305,6 +420,19 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
          case BulkGetKeysRequest => BulkGetKeysResponse
+         case AddInvalidationListenerRequest => AddInvalidationListenerResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
+         case RemoveAllRequest => RemoveAllResponse
+         case IterationStartRequest => IterationStartResponse
+         case IterationNextRequest => IterationNextResponse
+         case IterationEndRequest => IterationEndResponse
+         case CounterAddRequest => CounterAddResponse
+         case AddClientListenerRequest => AddClientListenerResponse
+         case RemoveClientListenerRequest => RemoveClientListenerResponse
+         case ExecTaskRequest => ExecTaskResponse
+         case StreamPutRequest => StreamPutResponse
+         case StreamGetRequest => StreamGetResponse
       }
    }
 
@@ -328,6 +456,21 @@ object OperationResponse extends Enumeration {
    val GetWithMetadataResponse = Value(0x1C)
    val BulkGetKeysResponse = Value(0x1E)
    val QueryResponse = Value(0x20)
+   val AddInvalidationListenerResponse = Value(0x22)
+   val GetAllResponse = Value(0x24)
+   val PutAllResponse = Value(0x26)
+   val RemoveAllResponse = Value(0x28)
+   val IterationStartResponse = Value(0x32)
+   val IterationNextResponse = Value(0x34)
+   val IterationEndResponse = Value(0x36)
+   val CounterAddResponse = Value(0x38)
+   val AddClientListenerResponse = Value(0x3A)
+   val RemoveClientListenerResponse = Value(0x3C)
+   val ExecTaskResponse = Value(0x3E)
+   val StreamPutResponse = Value(0x40)
+   val StreamGetResponse = Value(0x42)
+   val KeyInvalidationEvent = Value(0x60)
+   val ClientEvents = Value(0x62)
    val ErrorResponse = Value(0x50)
 }
 
@@ -337,4 +480,5 @@ object ProtocolFlag extends Enumeration {
    val ForceReturnPreviousValue = Value(0x01)
    val DefaultLifespan = Value(0x02)
    val DefaultMaxIdle = Value(0x04)
+   val CompressedValues = Value(0x08)
 }
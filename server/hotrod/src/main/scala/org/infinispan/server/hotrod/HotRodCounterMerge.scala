@@ -0,0 +1,63 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.atomic.ValueMerge
+import org.infinispan.commons.marshall.AbstractExternalizer
+import java.io.{ObjectInput, ObjectOutput}
+import java.nio.charset.Charset
+import java.util.{Set => JavaSet}
+import scala.collection.JavaConversions.setAsJavaSet
+
+/**
+ * Adds a delta to a counter stored as the decimal representation of a signed 64 bit integer, so that it can also be
+ * read through the Memcached and REST endpoints. A missing counter is considered as zero, and a value which is not a
+ * counter is left unchanged.
+ *
+ * @since 6.0
+ */
+class HotRodCounterMerge(val delta: Long) extends ValueMerge[Array[Byte]] {
+
+   import HotRodCounterMerge._
+
+   override def merge(value: Array[Byte]): Array[Byte] = {
+      if (value == null) toBytes(delta)
+      else parse(value) match {
+         case Some(counter) => toBytes(counter + delta)
+         case None => value
+      }
+   }
+
+   override def toString = "HotRodCounterMerge{delta=" + delta + "}"
+
+}
+
+object HotRodCounterMerge {
+
+   private val Ascii = Charset.forName("US-ASCII")
+
+   /**
+    * Returns the counter stored in a value, if it is one.
+    */
+   def parse(value: Array[Byte]): Option[Long] = {
+      try {
+         Some(java.lang.Long.parseLong(new String(value, Ascii)))
+      } catch {
+         case e: NumberFormatException => None
+      }
+   }
+
+   private def toBytes(counter: Long): Array[Byte] = counter.toString.getBytes(Ascii)
+
+   class Externalizer extends AbstractExternalizer[HotRodCounterMerge] {
+
+      def writeObject(output: ObjectOutput, merge: HotRodCounterMerge) {
+         output.writeLong(merge.delta)
+      }
+
+      def readObject(input: ObjectInput): HotRodCounterMerge = new HotRodCounterMerge(input.readLong())
+
+      def getTypeClasses: JavaSet[Class[_ <: HotRodCounterMerge]] =
+         setAsJavaSet(Set[java.lang.Class[_ <: HotRodCounterMerge]](classOf[HotRodCounterMerge]))
+
+   }
+
+}
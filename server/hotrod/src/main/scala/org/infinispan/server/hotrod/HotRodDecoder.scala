@@ -12,6 +12,8 @@ import org.jboss.netty.buffer.ChannelBuffer
 import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
 import org.infinispan.container.entries.CacheEntry
+import org.infinispan.container.versioning.NumericVersion
+import org.infinispan.context.Flag.IGNORE_RETURN_VALUES
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
 
 /**
@@ -55,7 +57,7 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
 
       try {
          val decoder = version match {
-            case VERSION_10 | VERSION_11 | VERSION_12 | VERSION_13 => Decoder10
+            case VERSION_10 | VERSION_11 | VERSION_12 | VERSION_13 | VERSION_14 => Decoder10
             case _ => throw new UnknownVersionException(
                "Unknown version:" + version, version, messageId)
          }
@@ -114,7 +116,16 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
       b.readBytes(rawValue)
    }
 
-   override def createValue(): Array[Byte] = rawValue
+   override def createValue(): Array[Byte] =
+      if (ValueCompression.isRequested(header)) ValueCompression.decode(rawValue) else rawValue
+
+   override protected def writeResponse(ch: Channel, response: AnyRef): AnyRef = {
+      response match {
+         case r: Response if header != null && ValueCompression.isRequested(header) => r.compressedValues = true
+         case _ =>
+      }
+      super.writeResponse(ch, response)
+   }
 
    override def createSuccessResponse(prev: Array[Byte]): AnyRef =
       header.decoder.createSuccessResponse(header, prev)
@@ -131,11 +142,122 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override def createMultiGetResponse(pairs: Map[Array[Byte], CacheEntry]): AnyRef =
       null // Unsupported
 
-   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.AddInvalidationListenerRequest => {
+            // The listener writes the response itself, so that no invalidation is written before it
+            new KeyInvalidationListener(ch, header).register(cache)
+            writeResponse(ch, null)
+         }
+         case _ => writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+      }
+   }
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server.getQueryFacades))
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => {
+            // All the entries share the metadata built here, so they are written by a single command
+            val (parameters, entries) = header.decoder.readPutAllRequest(header, buffer)
+            params = parameters
+            if (!entries.isEmpty) getOptimizedCache(cache).putAll(entries, buildMetadata())
+            writeResponse(ch, new Response(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, OperationResponse.PutAllResponse, Success, header.topologyId))
+         }
+         case HotRodOperation.IterationStartRequest => {
+            val (segments, filterName, batchSize) = header.decoder.readIterationStartRequest(buffer)
+            val id = server.getIterationManager.start(cache, segments, filterName, batchSize)
+            writeResponse(ch, new IterationStartResponse(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, header.topologyId, id))
+         }
+         case HotRodOperation.IterationNextRequest => {
+            val id = header.decoder.readIterationId(buffer)
+            val response = server.getIterationManager.next(id) match {
+               case Some(entries) => new IterationNextResponse(header.version, header.messageId, header.cacheName,
+                     header.clientIntel, Success, header.topologyId, entries)
+               case None => new IterationNextResponse(header.version, header.messageId, header.cacheName,
+                     header.clientIntel, KeyDoesNotExist, header.topologyId, Seq.empty)
+            }
+            writeResponse(ch, response)
+         }
+         case HotRodOperation.IterationEndRequest => {
+            val id = header.decoder.readIterationId(buffer)
+            val status = if (server.getIterationManager.end(id)) Success else KeyDoesNotExist
+            writeResponse(ch, new Response(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, OperationResponse.IterationEndResponse, status, header.topologyId))
+         }
+         case HotRodOperation.CounterAddRequest => {
+            val (k, delta) = header.decoder.readCounterAddRequest(buffer)
+            params = new RequestParameters(-1, EXPIRATION_DEFAULT, EXPIRATION_DEFAULT, -1)
+            // Applied by the primary owner of the counter, so concurrent additions don't conflict
+            val value = cache.merge(k, new HotRodCounterMerge(delta), buildMetadata())
+            val response = HotRodCounterMerge.parse(value) match {
+               case Some(counter) => new CounterAddResponse(header.version, header.messageId, header.cacheName,
+                     header.clientIntel, Success, header.topologyId, counter)
+               case None => new CounterAddResponse(header.version, header.messageId, header.cacheName,
+                     header.clientIntel, OperationNotExecuted, header.topologyId, 0)
+            }
+            writeResponse(ch, response)
+         }
+         case HotRodOperation.AddClientListenerRequest => {
+            val params = header.decoder.readAddClientListenerRequest(buffer)
+            // The listener writes the response itself, so that no event is written before it
+            server.getClientListenerRegistry.addListener(ch, header, cache, params)
+            writeResponse(ch, null)
+         }
+         case HotRodOperation.ExecTaskRequest => {
+            val (taskName, parameter, keys) = header.decoder.readExecTaskRequest(buffer)
+            val results = server.getTaskRegistry.execute(cache, taskName, parameter, keys, server.getTaskExecutor,
+               cache.getCacheConfiguration.clustering.sync.replTimeout)
+            writeResponse(ch, new ExecTaskResponse(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, header.topologyId, results))
+         }
+         case HotRodOperation.StreamPutRequest => {
+            val chunk = header.decoder.readStreamPutRequest(header, buffer)
+            val streams = server.getStreamManager
+            val status =
+               if (!streams.append(chunk.streamId, chunk.key, chunk.offset, chunk.bytes)) {
+                  OperationNotExecuted
+               } else if (chunk.last) {
+                  streams.complete(chunk.streamId) match {
+                     case Some(v) => {
+                        params = chunk.params
+                        cache.withFlags(IGNORE_RETURN_VALUES).put(chunk.key, v, buildMetadata())
+                        Success
+                     }
+                     case None => OperationNotExecuted
+                  }
+               } else {
+                  Success
+               }
+            writeResponse(ch, new Response(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, OperationResponse.StreamPutResponse, status, header.topologyId))
+         }
+         case HotRodOperation.StreamGetRequest => {
+            val (k, offset, maxLength) = header.decoder.readStreamGetRequest(buffer)
+            val entry = cache.getCacheEntry(k)
+            val response =
+               if (entry == null) {
+                  new StreamGetResponse(header.version, header.messageId, header.cacheName, header.clientIntel,
+                        KeyDoesNotExist, header.topologyId, 0, 0, null)
+               } else {
+                  val v = entry.getValue.asInstanceOf[Array[Byte]]
+                  val version = entry.getMetadata.version().asInstanceOf[NumericVersion].getVersion
+                  val from = math.max(0, math.min(offset, v.length)).toInt
+                  val to = from + math.max(0, math.min(math.min(maxLength, StreamManager.MaxChunkLength), v.length - from))
+                  new StreamGetResponse(header.version, header.messageId, header.cacheName, header.clientIntel,
+                        Success, header.topologyId, version, v.length, java.util.Arrays.copyOfRange(v, from, to))
+               }
+            writeResponse(ch, response)
+         }
+         case HotRodOperation.RemoveClientListenerRequest => {
+            val id = header.decoder.readClientListenerId(buffer)
+            val status = if (server.getClientListenerRegistry.removeListener(id)) Success else KeyDoesNotExist
+            writeResponse(ch, new Response(header.version, header.messageId, header.cacheName,
+                  header.clientIntel, OperationResponse.RemoveClientListenerResponse, status, header.topologyId))
+         }
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache, server.getQueryFacades))
+      }
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
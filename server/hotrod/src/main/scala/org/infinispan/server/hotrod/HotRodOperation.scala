@@ -18,4 +18,17 @@ object HotRodOperation extends Enumeration(20) {
    val GetWithMetadataRequest = Value
    val BulkGetKeysRequest = Value
    val QueryRequest = Value
+   val AddInvalidationListenerRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
+   val RemoveAllRequest = Value
+   val IterationStartRequest = Value
+   val IterationNextRequest = Value
+   val IterationEndRequest = Value
+   val CounterAddRequest = Value
+   val AddClientListenerRequest = Value
+   val RemoveClientListenerRequest = Value
+   val ExecTaskRequest = Value
+   val StreamPutRequest = Value
+   val StreamGetRequest = Value
 }
@@ -14,6 +14,8 @@ import org.infinispan.context.Flag
 import org.infinispan.upgrade.RollingUpgradeManager
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
 import java.util.ServiceLoader
+import java.util.concurrent.{ThreadFactory, TimeUnit, LinkedBlockingQueue, ThreadPoolExecutor, ExecutorService}
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Hot Rod server, in charge of defining its encoder/decoder and, if clustered, update the topology information
@@ -36,9 +38,74 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private val knownCaches : java.util.Map[String, Cache[Array[Byte], Array[Byte]]] =
          CollectionFactory.makeConcurrentMap(4, 0.9f, 16)
    private var queryFacades: Seq[QueryFacade] = _
+   private val topologyPayloads: java.util.concurrent.ConcurrentMap[TopologyPayloadKey, TopologyPayload] =
+         CollectionFactory.makeConcurrentMap(4, 0.9f, 16)
+   private val iterationManager = new IterationManager
+   private val streamManager = new StreamManager
+   private val clientListenerRegistry = new ClientListenerRegistry
+   @volatile private var taskRegistry = new ServerTaskRegistry
+   private var taskExecutor: ExecutorService = _
 
    def getAddress: ServerAddress = address
 
+   /**
+    * Registers a filter which the clients can select by name when iterating the entries of a cache.
+    */
+   def addIterationFilter(name: String, filter: IterationFilter) {
+      iterationManager.addFilter(name, filter)
+   }
+
+   def removeIterationFilter(name: String) {
+      iterationManager.removeFilter(name)
+   }
+
+   def getIterationManager: IterationManager = iterationManager
+
+   def getStreamManager: StreamManager = streamManager
+
+   /**
+    * Registers a filter which the clients can select by name when adding a listener to a cache.
+    */
+   def addClientEventFilter(name: String, filter: ClientEventFilter) {
+      clientListenerRegistry.addFilter(name, filter)
+   }
+
+   def removeClientEventFilter(name: String) {
+      clientListenerRegistry.removeFilter(name)
+   }
+
+   /**
+    * Registers a converter which the clients can select by name when adding a listener to a cache.
+    */
+   def addClientEventConverter(name: String, converter: ClientEventConverter) {
+      clientListenerRegistry.addConverter(name, converter)
+   }
+
+   def removeClientEventConverter(name: String) {
+      clientListenerRegistry.removeConverter(name)
+   }
+
+   def getClientListenerRegistry: ClientListenerRegistry = clientListenerRegistry
+
+   /**
+    * Registers a task which the clients can run by name on the owners of some keys. The task must be registered on
+    * every server of the cluster.
+    */
+   def addTask(name: String, task: ServerTask) {
+      taskRegistry.addTask(name, task)
+   }
+
+   def removeTask(name: String) {
+      taskRegistry.removeTask(name)
+   }
+
+   def getTaskRegistry: ServerTaskRegistry = taskRegistry
+
+   /**
+    * Runs the parts of the tasks invoked through this server which are owned by this server.
+    */
+   def getTaskExecutor: ExecutorService = taskExecutor
+
    def getQueryFacades: Seq[QueryFacade] = queryFacades
 
    override def getEncoder = new HotRodEncoder(getCacheManager, this)
@@ -64,11 +131,50 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
       }
 
       queryFacades = loadQueryFacades()
+      shareTaskRegistry(cacheManager)
+      taskExecutor = createTaskExecutor()
+   }
+
+   private def createTaskExecutor(): ExecutorService = {
+      // A task only runs while a request thread waits for it, so there's no need for more threads than those
+      val threads = if (configuration.executorThreads > 0) configuration.executorThreads else configuration.workerThreads
+      val executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+         new LinkedBlockingQueue[Runnable](threads), new ThreadFactory {
+            private val count = new AtomicInteger
+            def newThread(r: Runnable): Thread = {
+               val thread = new Thread(r, "HotRod-ServerTask-" + count.incrementAndGet)
+               thread.setDaemon(true)
+               thread
+            }
+         })
+      executor.allowCoreThreadTimeOut(true)
+      executor
+   }
+
+   private def shareTaskRegistry(cacheManager: EmbeddedCacheManager) {
+      // The owners running a task look it up in the registry of their cache manager
+      val globalRegistry = cacheManager.getGlobalComponentRegistry
+      globalRegistry.synchronized {
+         val shared = globalRegistry.getComponent(classOf[ServerTaskRegistry])
+         if (shared == null) {
+            globalRegistry.registerComponent(taskRegistry, classOf[ServerTaskRegistry])
+         } else if (shared ne taskRegistry) {
+            shared.addTasks(taskRegistry)
+            taskRegistry = shared
+         }
+      }
    }
 
    private def loadQueryFacades(): Seq[QueryFacade] =
       ServiceLoader.load(classOf[QueryFacade]).toSeq
 
+   override def stop {
+      super.stop
+      if (taskExecutor != null)
+         taskExecutor.shutdownNow()
+      streamManager.stop()
+   }
+
    override def startTransport() {
       // Start predefined caches
       preStartCaches()
@@ -169,6 +275,8 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
 
    private[hotrod] def getAddressCache = addressCache
 
+   private[hotrod] def getTopologyPayloads = topologyPayloads
+
 }
 
 object HotRodServer {
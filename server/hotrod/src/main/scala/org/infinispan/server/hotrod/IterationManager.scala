@@ -0,0 +1,137 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import java.util.UUID
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import org.infinispan.AdvancedCache
+import org.infinispan.container.entries.InternalCacheEntry
+import org.infinispan.distribution.ch.ConsistentHash
+import collection.JavaConversions._
+import collection.mutable.ArrayBuffer
+
+/**
+ * Filters the entries returned by an iteration. Filters are registered on the server with
+ * [[org.infinispan.server.hotrod.HotRodServer.addIterationFilter]] and selected by name when the iteration starts.
+ *
+ * @since 6.0
+ */
+trait IterationFilter {
+
+   def accept(key: Array[Byte], value: Array[Byte]): Boolean
+
+}
+
+/**
+ * Keeps the iterations started by the clients, each iteration walking the entries stored in memory on this server,
+ * rather than in the whole cluster, so that the clients iterate the segments on their owners. An iteration only
+ * reads the entries of the batch requested, so neither the server nor the client ever hold more than a batch.
+ *
+ * Iterations are weakly consistent: the entries modified during an iteration may or may not be returned with their
+ * new value. An iteration which is neither ended nor read for [[org.infinispan.server.hotrod.IterationManager.IterationTimeoutMillis]]
+ * is dropped, as its client may have gone.
+ *
+ * @since 6.0
+ */
+class IterationManager extends Log {
+
+   import IterationManager._
+
+   private val iterations = new ConcurrentHashMap[String, Iteration]
+   private val filters = new ConcurrentHashMap[String, IterationFilter]
+
+   def addFilter(name: String, filter: IterationFilter) {
+      filters.put(name, filter)
+   }
+
+   def removeFilter(name: String) {
+      filters.remove(name)
+   }
+
+   /**
+    * Starts an iteration over the segments given, or over all the entries if there are none, and returns its id.
+    */
+   def start(cache: AdvancedCache[Array[Byte], Array[Byte]], segments: Option[Set[Int]], filterName: Option[String],
+           batchSize: Int): String = {
+      if (batchSize <= 0)
+         throw new IllegalArgumentException("Invalid batch size " + batchSize)
+      val filter = filterName.map(name => {
+         val f = filters.get(name)
+         if (f == null) throw new IllegalArgumentException("Unknown iteration filter " + name)
+         f
+      })
+      dropExpiredIterations()
+      val distributionManager = cache.getDistributionManager
+      // Without distribution every node holds every segment
+      val segmentFilter = if (distributionManager == null) None else segments
+      val id = UUID.randomUUID.toString
+      iterations.put(id, new Iteration(cache, distributionManager match {
+         case null => null
+         case dm => dm.getReadConsistentHash
+      }, segmentFilter, filter, batchSize))
+      if (isTraceEnabled) trace("Started iteration %s of cache %s on segments %s", id, cache.getName, segments)
+      id
+   }
+
+   /**
+    * @return the next batch of entries, empty when the iteration is over, or None if the iteration is unknown
+    */
+   def next(id: String): Option[Seq[(Array[Byte], Array[Byte])]] = {
+      val iteration = iterations.get(id)
+      if (iteration == null) None else Some(iteration.next())
+   }
+
+   /**
+    * @return whether the iteration existed
+    */
+   def end(id: String): Boolean = {
+      if (isTraceEnabled) trace("Ending iteration %s", id)
+      iterations.remove(id) != null
+   }
+
+   def getIterationCount: Int = iterations.size
+
+   private def dropExpiredIterations() {
+      val now = System.currentTimeMillis
+      for ((id, iteration) <- iterations) {
+         if (now - iteration.lastAccess > IterationTimeoutMillis) {
+            if (isTraceEnabled) trace("Dropping iteration %s, unused since %d", id, iteration.lastAccess)
+            iterations.remove(id, iteration)
+         }
+      }
+   }
+
+}
+
+object IterationManager {
+
+   /**
+    * How long an iteration can stay unused before being dropped
+    */
+   val IterationTimeoutMillis = TimeUnit.MINUTES.toMillis(5)
+
+}
+
+private class Iteration(cache: AdvancedCache[Array[Byte], Array[Byte]], ch: ConsistentHash,
+        segments: Option[Set[Int]], filter: Option[IterationFilter], batchSize: Int) {
+
+   private val entries = cache.getDataContainer.iterator
+   @volatile var lastAccess = System.currentTimeMillis
+
+   def next(): Seq[(Array[Byte], Array[Byte])] = synchronized {
+      lastAccess = System.currentTimeMillis
+      val batch = new ArrayBuffer[(Array[Byte], Array[Byte])](batchSize)
+      while (batch.size < batchSize && entries.hasNext) {
+         val entry = entries.next.asInstanceOf[InternalCacheEntry]
+         val key = entry.getKey.asInstanceOf[Array[Byte]]
+         val value = entry.getValue.asInstanceOf[Array[Byte]]
+         if (!entry.isExpired(lastAccess) && value != null && isInSegments(key)
+               && filter.forall(_.accept(key, value)))
+            batch += ((key, value))
+      }
+      batch
+   }
+
+   private def isInSegments(key: Array[Byte]): Boolean =
+      segments.forall(_.contains(ch.getSegment(key)))
+
+}
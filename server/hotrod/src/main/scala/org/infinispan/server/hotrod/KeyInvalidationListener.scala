@@ -0,0 +1,60 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import java.util.concurrent.CountDownLatch
+import org.infinispan.Cache
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.{CacheEntryRemovedEvent, CacheEntryModifiedEvent}
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
+import OperationResponse._
+import OperationStatus._
+
+/**
+ * Cache listener that tells a Hot Rod client which keys have been modified or removed, so that it can invalidate the
+ * values it keeps locally, e.g. in a near cache. Events are written to the client's channel with the message id of
+ * the registration request, and the listener is removed when the channel is closed.
+ *
+ * @since 6.0
+ */
+@Listener
+class KeyInvalidationListener(ch: Channel, h: HotRodHeader) extends Log {
+
+   // Opened once the response to the registration is written, the events raised in the meantime waiting for it
+   private val responseWritten = new CountDownLatch(1)
+
+   def register(cache: Cache[Array[Byte], Array[Byte]]) {
+      cache.addListener(this)
+      ch.getCloseFuture.addListener(new ChannelFutureListener {
+         def operationComplete(future: ChannelFuture) {
+            cache.removeListener(KeyInvalidationListener.this)
+         }
+      })
+      ch.write(new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+            AddInvalidationListenerResponse, Success, h.topologyId))
+      responseWritten.countDown()
+      trace("Registered invalidation listener for message id %d on %s", h.messageId, ch)
+   }
+
+   @CacheEntryModified
+   def entryModified(e: CacheEntryModifiedEvent[AnyRef, AnyRef]) {
+      if (!e.isPre) invalidate(e.getKey)
+   }
+
+   @CacheEntryRemoved
+   def entryRemoved(e: CacheEntryRemovedEvent[AnyRef, AnyRef]) {
+      // Clearing the cache only raises pre events
+      invalidate(e.getKey)
+   }
+
+   private def invalidate(key: AnyRef) {
+      key match {
+         case k: Array[Byte] => {
+            responseWritten.await()
+            if (ch.isOpen) ch.write(new KeyInvalidationEvent(h.version, h.messageId, h.cacheName, k))
+         }
+         case _ => // Not a key written by a Hot Rod client, e.g. in compatibility mode
+      }
+   }
+
+}
@@ -14,8 +14,10 @@ import org.infinispan.configuration.global.GlobalConfiguration
  */
 class LifecycleCallbacks extends AbstractModuleLifecycle {
 
-   override def cacheManagerStarting(gcr: GlobalComponentRegistry, globalCfg: GlobalConfiguration) =
-      globalCfg.serialization().advancedExternalizers().put(
-            SERVER_ADDRESS, new ServerAddress.Externalizer)
+   override def cacheManagerStarting(gcr: GlobalComponentRegistry, globalCfg: GlobalConfiguration) {
+      val externalizers = globalCfg.serialization().advancedExternalizers()
+      externalizers.put(SERVER_ADDRESS, new ServerAddress.Externalizer)
+      externalizers.put(HOTROD_COUNTER_MERGE, new HotRodCounterMerge.Externalizer)
+   }
 
 }
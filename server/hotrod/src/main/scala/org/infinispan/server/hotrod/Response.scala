@@ -15,6 +15,13 @@ import java.lang.StringBuilder
 class Response(val version: Byte, val messageId: Long, val cacheName: String,
       val clientIntel: Short, val operation: OperationResponse,
       val status: OperationStatus, val topologyId: Int) {
+
+   /**
+    * Whether the values of the response are sent in the format of [[org.infinispan.server.hotrod.ValueCompression]],
+    * because the client asked for it in its request
+    */
+   private[hotrod] var compressedValues = false
+
    override def toString = {
       new StringBuilder().append("Response").append("{")
          .append("version=").append(version)
@@ -58,6 +65,89 @@ class GetResponse(override val version: Byte, override val messageId: Long, over
          .append("}").toString
    }
 }
+class GetAllResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
+                     override val operation: OperationResponse, override val status: OperationStatus,
+                     override val topologyId: Int, val values: Array[Option[Array[Byte]]])
+      extends Response(version, messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetAllResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", count=").append(values.length)
+         .append("}").toString
+   }
+}
+
+class IterationStartResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                             override val clientIntel: Short, override val topologyId: Int, val iterationId: String)
+      extends Response(version, messageId, cacheName, clientIntel, OperationResponse.IterationStartResponse, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("IterationStartResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", iterationId=").append(iterationId)
+         .append("}").toString
+   }
+}
+
+class IterationNextResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                            override val clientIntel: Short, override val status: OperationStatus,
+                            override val topologyId: Int, val entries: Seq[(Array[Byte], Array[Byte])])
+      extends Response(version, messageId, cacheName, clientIntel, OperationResponse.IterationNextResponse, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("IterationNextResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", status=").append(status)
+         .append(", count=").append(entries.size)
+         .append("}").toString
+   }
+}
+
+class CounterAddResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                         override val clientIntel: Short, override val status: OperationStatus,
+                         override val topologyId: Int, val counter: Long)
+      extends Response(version, messageId, cacheName, clientIntel, OperationResponse.CounterAddResponse, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("CounterAddResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", status=").append(status)
+         .append(", counter=").append(counter)
+         .append("}").toString
+   }
+}
+
+class StreamGetResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                        override val clientIntel: Short, override val status: OperationStatus,
+                        override val topologyId: Int, val dataVersion: Long, val length: Long, val chunk: Array[Byte])
+      extends Response(version, messageId, cacheName, clientIntel, OperationResponse.StreamGetResponse, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("StreamGetResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", status=").append(status)
+         .append(", dataVersion=").append(dataVersion)
+         .append(", length=").append(length)
+         .append(", chunk=").append(if (chunk == null) 0 else chunk.length)
+         .append("}").toString
+   }
+}
+
+class ExecTaskResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                       override val clientIntel: Short, override val topologyId: Int, val results: Seq[Array[Byte]])
+      extends Response(version, messageId, cacheName, clientIntel, OperationResponse.ExecTaskResponse, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("ExecTaskResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", results=").append(results.size)
+         .append("}").toString
+   }
+}
+
 class BulkGetResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
                   override val operation: OperationResponse, override val status: OperationStatus,
                   override val topologyId: Int, val count: Int)
@@ -168,6 +258,37 @@ class QueryResponse(override val version: Byte, override val messageId: Long, ov
    }
 }
 
+/**
+ * Event sent to a client that registered an invalidation listener, with the message id of the registration request.
+ * It never carries topology updates, hence the basic client intelligence.
+ */
+class KeyInvalidationEvent(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                           val key: Array[Byte])
+      extends Response(version, messageId, cacheName, Constants.INTELLIGENCE_BASIC, KeyInvalidationEvent, Success, 0) {
+   override def toString = {
+      new StringBuilder().append("KeyInvalidationEvent").append("{")
+              .append("version=").append(version)
+              .append(", messageId=").append(messageId)
+              .append(", cacheName=").append(cacheName)
+              .append(", key=").append(Util.printArray(key, true))
+              .append("}").toString
+   }
+}
+
+class ClientEventsResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                           val eventsLost: Boolean, val events: Seq[ClientEvent])
+      extends Response(version, messageId, cacheName, Constants.INTELLIGENCE_BASIC, ClientEvents, Success, 0) {
+   override def toString = {
+      new StringBuilder().append("ClientEventsResponse").append("{")
+              .append("version=").append(version)
+              .append(", messageId=").append(messageId)
+              .append(", cacheName=").append(cacheName)
+              .append(", eventsLost=").append(eventsLost)
+              .append(", events=").append(events.size)
+              .append("}").toString
+   }
+}
+
 abstract class AbstractTopologyResponse(val topologyId: Int, val serverEndpointsMap : Map[Address, ServerAddress])
 
 abstract class AbstractHashDistAwareResponse(override val topologyId: Int,
@@ -185,6 +306,11 @@ case class HashDistAwareResponse(override val topologyId: Int,
                                  override val hashSpace: Int)
         extends AbstractHashDistAwareResponse(topologyId, serverEndpointsMap, numOwners, hashFunction, hashSpace)
 
+case class SegmentHashDistAwareResponse(override val topologyId: Int,
+                                        override val serverEndpointsMap : Map[Address, ServerAddress],
+                                        override val numOwners: Int, override val hashFunction: Byte)
+        extends AbstractHashDistAwareResponse(topologyId, serverEndpointsMap, numOwners, hashFunction, Integer.MAX_VALUE)
+
 case class HashDistAware11Response(override val topologyId: Int,
                                    override val serverEndpointsMap : Map[Address, ServerAddress],
                                    override val numOwners: Int, override val hashFunction: Byte,
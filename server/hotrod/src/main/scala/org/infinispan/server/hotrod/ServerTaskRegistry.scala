@@ -0,0 +1,141 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import java.util.concurrent.{TimeUnit, ExecutorService, ExecutionException, ConcurrentHashMap}
+import org.infinispan.{Cache, AdvancedCache}
+import org.infinispan.util.concurrent.TimeoutException
+import org.infinispan.context.Flag
+import org.infinispan.distexec.{DefaultExecutorService, DistributedCallable}
+import collection.JavaConversions._
+import org.infinispan.commons.equivalence.ByteArrayEquivalence
+import org.infinispan.commons.util.CollectionFactory
+
+/**
+ * A task the clients run on the servers by name, next to the data, so that reading an entry, transforming it and
+ * writing it back takes a single request instead of two round-trips racing with the other writers. Tasks are
+ * registered on every server with [[org.infinispan.server.hotrod.HotRodServer.addTask]].
+ *
+ * The entries written by a task should carry a version generated with
+ * [[org.infinispan.server.core.AbstractProtocolDecoder.generateVersion]], so that the versioned operations of the
+ * clients apply to them.
+ *
+ * @since 6.0
+ */
+trait ServerTask {
+
+   /**
+    * @param keys the keys the task has been invoked with which are owned by this server, empty if it has been
+    *             invoked without keys. The set compares the arrays by content, like the cache, so `contains` can be
+    *             called with a copy of a key and a key sent twice by the client is only given once.
+    * @param parameter the parameter sent by the client, marshalled by the client
+    * @return the result sent back to the client, which the client unmarshalls, or null
+    */
+   def execute(cache: AdvancedCache[Array[Byte], Array[Byte]], keys: java.util.Set[Array[Byte]],
+           parameter: Array[Byte]): Array[Byte]
+
+}
+
+/**
+ * Keeps the tasks the clients can run, and runs them with a [[org.infinispan.distexec.DefaultExecutorService]] on the
+ * primary owners of the keys given, each owner with the keys it owns. Only the name of the task, its parameter and
+ * the keys are sent to the owners, so the tasks must be registered on all the servers of the cluster.
+ *
+ * The registry is shared by the Hot Rod servers of a cache manager, as a component of the cache manager, so that the
+ * owners can look the tasks up.
+ *
+ * @since 6.0
+ */
+class ServerTaskRegistry extends Log {
+
+   private val tasks = new ConcurrentHashMap[String, ServerTask]
+
+   def addTask(name: String, task: ServerTask) {
+      tasks.put(name, task)
+   }
+
+   def removeTask(name: String) {
+      tasks.remove(name)
+   }
+
+   def getTask(name: String): ServerTask = tasks.get(name)
+
+   private[hotrod] def addTasks(other: ServerTaskRegistry) {
+      tasks.putAll(other.tasks)
+   }
+
+   /**
+    * Runs the task on the primary owner of each of the keys, or on this server if there are no keys or if the cache
+    * isn't clustered, and waits for the results.
+    *
+    * @param localExecutor runs the part of the task owned by this server
+    * @param timeout how long to wait for the owners, in milliseconds
+    * @return the result of each server the task ran on
+    * @throws TimeoutException if an owner hasn't answered in time
+    */
+   def execute(cache: AdvancedCache[Array[Byte], Array[Byte]], taskName: String, parameter: Array[Byte],
+           keys: Seq[Array[Byte]], localExecutor: ExecutorService, timeout: Long): Seq[Array[Byte]] = {
+      if (!tasks.containsKey(taskName))
+         throw new IllegalArgumentException("Unknown server task " + taskName)
+      val callable = new ServerTaskCallable(taskName, parameter)
+      if (keys.isEmpty || cache.getRpcManager == null) {
+         callable.setEnvironment(cache, new java.util.HashSet[Array[Byte]](keys))
+         Seq(callable.call())
+      } else {
+         if (isTraceEnabled) trace("Running server task %s on the owners of %d keys", taskName, keys.size)
+         val executor = new DefaultExecutorService(cache, localExecutor)
+         val task = executor.createDistributedTaskBuilder(callable).build()
+         val parts = executor.submitEverywhere(task, keys: _*)
+         val deadline = System.nanoTime + TimeUnit.MILLISECONDS.toNanos(timeout)
+         try {
+            parts.map(part => {
+               val remaining = deadline - System.nanoTime
+               try {
+                  part.get(math.max(0, remaining), TimeUnit.NANOSECONDS)
+               } catch {
+                  case e: java.util.concurrent.TimeoutException =>
+                     throw new TimeoutException("Timed out after %d ms waiting for the owners to run server task %s"
+                           .format(timeout, taskName), e)
+               }
+            })
+         } catch {
+            case e: Exception =>
+               // Don't leave the other parts running for a response which won't be sent
+               parts.foreach(_.cancel(true))
+               e match {
+                  case ee: ExecutionException => ee.getCause match {
+                     case cause: Exception => throw cause
+                     case _ => throw ee
+                  }
+                  case _ => throw e
+               }
+         }
+      }
+   }
+
+}
+
+/**
+ * Runs a task on the server it is sent to, looking the task up by name.
+ */
+private class ServerTaskCallable(taskName: String, parameter: Array[Byte])
+        extends DistributedCallable[Array[Byte], Array[Byte], Array[Byte]] with Serializable {
+
+   @transient private var cache: Cache[Array[Byte], Array[Byte]] = _
+   @transient private var keys: java.util.Set[Array[Byte]] = _
+
+   def setEnvironment(cache: Cache[Array[Byte], Array[Byte]], inputKeys: java.util.Set[Array[Byte]]) {
+      this.cache = cache
+      // The arrays must be compared by content, not by identity
+      this.keys = CollectionFactory.makeSet(ByteArrayEquivalence.INSTANCE)
+      this.keys.addAll(inputKeys)
+   }
+
+   def call(): Array[Byte] = {
+      val registry = cache.getCacheManager.getGlobalComponentRegistry.getComponent(classOf[ServerTaskRegistry])
+      val task = if (registry == null) null else registry.getTask(taskName)
+      if (task == null)
+         throw new IllegalStateException("Server task " + taskName + " isn't registered on " + cache.getCacheManager.getAddress)
+      task.execute(cache.getAdvancedCache.withFlags(Flag.OPERATION_HOTROD), keys, parameter)
+   }
+
+}
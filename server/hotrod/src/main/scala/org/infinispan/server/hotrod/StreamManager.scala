@@ -0,0 +1,197 @@
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.infinispan.server.core.RequestParameters
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import java.util.concurrent.atomic.AtomicLong
+import collection.JavaConversions._
+import collection.mutable.ArrayBuffer
+
+/**
+ * A chunk of a value streamed by a client, along with the key and the expiration parameters of the value.
+ *
+ * @since 6.0
+ */
+class StreamChunk(val key: Array[Byte], val params: RequestParameters, val streamId: String, val offset: Long,
+        val last: Boolean, val bytes: Array[Byte])
+
+/**
+ * Keeps the values streamed by the clients until their last chunk is received, so that each chunk is sent with its
+ * own request and a value is stored as a single entry once complete, rather than as one entry per chunk. A stream
+ * is started by its first chunk and must be continued on the same server, each chunk starting where the previous one
+ * ended.
+ *
+ * A stream which doesn't receive any chunk for [[org.infinispan.server.hotrod.StreamManager.StreamTimeoutMillis]]
+ * is dropped, as its client may have gone. The number of pending streams and the bytes they hold are bounded, so that
+ * abandoned streams or misbehaving clients can't exhaust the memory of the server: a stream isn't started beyond
+ * `maxStreams` streams, and a stream whose chunk would exceed `maxBufferedBytes` for all the streams is dropped.
+ *
+ * @since 6.0
+ */
+class StreamManager(maxStreams: Int, maxBufferedBytes: Long) extends Log {
+
+   import StreamManager._
+
+   private val streams = new ConcurrentHashMap[String, PendingStream]
+   private val bufferedBytes = new AtomicLong
+
+   def this() = this(StreamManager.MaxStreams, StreamManager.MaxBufferedBytes)
+
+   /**
+    * Appends a chunk to a stream, starting it if the chunk is the first one.
+    *
+    * @return false if the stream is unknown, e.g. dropped or started on another server, if the chunk doesn't start
+    *         where the previous one ended, or if the limits of the pending streams are reached
+    */
+   def append(id: String, key: Array[Byte], offset: Long, chunk: Array[Byte]): Boolean = {
+      if (offset == 0) {
+         dropExpiredStreams()
+         if (streams.size >= maxStreams && !streams.containsKey(id)) {
+            if (isTraceEnabled) trace("Not starting stream %s, %d streams are pending", id, streams.size)
+            false
+         } else if (!reserve(chunk.length)) {
+            if (isTraceEnabled) trace("Not starting stream %s, %d bytes are buffered", id, bufferedBytes.get)
+            false
+         } else {
+            val stream = new PendingStream(key)
+            stream.append(chunk)
+            if (isTraceEnabled) trace("Started stream %s", id)
+            // A retried first chunk restarts the stream
+            val previous = streams.put(id, stream)
+            if (previous != null) release(previous)
+            true
+         }
+      } else {
+         val stream = streams.get(id)
+         if (stream == null) {
+            false
+         } else if (!reserve(chunk.length)) {
+            if (isTraceEnabled) trace("Dropping stream %s, %d bytes are buffered", id, bufferedBytes.get)
+            if (streams.remove(id, stream)) release(stream)
+            false
+         } else if (!stream.append(key, offset, chunk)) {
+            bufferedBytes.addAndGet(-chunk.length)
+            false
+         } else {
+            true
+         }
+      }
+   }
+
+   /**
+    * Ends a stream.
+    *
+    * @return the value made of all the chunks of the stream, or None if the stream is unknown
+    */
+   def complete(id: String): Option[Array[Byte]] = {
+      if (isTraceEnabled) trace("Completing stream %s", id)
+      val stream = streams.remove(id)
+      if (stream == null) {
+         None
+      } else {
+         release(stream)
+         Some(stream.value())
+      }
+   }
+
+   def getStreamCount: Int = streams.size
+
+   def getBufferedBytes: Long = bufferedBytes.get
+
+   def stop() {
+      streams.clear()
+      bufferedBytes.set(0)
+   }
+
+   private def reserve(length: Int): Boolean = {
+      var buffered = bufferedBytes.get
+      while (buffered + length <= maxBufferedBytes) {
+         if (bufferedBytes.compareAndSet(buffered, buffered + length)) return true
+         buffered = bufferedBytes.get
+      }
+      false
+   }
+
+   private def release(stream: PendingStream) {
+      bufferedBytes.addAndGet(-stream.close())
+   }
+
+   private def dropExpiredStreams() {
+      val now = System.currentTimeMillis
+      for ((id, stream) <- streams) {
+         if (now - stream.lastAccess > StreamTimeoutMillis) {
+            if (isTraceEnabled) trace("Dropping stream %s, unused since %d", id, stream.lastAccess)
+            if (streams.remove(id, stream)) release(stream)
+         }
+      }
+   }
+
+}
+
+object StreamManager {
+
+   /**
+    * How long a stream can stay without receiving any chunk before being dropped
+    */
+   val StreamTimeoutMillis = TimeUnit.MINUTES.toMillis(5)
+
+   /**
+    * The largest chunk of a value sent to a client reading it, whatever the client asks for
+    */
+   val MaxChunkLength = 1024 * 1024
+
+   /**
+    * The default maximum number of pending streams
+    */
+   val MaxStreams = 1024
+
+   /**
+    * The default maximum number of bytes held by all the pending streams
+    */
+   val MaxBufferedBytes = 256L * 1024 * 1024
+
+}
+
+private class PendingStream(val key: Array[Byte]) {
+
+   private val chunks = new ArrayBuffer[Array[Byte]]
+   private var length = 0L
+   private var closed = false
+   @volatile var lastAccess = System.currentTimeMillis
+
+   def append(chunk: Array[Byte]) {
+      chunks += chunk
+      length += chunk.length
+   }
+
+   def append(k: Array[Byte], offset: Long, chunk: Array[Byte]): Boolean = synchronized {
+      lastAccess = System.currentTimeMillis
+      if (closed || offset != length || length + chunk.length > Int.MaxValue || !java.util.Arrays.equals(k, key)) {
+         false
+      } else {
+         append(chunk)
+         true
+      }
+   }
+
+   /**
+    * Stops accepting chunks.
+    *
+    * @return the number of bytes held by the stream
+    */
+   def close(): Long = synchronized {
+      closed = true
+      length
+   }
+
+   def value(): Array[Byte] = synchronized {
+      val value = new Array[Byte](length.toInt)
+      var pos = 0
+      for (chunk <- chunks) {
+         System.arraycopy(chunk, 0, value, pos, chunk.length)
+         pos += chunk.length
+      }
+      value
+   }
+
+}
@@ -0,0 +1,113 @@
+package org.infinispan.server.hotrod
+
+import java.io.ByteArrayOutputStream
+import java.util.zip.{DataFormatException, Inflater, Deflater}
+
+/**
+ * Compression of the values exchanged with the clients asking for it with the
+ * [[org.infinispan.server.hotrod.ProtocolFlag.CompressedValues]] flag of their request headers. Every value of such
+ * a request and of its response is prefixed with a byte telling whether it is compressed, in which case it is
+ * followed by its length once decompressed and by the bytes compressed with deflate.
+ *
+ * The values are only compressed on the wire: they are stored decompressed, so that the other clients and the other
+ * endpoints read the same bytes whether compression is used or not.
+ *
+ * @since 6.0
+ */
+object ValueCompression {
+
+   val Raw: Byte = 0
+   val Deflated: Byte = 1
+
+   /**
+    * The size from which the values sent to the clients are compressed
+    */
+   val Threshold = 1024
+
+   /**
+    * The deflate level, favouring speed since the values are compressed again for every response
+    */
+   val Level = 1
+
+   def isRequested(h: HotRodHeader): Boolean =
+      (h.flag & ProtocolFlag.CompressedValues.id) == ProtocolFlag.CompressedValues.id
+
+   /**
+    * @return the value in the wire format, compressed if it is large enough and compresses well
+    */
+   def encode(value: Array[Byte]): Array[Byte] = {
+      if (value.length >= Threshold) {
+         val compressed = deflate(value)
+         if (compressed != null) return compressed
+      }
+      val raw = new Array[Byte](value.length + 1)
+      raw(0) = Raw
+      System.arraycopy(value, 0, raw, 1, value.length)
+      raw
+   }
+
+   /**
+    * @return the value read from the wire format
+    */
+   def decode(bytes: Array[Byte]): Array[Byte] = {
+      if (bytes.length == 0)
+         throw new IllegalArgumentException("Empty value, it should start with its format")
+      bytes(0) match {
+         case Raw => java.util.Arrays.copyOfRange(bytes, 1, bytes.length)
+         case Deflated => inflate(bytes)
+         case format => throw new IllegalArgumentException("Unknown value format " + format)
+      }
+   }
+
+   // Returns null if the compressed value isn't smaller
+   private def deflate(value: Array[Byte]): Array[Byte] = {
+      val deflater = new Deflater(Level)
+      try {
+         deflater.setInput(value)
+         deflater.finish()
+         val out = new ByteArrayOutputStream(value.length / 2 + 16)
+         out.write(Deflated)
+         writeInt(out, value.length)
+         val buffer = new Array[Byte](math.min(value.length, 8192))
+         while (!deflater.finished) {
+            out.write(buffer, 0, deflater.deflate(buffer))
+            if (out.size >= value.length) return null
+         }
+         out.toByteArray
+      } finally {
+         deflater.end()
+      }
+   }
+
+   private def inflate(bytes: Array[Byte]): Array[Byte] = {
+      if (bytes.length < 5) throw new IllegalArgumentException("Truncated compressed value")
+      val length = ((bytes(1) & 0xFF) << 24) | ((bytes(2) & 0xFF) << 16) | ((bytes(3) & 0xFF) << 8) | (bytes(4) & 0xFF)
+      if (length < 0) throw new IllegalArgumentException("Invalid compressed value length " + length)
+      val inflater = new Inflater
+      try {
+         inflater.setInput(bytes, 5, bytes.length - 5)
+         // The length is sent by the client, so the value grows with the data actually inflated
+         val out = new ByteArrayOutputStream(math.min(length, bytes.length * 4))
+         val buffer = new Array[Byte](math.min(math.max(length, 1), 8192))
+         while (out.size < length) {
+            val n = inflater.inflate(buffer, 0, math.min(buffer.length, length - out.size))
+            if (n == 0 && (inflater.finished || inflater.needsInput || inflater.needsDictionary))
+               throw new IllegalArgumentException("Truncated compressed value")
+            out.write(buffer, 0, n)
+         }
+         out.toByteArray
+      } catch {
+         case e: DataFormatException => throw new IllegalArgumentException("Corrupted compressed value", e)
+      } finally {
+         inflater.end()
+      }
+   }
+
+   private def writeInt(out: ByteArrayOutputStream, i: Int) {
+      out.write(i >>> 24)
+      out.write(i >>> 16)
+      out.write(i >>> 8)
+      out.write(i)
+   }
+
+}
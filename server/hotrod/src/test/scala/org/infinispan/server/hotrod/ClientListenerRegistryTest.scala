@@ -0,0 +1,195 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.Cache
+import org.infinispan.metadata.EmbeddedMetadata
+import org.infinispan.container.versioning.NumericVersion
+import org.jboss.netty.channel.{DefaultChannelFuture, ChannelFuture, Channel}
+import org.mockito.Mockito._
+import org.mockito.Matchers._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import java.util.concurrent.CopyOnWriteArrayList
+import test.HotRodTestingUtil._
+import org.testng.annotations.Test
+import org.testng.Assert._
+import OperationStatus._
+
+/**
+ * Tests the listeners the clients add through the Hot Rod server.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.ClientListenerRegistryTest")
+class ClientListenerRegistryTest extends SingleCacheManagerTest {
+
+   override def createCacheManager: EmbeddedCacheManager =
+      TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration())
+
+   def testEventsWrittenAfterResponse() {
+      val registry = new ClientListenerRegistry
+      val ch = new RecordingChannel
+      registry.addListener(ch.channel, header(1), byteCache, params("l1", includeValue = true))
+      byteCache.getAdvancedCache.put(Array[Byte](1), Array[Byte](10), versioned(5))
+
+      // No event is written before the response
+      Thread.sleep(100)
+      assertEquals(ch.writes.size, 1)
+      assertEquals(ch.writes.get(0)._1.asInstanceOf[Response].status, Success)
+      ch.complete(0)
+
+      val events = ch.eventsAt(1)
+      assertEquals(events.events.size, 1)
+      val event = events.events.head
+      assertEquals(event.eventType, ClientListenerRegistry.EventCreated)
+      assertEquals(event.key.toSeq, Seq[Byte](1))
+      assertEquals(event.dataVersion, 5)
+      assertEquals(event.value.get.toSeq, Seq[Byte](10))
+      assertEquals(events.messageId, 1)
+      ch.complete(1)
+
+      byteCache.getAdvancedCache.put(Array[Byte](1), Array[Byte](11), versioned(6))
+      byteCache.remove(Array[Byte](1))
+      assertEquals(ch.eventsAt(2).events.head.eventType, ClientListenerRegistry.EventModified)
+      ch.complete(2)
+      val removed = ch.eventsAt(3).events.head
+      assertEquals(removed.eventType, ClientListenerRegistry.EventRemoved)
+      assertEquals(removed.value, None)
+      assertTrue(registry.removeListener("l1"))
+   }
+
+   def testEventsBatchedWhileWriting() {
+      val registry = new ClientListenerRegistry
+      val ch = new RecordingChannel
+      registry.addListener(ch.channel, header(1), byteCache, params("l2"))
+      for (i <- 0 until 10) byteCache.put(Array(i.toByte), Array(i.toByte))
+      Thread.sleep(100)
+      ch.complete(0)
+      var received = 0
+      var i = 1
+      while (received < 10) {
+         val events = ch.eventsAt(i)
+         assertTrue(events.events.forall(_.value == None))
+         received += events.events.size
+         ch.complete(i)
+         i += 1
+      }
+      assertEquals(received, 10)
+      assertTrue(i < 11, "Events were not batched")
+      registry.removeListener("l2")
+   }
+
+   def testFilterAndConverter() {
+      val registry = new ClientListenerRegistry
+      registry.addFilter("even", new ClientEventFilter {
+         def accept(key: Array[Byte], value: Array[Byte]) = key(0) % 2 == 0
+      })
+      registry.addConverter("first", new ClientEventConverter {
+         def convert(key: Array[Byte], value: Array[Byte]) = value.take(1)
+      })
+      val ch = new RecordingChannel
+      registry.addListener(ch.channel, header(1), byteCache,
+         new ClientListenerParams("l3", Some("even"), Some("first"), true, false))
+      ch.complete(0)
+      byteCache.put(Array[Byte](3), Array[Byte](3, 3))
+      byteCache.put(Array[Byte](4), Array[Byte](4, 4))
+      val event = ch.eventsAt(1).events.head
+      assertEquals(event.key.toSeq, Seq[Byte](4))
+      assertEquals(event.value.get.toSeq, Seq[Byte](4))
+      registry.removeListener("l3")
+   }
+
+   def testResumeAfterConnectionLost() {
+      val registry = new ClientListenerRegistry
+      val ch = new RecordingChannel
+      registry.addListener(ch.channel, header(1), byteCache, params("l4"))
+      ch.complete(0)
+      ch.close()
+      byteCache.put(Array[Byte](5), Array[Byte](5))
+      Thread.sleep(100)
+      assertEquals(ch.writes.size, 1)
+
+      // The events raised while the connection was lost are written to the new one
+      val resumed = new RecordingChannel
+      registry.addListener(resumed.channel, header(2), byteCache, new ClientListenerParams("l4", None, None, false, true))
+      assertEquals(resumed.writes.get(0)._1.asInstanceOf[Response].status, Success)
+      resumed.complete(0)
+      val events = resumed.eventsAt(1)
+      assertEquals(events.messageId, 2)
+      assertEquals(events.events.head.key.toSeq, Seq[Byte](5))
+      assertFalse(events.eventsLost)
+      assertEquals(registry.getListenerCount, 1)
+      registry.removeListener("l4")
+   }
+
+   def testResumeUnknownListener() {
+      val registry = new ClientListenerRegistry
+      val ch = new RecordingChannel
+      registry.addListener(ch.channel, header(1), byteCache, new ClientListenerParams("l5", None, None, false, true))
+      assertEquals(ch.writes.get(0)._1.asInstanceOf[Response].status, KeyDoesNotExist)
+      assertEquals(registry.getListenerCount, 1)
+      assertTrue(registry.removeListener("l5"))
+      assertFalse(registry.removeListener("l5"))
+   }
+
+   @Test(expectedExceptions = Array(classOf[IllegalArgumentException]))
+   def testUnknownFilter() {
+      new ClientListenerRegistry().addListener(new RecordingChannel().channel, header(1), byteCache,
+         new ClientListenerParams("l6", Some("unknown"), None, false, false))
+   }
+
+   private def byteCache: Cache[Array[Byte], Array[Byte]] = cacheManager.getCache[Array[Byte], Array[Byte]]()
+
+   private def versioned(version: Long) =
+      new EmbeddedMetadata.Builder().version(new NumericVersion(version)).build()
+
+   private def params(id: String, includeValue: Boolean = false) =
+      new ClientListenerParams(id, None, None, includeValue, false)
+
+   private def header(messageId: Long): HotRodHeader = {
+      val h = new HotRodHeader
+      h.version = Constants.VERSION_14
+      h.messageId = messageId
+      h.cacheName = ""
+      h.clientIntel = Constants.INTELLIGENCE_BASIC
+      h
+   }
+
+   /**
+    * A channel recording the messages written, whose writes only complete when told to.
+    */
+   private class RecordingChannel {
+
+      val channel = mock(classOf[Channel])
+      val writes = new CopyOnWriteArrayList[(AnyRef, DefaultChannelFuture)]
+      private val closeFuture = new DefaultChannelFuture(channel, false)
+
+      when(channel.getCloseFuture).thenReturn(closeFuture)
+      when(channel.write(any[AnyRef])).thenAnswer(new Answer[ChannelFuture] {
+         def answer(invocation: InvocationOnMock): ChannelFuture = {
+            val future = new DefaultChannelFuture(channel, false)
+            writes.add((invocation.getArguments()(0), future))
+            future
+         }
+      })
+
+      def complete(i: Int) {
+         writes.get(i)._2.setSuccess()
+      }
+
+      def close() {
+         closeFuture.setSuccess()
+      }
+
+      def eventsAt(i: Int): ClientEventsResponse = {
+         // The events are raised asynchronously
+         val deadline = System.currentTimeMillis + 10000
+         while (writes.size <= i && System.currentTimeMillis < deadline) Thread.sleep(10)
+         writes.get(i)._1.asInstanceOf[ClientEventsResponse]
+      }
+
+   }
+
+}
@@ -0,0 +1,51 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import org.jboss.netty.buffer.ChannelBuffers
+import org.testng.annotations.Test
+import org.testng.Assert._
+
+/**
+ * Tests the reading of the requests whose size is given by the client.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("unit"), testName = "server.hotrod.Decoder10Test")
+class Decoder10Test {
+
+   def testKeysRead() {
+      val buffer = ChannelBuffers.dynamicBuffer
+      writeString("task", buffer)
+      writeRangedBytes(Array[Byte](9), buffer)
+      writeUnsignedInt(2, buffer)
+      writeRangedBytes(Array[Byte](1), buffer)
+      writeRangedBytes(Array[Byte](2), buffer)
+      val (taskName, parameter, keys) = Decoder10.readExecTaskRequest(buffer)
+      assertEquals(taskName, "task")
+      assertEquals(parameter, Array[Byte](9))
+      assertEquals(keys.map(_.toSeq), Seq(Seq[Byte](1), Seq[Byte](2)))
+   }
+
+   @Test(expectedExceptions = Array(classOf[IndexOutOfBoundsException]))
+   def testHugeKeyCountNotAllocated() {
+      val buffer = ChannelBuffers.dynamicBuffer
+      writeString("task", buffer)
+      writeRangedBytes(Array[Byte](9), buffer)
+      writeUnsignedInt(Int.MaxValue, buffer)
+      writeRangedBytes(Array[Byte](1), buffer)
+      // Runs out of bytes rather than allocating an array for the count announced
+      Decoder10.readExecTaskRequest(buffer)
+   }
+
+   @Test(expectedExceptions = Array(classOf[IndexOutOfBoundsException]))
+   def testHugeEntryCountNotAllocated() {
+      val buffer = ChannelBuffers.dynamicBuffer
+      writeUnsignedInt(0, buffer)
+      writeUnsignedInt(0, buffer)
+      writeUnsignedInt(Int.MaxValue, buffer)
+      writeRangedBytes(Array[Byte](1), buffer)
+      writeRangedBytes(Array[Byte](2), buffer)
+      Decoder10.readPutAllRequest(new HotRodHeader, buffer)
+   }
+
+}
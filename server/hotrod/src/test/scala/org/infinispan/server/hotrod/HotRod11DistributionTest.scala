@@ -102,5 +102,22 @@ class HotRod11DistributionTest extends HotRodMultiNodeTest {
       assertSuccess(client1.get(k(m), 0), v(m, "v8-"))
    }
 
+   def testTopologyUpdateEncodedOnce(m: Method) {
+      val client = clients.head
+      val server = servers.head
+      server.getTopologyPayloads.clear()
+
+      val resp1 = client.ping(INTELLIGENCE_HASH_DISTRIBUTION_AWARE, 0)
+      assertStatus(resp1, Success)
+      val key = TopologyPayloadKey(cacheName, protocolVersion, INTELLIGENCE_HASH_DISTRIBUTION_AWARE)
+      val payload = server.getTopologyPayloads.get(key)
+      assertEquals(payload.topologyId, currentServerTopologyId)
+
+      val resp2 = client.ping(INTELLIGENCE_HASH_DISTRIBUTION_AWARE, 0)
+      assertStatus(resp2, Success)
+      assertSame(server.getTopologyPayloads.get(key), payload)
+      assertEquals(resp2.topologyResponse, resp1.topologyResponse)
+      assertHashTopologyReceived(resp2.topologyResponse.get, servers, cacheName, 2, virtualNodes, currentServerTopologyId)
+   }
 
-}
\ No newline at end of file
+}
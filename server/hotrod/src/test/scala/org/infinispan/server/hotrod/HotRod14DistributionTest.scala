@@ -0,0 +1,17 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+
+/**
+ * Tests Hot Rod distribution mode using Hot Rod's 1.4 protocol, which sends the owners of each segment.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRod14DistributionTest")
+class HotRod14DistributionTest extends HotRod11DistributionTest {
+
+   override protected def cacheName = "distributedVersion14"
+
+   override protected def protocolVersion : Byte = 14
+
+}
@@ -0,0 +1,23 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import test.HotRodTestingUtil._
+import test.AbstractTestTopologyAwareResponse
+
+/**
+ * Test Hot Rod protocol version 1.4 with replicated caches, which get no segment owners.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRod14ReplicationTest")
+class HotRod14ReplicationTest extends HotRodReplicationTest {
+
+   override protected def protocolVersion: Byte = 14
+
+   @Test(enabled = false)
+   override protected def checkTopologyReceived(topoResp: AbstractTestTopologyAwareResponse,
+           servers: List[HotRodServer], cacheName: String) {
+      assertHashTopologyReceived(topoResp, servers, cacheName, 0, 0, currentServerTopologyId)
+   }
+
+}
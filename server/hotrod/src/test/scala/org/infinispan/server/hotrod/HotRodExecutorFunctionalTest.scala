@@ -0,0 +1,50 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import org.testng.Assert._
+import java.lang.reflect.Method
+import test.HotRodTestingUtil._
+import org.infinispan.server.hotrod.test._
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent
+
+/**
+ * Hot Rod server functional test, with the requests executed by executor threads rather than by the worker threads.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodExecutorFunctionalTest")
+class HotRodExecutorFunctionalTest extends HotRodFunctionalTest {
+
+   override protected def createStartHotRodServer(cacheManager: EmbeddedCacheManager) = {
+      val builder = new HotRodServerConfigurationBuilder
+      builder.proxyHost(host).proxyPort(UniquePortThreadLocal.get.intValue).idleTimeout(0)
+            .executorThreads(2).executorMaxConnectionMemory(1024)
+      startHotRodServer(cacheManager, UniquePortThreadLocal.get.intValue, 0, builder)
+   }
+
+   def testExecutedByExecutorThread(m: Method) {
+      val listener = new ThreadRecordingListener
+      cacheManager.getCache(cacheName).addListener(listener)
+      try {
+         client.assertPut(m)
+         assertTrue(listener.threadName.contains("ServerExecutor"), listener.threadName)
+      } finally {
+         cacheManager.getCache(cacheName).removeListener(listener)
+      }
+   }
+
+   @Listener
+   class ThreadRecordingListener {
+      @volatile var threadName: String = _
+
+      @CacheEntryCreated
+      def entryCreated(e: CacheEntryCreatedEvent[AnyRef, AnyRef]) {
+         if (!e.isPre) threadName = Thread.currentThread.getName
+      }
+   }
+
+}
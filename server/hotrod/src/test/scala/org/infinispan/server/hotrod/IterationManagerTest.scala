@@ -0,0 +1,64 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.AdvancedCache
+import test.HotRodTestingUtil._
+import org.testng.annotations.Test
+import org.testng.Assert._
+
+/**
+ * Tests the iterations kept by the Hot Rod server.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.IterationManagerTest")
+class IterationManagerTest extends SingleCacheManagerTest {
+
+   private val NumEntries = 25
+
+   override def createCacheManager: EmbeddedCacheManager =
+      TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration())
+
+   def testIterateInBatches() {
+      val manager = new IterationManager
+      val id = manager.start(populatedCache, None, None, 10)
+      assertEquals(manager.next(id).get.size, 10)
+      assertEquals(manager.next(id).get.size, 10)
+      assertEquals(manager.next(id).get.size, 5)
+      assertTrue(manager.next(id).get.isEmpty)
+      assertTrue(manager.end(id))
+      assertEquals(manager.getIterationCount, 0)
+   }
+
+   def testFilter() {
+      val manager = new IterationManager
+      manager.addFilter("even", new IterationFilter {
+         def accept(key: Array[Byte], value: Array[Byte]) = value(0) % 2 == 0
+      })
+      val id = manager.start(populatedCache, None, Some("even"), 100)
+      val entries = manager.next(id).get
+      assertEquals(entries.size, 13)
+      assertTrue(entries.forall(_._2(0) % 2 == 0))
+      manager.end(id)
+   }
+
+   def testUnknownIteration() {
+      val manager = new IterationManager
+      assertEquals(manager.next("unknown"), None)
+      assertFalse(manager.end("unknown"))
+   }
+
+   @Test(expectedExceptions = Array(classOf[IllegalArgumentException]))
+   def testUnknownFilter() {
+      new IterationManager().start(populatedCache, None, Some("unknown"), 10)
+   }
+
+   private def populatedCache: AdvancedCache[Array[Byte], Array[Byte]] = {
+      val c = cacheManager.getCache[Array[Byte], Array[Byte]]().getAdvancedCache
+      for (i <- 0 until NumEntries) c.put(Array(i.toByte), Array(i.toByte))
+      c
+   }
+
+}
@@ -0,0 +1,98 @@
+package org.infinispan.server.hotrod
+
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.AdvancedCache
+import test.HotRodTestingUtil._
+import org.testng.annotations.{AfterClass, Test}
+import org.testng.Assert._
+import collection.JavaConversions._
+import java.util.concurrent.Executors
+
+/**
+ * Tests running the tasks registered on the Hot Rod server.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.ServerTaskRegistryTest")
+class ServerTaskRegistryTest extends SingleCacheManagerTest {
+
+   private val executor = Executors.newSingleThreadExecutor
+
+   override def createCacheManager: EmbeddedCacheManager =
+      TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration())
+
+   def testTaskRunWithKeys() {
+      val registry = registeredRegistry()
+      registry.addTask("increment", new ServerTask {
+         def execute(cache: AdvancedCache[Array[Byte], Array[Byte]], keys: java.util.Set[Array[Byte]],
+                 parameter: Array[Byte]): Array[Byte] = {
+            for (key <- keys) {
+               val value = cache.get(key)
+               cache.put(key, Array((if (value == null) 0 else value(0) + parameter(0)).toByte))
+            }
+            Array(keys.size.toByte)
+         }
+      })
+      byteCache.put(Array[Byte](1), Array[Byte](10))
+      val results = registry.execute(byteCache, "increment", Array[Byte](5), Seq(Array[Byte](1), Array[Byte](2)),
+         executor, 1000)
+      assertEquals(results.size, 1)
+      assertEquals(results.head.toSeq, Seq[Byte](2))
+      assertEquals(byteCache.get(Array[Byte](1)).toSeq, Seq[Byte](15))
+      assertEquals(byteCache.get(Array[Byte](2)).toSeq, Seq[Byte](0))
+   }
+
+   def testKeysComparedByContent() {
+      val registry = registeredRegistry()
+      registry.addTask("contains", new ServerTask {
+         def execute(cache: AdvancedCache[Array[Byte], Array[Byte]], keys: java.util.Set[Array[Byte]],
+                 parameter: Array[Byte]): Array[Byte] = {
+            Array(keys.size.toByte, (if (keys.contains(Array[Byte](3))) 1 else 0).toByte)
+         }
+      })
+      // the same key sent twice, as different arrays
+      val results = registry.execute(byteCache, "contains", Array[Byte](), Seq(Array[Byte](3), Array[Byte](3)),
+         executor, 1000)
+      assertEquals(results.map(_.toSeq), Seq(Seq[Byte](1, 1)))
+   }
+
+   def testTaskRunWithoutKeys() {
+      val registry = registeredRegistry()
+      registry.addTask("echo", new ServerTask {
+         def execute(cache: AdvancedCache[Array[Byte], Array[Byte]], keys: java.util.Set[Array[Byte]],
+                 parameter: Array[Byte]): Array[Byte] = {
+            assertTrue(keys.isEmpty)
+            parameter
+         }
+      })
+      val results = registry.execute(byteCache, "echo", Array[Byte](7), Seq.empty, executor, 1000)
+      assertEquals(results.map(_.toSeq), Seq(Seq[Byte](7)))
+   }
+
+   @Test(expectedExceptions = Array(classOf[IllegalArgumentException]))
+   def testUnknownTask() {
+      registeredRegistry().execute(byteCache, "unknown", Array[Byte](), Seq.empty, executor, 1000)
+   }
+
+   @AfterClass(alwaysRun = true)
+   def shutdownExecutor() {
+      executor.shutdownNow()
+   }
+
+   private def registeredRegistry(): ServerTaskRegistry = {
+      // The tasks are looked up in the registry of the cache manager
+      val globalRegistry = cacheManager.getGlobalComponentRegistry
+      var registry = globalRegistry.getComponent(classOf[ServerTaskRegistry])
+      if (registry == null) {
+         registry = new ServerTaskRegistry
+         globalRegistry.registerComponent(registry, classOf[ServerTaskRegistry])
+      }
+      registry
+   }
+
+   private def byteCache: AdvancedCache[Array[Byte], Array[Byte]] =
+      cacheManager.getCache[Array[Byte], Array[Byte]]().getAdvancedCache
+
+}
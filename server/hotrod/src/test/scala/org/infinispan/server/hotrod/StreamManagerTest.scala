@@ -0,0 +1,72 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import org.testng.Assert._
+
+/**
+ * Tests the streams kept by the Hot Rod server until their last chunk is received.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("unit"), testName = "server.hotrod.StreamManagerTest")
+class StreamManagerTest {
+
+   private val Key = Array[Byte](1, 2, 3)
+
+   def testChunksAssembled() {
+      val manager = new StreamManager
+      assertTrue(manager.append("s", Key, 0, Array[Byte](1, 2)))
+      assertTrue(manager.append("s", Key, 2, Array[Byte](3)))
+      assertTrue(manager.append("s", Key, 3, Array[Byte]()))
+      assertEquals(manager.complete("s").get, Array[Byte](1, 2, 3))
+      assertEquals(manager.getStreamCount, 0)
+   }
+
+   def testOutOfOrderChunkRejected() {
+      val manager = new StreamManager
+      assertTrue(manager.append("s", Key, 0, Array[Byte](1, 2)))
+      assertFalse(manager.append("s", Key, 1, Array[Byte](3)))
+      assertFalse(manager.append("s", Key, 4, Array[Byte](3)))
+      assertFalse(manager.append("s", Array[Byte](9), 2, Array[Byte](3)))
+      assertEquals(manager.complete("s").get, Array[Byte](1, 2))
+   }
+
+   def testUnknownStreamRejected() {
+      val manager = new StreamManager
+      assertFalse(manager.append("unknown", Key, 5, Array[Byte](1)))
+      assertEquals(manager.complete("unknown"), None)
+   }
+
+   def testFirstChunkRestartsStream() {
+      val manager = new StreamManager
+      assertTrue(manager.append("s", Key, 0, Array[Byte](1, 2)))
+      assertTrue(manager.append("s", Key, 0, Array[Byte](3)))
+      assertEquals(manager.complete("s").get, Array[Byte](3))
+   }
+
+   def testStreamCountBounded() {
+      val manager = new StreamManager(2, 100)
+      assertTrue(manager.append("s1", Key, 0, Array[Byte](1)))
+      assertTrue(manager.append("s2", Key, 0, Array[Byte](1)))
+      assertFalse(manager.append("s3", Key, 0, Array[Byte](1)))
+      // A pending stream can still be restarted
+      assertTrue(manager.append("s2", Key, 0, Array[Byte](2)))
+      assertEquals(manager.complete("s1").get, Array[Byte](1))
+      assertTrue(manager.append("s3", Key, 0, Array[Byte](1)))
+   }
+
+   def testBufferedBytesBounded() {
+      val manager = new StreamManager(10, 4)
+      assertTrue(manager.append("s1", Key, 0, Array[Byte](1, 2)))
+      assertTrue(manager.append("s2", Key, 0, Array[Byte](1)))
+      assertEquals(manager.getBufferedBytes, 3)
+      // The stream whose chunk exceeds the limit is dropped, releasing its bytes
+      assertFalse(manager.append("s1", Key, 2, Array[Byte](3, 4)))
+      assertEquals(manager.complete("s1"), None)
+      assertEquals(manager.getBufferedBytes, 1)
+      assertTrue(manager.append("s2", Key, 1, Array[Byte](2, 3, 4)))
+      assertEquals(manager.complete("s2").get, Array[Byte](1, 2, 3, 4))
+      assertEquals(manager.getBufferedBytes, 0)
+   }
+
+}
@@ -0,0 +1,51 @@
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import org.testng.Assert._
+
+/**
+ * Tests the wire format of the values exchanged with the clients compressing them.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("unit"), testName = "server.hotrod.ValueCompressionTest")
+class ValueCompressionTest {
+
+   def testSmallValueSentRaw() {
+      val value = Array[Byte](1, 2, 3)
+      val encoded = ValueCompression.encode(value)
+      assertEquals(encoded(0), ValueCompression.Raw)
+      assertEquals(encoded.length, value.length + 1)
+      assertEquals(ValueCompression.decode(encoded), value)
+   }
+
+   def testLargeValueSentDeflated() {
+      val value = ("compressible" * 1000).getBytes("UTF-8")
+      val encoded = ValueCompression.encode(value)
+      assertEquals(encoded(0), ValueCompression.Deflated)
+      assertTrue(encoded.length < value.length / 10)
+      assertEquals(ValueCompression.decode(encoded), value)
+   }
+
+   def testIncompressibleValueSentRaw() {
+      val value = new Array[Byte](4096)
+      new java.util.Random(42).nextBytes(value)
+      val encoded = ValueCompression.encode(value)
+      assertEquals(encoded(0), ValueCompression.Raw)
+      assertEquals(ValueCompression.decode(encoded), value)
+   }
+
+   @Test(expectedExceptions = Array(classOf[IllegalArgumentException]))
+   def testDeclaredLengthNotTrusted() {
+      val encoded = ValueCompression.encode(("compressible" * 1000).getBytes("UTF-8"))
+      // Claims a value of 2GB, the data inflates to much less
+      encoded(1) = 0x7F
+      ValueCompression.decode(encoded)
+   }
+
+   @Test(expectedExceptions = Array(classOf[IllegalArgumentException]))
+   def testUnknownFormatRejected() {
+      ValueCompression.decode(Array[Byte](5, 1, 2))
+   }
+
+}
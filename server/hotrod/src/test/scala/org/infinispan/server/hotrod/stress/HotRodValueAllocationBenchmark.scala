@@ -0,0 +1,79 @@
+package org.infinispan.server.hotrod.stress
+
+import java.lang.management.ManagementFactory
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.server.hotrod._
+import org.infinispan.server.hotrod.OperationStatus._
+import org.infinispan.server.hotrod.test.HotRodTestingUtil._
+import org.infinispan.server.core.test.ServerTestingUtil._
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import org.testng.annotations.{AfterClass, Test}
+import org.testng.Assert._
+
+/**
+ * Measures the memory allocated to encode the response to a get of a 1KB and of a 100KB value, appending the value
+ * to the response as the encoder does, or copying it into the response buffer as it used to.
+ *
+ * Requires a JVM which reports the memory allocated by each thread, e.g. HotSpot.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("profiling"), testName = "server.hotrod.stress.HotRodValueAllocationBenchmark")
+class HotRodValueAllocationBenchmark extends SingleCacheManagerTest {
+
+   private val Iterations = 10000
+   private var hotRodServer: HotRodServer = _
+
+   override def createCacheManager: EmbeddedCacheManager = {
+      val cm = TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration())
+      hotRodServer = startHotRodServer(cm)
+      cm
+   }
+
+   @AfterClass(alwaysRun = true)
+   override def destroyAfterClass() {
+      super.destroyAfterClass()
+      killServer(hotRodServer)
+   }
+
+   def test1KBValue() {
+      benchmark(1024)
+   }
+
+   def test100KBValue() {
+      benchmark(100 * 1024)
+   }
+
+   private def benchmark(valueSize: Int) {
+      val value = new Array[Byte](valueSize)
+      val response = new GetResponse(Constants.VERSION_13, 1, "", 1, OperationResponse.GetResponse, Success, 0,
+         Some(value))
+      val encoder = new HotRodEncoder(cacheManager, hotRodServer)
+      val encoded = allocatedPerResponse {
+         encoder.encode(null, null, response)
+      }
+      val copied = allocatedPerResponse {
+         val buf = dynamicBuffer
+         Encoders.Encoder13.writeHeader(response, buf, null, hotRodServer)
+         writeRangedBytes(value, buf)
+         buf
+      }
+      log.infof("Encoding a %d bytes value allocates %d bytes when appended, %d bytes when copied",
+         valueSize, encoded, copied)
+      assertTrue(encoded < valueSize, "Allocated " + encoded)
+      assertTrue(copied >= valueSize, "Allocated " + copied)
+   }
+
+   private def allocatedPerResponse(encode: => AnyRef): Long = {
+      val threads = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+      val threadId = Thread.currentThread.getId
+      // warm up
+      for (i <- 0 until Iterations) encode
+      val before = threads.getThreadAllocatedBytes(threadId)
+      for (i <- 0 until Iterations) encode
+      (threads.getThreadAllocatedBytes(threadId) - before) / Iterations
+   }
+
+}
@@ -336,6 +336,8 @@ private class Decoder(client: HotRodClient) extends ReplayingDecoder[VoidEnum] w
                   viewArray(i) = new ServerAddress(host, port)
                }
                Some(TestTopologyAwareResponse(topologyId, viewArray.toList))
+            } else if (op.clientIntel == INTELLIGENCE_HASH_DISTRIBUTION_AWARE && op.version >= 14) {
+               readSegmentHashDistAwareHeader(buf, topologyId)
             } else if (op.clientIntel == INTELLIGENCE_HASH_DISTRIBUTION_AWARE) {
                val numOwners = readUnsignedShort(buf)
                val hashFunction = buf.readByte
@@ -533,6 +535,20 @@ private class Decoder(client: HotRodClient) extends ReplayingDecoder[VoidEnum] w
             numOwners, hashFunction, hashSpace, numVirtualNodes))
    }
 
+   private def readSegmentHashDistAwareHeader(buf: ChannelBuffer,
+            topologyId: Int): Option[AbstractTestTopologyAwareResponse] = {
+      val numServersInTopo = readUnsignedInt(buf)
+      val members = for (i <- 0 until numServersInTopo)
+         yield new ServerAddress(readString(buf), readUnsignedShort(buf))
+      val hashFunction = buf.readByte
+      val numSegments = readUnsignedInt(buf)
+      val segmentOwners = for (i <- 0 until numSegments) yield {
+         val numOwners = buf.readUnsignedByte
+         for (j <- 0 until numOwners) yield members(readUnsignedInt(buf))
+      }
+      Some(TestSegmentHashDistAwareResponse(topologyId, members.toList, hashFunction, segmentOwners.toList))
+   }
+
 }
 
 private class ClientHandler(rspTimeoutSeconds: Int) extends SimpleChannelUpstreamHandler {
@@ -758,6 +774,11 @@ case class TestHashDistAware10Response(override val topologyId: Int,
                         numOwners: Int, hashFunction: Byte, hashSpace: Int)
       extends AbstractTestTopologyAwareResponse(topologyId, members)
 
+case class TestSegmentHashDistAwareResponse(override val topologyId: Int,
+                        override val members: Seq[ServerAddress],
+                        hashFunction: Byte, segmentOwners: Seq[Seq[ServerAddress]])
+      extends AbstractTestTopologyAwareResponse(topologyId, members)
+
 case class TestHashDistAware11Response(override val topologyId: Int,
                         val membersToHash: Map[ServerAddress, Int],
                         numOwners: Int, hashFunction: Byte, hashSpace: Int,
@@ -170,6 +170,9 @@ object HotRodTestingUtil extends Log {
          case h11: TestHashDistAware11Response =>
             assertEquals(h11.membersToHash.size, servers.size)
             assertEquals(h11.membersToHash.keySet, servers.map(_.getAddress).toSet)
+         case s: TestSegmentHashDistAwareResponse =>
+            assertEquals(s.members.size, servers.size)
+            assertEquals(s.members.toSet, servers.map(_.getAddress).toSet)
          case t: TestTopologyAwareResponse =>
             assertEquals(t.members.size, servers.size)
             assertEquals(t.members.toSet, servers.map(_.getAddress).toSet)
@@ -207,6 +210,13 @@ object HotRodTestingUtil extends Log {
                                   servers: List[HotRodServer], cacheName : String,
                                   expectedNumOwners: Int, expectedVirtualNodes: Int,
                                   expectedTopologyId : Int) {
+      topoResp match {
+         case s: TestSegmentHashDistAwareResponse => {
+            assertSegmentHashTopologyReceived(s, servers, cacheName, expectedNumOwners, expectedTopologyId)
+            return
+         }
+         case _ =>
+      }
       val hashTopologyResp = topoResp.asInstanceOf[TestHashDistAware11Response]
       assertEquals(hashTopologyResp.topologyId, expectedTopologyId)
       assertEquals(hashTopologyResp.membersToHash.size, servers.size)
@@ -219,6 +229,29 @@ object HotRodTestingUtil extends Log {
       assertEquals(hashTopologyResp.numVirtualNodes, expectedVirtualNodes)
    }
 
+   def assertSegmentHashTopologyReceived(topoResp: TestSegmentHashDistAwareResponse,
+                                         servers: List[HotRodServer], cacheName : String,
+                                         expectedNumOwners: Int, expectedTopologyId : Int) {
+      assertEquals(topoResp.topologyId, expectedTopologyId)
+      assertEquals(topoResp.members.size, servers.size)
+      assertEquals(topoResp.members.toSet, servers.map(_.getAddress).toSet)
+      if (expectedNumOwners == 0) {
+         assertEquals(topoResp.hashFunction.toInt, 0)
+         assertEquals(topoResp.segmentOwners.size, 0)
+      } else {
+         assertEquals(topoResp.hashFunction.toInt, Constants.SEGMENT_HASH_FUNCTION_VERSION.toInt)
+         val cache = servers.head.getCacheManager.getCache(cacheName)
+         val consistentHash = cache.getAdvancedCache.getDistributionManager.getReadConsistentHash
+         assertEquals(topoResp.segmentOwners.size, consistentHash.getNumSegments)
+         for (i <- 0 until consistentHash.getNumSegments) {
+            val chOwners = consistentHash.locateOwnersForSegment(i)
+                  .map(a => clusterAddressToServerAddress(servers, a))
+            assertEquals(topoResp.segmentOwners(i).size, expectedNumOwners)
+            assertEquals(topoResp.segmentOwners(i), chOwners.toSeq)
+         }
+      }
+   }
+
    def assertHashIds(hashIds: Map[ServerAddress, Seq[Int]], servers: List[HotRodServer], cacheName: String) {
       val cache = servers.head.getCacheManager.getCache(cacheName)
       val stateTransferManager = TestingUtil.extractComponent(cache, classOf[StateTransferManager])
@@ -0,0 +1,115 @@
+package org.infinispan.server.memcached
+
+import org.jboss.netty.util.CharsetUtil
+
+/**
+ * Memcached binary protocol constants.
+ *
+ * @since 6.0
+ */
+object BinaryProtocolUtil {
+
+   val MAGIC_REQ = 0x80
+   val MAGIC_RES = 0x81
+   val HEADER_SIZE = 24
+   val MAX_KEY_LENGTH = 250
+
+   // Offsets in the header of the fields read once the whole request has been received
+   val KEY_LENGTH_OFFSET = 2
+   val EXTRAS_LENGTH_OFFSET = 4
+   val BODY_LENGTH_OFFSET = 8
+   val OPAQUE_OFFSET = 12
+   val CAS_OFFSET = 16
+
+   // Opcodes
+   val GET = 0x00
+   val SET = 0x01
+   val ADD = 0x02
+   val REPLACE = 0x03
+   val DELETE = 0x04
+   val INCREMENT = 0x05
+   val DECREMENT = 0x06
+   val QUIT = 0x07
+   val FLUSH = 0x08
+   val GETQ = 0x09
+   val NOOP = 0x0a
+   val VERSION = 0x0b
+   val GETK = 0x0c
+   val GETKQ = 0x0d
+   val APPEND = 0x0e
+   val PREPEND = 0x0f
+   val STAT = 0x10
+   val SETQ = 0x11
+   val ADDQ = 0x12
+   val REPLACEQ = 0x13
+   val DELETEQ = 0x14
+   val INCREMENTQ = 0x15
+   val DECREMENTQ = 0x16
+   val QUITQ = 0x17
+   val FLUSHQ = 0x18
+   val APPENDQ = 0x19
+   val PREPENDQ = 0x1a
+
+   // Response statuses
+   val NO_ERROR = 0x0000
+   val KEY_NOT_FOUND = 0x0001
+   val KEY_EXISTS = 0x0002
+   val VALUE_TOO_LARGE = 0x0003
+   val INVALID_ARGUMENTS = 0x0004
+   val ITEM_NOT_STORED = 0x0005
+   val NON_NUMERIC_VALUE = 0x0006
+   val UNKNOWN_COMMAND = 0x0081
+   val INTERNAL_ERROR = 0x0084
+
+   /**
+    * Incrementing or decrementing a missing key with this expiration fails rather than creating the key.
+    */
+   val NO_INITIAL_VALUE = 0xffffffff
+
+   /**
+    * Returns the non quiet opcode of a quiet one, which only gets a response in case of failure, or for the gets in
+    * case of success.
+    */
+   def unquiet(opcode: Int): Int = opcode match {
+      case GETQ => GET
+      case GETKQ => GETK
+      case SETQ => SET
+      case ADDQ => ADD
+      case REPLACEQ => REPLACE
+      case DELETEQ => DELETE
+      case INCREMENTQ => INCREMENT
+      case DECREMENTQ => DECREMENT
+      case QUITQ => QUIT
+      case FLUSHQ => FLUSH
+      case APPENDQ => APPEND
+      case PREPENDQ => PREPEND
+      case _ => opcode
+   }
+
+   def isQuiet(opcode: Int): Boolean = unquiet(opcode) != opcode
+
+   private val KeyNotFoundMessage = "Not found".getBytes(CharsetUtil.UTF_8)
+   private val KeyExistsMessage = "Data exists for key".getBytes(CharsetUtil.UTF_8)
+   private val ValueTooLargeMessage = "Too large".getBytes(CharsetUtil.UTF_8)
+   private val InvalidArgumentsMessage = "Invalid arguments".getBytes(CharsetUtil.UTF_8)
+   private val ItemNotStoredMessage = "Not stored".getBytes(CharsetUtil.UTF_8)
+   private val NonNumericValueMessage =
+      "Non-numeric server-side value for incr or decr".getBytes(CharsetUtil.UTF_8)
+   private val UnknownCommandMessage = "Unknown command".getBytes(CharsetUtil.UTF_8)
+   private val NoMessage = new Array[Byte](0)
+
+   /**
+    * The body of a failure response, computed once for every status.
+    */
+   def statusMessage(status: Int): Array[Byte] = status match {
+      case KEY_NOT_FOUND => KeyNotFoundMessage
+      case KEY_EXISTS => KeyExistsMessage
+      case VALUE_TOO_LARGE => ValueTooLargeMessage
+      case INVALID_ARGUMENTS => InvalidArgumentsMessage
+      case ITEM_NOT_STORED => ItemNotStoredMessage
+      case NON_NUMERIC_VALUE => NonNumericValueMessage
+      case UNKNOWN_COMMAND => UnknownCommandMessage
+      case _ => NoMessage
+   }
+
+}
@@ -14,8 +14,10 @@ import org.infinispan.configuration.global.GlobalConfiguration
  */
 class LifecycleCallbacks extends AbstractModuleLifecycle {
 
-   override def cacheManagerStarting(gcr: GlobalComponentRegistry, globalCfg: GlobalConfiguration) =
-      globalCfg.serialization().advancedExternalizers().put(
-         MEMCACHED_METADATA, new MemcachedMetadata.Externalizer)
+   override def cacheManagerStarting(gcr: GlobalComponentRegistry, globalCfg: GlobalConfiguration) {
+      val externalizers = globalCfg.serialization().advancedExternalizers()
+      externalizers.put(MEMCACHED_METADATA, new MemcachedMetadata.Externalizer)
+      externalizers.put(MEMCACHED_COUNTER_MERGE, new MemcachedCounterMerge.Externalizer)
+   }
 
 }
\ No newline at end of file
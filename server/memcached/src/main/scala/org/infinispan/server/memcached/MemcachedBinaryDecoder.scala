@@ -0,0 +1,463 @@
+package org.infinispan.server.memcached
+
+import logging.Log
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit.{MILLISECONDS => MILLIS}
+import java.util.concurrent.atomic.AtomicLong
+import java.nio.channels.ClosedChannelException
+import org.infinispan.{Version, AdvancedCache}
+import org.infinispan.context.Flag
+import org.infinispan.container.entries.CacheEntry
+import org.infinispan.container.versioning.NumericVersion
+import org.infinispan.server.core.AbstractProtocolDecoder.{generateVersion, toMillis}
+import org.infinispan.server.core.transport.{RequestDecoder, NettyTransport}
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.channel._
+import org.jboss.netty.handler.codec.frame.FrameDecoder
+import org.jboss.netty.util.CharsetUtil
+import BinaryProtocolUtil._
+import MemcachedBinaryDecoder._
+import MemcachedCounterMerge.{parseUnsigned, unsignedToBytes}
+
+/**
+ * A Memcached binary protocol decoder. A request is only decoded once it has been entirely received, its fields being
+ * read from the buffer where they are, so the only objects created for a request are its key and value.
+ *
+ * The responses of the requests received together, e.g. a multi-get sent as pipelined quiet gets terminated by a
+ * noop, are written to a single buffer which is sent once they have all been executed.
+ *
+ * @since 6.0
+ */
+class MemcachedBinaryDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], scheduler: ScheduledExecutorService,
+        transport: NettyTransport, maxBodyLength: Int) extends FrameDecoder with RequestDecoder with Log {
+
+   private val cache = memcachedCache.withFlags(Flag.OPERATION_MEMCACHED)
+   private lazy val isStatsEnabled = cache.getCacheConfiguration.jmxStatistics().enabled()
+   private val defaultMaxIdleTime = cache.getCacheConfiguration.expiration().maxIdle()
+   private val incrMisses, incrHits, decrMisses, decrHits = new AtomicLong
+   private val casMisses, casHits, casBadval = new AtomicLong
+   private val isTrace = isTraceEnabled
+
+   // The request being executed, read from the buffer it was received in
+   private var buf: ChannelBuffer = _
+   private var opcode, opaque, keyIndex, keyLength, extrasIndex, extrasLength, valueIndex, valueLength: Int = _
+   private var cas: Long = _
+
+   // The responses not sent yet
+   private var out: ChannelBuffer = _
+
+   override def decode(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      if (buffer.readableBytes < HEADER_SIZE)
+         return null
+      val start = buffer.readerIndex
+      val bodyLength = buffer.getInt(start + BODY_LENGTH_OFFSET)
+      if (buffer.getUnsignedByte(start) != MAGIC_REQ || bodyLength < 0) {
+         debug("Invalid binary request header, closing the connection")
+         buffer.skipBytes(buffer.readableBytes)
+         ch.close
+         return null
+      }
+      if (bodyLength > maxBodyLength) {
+         // Don't buffer whatever the client claims to send, the rest of the stream can't be read
+         debug("Binary request body of %d bytes is over the %d bytes limit, closing the connection",
+            bodyLength, maxBodyLength)
+         opcode = buffer.getUnsignedByte(start + 1)
+         opaque = buffer.getInt(start + OPAQUE_OFFSET)
+         buffer.skipBytes(buffer.readableBytes)
+         failure(VALUE_TOO_LARGE)
+         flush(ch)
+         ch.close
+         return null
+      }
+      if (buffer.readableBytes < HEADER_SIZE + bodyLength)
+         return null
+
+      buf = buffer
+      opcode = buffer.getUnsignedByte(start + 1)
+      keyLength = buffer.getUnsignedShort(start + KEY_LENGTH_OFFSET)
+      extrasLength = buffer.getUnsignedByte(start + EXTRAS_LENGTH_OFFSET)
+      opaque = buffer.getInt(start + OPAQUE_OFFSET)
+      cas = buffer.getLong(start + CAS_OFFSET)
+      extrasIndex = start + HEADER_SIZE
+      keyIndex = extrasIndex + extrasLength
+      valueIndex = keyIndex + keyLength
+      valueLength = bodyLength - extrasLength - keyLength
+      buffer.skipBytes(HEADER_SIZE + bodyLength)
+      if (isTrace) trace("Binary request with opcode 0x%x, key length %d and value length %d",
+         opcode, keyLength, valueLength)
+
+      try {
+         if (valueLength < 0 || keyLength > MAX_KEY_LENGTH) failure(INVALID_ARGUMENTS)
+         else execute(ch)
+      } catch {
+         case e: Exception => {
+            logExceptionReported(e)
+            failure(INTERNAL_ERROR, String.valueOf(e.getMessage).getBytes(CharsetUtil.UTF_8))
+         }
+      } finally {
+         buf = null
+      }
+
+      // Send the responses once the requests received together have all been executed
+      if (!hasRequest(buffer)) flush(ch)
+      if (unquiet(opcode) == QUIT) ch.close
+      null
+   }
+
+   private def hasRequest(buffer: ChannelBuffer): Boolean =
+      buffer.readableBytes >= HEADER_SIZE &&
+         buffer.readableBytes >= HEADER_SIZE + buffer.getInt(buffer.readerIndex + BODY_LENGTH_OFFSET)
+
+   private def execute(ch: Channel) {
+      unquiet(opcode) match {
+         case GET | GETK => get()
+         case SET => if (checkExtras(8)) set()
+         case ADD => if (checkExtras(8)) add()
+         case REPLACE => if (checkExtras(8)) replace()
+         case DELETE => delete()
+         case INCREMENT | DECREMENT => if (checkExtras(20)) incrDecr()
+         case APPEND | PREPEND => appendPrepend()
+         case FLUSH => flushAll()
+         case QUIT | NOOP => success(0)
+         case VERSION => respond(NO_ERROR, 0, VersionBytes)
+         case STAT => stats()
+         case _ => failure(UNKNOWN_COMMAND)
+      }
+   }
+
+   private def key: String = buf.toString(keyIndex, keyLength, CharsetUtil.UTF_8)
+
+   private def value: Array[Byte] = {
+      val value = new Array[Byte](valueLength)
+      buf.getBytes(valueIndex, value)
+      value
+   }
+
+   private def checkExtras(expected: Int): Boolean = {
+      if (extrasLength != expected) failure(INVALID_ARGUMENTS)
+      extrasLength == expected
+   }
+
+   private def get() {
+      val entry = cache.getCacheEntry(key)
+      if (entry == null) {
+         if (!isQuiet(opcode)) failure(KEY_NOT_FOUND)
+      } else {
+         val data = entry.getValue.asInstanceOf[Array[Byte]]
+         val withKey = unquiet(opcode) == GETK
+         val responseKeyLength = if (withKey) keyLength else 0
+         writeHeader(NO_ERROR, version(entry), responseKeyLength, 4, 4 + responseKeyLength + data.length)
+         out.writeInt(flags(entry).toInt)
+         if (withKey) out.writeBytes(buf, keyIndex, keyLength)
+         out.writeBytes(data)
+      }
+   }
+
+   private def set() {
+      if (cas != 0) {
+         compareAndSwap()
+      } else {
+         val metadata = storageMetadata
+         cache.put(key, value, metadata)
+         success(metadataVersion(metadata))
+      }
+   }
+
+   private def add() {
+      val metadata = storageMetadata
+      if (cache.putIfAbsent(key, value, metadata) == null) success(metadataVersion(metadata))
+      else failure(KEY_EXISTS)
+   }
+
+   private def replace() {
+      if (cas != 0) {
+         compareAndSwap()
+      } else {
+         val metadata = storageMetadata
+         if (cache.replace(key, value, metadata) != null) success(metadataVersion(metadata))
+         else failure(KEY_NOT_FOUND)
+      }
+   }
+
+   private def compareAndSwap() {
+      val k = key
+      val entry = cache.getCacheEntry(k)
+      if (entry == null) {
+         if (isStatsEnabled) casMisses.incrementAndGet
+         failure(KEY_NOT_FOUND)
+      } else if (version(entry) != cas) {
+         if (isStatsEnabled) casBadval.incrementAndGet
+         failure(KEY_EXISTS)
+      } else {
+         val metadata = storageMetadata
+         if (cache.replace(k, entry.getValue.asInstanceOf[Array[Byte]], value, metadata)) {
+            if (isStatsEnabled) casHits.incrementAndGet
+            success(metadataVersion(metadata))
+         } else {
+            if (isStatsEnabled) casBadval.incrementAndGet
+            failure(KEY_EXISTS)
+         }
+      }
+   }
+
+   private def delete() {
+      val k = key
+      if (cas == 0) {
+         if (cache.remove(k) != null) success(0) else failure(KEY_NOT_FOUND)
+      } else {
+         val entry = cache.getCacheEntry(k)
+         if (entry == null) failure(KEY_NOT_FOUND)
+         else if (version(entry) != cas || !cache.remove(k, entry.getValue)) failure(KEY_EXISTS)
+         else success(0)
+      }
+   }
+
+   private def appendPrepend() {
+      val k = key
+      val entry = cache.getCacheEntry(k)
+      if (entry == null) {
+         failure(ITEM_NOT_STORED)
+      } else if (cas != 0 && version(entry) != cas) {
+         failure(KEY_EXISTS)
+      } else {
+         val prev = entry.getValue.asInstanceOf[Array[Byte]]
+         val concatenated = unquiet(opcode) match {
+            case APPEND => concat(prev, value)
+            case PREPEND => concat(value, prev)
+         }
+         val metadata = updatedMetadata(entry)
+         // If there's a concurrent modification on this key, treat it as a cas failure
+         if (cache.replace(k, prev, concatenated, metadata)) success(metadataVersion(metadata))
+         else failure(KEY_EXISTS)
+      }
+   }
+
+   private def incrDecr() {
+      val k = key
+      val isIncrement = unquiet(opcode) == INCREMENT
+      val delta = buf.getLong(extrasIndex)
+      val initial = buf.getLong(extrasIndex + 8)
+      val expiration = buf.getInt(extrasIndex + 16)
+      if (cas == 0) mergeCounter(k, isIncrement, delta, initial, expiration)
+      else casCounter(k, isIncrement, delta, initial, expiration)
+   }
+
+   /**
+    * Applied by the primary owner of the counter, so concurrent increments don't conflict.
+    */
+   private def mergeCounter(k: String, isIncrement: Boolean, delta: Long, initial: Long, expiration: Int) {
+      val initialValue = if (expiration == NO_INITIAL_VALUE) null else unsignedToBytes(initial)
+      val metadata = MemcachedMetadata(0, generateVersion(cache),
+         lifespan(if (expiration == NO_INITIAL_VALUE) 0 else expiration), MILLIS, defaultMaxIdleTime, MILLIS)
+      val next = cache.merge(k, new MemcachedCounterMerge(delta, isIncrement, initialValue), metadata)
+      if (next == null) {
+         if (isStatsEnabled) if (isIncrement) incrMisses.incrementAndGet else decrMisses.incrementAndGet
+         failure(KEY_NOT_FOUND)
+      } else {
+         parseUnsigned(next) match {
+            case None => failure(NON_NUMERIC_VALUE)
+            case Some(counter) => {
+               if (isStatsEnabled)
+                  if (next eq initialValue) { if (isIncrement) incrMisses.incrementAndGet else decrMisses.incrementAndGet }
+                  else if (isIncrement) incrHits.incrementAndGet else decrHits.incrementAndGet
+               counterResponse(counter, metadata)
+            }
+         }
+      }
+   }
+
+   /**
+    * The counter is only modified if its version matches the cas.
+    */
+   private def casCounter(k: String, isIncrement: Boolean, delta: Long, initial: Long, expiration: Int) {
+      var done = false
+      while (!done) {
+         val entry = cache.getCacheEntry(k)
+         if (entry == null) {
+            if (isStatsEnabled) if (isIncrement) incrMisses.incrementAndGet else decrMisses.incrementAndGet
+            if (expiration == NO_INITIAL_VALUE) {
+               failure(KEY_NOT_FOUND)
+               done = true
+            } else {
+               val metadata = MemcachedMetadata(0, generateVersion(cache), lifespan(expiration), MILLIS,
+                  defaultMaxIdleTime, MILLIS)
+               if (cache.putIfAbsent(k, unsignedToBytes(initial), metadata) == null) {
+                  counterResponse(initial, metadata)
+                  done = true
+               }
+            }
+         } else if (version(entry) != cas) {
+            failure(KEY_EXISTS)
+            done = true
+         } else {
+            val prev = entry.getValue.asInstanceOf[Array[Byte]]
+            val next = new MemcachedCounterMerge(delta, isIncrement, null).merge(prev)
+            parseUnsigned(next) match {
+               case None => {
+                  failure(NON_NUMERIC_VALUE)
+                  done = true
+               }
+               case Some(counter) => {
+                  val metadata = updatedMetadata(entry)
+                  // Retried if there's a concurrent modification
+                  if (cache.replace(k, prev, next, metadata)) {
+                     if (isStatsEnabled) if (isIncrement) incrHits.incrementAndGet else decrHits.incrementAndGet
+                     counterResponse(counter, metadata)
+                     done = true
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   private def counterResponse(counter: Long, metadata: MemcachedMetadata) {
+      if (!isQuiet(opcode)) {
+         writeHeader(NO_ERROR, metadataVersion(metadata), 0, 0, 8)
+         out.writeLong(counter)
+      }
+   }
+
+   private def flushAll() {
+      val delay = if (extrasLength == 4) buf.getInt(extrasIndex) else 0
+      if (delay == 0)
+         cache.clear()
+      else
+         scheduler.schedule(new DelayedFlushAll(cache, c => c.clear()), toMillis(delay), MILLIS)
+      success(0)
+   }
+
+   private def stats() {
+      val stats = cache.getStats
+      writeStat("pid", 0)
+      writeStat("uptime", stats.getTimeSinceStart)
+      writeStat("time", MILLIS.toSeconds(System.currentTimeMillis))
+      writeStat("version", cache.getVersion)
+      writeStat("curr_items", stats.getCurrentNumberOfEntries)
+      writeStat("total_items", stats.getTotalNumberOfEntries)
+      writeStat("cmd_get", stats.getRetrievals)
+      writeStat("cmd_set", stats.getStores)
+      writeStat("get_hits", stats.getHits)
+      writeStat("get_misses", stats.getMisses)
+      writeStat("delete_misses", stats.getRemoveMisses)
+      writeStat("delete_hits", stats.getRemoveHits)
+      writeStat("incr_misses", incrMisses)
+      writeStat("incr_hits", incrHits)
+      writeStat("decr_misses", decrMisses)
+      writeStat("decr_hits", decrHits)
+      writeStat("cas_misses", casMisses)
+      writeStat("cas_hits", casHits)
+      writeStat("cas_badval", casBadval)
+      writeStat("evictions", stats.getEvictions)
+      writeStat("bytes_read", transport.getTotalBytesRead)
+      writeStat("bytes_written", transport.getTotalBytesWritten)
+      success(0) // Terminates the stats
+   }
+
+   private def writeStat(name: String, value: Any) {
+      val nameBytes = name.getBytes(CharsetUtil.UTF_8)
+      val valueBytes = value.toString.getBytes(CharsetUtil.UTF_8)
+      writeHeader(NO_ERROR, 0, nameBytes.length, 0, nameBytes.length + valueBytes.length)
+      out.writeBytes(nameBytes)
+      out.writeBytes(valueBytes)
+   }
+
+   private def storageMetadata: MemcachedMetadata =
+      MemcachedMetadata(buf.getUnsignedInt(extrasIndex), generateVersion(cache),
+         lifespan(buf.getInt(extrasIndex + 4)), MILLIS, defaultMaxIdleTime, MILLIS)
+
+   /**
+    * The metadata of an entry modified without a new expiration, which keeps its flags and expiration.
+    */
+   private def updatedMetadata(entry: CacheEntry): MemcachedMetadata =
+      MemcachedMetadata(flags(entry), generateVersion(cache), entry.getLifespan, MILLIS, entry.getMaxIdle, MILLIS)
+
+   private def lifespan(expiration: Int): Long = if (expiration <= 0) -1 else toMillis(expiration)
+
+   private def flags(entry: CacheEntry): Long = entry.getMetadata match {
+      case meta: MemcachedMetadata => meta.flags
+      case _ => 0
+   }
+
+   private def version(entry: CacheEntry): Long = entry.getMetadata.version() match {
+      case v: NumericVersion => v.getVersion
+      case _ => 0
+   }
+
+   private def metadataVersion(metadata: MemcachedMetadata): Long = metadata.version match {
+      case v: NumericVersion => v.getVersion
+      case _ => 0
+   }
+
+   private def success(cas: Long) {
+      if (!isQuiet(opcode)) writeHeader(NO_ERROR, cas, 0, 0, 0)
+   }
+
+   private def failure(status: Int) {
+      failure(status, statusMessage(status))
+   }
+
+   private def failure(status: Int, message: Array[Byte]) {
+      // Failures are reported even to quiet requests
+      respond(status, 0, message)
+   }
+
+   private def respond(status: Int, cas: Long, body: Array[Byte]) {
+      writeHeader(status, cas, 0, 0, body.length)
+      out.writeBytes(body)
+   }
+
+   private def writeHeader(status: Int, cas: Long, keyLength: Int, extrasLength: Int, bodyLength: Int) {
+      if (out == null) out = dynamicBuffer
+      out.writeByte(MAGIC_RES)
+      out.writeByte(opcode)
+      out.writeShort(keyLength)
+      out.writeByte(extrasLength)
+      out.writeByte(0) // Data type
+      out.writeShort(status)
+      out.writeInt(bodyLength)
+      out.writeInt(opaque)
+      out.writeLong(cas)
+   }
+
+   private def flush(ch: Channel) {
+      if (out != null) {
+         ch.write(out)
+         out = null
+      }
+   }
+
+   private def concat(a: Array[Byte], b: Array[Byte]): Array[Byte] = {
+      val data = new Array[Byte](a.length + b.length)
+      Array.copy(a, 0, data, 0, a.length)
+      Array.copy(b, 0, data, a.length, b.length)
+      data
+   }
+
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      transport.updateTotalBytesRead(e)
+      super.messageReceived(ctx, e)
+   }
+
+   override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
+      transport.updateTotalBytesWritten(e)
+      ctx.sendUpstream(e)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      e.getCause match {
+         case c: ClosedChannelException => logExceptionReported(c)
+         case t => {
+            debug(t, "Exception caught, closing the connection")
+            ctx.getChannel.close
+         }
+      }
+   }
+
+}
+
+private object MemcachedBinaryDecoder {
+   val VersionBytes = Version.VERSION.getBytes(CharsetUtil.UTF_8)
+}
@@ -0,0 +1,102 @@
+package org.infinispan.server.memcached
+
+import org.infinispan.atomic.ValueMerge
+import org.infinispan.commons.marshall.AbstractExternalizer
+import org.jboss.netty.util.CharsetUtil
+import java.io.{ObjectInput, ObjectOutput}
+import java.util
+import scala.collection.JavaConversions.setAsJavaSet
+
+/**
+ * Increments or decrements a Memcached counter, stored as the decimal representation of an unsigned 64 bit integer.
+ * Increments wrap around at 2^64 and decrements stop at 0. A value which is not a counter is left unchanged, as is
+ * a missing counter unless an initial value is given.
+ *
+ * @since 6.0
+ */
+class MemcachedCounterMerge(val delta: Long, val increment: Boolean, val initial: Array[Byte])
+      extends ValueMerge[Array[Byte]] {
+
+   import MemcachedCounterMerge._
+
+   override def merge(value: Array[Byte]): Array[Byte] = {
+      if (value == null) {
+         initial
+      } else {
+         parseUnsigned(value) match {
+            case None => value
+            case Some(counter) =>
+               val next =
+                  if (increment) counter + delta // Wraps around at 2^64
+                  else if (unsignedLessThan(counter, delta)) 0
+                  else counter - delta
+               unsignedToBytes(next)
+         }
+      }
+   }
+
+   override def toString = "MemcachedCounterMerge{delta=%s, increment=%s}".format(delta, increment)
+
+}
+
+object MemcachedCounterMerge {
+
+   val MaxUnsignedLong = BigInt("18446744073709551615")
+   private val TwoPower64 = BigInt(1) << 64
+
+   /**
+    * Returns the counter stored in a value, as the bits of an unsigned long.
+    */
+   def parseUnsigned(bytes: Array[Byte]): Option[Long] = {
+      if (bytes.length == 0 || bytes.length > 20 || bytes.exists(b => b < '0' || b > '9')) {
+         None
+      } else if (bytes.length < 19) {
+         var counter = 0L
+         for (b <- bytes) counter = counter * 10 + (b - '0')
+         Some(counter)
+      } else {
+         val counter = BigInt(new String(bytes, CharsetUtil.US_ASCII))
+         if (counter > MaxUnsignedLong) None else Some(counter.longValue())
+      }
+   }
+
+   def unsignedToBytes(counter: Long): Array[Byte] = {
+      val decimal = if (counter >= 0) counter.toString else (BigInt(counter) + TwoPower64).toString
+      decimal.getBytes(CharsetUtil.US_ASCII)
+   }
+
+   private def unsignedLessThan(a: Long, b: Long): Boolean = (a + Long.MinValue) < (b + Long.MinValue)
+
+   class Externalizer extends AbstractExternalizer[MemcachedCounterMerge] {
+
+      def writeObject(output: ObjectOutput, merge: MemcachedCounterMerge) {
+         output.writeLong(merge.delta)
+         output.writeBoolean(merge.increment)
+         if (merge.initial == null) {
+            output.writeInt(-1)
+         } else {
+            output.writeInt(merge.initial.length)
+            output.write(merge.initial)
+         }
+      }
+
+      def readObject(input: ObjectInput): MemcachedCounterMerge = {
+         val delta = input.readLong()
+         val increment = input.readBoolean()
+         val length = input.readInt()
+         val initial =
+            if (length < 0) null
+            else {
+               val bytes = new Array[Byte](length)
+               input.readFully(bytes)
+               bytes
+            }
+         new MemcachedCounterMerge(delta, increment, initial)
+      }
+
+      def getTypeClasses: util.Set[Class[_ <: MemcachedCounterMerge]] =
+         setAsJavaSet(Set[java.lang.Class[_ <: MemcachedCounterMerge]](classOf[MemcachedCounterMerge]))
+
+   }
+
+}
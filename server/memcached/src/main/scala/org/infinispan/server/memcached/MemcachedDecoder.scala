@@ -12,7 +12,8 @@ import org.infinispan.server.core._
 import org.infinispan.server.core.transport.ExtendedChannelBuffer._
 import org.infinispan._
 import collection.mutable.ListBuffer
-import collection.{mutable, immutable}
+import collection.immutable
+import collection.JavaConversions._
 import org.jboss.netty.buffer.ChannelBuffer
 import transport.NettyTransport
 import DecoderState._
@@ -25,7 +26,6 @@ import org.infinispan.container.entries.CacheEntry
 import scala.Some
 import org.infinispan.metadata.Metadata
 import org.infinispan.container.versioning.NumericVersion
-import org.infinispan.commons.CacheException
 
 /**
  * A Memcached protocol specific decoder
@@ -90,13 +90,12 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
    override protected def get(buffer: ChannelBuffer): AnyRef = {
       val keys = readKeys(buffer)
       if (keys.length > 1) {
-         val map = new mutable.HashMap[String, CacheEntry]()
-         for (k <- keys) {
-            val entry = cache.getCacheEntry(checkKeyLength(k, endOfOp = true, buffer))
-            if (entry != null)
-               map += (k -> entry)
-         }
-         createMultiGetResponse(new immutable.HashMap ++ map)
+         for (k <- keys) checkKeyLength(k, endOfOp = true, buffer)
+         // Read all the keys at once, so that remote keys take one call per owner rather than one per key
+         val entries = cache.getAllCacheEntries(keys)
+         val pairs = for (k <- keys; entry = entries.get(k) if entry != null) yield (k -> entry)
+         // Respond in the order the keys were requested
+         createMultiGetResponse(immutable.ListMap(pairs: _*))
       } else {
          val key = checkKeyLength(keys(0), endOfOp = true, buffer)
          val entry = cache.getCacheEntry(key)
@@ -292,33 +291,18 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
    }
 
    private def incrDecr(ch: Channel): AnyRef = {
-      val prev = cache.get(key)
       val op = header.op
+      val delta = validateDelta(params.delta)
+      // Applied by the primary owner of the counter, so concurrent increments don't conflict
+      val merge = new MemcachedCounterMerge(delta.longValue(), op == IncrementRequest, null)
+      val next = cache.merge(key, merge, buildMetadata())
       val ret =
-         if (prev != null) {
-            val prevCounter = BigInt(new String(prev))
-            val delta = validateDelta(params.delta)
-            val newCounter =
-               op match {
-                  case IncrementRequest => {
-                     val candidateCounter = prevCounter + delta
-                     if (candidateCounter > MAX_UNSIGNED_LONG) 0 else candidateCounter
-                  }
-                  case DecrementRequest => {
-                     val candidateCounter = prevCounter - delta
-                     if (candidateCounter < 0) 0 else candidateCounter
-                  }
-               }
-
-            val next = newCounter.toString.getBytes
-            val replaced = cache.replace(key, prev, next, buildMetadata())
-            if (replaced) {
-               if (isStatsEnabled) if (op == IncrementRequest) incrHits.incrementAndGet() else decrHits.incrementAndGet
-               if (!params.noReply) new String(next) + CRLF else null
-            } else {
-               // If there's a concurrent modification on this key, the spec does not say what to do, so treat it as exceptional
-               throw new CacheException("Value modified since we retrieved from the cache, old value was " + prevCounter)
-            }
+         if (next != null) {
+            // A value which is not a counter is left unchanged
+            if (MemcachedCounterMerge.parseUnsigned(next).isEmpty)
+               throw new NumberFormatException("Value is not a counter: " + new String(next))
+            if (isStatsEnabled) if (op == IncrementRequest) incrHits.incrementAndGet() else decrHits.incrementAndGet
+            if (!params.noReply) new String(next) + CRLF else null
          }
          else {
             if (isStatsEnabled) if (op == IncrementRequest) incrMisses.incrementAndGet() else decrMisses.incrementAndGet
@@ -0,0 +1,35 @@
+package org.infinispan.server.memcached
+
+import org.infinispan.server.core.transport.{RequestDecoder, NettyTransport}
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.channel._
+import BinaryProtocolUtil.MAGIC_REQ
+
+/**
+ * Selects the protocol spoken on a Memcached connection from the first byte received, which is the magic byte for
+ * the binary protocol, and replaces itself with the text or the binary decoder.
+ *
+ * @since 6.0
+ */
+class MemcachedProtocolSelector(server: MemcachedServer, transport: NettyTransport)
+      extends SimpleChannelUpstreamHandler with RequestDecoder {
+
+   override def channelOpen(ctx: ChannelHandlerContext, e: ChannelStateEvent) {
+      transport.acceptedChannels.add(e.getChannel)
+      super.channelOpen(ctx, e)
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      val buffer = e.getMessage.asInstanceOf[ChannelBuffer]
+      if (buffer.readable) {
+         val decoder =
+            if (buffer.getUnsignedByte(buffer.readerIndex) == MAGIC_REQ) server.createBinaryDecoder
+            else server.createTextDecoder
+         val pipeline = ctx.getPipeline
+         pipeline.replace(this, ctx.getName, decoder)
+         // The decoder handles the rest of the connection, starting with this message
+         decoder.handleUpstream(pipeline.getContext(decoder), e)
+      }
+   }
+
+}
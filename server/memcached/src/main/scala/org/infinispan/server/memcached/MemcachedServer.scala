@@ -6,6 +6,7 @@ import org.infinispan.manager.EmbeddedCacheManager
 import org.infinispan.server.memcached.configuration.MemcachedServerConfiguration
 import org.infinispan.AdvancedCache
 import org.infinispan.configuration.cache.ConfigurationBuilder
+import org.jboss.netty.channel.{ChannelUpstreamHandler, ChannelHandler}
 
 /**
  * Memcached server defining its decoder/encoder settings. In fact, Memcached does not use an encoder since there's
@@ -32,9 +33,14 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    override def getEncoder = null
 
-   override def getDecoder: MemcachedDecoder =
+   override def getDecoder: ChannelHandler = new MemcachedProtocolSelector(this, transport)
+
+   private[memcached] def createTextDecoder: ChannelUpstreamHandler =
       new MemcachedDecoder(memcachedCache, scheduler, transport)
 
+   private[memcached] def createBinaryDecoder: ChannelUpstreamHandler =
+      new MemcachedBinaryDecoder(memcachedCache, scheduler, transport, configuration.maxBodyLength)
+
    override def stop {
       super.stop
       scheduler.shutdown()
@@ -13,18 +13,28 @@
 @BuiltBy(MemcachedServerConfigurationBuilder.class)
 public class MemcachedServerConfiguration extends ProtocolServerConfiguration {
    private final String cache;
+   private final int maxBodyLength;
 
-   MemcachedServerConfiguration(String cache, String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads) {
-      super(name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl, tcpNoDelay, workerThreads);
+   MemcachedServerConfiguration(String cache, int maxBodyLength, String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads,
+         int executorThreads, long executorMaxConnectionMemory) {
+      super(name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl, tcpNoDelay, workerThreads, executorThreads, executorMaxConnectionMemory);
       this.cache = cache;
+      this.maxBodyLength = maxBodyLength;
    }
 
    public String cache() {
       return cache;
    }
 
+   /**
+    * The largest body, extras and key included, accepted in a binary protocol request
+    */
+   public int maxBodyLength() {
+      return maxBodyLength;
+   }
+
    @Override
    public String toString() {
-      return "MemcachedServerConfiguration [cache=" + cache + ", " + super.toString() + "]";
+      return "MemcachedServerConfiguration [cache=" + cache + ", maxBodyLength=" + maxBodyLength + ", " + super.toString() + "]";
    }
 }
@@ -2,6 +2,8 @@
 
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.server.core.configuration.ProtocolServerConfigurationBuilder;
+import org.infinispan.server.memcached.logging.JavaLog;
+import org.infinispan.util.logging.LogFactory;
 
 /**
  * MemcachedServerConfigurationBuilder.
@@ -11,7 +13,9 @@
  */
 public class MemcachedServerConfigurationBuilder extends ProtocolServerConfigurationBuilder<MemcachedServerConfiguration, MemcachedServerConfigurationBuilder> implements
       Builder<MemcachedServerConfiguration> {
+   private static final JavaLog log = LogFactory.getLog(MemcachedServerConfigurationBuilder.class, JavaLog.class);
    private String cache = "memcachedCache";
+   private int maxBodyLength = 20 * 1024 * 1024;
 
    public MemcachedServerConfigurationBuilder() {
       super(11211);
@@ -27,9 +31,27 @@ public MemcachedServerConfigurationBuilder cache(String cache) {
       return this;
    }
 
+   /**
+    * Sets the largest body, extras and key included, accepted in a binary protocol request. The connections sending
+    * larger requests are closed. Defaults to 20 MB.
+    */
+   public MemcachedServerConfigurationBuilder maxBodyLength(int maxBodyLength) {
+      this.maxBodyLength = maxBodyLength;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (maxBodyLength < 0) {
+         throw log.illegalMaxBodyLength(maxBodyLength);
+      }
+   }
+
    @Override
    public MemcachedServerConfiguration create() {
-      return new MemcachedServerConfiguration(cache, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
+      return new MemcachedServerConfiguration(cache, maxBodyLength, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads,
+            executorThreads, executorMaxConnectionMemory);
    }
 
    public MemcachedServerConfiguration build(boolean validate) {
@@ -48,6 +70,7 @@ public MemcachedServerConfiguration build() {
    public Builder<?> read(MemcachedServerConfiguration template) {
       super.read(template);
       this.cache = template.cache();
+      this.maxBodyLength = template.maxBodyLength();
       return this;
    }
 }
@@ -1,5 +1,6 @@
 package org.infinispan.server.memcached.logging;
 
+import org.jboss.logging.Message;
 import org.jboss.logging.MessageLogger;
 
 /**
@@ -11,4 +12,8 @@
  */
 @MessageLogger(projectCode = "ISPN")
 public interface JavaLog extends org.infinispan.util.logging.Log {
+
+   @Message(value = "Illegal maximum binary request body length: %d", id = 11001)
+   IllegalArgumentException illegalMaxBodyLength(int maxBodyLength);
+
 }
@@ -0,0 +1,211 @@
+package org.infinispan.server.memcached
+
+import java.lang.reflect.Method
+import java.util.concurrent.TimeUnit
+import java.io.DataInputStream
+import java.net.Socket
+import org.testng.Assert._
+import org.testng.annotations.Test
+import net.spy.memcached.{MemcachedClient, CASResponse}
+import org.infinispan.test.TestingUtil._
+import org.infinispan.Version
+import org.jboss.netty.buffer.ChannelBuffers
+import test.MemcachedTestingUtil._
+import BinaryProtocolUtil._
+import scala.collection.JavaConversions._
+
+/**
+ * Tests the Memcached binary protocol, which the server detects from the first byte received on a connection.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   private lazy val binaryClient: MemcachedClient = createMemcachedBinaryClient(60000, server.getPort)
+
+   @Test(enabled = false) // Disable explicitly to avoid TestNG thinking this is a test!!
+   override protected def shutdownClient() {
+      super.shutdownClient()
+      binaryClient.shutdown()
+   }
+
+   def testSetAndGet(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m))
+      assertNull(binaryClient.get(k(m, "missing-")))
+   }
+
+   def testSharedWithTextProtocol(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testSetWithExpirySeconds(m: Method) {
+      assertTrue(binaryClient.set(k(m), 1, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      sleepThread(1100)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testGetMultipleKeys(m: Method) {
+      for (i <- 1 to 3)
+         assertTrue(binaryClient.set(k(m, "k" + i + "-"), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val values = binaryClient.getBulk(k(m, "k1-"), k(m, "k2-"), k(m, "missing-"), k(m, "k3-"))
+      assertEquals(values.size, 3)
+      for (i <- 1 to 3)
+         assertEquals(values.get(k(m, "k" + i + "-")), v(m, "v" + i + "-"))
+   }
+
+   def testAdd(m: Method) {
+      assertTrue(binaryClient.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(binaryClient.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m))
+   }
+
+   def testReplace(m: Method) {
+      assertFalse(binaryClient.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.replace(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      assertFalse(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testCas(m: Method) {
+      assertEquals(binaryClient.cas(k(m), 1, v(m)), CASResponse.NOT_FOUND)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = binaryClient.gets(k(m))
+      assertEquals(value.getValue, v(m))
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testIncrementAndDecrement(m: Method) {
+      assertEquals(binaryClient.incr(k(m), 1), -1)
+      assertEquals(binaryClient.incr(k(m), 1, 10), 10)
+      assertEquals(binaryClient.incr(k(m), 5), 15)
+      assertEquals(binaryClient.decr(k(m), 20), 0)
+      assertTrue(binaryClient.set(k(m), 0, "18446744073709551615").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.incr(k(m), 2), 1)
+      assertEquals(binaryClient.get(k(m)), "1")
+   }
+
+   def testIncrementNonNumericValue(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.incr(k(m), 1), -1)
+      assertEquals(binaryClient.get(k(m)), v(m))
+   }
+
+   def testAppendAndPrepend(m: Method) {
+      assertFalse(binaryClient.append(0, k(m), "a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m), 0, "b").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.append(0, k(m), "c").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.prepend(0, k(m), "a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), "abc")
+   }
+
+   def testFlush(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.flush().get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testVersionAndStats() {
+      assertEquals(binaryClient.getVersions.values.head, Version.VERSION)
+      val stats = binaryClient.getStats.values.head
+      assertEquals(stats.get("version"), Version.VERSION)
+      assertTrue(stats.containsKey("curr_items"))
+   }
+
+   def testPipelinedQuietGetsAnsweredTogether(m: Method) {
+      cache.put(k(m), v(m).getBytes)
+      val requests = ChannelBuffers.dynamicBuffer
+      writeRequest(requests, GETKQ, k(m, "missing-"), 1)
+      writeRequest(requests, GETKQ, k(m), 2)
+      writeRequest(requests, NOOP, "", 3)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(requests.array, requests.arrayOffset, requests.readableBytes)
+         val in = new DataInputStream(socket.getInputStream)
+         // The missing key gets no response
+         val get = readResponse(in)
+         assertEquals(get.opcode, GETKQ)
+         assertEquals(get.opaque, 2)
+         assertEquals(get.status, NO_ERROR)
+         assertEquals(new String(get.body, 4, k(m).length), k(m))
+         assertEquals(new String(get.body, 4 + k(m).length, v(m).length), v(m))
+         val noop = readResponse(in)
+         assertEquals(noop.opcode, NOOP)
+         assertEquals(noop.opaque, 3)
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testUnknownCommand() {
+      val requests = ChannelBuffers.dynamicBuffer
+      writeRequest(requests, 0x7f, "", 1)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(requests.array, requests.arrayOffset, requests.readableBytes)
+         assertEquals(readResponse(new DataInputStream(socket.getInputStream)).status, UNKNOWN_COMMAND)
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testRequestOverMaxBodyLengthRejected() {
+      val requests = ChannelBuffers.dynamicBuffer
+      writeRequest(requests, SET, "k", 1)
+      // Claim a body larger than the limit without sending it
+      requests.setInt(BODY_LENGTH_OFFSET, server.getConfiguration.maxBodyLength + 1)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(requests.array, requests.arrayOffset, requests.readableBytes)
+         val in = new DataInputStream(socket.getInputStream)
+         val response = readResponse(in)
+         assertEquals(response.status, VALUE_TOO_LARGE)
+         assertEquals(response.opaque, 1)
+         // The rest of the stream can't be read, so the connection is closed
+         assertEquals(in.read(), -1)
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def writeRequest(buffer: org.jboss.netty.buffer.ChannelBuffer, opcode: Int, key: String, opaque: Int) {
+      buffer.writeByte(MAGIC_REQ)
+      buffer.writeByte(opcode)
+      buffer.writeShort(key.length)
+      buffer.writeByte(0) // Extras length
+      buffer.writeByte(0) // Data type
+      buffer.writeShort(0) // Reserved
+      buffer.writeInt(key.length)
+      buffer.writeInt(opaque)
+      buffer.writeLong(0) // CAS
+      buffer.writeBytes(key.getBytes)
+   }
+
+   private def readResponse(in: DataInputStream): BinaryResponse = {
+      assertEquals(in.readUnsignedByte, MAGIC_RES)
+      val opcode = in.readUnsignedByte
+      in.readUnsignedShort // Key length
+      in.readUnsignedByte // Extras length
+      in.readUnsignedByte // Data type
+      val status = in.readUnsignedShort
+      val body = new Array[Byte](in.readInt)
+      val opaque = in.readInt
+      in.readLong // CAS
+      in.readFully(body)
+      new BinaryResponse(opcode, status, opaque, body)
+   }
+
+   private class BinaryResponse(val opcode: Int, val status: Int, val opaque: Int, val body: Array[Byte])
+
+}
@@ -0,0 +1,65 @@
+package org.infinispan.server.memcached
+
+import org.testng.Assert._
+import org.infinispan.test.TestingUtil._
+import org.testng.annotations.Test
+import java.util.concurrent.TimeUnit
+import java.lang.reflect.Method
+import java.io.{InputStreamReader, BufferedReader}
+import java.net.Socket
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.infinispan.configuration.cache.{CacheMode, ConfigurationBuilder}
+import java.util.concurrent.Callable
+
+/**
+ * Tests distributed Infinispan Memcached servers.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedDistributionTest")
+class MemcachedDistributionTest extends MemcachedMultiNodeTest {
+
+   protected def createCacheManager(index: Int): EmbeddedCacheManager = {
+      val builder = new ConfigurationBuilder
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC).hash().numOwners(1).l1().disable()
+      TestCacheManagerFactory.createClusteredCacheManager(builder)
+   }
+
+   def testDistributedGetMultipleKeys(m: Method) {
+      val keys = (0 until 20).map(i => k(m, "k" + i + "-"))
+      for ((key, i) <- keys.zipWithIndex)
+         assertTrue(clients.head.set(key, 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+
+      val requested = keys.reverse :+ k(m, "missing-")
+      val socket = new Socket(servers.head.getHost, servers.head.getPort)
+      try {
+         socket.getOutputStream.write(("get " + requested.mkString(" ") + "\r\n").getBytes)
+         val reader = new BufferedReader(new InputStreamReader(socket.getInputStream))
+         // The values come back in the order the keys were requested
+         for ((key, i) <- keys.zipWithIndex.reverse) {
+            assertTrue(reader.readLine.startsWith("VALUE " + key + " "))
+            assertEquals(reader.readLine, v(m, "v" + i + "-"))
+         }
+         assertEquals(reader.readLine, "END")
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testConcurrentIncrements(m: Method) {
+      assertTrue(clients.head.set(k(m), 0, "0").get(timeout, TimeUnit.SECONDS).booleanValue)
+      val increments = 100
+      // Both servers increment the counter, which is owned by one of them
+      val futures = for (client <- clients; i <- 0 until 2) yield fork(new Callable[Void] {
+         def call(): Void = {
+            for (j <- 0 until increments) assertTrue(client.incr(k(m), 1) > 0)
+            null
+         }
+      })
+      futures.foreach(_.get(timeout, TimeUnit.SECONDS))
+      for (client <- clients)
+         assertEquals(client.get(k(m)), (clients.size * 2 * increments).toString)
+   }
+
+}
@@ -0,0 +1,39 @@
+package org.infinispan.rest
+
+import java.util
+import org.codehaus.jackson.map.ObjectMapper
+import org.codehaus.jackson.`type`.TypeReference
+import org.infinispan.AdvancedCache
+import scala.collection.JavaConversions._
+
+/**
+ * The reads and writes of several entries at once, exchanged as JSON objects mapping the keys to their values.
+ *
+ * @since 6.0
+ */
+private[rest] object BulkOperations {
+
+   private val EntriesType = new TypeReference[util.Map[String, Array[Byte]]] {}
+
+   /**
+    * Reads the entries of the keys, the keys not found being left out of the map returned.
+    */
+   def getAll(cache: AdvancedCache[String, Array[Byte]], keys: Array[String]): util.Map[String, AnyRef] = {
+      val values = new util.LinkedHashMap[String, AnyRef]
+      val entries = cache.getAllCacheEntries(keys.toSeq)
+      // Keep the order of the keys requested
+      for (key <- keys) {
+         val entry = entries.get(key)
+         if (entry != null && entry.getValue != null)
+            values.put(key, entry.getValue)
+      }
+      values
+   }
+
+   /**
+    * Reads the entries of a JSON object, whose values are byte arrays encoded in Base64.
+    */
+   def readEntries(mapper: ObjectMapper, data: Array[Byte]): util.Map[String, Array[Byte]] =
+      mapper.readValue(data, EntriesType)
+
+}
@@ -0,0 +1,26 @@
+package org.infinispan.rest
+
+import org.infinispan.commons.hash.MurmurHash3
+import org.infinispan.container.entries.CacheEntry
+import org.infinispan.container.versioning.NumericVersion
+
+/**
+ * Computes the entity tags of the entries stored by the REST servers.
+ *
+ * @since 6.0
+ */
+private[rest] object EntityTags {
+
+   private val hashFunc = new MurmurHash3()
+
+   /**
+    * Returns the version of the entry, so that the tag is known without reading the value, or the hash of its value
+    * if the entry was stored without a version.
+    */
+   def apply(entry: CacheEntry, meta: MimeMetadata): String = meta.version() match {
+      case null => meta.contentType + hashFunc.hash(entry.getValue)
+      case numeric: NumericVersion => numeric.getVersion.toString
+      case version => version.toString
+   }
+
+}
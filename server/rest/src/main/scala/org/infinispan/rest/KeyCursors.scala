@@ -0,0 +1,165 @@
+package org.infinispan.rest
+
+import java.util.UUID
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import scala.collection.JavaConversions._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Keeps the cursors through which the clients list the keys of a cache one page at a time, so that neither the
+ * server nor the client ever hold more than a page of keys, unless the keys listed are already in memory as the
+ * global key set is.
+ *
+ * Cursors are weakly consistent: the keys added or removed while a cursor is open may or may not be listed. A cursor
+ * is dropped once its last page has been read, or when it has not been read for
+ * [[org.infinispan.rest.KeyCursors.CursorTimeoutMillis]], as its client may have gone.
+ *
+ * @since 6.0
+ */
+class KeyCursors {
+
+   import KeyCursors._
+
+   private val cursors = new ConcurrentHashMap[String, KeyCursor]
+
+   /**
+    * Opens a cursor over the keys and returns its first page.
+    */
+   def start(keys: Iterator[String], pageSize: Int): KeyPage = {
+      if (pageSize <= 0)
+         throw new IllegalArgumentException("Invalid page size " + pageSize)
+      dropExpiredCursors()
+      val id = UUID.randomUUID.toString
+      val cursor = new KeyCursor(keys, pageSize)
+      cursors.put(id, cursor)
+      nextPage(id, cursor)
+   }
+
+   /**
+    * @return the next page of the cursor, or None if the cursor is unknown, e.g. because it expired
+    */
+   def next(id: String): Option[KeyPage] = {
+      val cursor = cursors.get(id)
+      if (cursor == null) None else Some(nextPage(id, cursor))
+   }
+
+   def getCursorCount: Int = cursors.size
+
+   private def nextPage(id: String, cursor: KeyCursor): KeyPage = {
+      val keys = cursor.next()
+      if (cursor.hasNext) {
+         new KeyPage(keys, Some(id))
+      } else {
+         cursors.remove(id)
+         new KeyPage(keys, None)
+      }
+   }
+
+   private def dropExpiredCursors() {
+      val now = System.currentTimeMillis
+      for ((id, cursor) <- cursors) {
+         if (now - cursor.lastAccess > CursorTimeoutMillis)
+            cursors.remove(id, cursor)
+      }
+   }
+
+}
+
+object KeyCursors {
+
+   /**
+    * How long a cursor can stay unused before being dropped
+    */
+   val CursorTimeoutMillis = TimeUnit.MINUTES.toMillis(5)
+
+   /**
+    * The response header holding the cursor from which the next page of keys is read, absent on the last page
+    */
+   val CursorHeader = "Cursor"
+
+}
+
+/**
+ * A page of keys, and the cursor to read the next page from if there is one.
+ */
+class KeyPage(val keys: Seq[String], val cursor: Option[String])
+
+private class KeyCursor(keys: Iterator[String], pageSize: Int) {
+
+   @volatile var lastAccess = System.currentTimeMillis
+
+   def next(): Seq[String] = synchronized {
+      lastAccess = System.currentTimeMillis
+      val page = new ArrayBuffer[String](pageSize)
+      while (page.size < pageSize && keys.hasNext)
+         page += keys.next()
+      page
+   }
+
+   def hasNext: Boolean = synchronized { keys.hasNext }
+
+}
+
+/**
+ * Renders lists of keys in one of the media types supported for them, one key at a time, so that the keys can be
+ * written as they are read.
+ *
+ * @since 6.0
+ */
+private[rest] sealed abstract class KeyListFormat(val mediaType: String) {
+
+   def header: String
+
+   def key(key: String, first: Boolean): String
+
+   def footer: String
+
+   def render(keys: Iterable[String]): String = {
+      val sb = new StringBuilder(header)
+      var first = true
+      for (k <- keys) {
+         sb.append(key(k, first))
+         first = false
+      }
+      sb.append(footer).toString()
+   }
+
+}
+
+private[rest] object KeyListFormat {
+
+   val Html = new KeyListFormat("text/html") {
+      def header = "<html><body>"
+      def key(key: String, first: Boolean) = {
+         val hkey = Escaper.escapeHtml(key)
+         "<a href=\"" + hkey + "\">" + hkey + "</a><br/>"
+      }
+      def footer = "</body></html>"
+   }
+
+   val Xml = new KeyListFormat("application/xml") {
+      def header = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<keys>"
+      def key(key: String, first: Boolean) = "<key>" + Escaper.escapeXml(key) + "</key>"
+      def footer = "</keys>"
+   }
+
+   val Json = new KeyListFormat("application/json") {
+      def header = "keys=["
+      def key(key: String, first: Boolean) = (if (first) "\"" else ",\"") + Escaper.escapeJson(key) + "\""
+      def footer = "]"
+   }
+
+   val Text = new KeyListFormat("text/plain") {
+      def header = ""
+      def key(key: String, first: Boolean) = key + "\n"
+      def footer = ""
+   }
+
+   /**
+    * The formats in the order of preference used when the client accepts several of them equally
+    */
+   val All = Seq(Html, Xml, Json, Text)
+
+   def apply(mediaType: String): KeyListFormat = All.find(_.mediaType == mediaType).orNull
+
+}
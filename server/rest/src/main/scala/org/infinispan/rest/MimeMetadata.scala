@@ -17,35 +17,38 @@ import org.jboss.marshalling.util.IdentityIntMap
  * @author Galder Zamarreño
  * @since 5.3
  */
-class MimeMetadata(val contentType: String) extends Metadata {
+class MimeMetadata(val contentType: String, entryVersion: EntryVersion) extends Metadata {
+
+   def this(contentType: String) = this(contentType, null)
 
    def lifespan(): Long = -1
 
    def maxIdle(): Long = -1
 
-   def version(): EntryVersion = null
+   def version(): EntryVersion = entryVersion
 
    def builder(): Builder = new MimeMetadataBuilder().contentType(contentType)
+         .lifespan(lifespan()).maxIdle(maxIdle()).version(version())
 
    override def equals(obj: Any): Boolean = {
       obj match {
          case that: MimeMetadata =>
-            (that.canEqual(this)) && contentType == that.contentType
+            (that.canEqual(this)) && contentType == that.contentType && version() == that.version()
          case _ => false
       }
    }
 
    def canEqual(other: Any): Boolean = other.isInstanceOf[MimeMetadata]
 
-   override def hashCode(): Int = 41 + contentType.hashCode
+   override def hashCode(): Int = 41 * (41 + contentType.hashCode) + (if (version() == null) 0 else version().hashCode)
 
-   override def toString: String = s"MimeMetadata(contentType=$contentType)"
+   override def toString: String = s"MimeMetadata(contentType=$contentType, version=$entryVersion)"
 
 }
 
 private class MimeExpirableMetadata(override val contentType: String,
         lifespanTime: Long, lifespanUnit: TimeUnit,
-        maxIdleTime: Long, maxIdleUnit: TimeUnit) extends MimeMetadata(contentType) {
+        maxIdleTime: Long, maxIdleUnit: TimeUnit, entryVersion: EntryVersion) extends MimeMetadata(contentType, entryVersion) {
 
    override final val lifespan = lifespanUnit.toMillis(lifespanTime)
 
@@ -56,6 +59,7 @@ private class MimeExpirableMetadata(override val contentType: String,
          case that: MimeExpirableMetadata =>
             (that.canEqual(this)) &&
                     contentType == that.contentType &&
+                    version() == that.version() &&
                     lifespan == that.lifespan &&
                     maxIdle == that.maxIdle
          case _ => false
@@ -65,10 +69,10 @@ private class MimeExpirableMetadata(override val contentType: String,
    override def canEqual(other: Any): Boolean = other.isInstanceOf[MimeExpirableMetadata]
 
    override def hashCode(): Int =
-      41 * (41 * (41 + contentType.hashCode) + lifespan.toInt) + maxIdle.toInt
+      41 * (41 * super.hashCode() + lifespan.toInt) + maxIdle.toInt
 
    override def toString: String =
-      s"MimeExpirableMetadata(contentType=$contentType, lifespan=$lifespan, maxIdle=$maxIdle)"
+      s"MimeExpirableMetadata(contentType=$contentType, version=$entryVersion, lifespan=$lifespan, maxIdle=$maxIdle)"
 
 }
 
@@ -82,7 +86,7 @@ private class MimeMetadataBuilder extends EmbeddedMetadata.Builder {
    }
 
    override def build(): Metadata =
-      MimeMetadata(contentType, lifespan, lifespanUnit, maxIdle, maxIdleUnit)
+      MimeMetadata(contentType, lifespan, lifespanUnit, maxIdle, maxIdleUnit, version)
 
 }
 
@@ -90,19 +94,25 @@ object MimeMetadata {
 
    def apply(contentType: String,
            lifespan: Long, lifespanUnit: TimeUnit,
-           maxIdle: Long, maxIdleUnit: TimeUnit): MimeMetadata = {
+           maxIdle: Long, maxIdleUnit: TimeUnit): MimeMetadata =
+      apply(contentType, lifespan, lifespanUnit, maxIdle, maxIdleUnit, null)
+
+   def apply(contentType: String,
+           lifespan: Long, lifespanUnit: TimeUnit,
+           maxIdle: Long, maxIdleUnit: TimeUnit, version: EntryVersion): MimeMetadata = {
       if (lifespan < 0 && maxIdle < 0)
-         new MimeMetadata(contentType)
+         new MimeMetadata(contentType, version)
       else
-         new MimeExpirableMetadata(contentType, lifespan, lifespanUnit, maxIdle, maxIdleUnit)
+         new MimeExpirableMetadata(contentType, lifespan, lifespanUnit, maxIdle, maxIdleUnit, version)
    }
 
-   private def apply(contentType: String): MimeMetadata = new MimeMetadata(contentType)
-
    class Externalizer extends AbstractExternalizer[MimeMetadata] {
 
       final val Immortal = 0
       final val Expirable = 1
+      // Flags the metadata followed by a version, so that the metadata without version keeps the layout
+      // written before versions were added, and both layouts can be read
+      final val Versioned = 2
 
       final val numbers = new IdentityIntMap[Class[_]](2)
 
@@ -111,20 +121,29 @@ object MimeMetadata {
 
       def readObject(input: ObjectInput): MimeMetadata = {
          val contentType = input.readUTF()
-         val number = input.readUnsignedByte()
-         number match {
-            case Immortal => MimeMetadata(contentType)
+         val flags = input.readUnsignedByte()
+         val version =
+            if ((flags & Versioned) != 0) input.readObject().asInstanceOf[EntryVersion]
+            else null
+         flags & ~Versioned match {
+            case Immortal => new MimeMetadata(contentType, version)
             case Expirable =>
                val lifespan = input.readLong()
                val maxIdle = input.readLong()
-               MimeMetadata(contentType, lifespan, MILLIS, maxIdle, MILLIS)
+               MimeMetadata(contentType, lifespan, MILLIS, maxIdle, MILLIS, version)
          }
       }
 
       def writeObject(output: ObjectOutput, meta: MimeMetadata) {
          output.writeUTF(meta.contentType)
          val number = numbers.get(meta.getClass, -1)
-         output.write(number)
+         val version = meta.version()
+         if (version == null) {
+            output.write(number)
+         } else {
+            output.write(number | Versioned)
+            output.writeObject(version)
+         }
          if (number == Expirable) {
             output.writeLong(meta.lifespan())
             output.writeLong(meta.maxIdle())
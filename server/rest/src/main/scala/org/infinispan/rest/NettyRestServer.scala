@@ -0,0 +1,80 @@
+package org.infinispan.rest
+
+import org.infinispan.server.core.AbstractProtocolServer
+import org.infinispan.server.core.transport.{LifecycleChannelPipelineFactory, IdleStateHandlerProvider, TimeoutEnabledChannelPipelineFactory, NettyChannelPipelineFactory}
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.rest.configuration.RestServerConfiguration
+import org.jboss.netty.channel.{ChannelPipeline, ChannelHandler}
+import org.jboss.netty.handler.codec.http._
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.handler.timeout.IdleStateHandler
+import org.jboss.netty.handler.stream.ChunkedWriteHandler
+
+/**
+ * REST server running on the Netty transport shared with the other protocol servers, so that no servlet container is
+ * needed. It serves the same resources as the {@link Server} deployed in a servlet container, keeps the connections
+ * alive across requests, answers pipelined requests in order and sends the large values in chunks.
+ *
+ * @since 6.0
+ */
+class NettyRestServer extends AbstractProtocolServer("REST") {
+   type SuitableConfiguration = RestServerConfiguration
+
+   private var manager: ManagerInstance = _
+
+   override def start(configuration: RestServerConfiguration, cacheManager: EmbeddedCacheManager) {
+      manager = new ManagerInstance(cacheManager)
+      super.start(configuration, cacheManager)
+   }
+
+   override def getEncoder = null
+
+   override def getDecoder: ChannelHandler = new RestHandler(manager, configuration, transport)
+
+   override def getPipeline: LifecycleChannelPipelineFactory = new RestChannelPipelineFactory(this)
+
+}
+
+/**
+ * Decodes the HTTP requests, aggregating the chunked ones, compresses the responses for the clients accepting it and
+ * streams the responses read in chunks, ahead of the {@link RestHandler}.
+ */
+private class RestChannelPipelineFactory(server: NettyRestServer) extends NettyChannelPipelineFactory(server, null) {
+
+   override def getPipeline: ChannelPipeline = {
+      val pipeline = super.getPipeline
+      val configuration = server.getConfiguration
+      pipeline.addBefore("decoder", "httpDecoder", new HttpRequestDecoder)
+      pipeline.addBefore("decoder", "aggregator", new HttpChunkAggregator(configuration.maxContentLength))
+      pipeline.addBefore("decoder", "encoder", new HttpResponseEncoder)
+      pipeline.addBefore("decoder", "compressor", new ThresholdContentCompressor(RestHandler.CompressionThreshold))
+      pipeline.addBefore("decoder", "chunkedWriter", new ChunkedWriteHandler)
+      if (configuration.idleTimeout > 0) {
+         pipeline.addLast("idleHandler", new IdleStateHandler(TimeoutEnabledChannelPipelineFactory.timer, configuration.idleTimeout, 0, 0))
+         pipeline.addLast("idleHandlerProvider", new IdleStateHandlerProvider)
+      }
+      pipeline
+   }
+
+   override def stop {
+      if (server.getConfiguration.idleTimeout > 0)
+         TimeoutEnabledChannelPipelineFactory.timer.stop()
+   }
+
+}
+
+/**
+ * Gzips the responses whose body is at least as big as the threshold, or which are sent in chunks, since the smaller
+ * ones are hardly compressed at all.
+ */
+private class ThresholdContentCompressor(threshold: Int) extends HttpContentCompressor {
+
+   override protected def newContentEncoder(msg: HttpMessage, acceptEncoding: String): EncoderEmbedder[ChannelBuffer] = {
+      if (msg.isChunked || msg.getContent.readableBytes >= threshold)
+         super.newContentEncoder(msg, acceptEncoding)
+      else
+         null
+   }
+
+}
@@ -0,0 +1,588 @@
+package org.infinispan.rest
+
+import java.io._
+import java.text.{ParseException, SimpleDateFormat}
+import java.util.{TimeZone, Locale, Date}
+import java.util.concurrent.TimeUnit.{MILLISECONDS => MILLIS, SECONDS => SECS}
+import com.thoughtworks.xstream.XStream
+import org.codehaus.jackson.JsonProcessingException
+import org.codehaus.jackson.map.ObjectMapper
+import org.infinispan.AdvancedCache
+import org.infinispan.container.entries.InternalCacheEntry
+import org.infinispan.metadata.Metadata
+import org.infinispan.rest.configuration.{ExtendedHeaders, RestServerConfiguration}
+import org.infinispan.server.core.AbstractProtocolDecoder
+import org.infinispan.server.core.logging.Log
+import org.infinispan.server.core.transport.{RequestDecoder, NettyTransport}
+import org.infinispan.tasks.GlobalKeySetTask
+import org.jboss.netty.buffer.{ChannelBuffer, ChannelBuffers}
+import org.jboss.netty.channel._
+import org.jboss.netty.handler.codec.http._
+import org.jboss.netty.handler.codec.http.HttpHeaders.Names._
+import org.jboss.netty.handler.codec.http.HttpResponseStatus._
+import org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1
+import org.jboss.netty.handler.stream.ChunkedInput
+import org.jboss.netty.util.CharsetUtil
+import scala.collection.JavaConverters._
+
+/**
+ * Executes the REST requests decoded by Netty against the caches, with the same semantics as the {@link Server}
+ * resource, and writes the responses in the order of the requests.
+ *
+ * The connections are kept alive unless the client asks otherwise, and the values bigger than
+ * {@link RestHandler#ChunkSize} are sent to HTTP/1.1 clients in chunks slicing the stored value, rather than copied
+ * into a single response buffer.
+ *
+ * @since 6.0
+ */
+class RestHandler(manager: ManagerInstance, configuration: RestServerConfiguration, transport: NettyTransport)
+      extends SimpleChannelUpstreamHandler with RequestDecoder with Log {
+
+   import RestHandler._
+
+   private lazy val jsonMapper = new ObjectMapper
+   private lazy val xstream = new XStream
+   private val datePatternRfc1123LocaleUS = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US)
+   datePatternRfc1123LocaleUS.setTimeZone(TimeZone.getTimeZone("GMT"))
+
+   override def channelOpen(ctx: ChannelHandlerContext, e: ChannelStateEvent) {
+      transport.acceptedChannels.add(e.getChannel)
+      super.channelOpen(ctx, e)
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      val request = e.getMessage.asInstanceOf[HttpRequest]
+      val response =
+         try {
+            handle(request)
+         } catch {
+            case c: CacheNotFoundException => new DefaultHttpResponse(HTTP_1_1, NOT_FOUND)
+            case n: NumberFormatException => textResponse(BAD_REQUEST, n.getMessage)
+            case j: JsonProcessingException => textResponse(BAD_REQUEST, j.getMessage)
+            case t: Throwable =>
+               debug(t, "Error executing request %s", request)
+               textResponse(INTERNAL_SERVER_ERROR, t.toString)
+         }
+      write(ctx.getChannel, request, response)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      // Log it just in case the channel is closed or similar
+      debug(e.getCause, "Exception caught")
+      ctx.getChannel.close()
+   }
+
+   private def handle(request: HttpRequest): HttpResponse = {
+      val decoder = new QueryStringDecoder(request.getUri)
+      val params = decoder.getParameters
+      pathSegments(request.getUri) match {
+         case Array(RestContext, cacheName) => request.getMethod match {
+            case HttpMethod.GET => getKeys(request, cacheName, params)
+            case HttpMethod.POST => getEntries(request, cacheName)
+            case HttpMethod.PUT => putEntries(request, cacheName)
+            case HttpMethod.DELETE => killCache(request, cacheName)
+            case _ => new DefaultHttpResponse(HTTP_1_1, METHOD_NOT_ALLOWED)
+         }
+         case Array(RestContext, cacheName, key) =>
+            val extended = wantExtendedHeaders(params.containsKey("extended"))
+            request.getMethod match {
+               case HttpMethod.GET => getEntry(request, cacheName, key, extended, withBody = true)
+               case HttpMethod.HEAD => getEntry(request, cacheName, key, extended, withBody = false)
+               case HttpMethod.PUT | HttpMethod.POST => putEntry(request, cacheName, key)
+               case HttpMethod.DELETE => removeEntry(request, cacheName, key)
+               case _ => new DefaultHttpResponse(HTTP_1_1, METHOD_NOT_ALLOWED)
+            }
+         case _ => new DefaultHttpResponse(HTTP_1_1, NOT_FOUND)
+      }
+   }
+
+   private def getKeys(request: HttpRequest, cacheName: String, params: java.util.Map[String, java.util.List[String]]): HttpResponse = {
+      val format = KeyListFormat(selectMediaType(request, KeyListFormat.All.map(_.mediaType)))
+      if (format == null)
+         return new DefaultHttpResponse(HTTP_1_1, NOT_ACCEPTABLE)
+      param(params, "cursor") match {
+         case Some(cursor) =>
+            manager.keyCursors.next(cursor) match {
+               case Some(page) => keyPageResponse(format, page)
+               case None => new DefaultHttpResponse(HTTP_1_1, NOT_FOUND)
+            }
+         case None =>
+            val cache = manager.getCache(cacheName)
+            // The local key set is a view of the data container, iterated while the keys are written
+            val keys = (if (params.containsKey("global")) GlobalKeySetTask.getGlobalKeySet(cache) else cache.keySet()).asScala
+            param(params, "batchSize").map(_.toInt).getOrElse(0) match {
+               case batchSize if batchSize > 0 =>
+                  keyPageResponse(format, manager.keyCursors.start(keys.iterator, batchSize))
+               case _ =>
+                  val response = new StreamedResponse(new KeyListInput(keys.iterator, format))
+                  response.setHeader(CONTENT_TYPE, format.mediaType)
+                  response
+            }
+      }
+   }
+
+   private def keyPageResponse(format: KeyListFormat, page: KeyPage): HttpResponse = {
+      val response = new DefaultHttpResponse(HTTP_1_1, OK)
+      response.setHeader(CONTENT_TYPE, format.mediaType)
+      page.cursor.foreach(response.setHeader(KeyCursors.CursorHeader, _))
+      response.setContent(ChannelBuffers.copiedBuffer(format.render(page.keys), CharsetUtil.UTF_8))
+      response
+   }
+
+   private def getEntries(request: HttpRequest, cacheName: String): HttpResponse = {
+      val keys = jsonMapper.readValue(contentBytes(request), classOf[Array[String]])
+      val values = BulkOperations.getAll(manager.getCache(cacheName), keys)
+      val response = new DefaultHttpResponse(HTTP_1_1, OK)
+      response.setHeader(CONTENT_TYPE, ApplicationJson)
+      response.setContent(ChannelBuffers.wrappedBuffer(jsonMapper.writeValueAsBytes(values)))
+      response
+   }
+
+   private def putEntries(request: HttpRequest, cacheName: String): HttpResponse = {
+      val cache = manager.getCache(cacheName)
+      val entries = BulkOperations.readEntries(jsonMapper, contentBytes(request))
+      val metadata = createMetadata(cache, ApplicationOctetStream, longHeader(request, "timeToLiveSeconds"),
+         longHeader(request, "maxIdleTimeSeconds"))
+      cache.putAll(entries, metadata)
+      new DefaultHttpResponse(HTTP_1_1, OK)
+   }
+
+   private def getEntry(request: HttpRequest, cacheName: String, key: String, extended: Boolean,
+           withBody: Boolean): HttpResponse = {
+      manager.getInternalEntry(cacheName, key) match {
+         case ice: InternalCacheEntry =>
+            val lastMod = lastModified(ice)
+            val expires = if (ice.canExpire) new Date(ice.getExpiryTime) else null
+            val response = ice.getMetadata match {
+               case meta: MimeMetadata =>
+                  val etag = calcETAG(ice, meta)
+                  val failed = evaluatePreconditions(request, lastMod, etag)
+                  if (failed != null) return failed
+                  val ok = new DefaultHttpResponse(HTTP_1_1, OK)
+                  ok.setHeader(ETAG, etag)
+                  entity(ok, meta.contentType, ice.getValue.asInstanceOf[Array[Byte]], withBody, encoded = true)
+               case _ if !withBody =>
+                  new DefaultHttpResponse(HTTP_1_1, OK)
+               case _ =>
+                  ice.getValue match {
+                     case s: String =>
+                        entity(new DefaultHttpResponse(HTTP_1_1, OK), TextPlain, s.getBytes(CharsetUtil.UTF_8),
+                           withBody, encoded = false)
+                     case ba: Array[Byte] =>
+                        entity(new DefaultHttpResponse(HTTP_1_1, OK), ApplicationOctetStream, ba, withBody, encoded = true)
+                     case obj: Any =>
+                        val rendered = renderObject(request, obj)
+                        if (rendered == null) return new DefaultHttpResponse(HTTP_1_1, NOT_ACCEPTABLE)
+                        entity(new DefaultHttpResponse(HTTP_1_1, OK), rendered._1, rendered._2, withBody, encoded = false)
+                  }
+            }
+            response.setHeader(LAST_MODIFIED, formatDate(lastMod))
+            if (expires != null)
+               response.setHeader(EXPIRES, formatDate(expires))
+            if (extended) {
+               // Local caches have no owners nor addresses
+               Seq("Cluster-Primary-Owner" -> manager.getPrimaryOwner(cacheName, key),
+                  "Cluster-Node-Name" -> manager.getNodeName,
+                  "Cluster-Server-Address" -> manager.getServerAddress)
+                  .filter(_._2 != null).foreach(h => response.setHeader(h._1, h._2))
+            }
+            response
+         case _ => new DefaultHttpResponse(HTTP_1_1, NOT_FOUND)
+      }
+   }
+
+   /**
+    * Renders the objects other than Strings or byte arrays as JSON, XML or with Java serialization, depending on what
+    * the client accepts. Returns null if the client accepts none of them.
+    */
+   private def renderObject(request: HttpRequest, obj: Any): (String, Array[Byte]) = {
+      val out = new ByteArrayOutputStream
+      selectMediaType(request, ObjectMediaTypes) match {
+         case ApplicationJson =>
+            jsonMapper.writeValue(out, obj)
+            (ApplicationJson, out.toByteArray)
+         case ApplicationXml =>
+            xstream.toXML(obj, out)
+            (ApplicationXml, out.toByteArray)
+         case ApplicationXJavaSerializedObject =>
+            obj match {
+               case ser: Serializable =>
+                  val oos = new ObjectOutputStream(out)
+                  oos.writeObject(ser)
+                  oos.close()
+                  (ApplicationXJavaSerializedObject, out.toByteArray)
+               case _ => null
+            }
+         case _ => null
+      }
+   }
+
+   private def entity(response: HttpResponse, contentType: String, data: Array[Byte], withBody: Boolean,
+           encoded: Boolean): HttpResponse = {
+      response.setHeader(CONTENT_TYPE, contentType)
+      if (encoded && data.length >= CompressionThreshold)
+         response.setHeader(VARY, ACCEPT_ENCODING)
+      if (withBody)
+         response.setContent(ChannelBuffers.wrappedBuffer(data))
+      else
+         HttpHeaders.setContentLength(response, data.length)
+      response
+   }
+
+   private def putEntry(request: HttpRequest, cacheName: String, key: String): HttpResponse = {
+      val cache = manager.getCache(cacheName)
+      val data = contentBytes(request)
+      val mediaType = request.getHeader(CONTENT_TYPE) match {
+         case null => ApplicationOctetStream
+         case contentType => contentType
+      }
+      val metadata = createMetadata(cache, mediaType, longHeader(request, "timeToLiveSeconds"),
+         longHeader(request, "maxIdleTimeSeconds"))
+      if (request.getMethod == HttpMethod.POST) {
+         if (useAsync(request)) {
+            if (cache.containsKey(key)) {
+               new DefaultHttpResponse(HTTP_1_1, CONFLICT)
+            } else {
+               cache.putAsync(key, data, metadata)
+               new DefaultHttpResponse(HTTP_1_1, OK)
+            }
+         } else {
+            if (cache.putIfAbsent(key, data, metadata) == null) new DefaultHttpResponse(HTTP_1_1, OK)
+            else new DefaultHttpResponse(HTTP_1_1, CONFLICT)
+         }
+      } else {
+         val prevCond = manager.getInternalEntry(cacheName, key) match {
+            case ice: InternalCacheEntry =>
+               ice.getMetadata match {
+                  case mime: MimeMetadata =>
+                     // The item already exists in the cache, evaluate preconditions based on its attributes and the headers
+                     val failed = evaluatePreconditions(request, lastModified(ice), calcETAG(ice, mime))
+                     if (failed != null) return failed
+                     Some(ice.getValue.asInstanceOf[Array[Byte]])
+                  case _ => None
+               }
+            case _ =>
+               // An If-Match header requires an existing entry, while an If-None-Match header only creates it
+               if (request.getHeader(IF_MATCH) != null)
+                  return new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+               if (request.getHeader(IF_NONE_MATCH) != null) {
+                  if (cache.putIfAbsent(key, data, metadata) == null) return new DefaultHttpResponse(HTTP_1_1, OK)
+                  else return new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+               }
+               None
+         }
+         if (useAsync(request)) {
+            cache.putAsync(key, data, metadata)
+            new DefaultHttpResponse(HTTP_1_1, OK)
+         } else prevCond match {
+            case None =>
+               cache.put(key, data, metadata)
+               new DefaultHttpResponse(HTTP_1_1, OK)
+            case Some(prev) =>
+               // If not replaced, simply send back that the precondition failed
+               if (cache.replace(key, prev, data, metadata)) new DefaultHttpResponse(HTTP_1_1, OK)
+               else new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+         }
+      }
+   }
+
+   private def createMetadata(cache: AdvancedCache[String, Array[Byte]], dataType: String, ttl: Long,
+           idleTime: Long): Metadata = {
+      val cfg = cache.getCacheConfiguration
+      val version = AbstractProtocolDecoder.generateVersion(cache)
+      (ttl, idleTime) match {
+         case (0, 0) => MimeMetadata(dataType,
+            cfg.expiration().lifespan(), MILLIS,
+            cfg.expiration().maxIdle(), MILLIS, version)
+         case (lifespan, 0) =>
+            MimeMetadata(dataType, lifespan, SECS, cfg.expiration().maxIdle(), MILLIS, version)
+         case (lifespan, maxIdle) =>
+            MimeMetadata(dataType, lifespan, SECS, maxIdle, SECS, version)
+      }
+   }
+
+   private def removeEntry(request: HttpRequest, cacheName: String, key: String): HttpResponse = {
+      manager.getInternalEntry(cacheName, key) match {
+         case ice: InternalCacheEntry =>
+            val conditional = ice.getMetadata match {
+               case meta: MimeMetadata =>
+                  // The item exists in the cache, evaluate preconditions based on its attributes and the headers
+                  val failed = evaluatePreconditions(request, lastModified(ice), calcETAG(ice, meta))
+                  if (failed != null) return failed
+                  request.getHeader(IF_MATCH) != null
+               case _ => false
+            }
+            if (useAsync(request)) {
+               manager.getCache(cacheName).removeAsync(key)
+            } else if (conditional) {
+               // Only remove the entry whose entity tag was matched
+               if (!manager.getCache(cacheName).remove(key, ice.getValue))
+                  return new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+            } else {
+               manager.getCache(cacheName).remove(key)
+            }
+            new DefaultHttpResponse(HTTP_1_1, OK)
+         case _ => new DefaultHttpResponse(HTTP_1_1, OK)
+      }
+   }
+
+   private def killCache(request: HttpRequest, cacheName: String): HttpResponse = {
+      if (Array(IF_MATCH, IF_NONE_MATCH, IF_MODIFIED_SINCE, IF_UNMODIFIED_SINCE).forall(request.getHeader(_) == null)) {
+         manager.getCache(cacheName).clear()
+         new DefaultHttpResponse(HTTP_1_1, OK)
+      } else {
+         textResponse(NOT_IMPLEMENTED, "Preconditions were not implemented yet for PUT, POST, and DELETE methods.")
+      }
+   }
+
+   /**
+    * Evaluates the conditional headers of the request against the entry, as JAX-RS does for the servlet deployment.
+    * Returns the response to send if a precondition failed, or null otherwise.
+    */
+   private def evaluatePreconditions(request: HttpRequest, lastMod: Date, etag: String): HttpResponse = {
+      val isRead = request.getMethod == HttpMethod.GET || request.getMethod == HttpMethod.HEAD
+      val ifMatch = request.getHeader(IF_MATCH)
+      if (ifMatch != null && !matchesETag(ifMatch, etag))
+         return new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+      val ifUnmodifiedSince = parseDate(request.getHeader(IF_UNMODIFIED_SINCE))
+      if (ifUnmodifiedSince != null && lastMod.after(ifUnmodifiedSince))
+         return new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+      val ifNoneMatch = request.getHeader(IF_NONE_MATCH)
+      if (ifNoneMatch != null && matchesETag(ifNoneMatch, etag))
+         return notModifiedOrFailed(isRead, etag)
+      val ifModifiedSince = parseDate(request.getHeader(IF_MODIFIED_SINCE))
+      if (isRead && ifNoneMatch == null && ifModifiedSince != null && !lastMod.after(ifModifiedSince))
+         return notModifiedOrFailed(isRead, etag)
+      null
+   }
+
+   private def notModifiedOrFailed(isRead: Boolean, etag: String): HttpResponse = {
+      if (isRead) {
+         val response = new DefaultHttpResponse(HTTP_1_1, NOT_MODIFIED)
+         response.setHeader(ETAG, etag)
+         response
+      } else {
+         new DefaultHttpResponse(HTTP_1_1, PRECONDITION_FAILED)
+      }
+   }
+
+   private def matchesETag(header: String, etag: String): Boolean =
+      header.split(',').map(_.trim.stripPrefix("W/")).exists(tag => tag == "*" || tag == etag)
+
+   private def parseDate(date: String): Date = {
+      if (date == null)
+         null
+      else try {
+         datePatternRfc1123LocaleUS.parse(date)
+      } catch {
+         case e: ParseException => null
+      }
+   }
+
+   private def formatDate(date: Date): String = datePatternRfc1123LocaleUS.format(date)
+
+   private def calcETAG(entry: InternalCacheEntry, meta: MimeMetadata): String = "\"" + EntityTags(entry, meta) + "\""
+
+   private def lastModified(ice: InternalCacheEntry): Date = new Date(ice.getCreated / 1000 * 1000)
+
+   private def wantExtendedHeaders(extended: Boolean): Boolean = configuration.extendedHeaders() match {
+      case ExtendedHeaders.NEVER => false
+      case ExtendedHeaders.ON_DEMAND => extended
+   }
+
+   private def useAsync(request: HttpRequest): Boolean = java.lang.Boolean.parseBoolean(request.getHeader("performAsync"))
+
+   private def longHeader(request: HttpRequest, name: String): Long = request.getHeader(name) match {
+      case null => -1
+      case value => value.trim.toLong
+   }
+
+   private def param(params: java.util.Map[String, java.util.List[String]], name: String): Option[String] =
+      Option(params.get(name)).flatMap(_.asScala.headOption)
+
+   private def contentBytes(request: HttpRequest): Array[Byte] = {
+      val content = request.getContent
+      val data = new Array[Byte](content.readableBytes)
+      content.readBytes(data)
+      data
+   }
+
+   private def textResponse(status: HttpResponseStatus, text: String): HttpResponse = {
+      val response = new DefaultHttpResponse(HTTP_1_1, status)
+      response.setHeader(CONTENT_TYPE, TextPlain)
+      response.setContent(ChannelBuffers.copiedBuffer(text, CharsetUtil.UTF_8))
+      response
+   }
+
+   /**
+    * Writes the response, in chunks if its body is big and the client speaks HTTP/1.1, and closes the connection
+    * afterwards unless it is kept alive.
+    */
+   private def write(ch: Channel, request: HttpRequest, response: HttpResponse) {
+      val keepAlive = HttpHeaders.isKeepAlive(request)
+      val http11 = request.getProtocolVersion == HTTP_1_1
+      response match {
+         // HTTP/1.0 clients do not understand chunks
+         case streamed: StreamedResponse if !http11 => response.setContent(streamed.drain())
+         case _ =>
+      }
+      val content = response.getContent
+      val future = response match {
+         case streamed: StreamedResponse if http11 =>
+            response.setChunked(true)
+            response.setHeader(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED)
+            ch.write(response)
+            // Written by the chunked write handler as the channel becomes writable
+            ch.write(streamed.input)
+         case _ if content.readableBytes > ChunkSize && http11 =>
+            response.setContent(ChannelBuffers.EMPTY_BUFFER)
+            response.setChunked(true)
+            response.setHeader(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED)
+            ch.write(response)
+            while (content.readableBytes > 0)
+               ch.write(new DefaultHttpChunk(content.readSlice(math.min(ChunkSize, content.readableBytes))))
+            ch.write(HttpChunk.LAST_CHUNK)
+         case _ =>
+            if (!response.containsHeader(CONTENT_LENGTH))
+               HttpHeaders.setContentLength(response, content.readableBytes)
+            if (keepAlive && !http11)
+               response.setHeader(CONNECTION, HttpHeaders.Values.KEEP_ALIVE)
+            ch.write(response)
+      }
+      if (!keepAlive)
+         future.addListener(ChannelFutureListener.CLOSE)
+   }
+
+   private def pathSegments(uri: String): Array[String] = {
+      val queryStart = uri.indexOf('?')
+      val path = if (queryStart < 0) uri else uri.substring(0, queryStart)
+      // Unlike in query strings, '+' stands for itself in the path
+      path.split('/').filter(!_.isEmpty).map(s => QueryStringDecoder.decodeComponent(s.replace("+", "%2B")))
+   }
+
+   /**
+    * Picks the first of the media types with the highest quality in the Accept header of the request, or the first
+    * media type if the request does not have any. Returns null if none of the media types is acceptable.
+    */
+   private def selectMediaType(request: HttpRequest, mediaTypes: Seq[String]): String = {
+      val accept = request.getHeader(ACCEPT)
+      if (accept == null || accept.trim.isEmpty) {
+         mediaTypes.head
+      } else {
+         val ranges = accept.split(',').map(parseMediaRange).toSeq
+         val qualities = mediaTypes.map(mediaType => (mediaType, quality(mediaType, ranges)))
+         val best = qualities.foldLeft((null: String, 0.0)) { (best, candidate) =>
+            if (candidate._2 > best._2) candidate else best
+         }
+         best._1
+      }
+   }
+
+   private def parseMediaRange(range: String): (String, Double) = {
+      val parts = range.split(';').map(_.trim)
+      val q = parts.tail.find(_.startsWith("q=")).map(p =>
+         try { p.substring(2).toDouble } catch { case e: NumberFormatException => 1.0 }).getOrElse(1.0)
+      (parts.head.toLowerCase, q)
+   }
+
+   private def quality(mediaType: String, ranges: Seq[(String, Double)]): Double = {
+      val wildcard = mediaType.substring(0, mediaType.indexOf('/')) + "/*"
+      // The most specific range applies
+      Seq(mediaType, wildcard, "*/*").view.map(r => ranges.find(_._1 == r)).find(_.isDefined).flatten match {
+         case Some((_, q)) => q
+         case None => 0
+      }
+   }
+
+}
+
+object RestHandler {
+
+   /** The size in bytes from which the values are compressed for the clients accepting gzip */
+   val CompressionThreshold = 1024
+
+   /** The size in bytes from which the values are sent in chunks of this size */
+   val ChunkSize = 64 * 1024
+
+   private val RestContext = "rest"
+   private val TextPlain = "text/plain"
+   private val ApplicationXml = "application/xml"
+   private val ApplicationJson = "application/json"
+   private val ApplicationOctetStream = "application/octet-stream"
+   private val ApplicationXJavaSerializedObject = "application/x-java-serialized-object"
+   private val ObjectMediaTypes = Seq(ApplicationXml, ApplicationJson, ApplicationXJavaSerializedObject)
+
+}
+
+/**
+ * A response whose body is written in chunks, read from its input as the channel becomes writable.
+ */
+private class StreamedResponse(val input: ChunkedInput) extends DefaultHttpResponse(HTTP_1_1, OK) {
+
+   /**
+    * Reads the whole body, for the clients which cannot receive it in chunks.
+    */
+   def drain(): ChannelBuffer = {
+      val body = ChannelBuffers.dynamicBuffer
+      try {
+         while (input.hasNextChunk)
+            body.writeBytes(input.nextChunk.asInstanceOf[HttpChunk].getContent)
+      } finally {
+         input.close()
+      }
+      body
+   }
+
+}
+
+/**
+ * Renders keys as they are read, in chunks of about {@link KeyListInput#ChunkSize} bytes, the last chunk ending the
+ * response, so that listing the keys of a cache does not need more memory than a chunk.
+ */
+private class KeyListInput(keys: Iterator[String], format: KeyListFormat) extends ChunkedInput {
+
+   private var first = true
+   private var footerWritten = false
+   private var ended = false
+
+   override def hasNextChunk: Boolean = !ended
+
+   override def nextChunk: AnyRef = {
+      if (footerWritten) {
+         ended = true
+         HttpChunk.LAST_CHUNK
+      } else {
+         val sb = new StringBuilder
+         if (first) sb.append(format.header)
+         while (sb.length < KeyListInput.ChunkSize && keys.hasNext) {
+            sb.append(format.key(keys.next(), first))
+            first = false
+         }
+         first = false
+         if (!keys.hasNext) {
+            sb.append(format.footer)
+            footerWritten = true
+         }
+         if (sb.isEmpty) {
+            // An empty chunk would end the response
+            ended = true
+            HttpChunk.LAST_CHUNK
+         } else {
+            new DefaultHttpChunk(ChannelBuffers.copiedBuffer(sb, CharsetUtil.UTF_8))
+         }
+      }
+   }
+
+   override def isEndOfInput: Boolean = ended
+
+   override def close() {
+      // Nothing to release, the keys being a view of the cache
+   }
+
+}
+
+private object KeyListInput {
+
+   val ChunkSize = 8192
+
+}
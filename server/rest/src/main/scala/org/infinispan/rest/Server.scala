@@ -13,7 +13,6 @@ import org.infinispan.manager._
 import org.codehaus.jackson.map.ObjectMapper
 import org.infinispan.AdvancedCache
 import org.infinispan.commons.CacheException
-import org.infinispan.commons.hash.MurmurHash3
 import javax.ws.rs._
 import javax.servlet.http.HttpServletResponse
 import javax.servlet.ServletContext
@@ -27,8 +26,8 @@ import org.infinispan.rest.configuration.ExtendedHeaders
 import org.infinispan.remoting.transport.jgroups.JGroupsTransport
 import org.infinispan.distribution.DistributionManager
 import org.infinispan.remoting.transport.Address
-import org.infinispan.configuration.cache.Configuration
 import org.infinispan.metadata.Metadata
+import org.infinispan.server.core.AbstractProtocolDecoder
 import java.text.SimpleDateFormat
 import org.jboss.resteasy.util.HttpHeaderNames
 
@@ -60,48 +59,92 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
 
    datePatternRfc1123LocaleUS.setTimeZone(TimeZone.getTimeZone("GMT"))
 
+   /**
+    * Lists the keys of the cache, all of them or, if a page size or a cursor is given, one page at a time. The
+    * {@link KeyCursors#CursorHeader} header of a page holds the cursor to pass to read the next page.
+    */
    @GET
    @Path("/{cacheName}")
-   def getKeys(@PathParam("cacheName") cacheName: String, @QueryParam("global") globalKeySet: String): Response = {
+   def getKeys(@PathParam("cacheName") cacheName: String, @QueryParam("global") globalKeySet: String,
+               @DefaultValue("0") @QueryParam("batchSize") batchSize: Int, @QueryParam("cursor") cursor: String): Response = {
       protectCacheNotFound(request, useAsync) { (request, useAsync) => {
-         val cache = manager.getCache(cacheName)
-         val keys = (if (globalKeySet !=null) GlobalKeySetTask.getGlobalKeySet(cache) else cache.keySet()).asScala
          val variant = request.selectVariant(collectionVariantList)
-         val selectedMediaType = if (variant != null) variant.getMediaType.toString else null
-         selectedMediaType match {
-            case MediaType.TEXT_HTML => Response.ok.`type`(MediaType.TEXT_HTML).entity(printIt( pw => {
-               pw.print("<html><body>")
-               keys.foreach(key => {
-                  val hkey = Escaper.escapeHtml(key)
-                  pw.printf("<a href=\"%s\">%s</a><br/>", hkey, hkey)
-               })
-               pw.print("</body></html>")
-            })).build
-            case MediaType.APPLICATION_XML => Response.ok.`type`(MediaType.APPLICATION_XML).entity(printIt( pw => {
-               pw.print("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<keys>")
-               keys.foreach(key => pw.printf("<key>%s</key>", Escaper.escapeXml(key)))
-               pw.print("</keys>")
-            })).build
-            case MediaType.APPLICATION_JSON => Response.ok.`type`(MediaType.APPLICATION_JSON).entity(printIt( pw => {
-               pw.print("keys=[")
-               val it = keys.iterator
-               while (it.hasNext) {
-                  pw.printf("\"%s\"", Escaper.escapeJson(it.next()))
-                  if (it.hasNext) pw.print(",")
-
-               }
-               pw.print("]")
-            })).build
-            case MediaType.TEXT_PLAIN => Response.ok.`type`(MediaType.TEXT_PLAIN).entity(printIt( pw => keys.foreach(pw.println(_)) )).build
-            case null => Response.notAcceptable(collectionVariantList).build
+         val format = if (variant != null) KeyListFormat(variant.getMediaType.toString) else null
+         if (format == null) {
+            Response.notAcceptable(collectionVariantList).build
+         } else if (cursor != null) {
+            manager.keyCursors.next(cursor) match {
+               case Some(page) => keyPageResponse(format, page)
+               case None => Response.status(Status.NOT_FOUND).build
+            }
+         } else {
+            val cache = manager.getCache(cacheName)
+            // The local key set is a view of the data container, iterated while the keys are written
+            val keys = (if (globalKeySet != null) GlobalKeySetTask.getGlobalKeySet(cache) else cache.keySet()).asScala
+            if (batchSize > 0) {
+               keyPageResponse(format, manager.keyCursors.start(keys.iterator, batchSize))
+            } else {
+               Response.ok.`type`(format.mediaType).entity(printIt( pw => {
+                  pw.print(format.header)
+                  var first = true
+                  keys.foreach(key => {
+                     pw.print(format.key(key, first))
+                     first = false
+                  })
+                  pw.print(format.footer)
+               })).build
+            }
          }
       }
       }
    }
 
+   private def keyPageResponse(format: KeyListFormat, page: KeyPage): Response = {
+      val bld = Response.ok.`type`(format.mediaType).entity(format.render(page.keys))
+      page.cursor.foreach(bld.header(KeyCursors.CursorHeader, _))
+      bld.build
+   }
+
+   /**
+    * Reads the entries of the keys of the JSON array posted, with a single remote call per owner in a distributed
+    * cache, and returns them as a JSON object mapping the keys found to their values, byte arrays being encoded in
+    * Base64.
+    */
+   @POST
+   @Path("/{cacheName}")
+   @Consumes(Array(MediaType.APPLICATION_JSON))
+   @Produces(Array(MediaType.APPLICATION_JSON))
+   def getEntries(@PathParam("cacheName") cacheName: String, data: Array[Byte]): Response = {
+      protectCacheNotFound(request, useAsync) { (request, useAsync) =>
+         val keys = jsonMapper.readValue(data, classOf[Array[String]])
+         val values = BulkOperations.getAll(manager.getCache(cacheName), keys)
+         Response.ok.`type`(MediaType.APPLICATION_JSON).entity(streamIt(jsonMapper.writeValue(_, values))).build
+      }
+   }
+
+   /**
+    * Stores all the entries of the JSON object put, mapping the keys to their values encoded in Base64, as
+    * application/octet-stream entries.
+    */
+   @PUT
+   @Path("/{cacheName}")
+   @Consumes(Array(MediaType.APPLICATION_JSON))
+   def putEntries(@PathParam("cacheName") cacheName: String, data: Array[Byte],
+                  @DefaultValue("-1") @HeaderParam("timeToLiveSeconds") ttl: Long,
+                  @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long): Response = {
+      protectCacheNotFound(request, useAsync) { (request, useAsync) =>
+         val cache = manager.getCache(cacheName)
+         val entries = BulkOperations.readEntries(jsonMapper, data)
+         val metadata = createMetadata(cache, MediaType.APPLICATION_OCTET_STREAM, ttl, idleTime)
+         cache.putAll(entries, metadata)
+         Response.ok.build
+      }
+   }
+
    @GET
    @Path("/{cacheName}/{cacheKey}")
-   def getEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String, @QueryParam("extended") extended: String): Response = {
+   def getEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String, @QueryParam("extended") extended: String,
+                @HeaderParam("Accept-Encoding") acceptEncoding: String): Response = {
       protectCacheNotFound(request, useAsync) { (request, useAsync) =>
          manager.getInternalEntry(cacheName, key) match {
             case ice: InternalCacheEntry => {
@@ -109,9 +152,9 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
                val expires = if (ice.canExpire) new Date(ice.getExpiryTime) else null
                ice.getMetadata match {
                   case meta: MimeMetadata =>
-                     getMimeEntry(ice, meta, lastMod, expires, cacheName, extended)
+                     getMimeEntry(ice, meta, lastMod, expires, cacheName, extended, acceptEncoding)
                   case _ =>
-                     getAnyEntry(ice, lastMod, expires, cacheName, extended)
+                     getAnyEntry(ice, lastMod, expires, cacheName, extended, acceptEncoding)
                }
             }
             case _ => Response.status(Status.NOT_FOUND).build
@@ -127,7 +170,7 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
    }
 
    private def getMimeEntry(ice: InternalCacheEntry, meta: MimeMetadata,
-           lastMod: Date, expires: Date, cacheName: String, extended: String): Response = {
+           lastMod: Date, expires: Date, cacheName: String, extended: String, acceptEncoding: String): Response = {
       val key = ice.getKey.asInstanceOf[String]
       request.evaluatePreconditions(lastMod, calcETAG(ice, meta)) match {
          case bldr: ResponseBuilder => bldr.build
@@ -136,12 +179,13 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
                   //workaround for https://issues.jboss.org/browse/RESTEASY-887
                  .header(HttpHeaderNames.EXPIRES, formatDate(expires))
                  .tag(calcETAG(ice, meta))
-                 .extended(cacheName, key, wantExtendedHeaders(extended)).build
+                 .extended(cacheName, key, wantExtendedHeaders(extended))
+                 .encoded(ice.getValue.asInstanceOf[Array[Byte]].length, acceptEncoding).build
       }
    }
 
    private def getAnyEntry(ice: InternalCacheEntry, lastMod: Date, expires: Date,
-           cacheName: String, extended: String): Response = {
+           cacheName: String, extended: String, acceptEncoding: String): Response = {
       val key = ice.getKey.asInstanceOf[String]
       ice.getValue match {
 
@@ -155,6 +199,7 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
                                  .header(HttpHeaderNames.LAST_MODIFIED, formatDate(lastMod))
                                  .header(HttpHeaderNames.EXPIRES, formatDate(expires))
                                  .extended(cacheName, key, wantExtendedHeaders(extended))
+                                 .encoded(ba.length, acceptEncoding)
                                  .entity(streamIt(_.write(ba)))
                                  .build
          case obj: Any => {
@@ -212,8 +257,35 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
          } else
             bld
       }
+
+      /**
+       * Has the entity gzipped by RESTEasy's encoding interceptor if the client accepts it and the entity is big
+       * enough for the compression to pay off.
+       */
+      def encoded(size: Int, acceptEncoding: String) = {
+         if (size >= CompressionThreshold) {
+            bld.header(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING)
+            if (acceptsGzip(acceptEncoding)) bld.header(HttpHeaderNames.CONTENT_ENCODING, "gzip") else bld
+         } else
+            bld
+      }
    }
 
+   private def acceptsGzip(acceptEncoding: String): Boolean = {
+      acceptEncoding != null && acceptEncoding.split(',').exists(coding => {
+         val parts = coding.split(';').map(_.trim)
+         val rejected = parts.tail.exists(p => p.startsWith("q=") && isZero(p.substring(2)))
+         (parts.head.equalsIgnoreCase("gzip") || parts.head == "*") && !rejected
+      })
+   }
+
+   private def isZero(qvalue: String): Boolean =
+      try {
+         qvalue.toDouble == 0
+      } catch {
+         case e: NumberFormatException => false
+      }
+
    private def wantExtendedHeaders(extended: String): Boolean = configuration.extendedHeaders() match {
       case ExtendedHeaders.NEVER => false
       case ExtendedHeaders.ON_DEMAND => extended != null
@@ -267,17 +339,34 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
       }
    }
 
+   /**
+    * Stores an entry. A POST only creates the entry, while a PUT replaces the existing entry if the conditions of the
+    * request hold for it, the entry being replaced only if it has not been modified since it was read. With an
+    * If-None-Match header, a PUT only creates the entry.
+    */
    @PUT
    @POST
    @Path("/{cacheName}/{cacheKey}")
    def putEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String,
                 @HeaderParam("Content-Type") mediaType: String, data: Array[Byte],
                 @DefaultValue("-1") @HeaderParam("timeToLiveSeconds") ttl: Long,
-                @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long): Response = {
+                @DefaultValue("-1") @HeaderParam("maxIdleTimeSeconds") idleTime: Long,
+                @HeaderParam("If-None-Match") ifNoneMatch: String): Response = {
       protectCacheNotFound(request, useAsync) { (request, useAsync) =>
          val cache = manager.getCache(cacheName)
-         if (request.getMethod == "POST" && cache.containsKey(key)) {
-            Response.status(Status.CONFLICT).build()
+         val metadata = createMetadata(cache, mediaType, ttl, idleTime)
+         if (request.getMethod == "POST") {
+            if (useAsync) {
+               if (cache.containsKey(key)) {
+                  Response.status(Status.CONFLICT).build()
+               } else {
+                  cache.putAsync(key, data, metadata)
+                  Response.ok.build
+               }
+            } else {
+               if (cache.putIfAbsent(key, data, metadata) == null) Response.ok.build
+               else Response.status(Status.CONFLICT).build()
+            }
          } else {
             manager.getInternalEntry(cacheName, key) match {
                case ice: InternalCacheEntry => {
@@ -290,55 +379,32 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
                            // One of the preconditions failed, build a response
                            case bldr: ResponseBuilder => bldr.build
                            // Preconditions passed
-                           case null => putInCache(cache, key, data, mediaType,
-                              ttl, idleTime, Some(ice.getValue.asInstanceOf[Array[Byte]]))
+                           case null => putInCache(cache, key, data, metadata, Some(ice.getValue.asInstanceOf[Array[Byte]]))
                         }
                      case _ =>
-                        putInCache(cache, key, data, mediaType, ttl, idleTime, None)
+                        putInCache(cache, key, data, metadata, None)
                   }
                }
                case _ =>
-                  putInCache(cache, key, data, mediaType, ttl, idleTime, None)
+                  // An If-Match header requires an existing entry
+                  request.evaluatePreconditions() match {
+                     case bldr: ResponseBuilder => bldr.build
+                     case null if ifNoneMatch != null =>
+                        if (cache.putIfAbsent(key, data, metadata) == null) Response.ok.build
+                        else Response.status(Status.PRECONDITION_FAILED).build()
+                     case null => putInCache(cache, key, data, metadata, None)
+                  }
             }
          }
       }
    }
 
    private def putInCache(cache: AdvancedCache[String, Array[Byte]], key: String,
-           data: Array[Byte], dataType: String, ttl: Long, idleTime: Long,
-           prevCond: Option[Array[Byte]]): Response = {
-      if (useAsync)
-         asyncPutInCache(cache, key, data, dataType, ttl, idleTime)
-      else
-         putOrReplace(cache, key, data, dataType, ttl, idleTime, prevCond)
-   }
-
-   def asyncPutInCache(cache: AdvancedCache[String, Array[Byte]],
-           key: String, data: Array[Byte], dataType: String,
-           ttl: Long, idleTime: Long): Response = {
-      val metadata = createMetadata(cache.getCacheConfiguration, dataType, ttl, idleTime)
-      cache.putAsync(key, data, metadata)
-      Response.ok.build
-   }
-
-   def createMetadata(cfg: Configuration, dataType: String, ttl: Long, idleTime: Long): Metadata = {
-      (ttl, idleTime) match {
-         case (0, 0) => MimeMetadata(dataType,
-            cfg.expiration().lifespan(), MILLIS,
-            cfg.expiration().maxIdle(), MILLIS)
-         case (lifespan, 0) =>
-            MimeMetadata(dataType, lifespan, SECS, cfg.expiration().maxIdle(), MILLIS)
-         case (lifespan, maxIdle) =>
-            MimeMetadata(dataType, lifespan, SECS, maxIdle, SECS)
-      }
-   }
-
-   private def putOrReplace(cache: AdvancedCache[String, Array[Byte]],
-           key: String, data: Array[Byte], dataType: String,
-           ttl: Long, idleTime: Long,
-           prevCond: Option[Array[Byte]]): Response = {
-      val metadata = createMetadata(cache.getCacheConfiguration, dataType, ttl, idleTime)
-      prevCond match {
+           data: Array[Byte], metadata: Metadata, prevCond: Option[Array[Byte]]): Response = {
+      if (useAsync) {
+         cache.putAsync(key, data, metadata)
+         Response.ok.build
+      } else prevCond match {
          case None =>
             cache.put(key, data, metadata)
             Response.ok.build
@@ -351,9 +417,31 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
       }
    }
 
+   /**
+    * Creates the metadata of an entry written, with a new version from which the entity tag of the entry is derived.
+    */
+   def createMetadata(cache: AdvancedCache[String, Array[Byte]], dataType: String, ttl: Long, idleTime: Long): Metadata = {
+      val cfg = cache.getCacheConfiguration
+      val version = AbstractProtocolDecoder.generateVersion(cache)
+      (ttl, idleTime) match {
+         case (0, 0) => MimeMetadata(dataType,
+            cfg.expiration().lifespan(), MILLIS,
+            cfg.expiration().maxIdle(), MILLIS, version)
+         case (lifespan, 0) =>
+            MimeMetadata(dataType, lifespan, SECS, cfg.expiration().maxIdle(), MILLIS, version)
+         case (lifespan, maxIdle) =>
+            MimeMetadata(dataType, lifespan, SECS, maxIdle, SECS, version)
+      }
+   }
+
+   /**
+    * Removes an entry. With an If-Match header, the entry is removed only if it has not been modified since its
+    * entity tag was checked.
+    */
    @DELETE
    @Path("/{cacheName}/{cacheKey}")
-   def removeEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String): Response = {
+   def removeEntry(@PathParam("cacheName") cacheName: String, @PathParam("cacheKey") key: String,
+                   @HeaderParam("If-Match") ifMatch: String): Response = {
       manager.getInternalEntry(cacheName, key) match {
          case ice: InternalCacheEntry => {
             val lastMod = lastModified(ice)
@@ -368,10 +456,14 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
                      case _ => {
                         if (useAsync) {
                            manager.getCache(cacheName).removeAsync(key)
+                           Response.ok.build
+                        } else if (ifMatch != null) {
+                           if (manager.getCache(cacheName).remove(key, ice.getValue)) Response.ok.build
+                           else Response.status(Status.PRECONDITION_FAILED).build()
                         } else {
                            manager.getCache(cacheName).remove(key)
+                           Response.ok.build
                         }
-                        Response.ok.build
                      }
                   }
                case _ =>
@@ -408,10 +500,10 @@ class Server(@Context request: Request, @Context servletContext: ServletContext,
          "Preconditions were not implemented yet for PUT, POST, and DELETE methods.").build()
    }
 
-   val hashFunc = new MurmurHash3()
+   /** The size in bytes from which the values are compressed for the clients accepting gzip */
+   val CompressionThreshold = 1024
 
-   private def calcETAG(entry: InternalCacheEntry, meta: MimeMetadata): EntityTag =
-      new EntityTag(meta.contentType + hashFunc.hash(entry.getValue))
+   private def calcETAG(entry: InternalCacheEntry, meta: MimeMetadata): EntityTag = new EntityTag(EntityTags(entry, meta))
 
    private def lastModified(ice: InternalCacheEntry): Date = { new Date(ice.getCreated / 1000 * 1000) }
 
@@ -433,6 +525,9 @@ class ManagerInstance(instance: EmbeddedCacheManager) {
    private[rest] val knownCaches : java.util.Map[String, AdvancedCache[String, Array[Byte]]] =
       CollectionFactory.makeConcurrentMap(4, 0.9f, 16)
 
+   /** The cursors opened by the clients listing the keys of the caches one page at a time */
+   val keyCursors = new KeyCursors
+
    def getCache(name: String): AdvancedCache[String, Array[Byte]] = {
       val isKnownCache = knownCaches.containsKey(name)
       if (name != BasicCacheContainer.DEFAULT_CACHE_NAME && !isKnownCache && !instance.getCacheNames.contains(name))
@@ -1,13 +1,27 @@
 package org.infinispan.rest.configuration;
 
 import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.server.core.configuration.ProtocolServerConfiguration;
+import org.infinispan.server.core.configuration.SslConfiguration;
 
+/**
+ * RestServerConfiguration. The protocol server settings are only used by the {@link org.infinispan.rest.NettyRestServer},
+ * the servlet deployment being configured by its container.
+ *
+ * @author Tristan Tarrant
+ * @since 5.3
+ */
 @BuiltBy(RestServerConfigurationBuilder.class)
-public class RestServerConfiguration {
+public class RestServerConfiguration extends ProtocolServerConfiguration {
    private ExtendedHeaders extendedHeaders;
+   private final int maxContentLength;
 
-   RestServerConfiguration(ExtendedHeaders extendedHeaders) {
+   RestServerConfiguration(ExtendedHeaders extendedHeaders, int maxContentLength, String name, String host, int port, int idleTimeout,
+         int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads, int executorThreads,
+         long executorMaxConnectionMemory) {
+      super(name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl, tcpNoDelay, workerThreads, executorThreads, executorMaxConnectionMemory);
       this.extendedHeaders = extendedHeaders;
+      this.maxContentLength = maxContentLength;
    }
 
    public ExtendedHeaders extendedHeaders() {
@@ -18,4 +32,17 @@ public void extendedHeaders(ExtendedHeaders extendedHeaders) {
       this.extendedHeaders = extendedHeaders;
    }
 
+   /**
+    * The maximum size in bytes of the body of a request, chunked requests included.
+    */
+   public int maxContentLength() {
+      return maxContentLength;
+   }
+
+   @Override
+   public String toString() {
+      return "RestServerConfiguration [extendedHeaders=" + extendedHeaders + ", maxContentLength=" + maxContentLength
+            + ", " + super.toString() + "]";
+   }
+
 }
@@ -1,6 +1,8 @@
 package org.infinispan.rest.configuration;
 
 import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.server.core.configuration.ProtocolServerConfigurationBuilder;
 
 /**
  * RestServerConfigurationBuilder.
@@ -8,28 +10,53 @@
  * @author Tristan Tarrant
  * @since 5.3
  */
-public class RestServerConfigurationBuilder implements Builder<RestServerConfiguration> {
+public class RestServerConfigurationBuilder extends ProtocolServerConfigurationBuilder<RestServerConfiguration, RestServerConfigurationBuilder> implements
+      Builder<RestServerConfiguration> {
 
    private ExtendedHeaders extendedHeaders = ExtendedHeaders.ON_DEMAND;
+   private int maxContentLength = 10 * 1024 * 1024;
+
+   public RestServerConfigurationBuilder() {
+      super(8080);
+   }
+
+   @Override
+   public RestServerConfigurationBuilder self() {
+      return this;
+   }
 
    public RestServerConfigurationBuilder extendedHeaders(ExtendedHeaders extendedHeaders) {
       this.extendedHeaders = extendedHeaders;
       return this;
    }
 
+   /**
+    * Sets the maximum size in bytes of the body of a request. Defaults to 10MB.
+    */
+   public RestServerConfigurationBuilder maxContentLength(int maxContentLength) {
+      this.maxContentLength = maxContentLength;
+      return this;
+   }
+
    @Override
    public void validate() {
-      // Nothing to do
+      super.validate();
+      if (maxContentLength <= 0) {
+         throw new CacheConfigurationException("The maximum content length must be greater than 0: " + maxContentLength);
+      }
    }
 
    @Override
    public RestServerConfiguration create() {
-      return new RestServerConfiguration(extendedHeaders);
+      return new RestServerConfiguration(extendedHeaders, maxContentLength, name, host, port, idleTimeout, recvBufSize,
+            sendBufSize, ssl.create(), tcpNoDelay, workerThreads, executorThreads, executorMaxConnectionMemory);
    }
 
    @Override
    public Builder<?> read(RestServerConfiguration template) {
+      super.read(template);
       this.extendedHeaders = template.extendedHeaders();
+      this.maxContentLength = template.maxContentLength();
       return this;
    }
 
@@ -24,6 +24,7 @@ import org.infinispan.util.logging.LogFactory
 import org.infinispan.test.fwk.TestCacheManagerFactory
 import java.util
 import org.infinispan.metadata.Metadata
+import java.util.zip.GZIPInputStream
 
 /**
  * This tests using the Apache HTTP commons client library - but you could use anything
@@ -337,9 +338,13 @@ class IntegrationTest extends RESTServerTestBase {
       reput.setRequestEntity(new StringRequestEntity("data", "application/text", "UTF-8"))
       assertEquals(HttpServletResponse.SC_OK, call(reput).getStatusCode)
 
-      // Try to put again, but with a different ETag
+      // The put created a new version, with its own ETag
+      val newEtag = call(new GetMethod(fullPathKey)).getResponseHeader("ETag").getValue
+      assertFalse(etag == newEtag)
+
+      // Try to put again, but with the ETag matching the current version
       val reputAgain = new PutMethod(fullPathKey)
-      reputAgain.setRequestHeader("If-None-Match", etag)
+      reputAgain.setRequestHeader("If-None-Match", newEtag)
       reputAgain.setRequestEntity(new StringRequestEntity("data", "application/text", "UTF-8"))
       assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, call(reputAgain).getStatusCode)
    }
@@ -720,6 +725,49 @@ class IntegrationTest extends RESTServerTestBase {
 
    }
 
+   def testETagChangesWithSameValue(m: Method) {
+      put(m, "data")
+      val eTagFirst = get(m).getResponseHeader("ETag").getValue
+      // The tag comes from the version of the entry, so writing the same value again changes it
+      put(m, "data")
+      assertFalse(eTagFirst == get(m).getResponseHeader("ETag").getValue)
+   }
+
+   def testConditionalPutWithStaleETag(m: Method) {
+      put(m, "data1")
+      val eTag = get(m).getResponseHeader("ETag").getValue
+      put(m, "data2")
+
+      val stalePut = new PutMethod(fullPathKey(m))
+      stalePut.setRequestHeader("If-Match", eTag)
+      stalePut.setRequestEntity(new StringRequestEntity("data3", "application/text", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, call(stalePut).getStatusCode)
+      assertEquals("data2", get(m).getResponseBodyAsString)
+
+      val staleDelete = new DeleteMethod(fullPathKey(m))
+      staleDelete.setRequestHeader("If-Match", eTag)
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, call(staleDelete).getStatusCode)
+      assertEquals("data2", get(m).getResponseBodyAsString)
+   }
+
+   def testPutIfNoneMatchCreatesOnce(m: Method) {
+      val missingPut = new PutMethod(fullPathKey(m))
+      missingPut.setRequestHeader("If-Match", "*")
+      missingPut.setRequestEntity(new StringRequestEntity("data0", "application/text", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, call(missingPut).getStatusCode)
+
+      val create = new PutMethod(fullPathKey(m))
+      create.setRequestHeader("If-None-Match", "*")
+      create.setRequestEntity(new StringRequestEntity("data1", "application/text", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_OK, call(create).getStatusCode)
+
+      val createAgain = new PutMethod(fullPathKey(m))
+      createAgain.setRequestHeader("If-None-Match", "*")
+      createAgain.setRequestEntity(new StringRequestEntity("data2", "application/text", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, call(createAgain).getStatusCode)
+      assertEquals("data1", get(m).getResponseBodyAsString)
+   }
+
    def testSerializedStringGetBytes(m: Method) {
       val data = ("v-" + m.getName).getBytes("UTF-8")
 
@@ -831,6 +879,88 @@ class IntegrationTest extends RESTServerTestBase {
       assertEquals(HttpServletResponse.SC_OK, delete.getStatusCode)
    }
 
+   def testGzipEncodedEntry(m: Method) {
+      val fullPathKey = fullPath + "/" + m.getName
+      val data = ("<hey>" + ("ho" * 1000) + "</hey>").getBytes
+      val put = new PutMethod(fullPathKey)
+      put.setRequestEntity(new ByteArrayRequestEntity(data, "application/xml"))
+      assertEquals(HttpServletResponse.SC_OK, call(put).getStatusCode)
+
+      val compressed = new GetMethod(fullPathKey)
+      compressed.setRequestHeader("Accept-Encoding", "deflate, gzip")
+      call(compressed)
+      assertEquals(HttpServletResponse.SC_OK, compressed.getStatusCode)
+      assertEquals("gzip", compressed.getResponseHeader("Content-Encoding").getValue)
+      val body = compressed.getResponseBody
+      assertTrue(body.length < data.length)
+      val in = new GZIPInputStream(new ByteArrayInputStream(body))
+      val decompressed = new ByteArrayOutputStream
+      val buffer = new Array[Byte](1024)
+      var n = in.read(buffer)
+      while (n != -1) {
+         decompressed.write(buffer, 0, n)
+         n = in.read(buffer)
+      }
+      assertTrue(util.Arrays.equals(data, decompressed.toByteArray))
+
+      val refused = new GetMethod(fullPathKey)
+      refused.setRequestHeader("Accept-Encoding", "gzip;q=0")
+      call(refused)
+      assertNull(refused.getResponseHeader("Content-Encoding"))
+      assertTrue(util.Arrays.equals(data, refused.getResponseBody))
+
+      val plain = call(new GetMethod(fullPathKey))
+      assertNull(plain.getResponseHeader("Content-Encoding"))
+      assertTrue(util.Arrays.equals(data, plain.getResponseBody))
+   }
+
+   def testKeysInPages(m: Method) {
+      val cache = getCacheManager("single").getCache[String, Array[Byte]](cacheName)
+      val keys = (1 to 25).map(m.getName + "-" + _).toSet
+      keys.foreach(cache.put(_, "v".getBytes))
+
+      var listed = Set.empty[String]
+      var pages = 0
+      var get = new GetMethod(fullPath + "?batchSize=10")
+      var cursor: Header = null
+      do {
+         get.setRequestHeader("Accept", "text/plain")
+         call(get)
+         assertEquals(HttpServletResponse.SC_OK, get.getStatusCode)
+         val page = get.getResponseBodyAsString.split("\n").filter(!_.isEmpty)
+         assertTrue(page.length <= 10)
+         listed ++= page
+         pages += 1
+         cursor = get.getResponseHeader(KeyCursors.CursorHeader)
+         if (cursor != null) get = new GetMethod(fullPath + "?cursor=" + cursor.getValue)
+      } while (cursor != null)
+
+      assertEquals(cache.size, listed.size)
+      assertTrue(keys.subsetOf(listed))
+      assertEquals((cache.size + 9) / 10, pages)
+      // The cursor is dropped with its last page
+      assertEquals(HttpServletResponse.SC_NOT_FOUND, call(get).getStatusCode)
+   }
+
+   def testBulkPutAndGet(m: Method) {
+      val put = new PutMethod(fullPath)
+      put.setRequestEntity(new StringRequestEntity(
+         "{\"" + m.getName + "-1\": \"dmFsdWUx\", \"" + m.getName + "-2\": \"dmFsdWUy\"}", "application/json", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_OK, call(put).getStatusCode)
+
+      val get = new GetMethod(fullPath + "/" + m.getName + "-2")
+      call(get)
+      assertEquals("value2", get.getResponseBodyAsString)
+      assertEquals("application/octet-stream", get.getResponseHeader("Content-Type").getValue)
+
+      val post = new PostMethod(fullPath)
+      post.setRequestEntity(new StringRequestEntity(
+         "[\"" + m.getName + "-1\", \"" + m.getName + "-missing\", \"" + m.getName + "-2\"]", "application/json", "UTF-8"))
+      assertEquals(HttpServletResponse.SC_OK, call(post).getStatusCode)
+      assertEquals("{\"" + m.getName + "-1\":\"dmFsdWUx\",\"" + m.getName + "-2\":\"dmFsdWUy\"}",
+         post.getResponseBodyAsString)
+   }
+
    private def waitNotFound(startTime: Long, lifespan: Int, fullPathKey: String) {
       if (System.currentTimeMillis < startTime + lifespan + 20000) {
          if (!SC_NOT_FOUND.equals(call(new GetMethod(fullPathKey)).getStatusCode)) {
@@ -0,0 +1,56 @@
+package org.infinispan.rest
+
+import java.io.{ObjectInputStream, ByteArrayInputStream, ObjectOutputStream, ByteArrayOutputStream}
+import java.util.concurrent.TimeUnit.SECONDS
+import org.testng.annotations.Test
+import org.testng.Assert._
+
+/**
+ * Tests that the metadata written before the entries had versions can still be read, and is still written the same
+ * way when there is no version.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("unit"), testName = "rest.MimeMetadataExternalizerTest")
+class MimeMetadataExternalizerTest {
+
+   private val externalizer = new MimeMetadata.Externalizer
+
+   def testReadUnversionedLayout() {
+      val immortal = read(unversioned("text/plain", 0))
+      assertEquals(immortal, new MimeMetadata("text/plain"))
+
+      val expirable = read(unversioned("text/plain", 1, 2000, 3000))
+      assertEquals(expirable.lifespan(), 2000)
+      assertEquals(expirable.maxIdle(), 3000)
+      assertNull(expirable.version())
+   }
+
+   def testUnversionedWrittenInPreviousLayout() {
+      assertEquals(write(new MimeMetadata("text/plain")).toSeq, unversioned("text/plain", 0).toSeq)
+      assertEquals(write(MimeMetadata("text/plain", 2, SECONDS, 3, SECONDS)).toSeq,
+         unversioned("text/plain", 1, 2000, 3000).toSeq)
+   }
+
+   private def unversioned(contentType: String, number: Int, times: Long*): Array[Byte] = {
+      val bytes = new ByteArrayOutputStream
+      val output = new ObjectOutputStream(bytes)
+      output.writeUTF(contentType)
+      output.write(number)
+      times.foreach(output.writeLong(_))
+      output.close()
+      bytes.toByteArray
+   }
+
+   private def write(meta: MimeMetadata): Array[Byte] = {
+      val bytes = new ByteArrayOutputStream
+      val output = new ObjectOutputStream(bytes)
+      externalizer.writeObject(output, meta)
+      output.close()
+      bytes.toByteArray
+   }
+
+   private def read(bytes: Array[Byte]): MimeMetadata =
+      externalizer.readObject(new ObjectInputStream(new ByteArrayInputStream(bytes)))
+
+}
@@ -0,0 +1,256 @@
+package org.infinispan.rest
+
+import java.io.{ByteArrayOutputStream, InputStream}
+import java.lang.reflect.Method
+import java.net.Socket
+import java.util.zip.GZIPInputStream
+import javax.servlet.http.HttpServletResponse._
+import org.apache.commons.httpclient.{HttpMethodBase, HttpClient}
+import org.apache.commons.httpclient.methods._
+import org.infinispan.api.BasicCacheContainer
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.rest.configuration.RestServerConfigurationBuilder
+import org.infinispan.test.TestingUtil
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.testng.annotations.{AfterClass, BeforeClass, Test}
+import org.testng.AssertJUnit._
+
+/**
+ * Tests the REST endpoint running on the Netty transport, without any servlet container.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("functional"), testName = "rest.NettyRestServerTest")
+class NettyRestServerTest {
+
+   private val port = 8892
+   private val fullPath = "http://localhost:" + port + "/rest/" + BasicCacheContainer.DEFAULT_CACHE_NAME
+   private var cacheManager: EmbeddedCacheManager = _
+   private var server: NettyRestServer = _
+   private var client: HttpClient = _
+
+   @BeforeClass
+   def setUp() {
+      cacheManager = TestCacheManagerFactory.createCacheManager()
+      server = new NettyRestServer
+      server.start(new RestServerConfigurationBuilder().host("localhost").port(port).build, cacheManager)
+      client = new HttpClient
+   }
+
+   @AfterClass(alwaysRun = true)
+   def tearDown() {
+      server.stop
+      TestingUtil.killCacheManagers(cacheManager)
+   }
+
+   private def call(method: HttpMethodBase): HttpMethodBase = {
+      client.executeMethod(method)
+      method
+   }
+
+   def testPutGetAndRemove(m: Method) {
+      val put = new PutMethod(fullPath + "/" + m.getName)
+      put.setRequestEntity(new ByteArrayRequestEntity("data".getBytes, "text/plain"))
+      assertEquals(SC_OK, call(put).getStatusCode)
+
+      val get = call(new GetMethod(fullPath + "/" + m.getName))
+      assertEquals(SC_OK, get.getStatusCode)
+      assertEquals("text/plain", get.getResponseHeader("Content-Type").getValue)
+      assertEquals("data", get.getResponseBodyAsString)
+      assertNotNull(get.getResponseHeader("ETag"))
+      assertNotNull(get.getResponseHeader("Last-Modified"))
+
+      val head = call(new HeadMethod(fullPath + "/" + m.getName))
+      assertEquals(SC_OK, head.getStatusCode)
+      assertEquals("4", head.getResponseHeader("Content-Length").getValue)
+
+      assertEquals(SC_OK, call(new DeleteMethod(fullPath + "/" + m.getName)).getStatusCode)
+      assertEquals(SC_NOT_FOUND, call(new GetMethod(fullPath + "/" + m.getName)).getStatusCode)
+   }
+
+   def testPostExistingKey(m: Method) {
+      val post = new PostMethod(fullPath + "/" + m.getName)
+      post.setRequestEntity(new ByteArrayRequestEntity("data".getBytes, "text/plain"))
+      assertEquals(SC_OK, call(post).getStatusCode)
+      val again = new PostMethod(fullPath + "/" + m.getName)
+      again.setRequestEntity(new ByteArrayRequestEntity("data".getBytes, "text/plain"))
+      assertEquals(SC_CONFLICT, call(again).getStatusCode)
+   }
+
+   def testConditionalGet(m: Method) {
+      val put = new PutMethod(fullPath + "/" + m.getName)
+      put.setRequestEntity(new ByteArrayRequestEntity("data".getBytes, "text/plain"))
+      call(put)
+      val etag = call(new GetMethod(fullPath + "/" + m.getName)).getResponseHeader("ETag").getValue
+
+      val notModified = new GetMethod(fullPath + "/" + m.getName)
+      notModified.setRequestHeader("If-None-Match", etag)
+      assertEquals(SC_NOT_MODIFIED, call(notModified).getStatusCode)
+
+      val failed = new GetMethod(fullPath + "/" + m.getName)
+      failed.setRequestHeader("If-Match", "\"other\"")
+      assertEquals(SC_PRECONDITION_FAILED, call(failed).getStatusCode)
+   }
+
+   def testConditionalWrites(m: Method) {
+      val path = fullPath + "/" + m.getName
+      val create = new PutMethod(path)
+      create.setRequestHeader("If-None-Match", "*")
+      create.setRequestEntity(new ByteArrayRequestEntity("data1".getBytes, "text/plain"))
+      assertEquals(SC_OK, call(create).getStatusCode)
+      val createAgain = new PutMethod(path)
+      createAgain.setRequestHeader("If-None-Match", "*")
+      createAgain.setRequestEntity(new ByteArrayRequestEntity("data2".getBytes, "text/plain"))
+      assertEquals(SC_PRECONDITION_FAILED, call(createAgain).getStatusCode)
+
+      val etag = call(new GetMethod(path)).getResponseHeader("ETag").getValue
+      val replace = new PutMethod(path)
+      replace.setRequestHeader("If-Match", etag)
+      replace.setRequestEntity(new ByteArrayRequestEntity("data1".getBytes, "text/plain"))
+      assertEquals(SC_OK, call(replace).getStatusCode)
+      // Same value, but a new version
+      val newEtag = call(new GetMethod(path)).getResponseHeader("ETag").getValue
+      assertFalse(etag == newEtag)
+
+      val staleReplace = new PutMethod(path)
+      staleReplace.setRequestHeader("If-Match", etag)
+      staleReplace.setRequestEntity(new ByteArrayRequestEntity("data3".getBytes, "text/plain"))
+      assertEquals(SC_PRECONDITION_FAILED, call(staleReplace).getStatusCode)
+
+      val staleDelete = new DeleteMethod(path)
+      staleDelete.setRequestHeader("If-Match", etag)
+      assertEquals(SC_PRECONDITION_FAILED, call(staleDelete).getStatusCode)
+      val delete = new DeleteMethod(path)
+      delete.setRequestHeader("If-Match", newEtag)
+      assertEquals(SC_OK, call(delete).getStatusCode)
+      assertEquals(SC_NOT_FOUND, call(new GetMethod(path)).getStatusCode)
+   }
+
+   def testUnknownCache() {
+      assertEquals(SC_NOT_FOUND, call(new GetMethod("http://localhost:" + port + "/rest/unknown/key")).getStatusCode)
+   }
+
+   def testKeysAsJson(m: Method) {
+      cacheManager.getCache[String, Array[Byte]]().put(m.getName, "data".getBytes)
+      val get = new GetMethod(fullPath)
+      get.setRequestHeader("Accept", "application/json")
+      call(get)
+      assertEquals(SC_OK, get.getStatusCode)
+      assertTrue(get.getResponseBodyAsString.contains("\"" + m.getName + "\""))
+   }
+
+   def testLargeValueSentInChunks(m: Method) {
+      val data = Array.tabulate[Byte](RestHandler.ChunkSize * 3 + 10)(i => (i % 100).toByte)
+      val put = new PutMethod(fullPath + "/" + m.getName)
+      put.setRequestEntity(new ByteArrayRequestEntity(data, "application/octet-stream"))
+      assertEquals(SC_OK, call(put).getStatusCode)
+
+      val get = call(new GetMethod(fullPath + "/" + m.getName))
+      assertEquals(SC_OK, get.getStatusCode)
+      assertEquals("chunked", get.getResponseHeader("Transfer-Encoding").getValue)
+      assertTrue(java.util.Arrays.equals(data, get.getResponseBody))
+   }
+
+   def testCompressedValue(m: Method) {
+      val data = Array.fill[Byte](RestHandler.CompressionThreshold * 2)('a')
+      val put = new PutMethod(fullPath + "/" + m.getName)
+      put.setRequestEntity(new ByteArrayRequestEntity(data, "text/plain"))
+      call(put)
+
+      val get = new GetMethod(fullPath + "/" + m.getName)
+      get.setRequestHeader("Accept-Encoding", "gzip")
+      call(get)
+      assertEquals("gzip", get.getResponseHeader("Content-Encoding").getValue)
+      assertTrue(java.util.Arrays.equals(data, readFully(new GZIPInputStream(get.getResponseBodyAsStream))))
+   }
+
+   def testPipelinedRequests(m: Method) {
+      val cache = cacheManager.getCache[String, Array[Byte]]()
+      cache.put(m.getName + "-1", "one".getBytes)
+      cache.put(m.getName + "-2", "two".getBytes)
+      val path = "/rest/" + BasicCacheContainer.DEFAULT_CACHE_NAME + "/" + m.getName
+      val requests = "GET " + path + "-1 HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+         "GET " + path + "-2 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+      val socket = new Socket("localhost", port)
+      try {
+         // Both requests are sent before reading any response, on a single connection
+         socket.getOutputStream.write(requests.getBytes("US-ASCII"))
+         val responses = new String(readFully(socket.getInputStream), "US-ASCII")
+         val first = responses.indexOf("HTTP/1.1 200 OK")
+         val second = responses.indexOf("HTTP/1.1 200 OK", first + 1)
+         assertTrue(first >= 0 && second > first)
+         assertTrue(responses.indexOf("one") < second)
+         assertTrue(responses.indexOf("two") > second)
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testKeysStreamedInChunks(m: Method) {
+      val cache = cacheManager.getCache[String, Array[Byte]]()
+      // Enough keys for several chunks
+      val keys = (1 to 2000).map(m.getName + "-" + _)
+      keys.foreach(cache.put(_, "v".getBytes))
+      val get = new GetMethod(fullPath)
+      get.setRequestHeader("Accept", "text/plain")
+      call(get)
+      assertEquals(SC_OK, get.getStatusCode)
+      assertEquals("chunked", get.getResponseHeader("Transfer-Encoding").getValue)
+      val listed = get.getResponseBodyAsString.split("\n").toSet
+      assertEquals(cache.size, listed.size)
+      assertTrue(keys.toSet.subsetOf(listed))
+   }
+
+   def testKeysInPages(m: Method) {
+      val cache = cacheManager.getCache[String, Array[Byte]]()
+      (1 to 25).foreach(i => cache.put(m.getName + "-" + i, "v".getBytes))
+
+      var listed = Set.empty[String]
+      var get = new GetMethod(fullPath + "?batchSize=10")
+      var done = false
+      while (!done) {
+         get.setRequestHeader("Accept", "text/plain")
+         call(get)
+         assertEquals(SC_OK, get.getStatusCode)
+         val page = get.getResponseBodyAsString.split("\n").filter(!_.isEmpty)
+         assertTrue(page.length <= 10)
+         listed ++= page
+         val cursor = get.getResponseHeader(KeyCursors.CursorHeader)
+         if (cursor == null) done = true
+         else get = new GetMethod(fullPath + "?cursor=" + cursor.getValue)
+      }
+      assertEquals(cache.size, listed.size)
+      assertEquals(SC_NOT_FOUND, call(get).getStatusCode)
+   }
+
+   def testBulkPutAndGet(m: Method) {
+      val put = new PutMethod(fullPath)
+      put.setRequestEntity(new StringRequestEntity(
+         "{\"" + m.getName + "-1\": \"dmFsdWUx\", \"" + m.getName + "-2\": \"dmFsdWUy\"}", "application/json", "UTF-8"))
+      assertEquals(SC_OK, call(put).getStatusCode)
+      assertEquals("value1", new String(cacheManager.getCache[String, Array[Byte]]().get(m.getName + "-1")))
+
+      val post = new PostMethod(fullPath)
+      post.setRequestEntity(new StringRequestEntity(
+         "[\"" + m.getName + "-1\", \"" + m.getName + "-missing\", \"" + m.getName + "-2\"]", "application/json", "UTF-8"))
+      assertEquals(SC_OK, call(post).getStatusCode)
+      assertEquals("{\"" + m.getName + "-1\":\"dmFsdWUx\",\"" + m.getName + "-2\":\"dmFsdWUy\"}",
+         post.getResponseBodyAsString)
+
+      val invalid = new PostMethod(fullPath)
+      invalid.setRequestEntity(new StringRequestEntity("[", "application/json", "UTF-8"))
+      assertEquals(SC_BAD_REQUEST, call(invalid).getStatusCode)
+   }
+
+   private def readFully(in: InputStream): Array[Byte] = {
+      val out = new ByteArrayOutputStream
+      val buffer = new Array[Byte](4096)
+      var read = in.read(buffer)
+      while (read >= 0) {
+         out.write(buffer, 0, read)
+         read = in.read(buffer)
+      }
+      out.toByteArray
+   }
+
+}
@@ -0,0 +1,102 @@
+package org.infinispan.rest
+
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+import org.apache.commons.httpclient.{HttpClient, MultiThreadedHttpConnectionManager}
+import org.apache.commons.httpclient.methods.{ByteArrayRequestEntity, PutMethod, GetMethod}
+import org.infinispan.api.BasicCacheContainer
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.rest.configuration.RestServerConfigurationBuilder
+import org.infinispan.test.TestingUtil
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.testng.annotations.{AfterClass, BeforeClass, Test}
+import org.testng.AssertJUnit._
+
+/**
+ * Compares the throughput of the REST endpoint running on Netty with the one of the servlet deployment, running in
+ * Jetty, for gets and puts of 1KB and 100KB values issued by several clients over kept alive connections.
+ *
+ * @since 6.0
+ */
+@Test(groups = Array("profiling"), testName = "rest.RestServerBenchmark")
+class RestServerBenchmark extends RESTServerTestBase {
+
+   private val WarPort = 8893
+   private val NettyPort = 8894
+   private val Clients = 8
+   private val RequestsPerClient = 2000
+   private val ValueSizes = Seq(1024, 100 * 1024)
+
+   private var nettyCacheManager: EmbeddedCacheManager = _
+   private var nettyServer: NettyRestServer = _
+
+   @BeforeClass
+   def setUp() {
+      addServer("war", WarPort, TestCacheManagerFactory.createCacheManager())
+      startServers()
+      nettyCacheManager = TestCacheManagerFactory.createCacheManager()
+      nettyServer = new NettyRestServer
+      nettyServer.start(new RestServerConfigurationBuilder().host("localhost").port(NettyPort).build, nettyCacheManager)
+   }
+
+   @AfterClass(alwaysRun = true)
+   def tearDown() {
+      stopServers()
+      nettyServer.stop
+      TestingUtil.killCacheManagers(nettyCacheManager)
+   }
+
+   def testThroughput() {
+      for (size <- ValueSizes) {
+         // Warm up both endpoints first
+         run(WarPort, size)
+         run(NettyPort, size)
+         val war = run(WarPort, size)
+         val netty = run(NettyPort, size)
+         printf("%d bytes values: servlet %.0f requests/s, Netty %.0f requests/s%n", size, war, netty)
+      }
+   }
+
+   /**
+    * Returns the number of requests per second executed against the server listening on the port.
+    */
+   private def run(port: Int, size: Int): Double = {
+      val connectionManager = new MultiThreadedHttpConnectionManager
+      connectionManager.getParams.setDefaultMaxConnectionsPerHost(Clients)
+      val client = new HttpClient(connectionManager)
+      val value = new Array[Byte](size)
+      val executor = Executors.newFixedThreadPool(Clients)
+      try {
+         val start = System.nanoTime
+         val futures = (0 until Clients).map(c => executor.submit(new Callable[Void] {
+            override def call(): Void = {
+               for (i <- 0 until RequestsPerClient) {
+                  val uri = "http://localhost:" + port + "/rest/" + BasicCacheContainer.DEFAULT_CACHE_NAME + "/k" + c + "-" + (i % 100)
+                  val method =
+                     if (i % 10 == 0) {
+                        val put = new PutMethod(uri)
+                        put.setRequestEntity(new ByteArrayRequestEntity(value, "application/octet-stream"))
+                        put
+                     } else {
+                        new GetMethod(uri)
+                     }
+                  try {
+                     val status = client.executeMethod(method)
+                     // Reading the body releases the connection for the next request
+                     method.getResponseBody
+                     assertTrue(status == 200 || status == 404)
+                  } finally {
+                     method.releaseConnection()
+                  }
+               }
+               null
+            }
+         }))
+         futures.foreach(_.get(5, TimeUnit.MINUTES))
+         Clients * RequestsPerClient / ((System.nanoTime - start) / 1e9)
+      } finally {
+         executor.shutdownNow()
+         connectionManager.shutdown()
+      }
+   }
+
+}
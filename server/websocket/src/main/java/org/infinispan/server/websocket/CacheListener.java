@@ -1,10 +1,14 @@
 package org.infinispan.server.websocket;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.infinispan.Cache;
+import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
@@ -17,7 +21,6 @@
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
-import org.jboss.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -25,13 +28,20 @@
  * Cache listener.
  * <p/>
  * Used to notify websocket clients of cache entry updates.
+ * <p/>
+ * The subscriptions are indexed by key, so that an event is only matched against the subscriptions to its key and
+ * to all keys. The events are received asynchronously, off the threads writing to the cache, and pushed to each
+ * channel through a {@link ChannelNotifier} batching them.
  * 
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
-@Listener
+@Listener(sync = false)
 public class CacheListener {
 	
-	private List<ChannelNotifyParams> channels = new CopyOnWriteArrayList<ChannelNotifyParams>();
+	private static final String ALL_KEYS = "*";
+	
+	private final ConcurrentMap<Object, Set<ChannelNotifyParams>> subscriptions = CollectionFactory.makeConcurrentMap();
+	private final ConcurrentMap<Channel, ChannelNotifier> notifiers = CollectionFactory.makeConcurrentMap();
 
 	@CacheEntryCreated
 	public void cacheEntryCreated(CacheEntryCreatedEvent<Object, Object> event) {
@@ -53,17 +63,27 @@ private void notifyChannels(CacheEntryEvent<Object, Object> event, Event.Type ev
 			return;
 		}
 		
+		Object key = event.getKey();
+		List<ChannelNotifyParams> interested = new ArrayList<ChannelNotifyParams>();
+		addInterested(subscriptions.get(key), eventType, interested);
+		addInterested(subscriptions.get(ALL_KEYS), eventType, interested);
+		if(interested.isEmpty()) {
+			// Nobody listens, don't even read the value
+			return;
+		}
+		
 		JSONObject jsonObject;
 		
 		try {
 			Cache<Object, Object> cache = event.getCache();
-			Object key = event.getKey();
 			Object value;
 			
 			switch(eventType) {
 			case CACHE_ENTRY_CREATED:
-				// TODO: Add optimization ... don't get from cache if non of the channels are interested in creates...
-				value = cache.get(key);
+				value = ((CacheEntryCreatedEvent<Object, Object>)event).getValue();
+				if(value == null) {
+					value = cache.get(key);
+				}
 				jsonObject = ChannelUtils.toJSON(key.toString(), value, cache.getName());
 				break;
 			case CACHE_ENTRY_MODIFIED:
@@ -83,28 +103,63 @@ private void notifyChannels(CacheEntryEvent<Object, Object> event, Event.Type ev
 		}
 
 		String jsonString = jsonObject.toString();
-		for(ChannelNotifyParams channel : channels) {
-			if(channel.channel.isOpen() && channel.onEvents.contains(eventType)) {
-				if(channel.key != null) {
-					if(event.getKey().equals(channel.key) || channel.key.equals("*")) {
-						channel.channel.write(new TextWebSocketFrame(jsonString));
-					}
-				} else {					
-					channel.channel.write(new TextWebSocketFrame(jsonString));
+		for(ChannelNotifyParams channel : interested) {
+			ChannelNotifier notifier = notifiers.get(channel.channel);
+			if(notifier != null) {
+				// Subscribing to the key and to all keys still sends the event once
+				notifier.notify(key, jsonString);
+			}
+		}
+	}
+	
+	private void addInterested(Set<ChannelNotifyParams> channels, Event.Type eventType, List<ChannelNotifyParams> interested) {
+		if(channels != null) {
+			for(ChannelNotifyParams channel : channels) {
+				if(channel.channel.isOpen() && channel.onEvents.contains(eventType)) {
+					interested.add(channel);
 				}
 			}
 		}
 	}
 	
-	public void addChannel(ChannelNotifyParams channel) {
-		if(!channels.contains(channel)) {
-			channels.add(channel);
+	public synchronized void addChannel(ChannelNotifyParams channel) {
+		Object key = channel.key == null ? ALL_KEYS : channel.key;
+		Set<ChannelNotifyParams> channels = subscriptions.get(key);
+		if(channels == null) {
+			channels = Collections.newSetFromMap(CollectionFactory.<ChannelNotifyParams, Boolean>makeConcurrentMap());
+			subscriptions.put(key, channels);
+		}
+		if(channels.add(channel) && !notifiers.containsKey(channel.channel)) {
+			notifiers.put(channel.channel, new ChannelNotifier(channel.channel));
 			channel.channel.getCloseFuture().addListener(new ChannelCloseFutureListener());
 		}
 	}
 	
-	public void removeChannel(ChannelNotifyParams channel) {
-		channels.remove(channel);
+	public synchronized void removeChannel(ChannelNotifyParams channel) {
+		Object key = channel.key == null ? ALL_KEYS : channel.key;
+		Set<ChannelNotifyParams> channels = subscriptions.get(key);
+		if(channels != null) {
+			channels.remove(channel);
+			if(channels.isEmpty()) {
+				subscriptions.remove(key);
+			}
+		}
+	}
+	
+	private synchronized void removeChannel(Channel closed) {
+		Iterator<Set<ChannelNotifyParams>> it = subscriptions.values().iterator();
+		while(it.hasNext()) {
+			Set<ChannelNotifyParams> channels = it.next();
+			for(ChannelNotifyParams channel : channels) {
+				if(channel.channel == closed) {
+					channels.remove(channel);
+				}
+			}
+			if(channels.isEmpty()) {
+				it.remove();
+			}
+		}
+		notifiers.remove(closed);
 	}
 	
 	public static class ChannelNotifyParams {
@@ -135,7 +190,7 @@ public ChannelNotifyParams(Channel channel, String key, String[] onEvents) {
 				}
 			}
 			
-			if(onEvents == null && key.equals("*")) {
+			if(onEvents == null && ALL_KEYS.equals(key)) {
 				this.onEvents.add(Event.Type.CACHE_ENTRY_CREATED);
 			}			
 		}
@@ -159,9 +214,9 @@ public boolean equals(Object obj) {
 		@Override
 		public int hashCode() {
 			if(key != null) {				
-				return super.hashCode() + channel.hashCode() + key.hashCode();
+				return channel.hashCode() + key.hashCode();
 			} else {				
-				return super.hashCode() + channel.hashCode();
+				return channel.hashCode();
 			}
 		}
 	}
@@ -170,11 +225,7 @@ private class ChannelCloseFutureListener implements ChannelFutureListener {
 
 		@Override
       public void operationComplete(ChannelFuture channelCloseFuture) throws Exception {
-			for(ChannelNotifyParams channel : channels) {
-				if(channelCloseFuture.getChannel() ==  channel.channel) {
-					removeChannel(channel);
-				}
-			}
+			removeChannel(channelCloseFuture.getChannel());
 		}		
 	}
 }
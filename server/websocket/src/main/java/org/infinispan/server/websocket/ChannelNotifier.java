@@ -0,0 +1,109 @@
+package org.infinispan.server.websocket;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.infinispan.server.websocket.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+/**
+ * Pushes the cache events to a websocket channel, with at most one frame being written at a time.
+ * <p/>
+ * The events arriving while a frame is being written are batched into the next frame, and only the latest event of
+ * each key is kept, so that a slow consumer receives fewer, bigger frames holding the latest state of the keys rather
+ * than every intermediate update. If more than {@link #MAX_PENDING_KEYS} keys are waiting, the oldest ones are dropped.
+ * <p/>
+ * A frame holding a single event is the JSON object of that event, as before, while a frame holding several events is
+ * a JSON array of them.
+ *
+ * @since 6.0
+ */
+class ChannelNotifier implements ChannelFutureListener {
+
+   private static final Log log = LogFactory.getLog(ChannelNotifier.class, Log.class);
+
+   /**
+    * The maximum number of keys whose events wait for the channel
+    */
+   static final int MAX_PENDING_KEYS = 1000;
+
+   private final Channel channel;
+   private final Map<Object, String> pending = new LinkedHashMap<Object, String>();
+   private boolean writing;
+
+   ChannelNotifier(Channel channel) {
+      this.channel = channel;
+   }
+
+   /**
+    * Queues the event of a key, replacing the event of the same key not sent yet, and writes it unless a frame is
+    * already being written.
+    */
+   void notify(Object key, String event) {
+      List<String> batch;
+      synchronized (this) {
+         pending.remove(key);
+         pending.put(key, event);
+         if (pending.size() > MAX_PENDING_KEYS) {
+            Iterator<Object> eldest = pending.keySet().iterator();
+            Object dropped = eldest.next();
+            eldest.remove();
+            log.tracef("Channel %s is too slow, dropping the event of key %s", channel, dropped);
+         }
+         if (writing) {
+            return;
+         }
+         writing = true;
+         batch = drain();
+      }
+      write(batch);
+   }
+
+   @Override
+   public void operationComplete(ChannelFuture future) {
+      List<String> batch;
+      synchronized (this) {
+         if (!future.isSuccess()) {
+            // The channel is most likely closed, so nobody listens anymore
+            pending.clear();
+         }
+         if (pending.isEmpty()) {
+            writing = false;
+            return;
+         }
+         batch = drain();
+      }
+      write(batch);
+   }
+
+   private List<String> drain() {
+      List<String> batch = new ArrayList<String>(pending.values());
+      pending.clear();
+      return batch;
+   }
+
+   private void write(List<String> batch) {
+      String frame;
+      if (batch.size() == 1) {
+         frame = batch.get(0);
+      } else {
+         StringBuilder builder = new StringBuilder("[");
+         for (String event : batch) {
+            if (builder.length() > 1) {
+               builder.append(',');
+            }
+            builder.append(event);
+         }
+         frame = builder.append(']').toString();
+      }
+      channel.write(new TextWebSocketFrame(frame)).addListener(this);
+   }
+
+}
@@ -30,19 +30,30 @@ function Cache(cacheName, wsAddress) {
       websocket.onmessage = function(event) {
          var jsonObj = JSON.parse(event.data);
 
-         if (jsonObj.value != null) {
-            if (jsonObj.mime == "application/json") {
-               var decodedObj = JSON.parse(jsonObj.value);
-               callback(jsonObj.key, decodedObj);
-            } else if (jsonObj.mime == "text/plain") {
-               callback(jsonObj.key, jsonObj.value);
+         // Several notifications may be batched in a single message
+         if (jsonObj instanceof Array) {
+            for (var i = 0; i < jsonObj.length; i++) {
+               receive(jsonObj[i]);
             }
          } else {
-            callback(jsonObj.key, null);
+            receive(jsonObj);
          }
       };
    }
 
+   function receive(jsonObj) {
+      if (jsonObj.value != null) {
+         if (jsonObj.mime == "application/json") {
+            var decodedObj = JSON.parse(jsonObj.value);
+            callback(jsonObj.key, decodedObj);
+         } else if (jsonObj.mime == "text/plain") {
+            callback(jsonObj.key, jsonObj.value);
+         }
+      } else {
+         callback(jsonObj.key, null);
+      }
+   }
+
    this.registerCallback = function (callbackFunction) {
       callback = callbackFunction;
    }
@@ -0,0 +1,79 @@
+package org.infinispan.server.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.infinispan.websocket.MockChannel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.jboss.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the batching of the events pushed to a channel.
+ *
+ * @since 6.0
+ */
+@Test (testName = "websocket.ChannelNotifierTest", groups = "unit")
+public class ChannelNotifierTest {
+
+   public void testEventsBatchedWhileWriting() {
+      SlowChannel channel = new SlowChannel();
+      ChannelNotifier notifier = new ChannelNotifier(channel);
+
+      notifier.notify("a", "{\"key\":\"a\",\"value\":1}");
+      Assert.assertEquals(channel.frames.size(), 1);
+
+      // The first frame is still being written
+      notifier.notify("b", "{\"key\":\"b\",\"value\":1}");
+      notifier.notify("a", "{\"key\":\"a\",\"value\":2}");
+      notifier.notify("a", "{\"key\":\"a\",\"value\":3}");
+      Assert.assertEquals(channel.frames.size(), 1);
+
+      channel.completeWrite();
+      Assert.assertEquals(channel.frames.size(), 2);
+      Assert.assertEquals(channel.frames.get(1), "[{\"key\":\"b\",\"value\":1},{\"key\":\"a\",\"value\":3}]");
+
+      // Nothing left to write
+      channel.completeWrite();
+      Assert.assertEquals(channel.frames.size(), 2);
+      notifier.notify("c", "{\"key\":\"c\",\"value\":1}");
+      Assert.assertEquals(channel.frames.get(2), "{\"key\":\"c\",\"value\":1}");
+   }
+
+   public void testOldestEventsDroppedForSlowChannel() {
+      SlowChannel channel = new SlowChannel();
+      ChannelNotifier notifier = new ChannelNotifier(channel);
+
+      notifier.notify("first", "\"first\"");
+      for (int i = 0; i <= ChannelNotifier.MAX_PENDING_KEYS; i++) {
+         notifier.notify(i, Integer.toString(i));
+      }
+      channel.completeWrite();
+      String batch = channel.frames.get(1);
+      Assert.assertFalse(batch.startsWith("[0,"));
+      Assert.assertTrue(batch.startsWith("[1,"));
+      Assert.assertTrue(batch.endsWith("," + ChannelNotifier.MAX_PENDING_KEYS + "]"));
+   }
+
+   /**
+    * A channel completing its writes only when told to.
+    */
+   private static class SlowChannel extends MockChannel {
+
+      private final List<String> frames = new ArrayList<String>();
+      private ChannelFuture writeFuture;
+
+      @Override
+      public ChannelFuture write(Object message) {
+         frames.add(((TextWebSocketFrame) message).getText());
+         writeFuture = new DefaultChannelFuture(this, false);
+         return writeFuture;
+      }
+
+      void completeWrite() {
+         writeFuture.setSuccess();
+      }
+   }
+}
@@ -48,9 +48,9 @@ public void test() throws JSONException {
          // Call to notify immediately pushes the value and then pushes it again later on modify...
          jsonPayload = mockChannel.getJSONPayload(1000);
          Assert.assertEquals("aVal", jsonPayload.get(OpHandler.VALUE));
-         // Modify the value should result in a push notification...
+         // Modify the value should result in a push notification, sent asynchronously...
          firstCacheClient.getCache().put("a", "aNewValue");
-         jsonPayload = mockChannel.getJSONPayload();
+         jsonPayload = mockChannel.getJSONPayload(1000);
          Assert.assertEquals("aNewValue", jsonPayload.get(OpHandler.VALUE));
          // Modify something we're not listening to... nothing should happen...
          firstCacheClient.getCache().put("b", "bNewValue");
@@ -11,6 +11,7 @@
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -85,7 +86,7 @@ public ChannelFuture write(Object message) {
 		} else {
 			throw new IllegalStateException("Expected a TextWebSocketFrame but got " + message);
 		}
-		return null;
+		return Channels.succeededFuture(this);
 	}
 
 	public JSONObject getJSONPayload() {
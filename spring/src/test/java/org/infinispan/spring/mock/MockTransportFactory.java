@@ -9,10 +9,12 @@
 import javax.net.ssl.SSLContext;
 
 import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.RequestBalancingStrategy;
 
 public final class MockTransportFactory implements TransportFactory {
 
@@ -33,6 +35,11 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
    public void updateServers(final Collection<SocketAddress> newServers) {
    }
 
+   @Override
+   public Collection<SocketAddress> getServers() {
+      return null;
+   }
+
    @Override
    public void destroy() {
    }
@@ -42,11 +49,26 @@ public void updateHashFunction(final Map<SocketAddress, Set<Integer>> servers2Ha
             final int numKeyOwners, final short hashFunctionVersion, final int hashSpace) {
    }
 
+   @Override
+   public void updateHashFunction(final SocketAddress[][] segmentOwners, final int numSegments,
+            final short hashFunctionVersion) {
+   }
+
    @Override
    public Transport getTransport(final byte[] key) {
       return null;
    }
 
+   @Override
+   public Transport getReadTransport(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Transport getTransport(final SocketAddress server) {
+      return null;
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return false;
@@ -78,8 +100,28 @@ public ConsistentHashFactory getConsistentHashFactory() {
       return null;
    }
 
+   @Override
+   public ConsistentHash getConsistentHash() {
+      return null;
+   }
+
    @Override
    public SSLContext getSSLContext() {
       return null;
    }
+
+   @Override
+   public RequestBalancingStrategy getBalancer() {
+      return null;
+   }
+
+   @Override
+   public long requestStarted(final Transport transport) {
+      return 0;
+   }
+
+   @Override
+   public void requestCompleted(final Transport transport, final long startNanos, final boolean failed,
+            final boolean sampleLatency) {
+   }
 }